@@ -0,0 +1,9 @@
+@echo off
+set JAVA_HOME=C:\PROGRA~1\JAVA\JDK-24
+set SHARD_SECRET=change-me-shard-secret
+cd c:\Temp\Study01\2-server
+call c:\Temp\apache-maven-3.9.9\bin\mvn clean install
+start "shard 8081" c:\Temp\apache-maven-3.9.9\bin\mvn spring-boot:run -Dspring-boot.run.arguments="--server.port=8081 --sharding.enabled=true --sharding.secret=%SHARD_SECRET% --sharding.local-node=http://localhost:8081 --persistence.enabled=true --persistence.directory=data-8081 --access-log.file=logs/access-8081.log"
+start "shard 8082" c:\Temp\apache-maven-3.9.9\bin\mvn spring-boot:run -Dspring-boot.run.arguments="--server.port=8082 --sharding.enabled=true --sharding.secret=%SHARD_SECRET% --sharding.local-node=http://localhost:8082 --persistence.enabled=true --persistence.directory=data-8082 --access-log.file=logs/access-8082.log"
+start "shard 8083" c:\Temp\apache-maven-3.9.9\bin\mvn spring-boot:run -Dspring-boot.run.arguments="--server.port=8083 --sharding.enabled=true --sharding.secret=%SHARD_SECRET% --sharding.local-node=http://localhost:8083 --persistence.enabled=true --persistence.directory=data-8083 --access-log.file=logs/access-8083.log"
+pause
\ No newline at end of file
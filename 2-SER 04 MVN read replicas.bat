@@ -0,0 +1,8 @@
+@echo off
+set JAVA_HOME=C:\PROGRA~1\JAVA\JDK-24
+cd c:\Temp\Study01\2-server
+call c:\Temp\apache-maven-3.9.9\bin\mvn clean install
+start "leader 8080" c:\Temp\apache-maven-3.9.9\bin\mvn spring-boot:run -Dspring-boot.run.arguments="--server.port=8080 --replication.role=leader --persistence.enabled=true"
+start "follower 8081" c:\Temp\apache-maven-3.9.9\bin\mvn spring-boot:run -Dspring-boot.run.arguments="--server.port=8081 --replication.role=follower --access-log.file=logs/access-8081.log"
+start "follower 8082" c:\Temp\apache-maven-3.9.9\bin\mvn spring-boot:run -Dspring-boot.run.arguments="--server.port=8082 --replication.role=follower --access-log.file=logs/access-8082.log"
+pause
\ No newline at end of file
@@ -0,0 +1,7 @@
+@echo off
+set JAVA_HOME=C:\PROGRA~1\JAVA\JDK-24
+cd c:\Temp\Study01\2-server
+call c:\Temp\apache-maven-3.9.9\bin\mvn clean install -Pstartup
+cd target\application
+"%JAVA_HOME%\bin\java" -XX:AOTCache=application.aot -Dspring.aot.enabled=true -jar application.jar
+pause
\ No newline at end of file
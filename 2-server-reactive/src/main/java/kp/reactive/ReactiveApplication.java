@@ -0,0 +1,29 @@
+package kp.reactive;
+
+import org.springframework.boot.WebApplicationType;
+import org.springframework.boot.autoconfigure.SpringBootApplication;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+
+import java.util.Locale;
+
+/**
+ * The web application uses web framework <b>Spring WebFlux</b>.
+ * <p>
+ * It is the reactive variant of the servlet server over the same sample dataset.
+ * The properties come from the servlet server's 'application.yaml'.
+ * </p>
+ */
+@SpringBootApplication
+public class ReactiveApplication {
+    /**
+     * The primary entry point for launching the application.
+     *
+     * @param args the command-line arguments
+     */
+    public static void main(String[] args) {
+
+        Locale.setDefault(Locale.ENGLISH);
+        new SpringApplicationBuilder(ReactiveApplication.class).web(WebApplicationType.REACTIVE).run(args);
+    }
+
+}
@@ -0,0 +1,82 @@
+package kp.reactive.configuration;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import kp.SampleDataset;
+import kp.dataset.DatasetMetrics;
+import kp.dataset.DatasetStorage;
+import kp.dataset.OffHeapDatasetRepository;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.web.embedded.netty.NettyReactiveWebServerFactory;
+import org.springframework.boot.web.reactive.server.ReactiveWebServerFactory;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import java.nio.file.Path;
+
+/**
+ * The configuration of the reactive server.
+ * <p>
+ * The sample dataset is configured by the same properties as in the servlet server.
+ * The dataset is closed when the context is closed.
+ * </p>
+ */
+@Configuration
+public class ReactiveConfiguration implements DisposableBean {
+
+    /**
+     * Creates the Netty server factory.
+     * <p>
+     * It is declared explicitly, so the server runs on the Netty event loops even when Tomcat
+     * is on the classpath too, e.g. in the benchmark comparing both servers.
+     * </p>
+     *
+     * @return the {@link ReactiveWebServerFactory}
+     */
+    @Bean
+    public ReactiveWebServerFactory createReactiveWebServerFactory() {
+        return new NettyReactiveWebServerFactory();
+    }
+
+    /**
+     * Sets the {@link DatasetStorage} on the {@link SampleDataset}.
+     *
+     * @param datasetStorage     the {@link DatasetStorage}
+     * @param offHeapDirectory   the directory of the off-heap storage files, empty to keep them in the native memory
+     * @param searchIndexEnabled the flag of the enabled search index of the employees
+     * @return the {@link DatasetStorage}
+     */
+    @Bean
+    public DatasetStorage createDatasetStorage(@Value("${dataset.storage}") DatasetStorage datasetStorage,
+                                               @Value("${dataset.off-heap.directory:}") String offHeapDirectory,
+                                               @Value("${dataset.search-index:true}") boolean searchIndexEnabled) {
+
+        OffHeapDatasetRepository.setDirectory(offHeapDirectory.isBlank() ? null : Path.of(offHeapDirectory));
+        SampleDataset.setSearchIndexEnabled(searchIndexEnabled);
+        SampleDataset.setDatasetStorage(datasetStorage);
+        return datasetStorage;
+    }
+
+    /**
+     * Creates the {@link DatasetMetrics} and sets it on the {@link SampleDataset}.
+     *
+     * @param meterRegistry the {@link MeterRegistry}
+     * @return the {@link DatasetMetrics}
+     */
+    @Bean
+    public DatasetMetrics createDatasetMetrics(MeterRegistry meterRegistry) {
+
+        final DatasetMetrics datasetMetrics = new DatasetMetrics(meterRegistry,
+                () -> SampleDataset.snapshot().repository());
+        SampleDataset.setDatasetMetrics(datasetMetrics);
+        return datasetMetrics;
+    }
+
+    /**
+     * Closes the dataset, so the off-heap storage files are marked as clean for the next startup.
+     */
+    @Override
+    public void destroy() {
+        SampleDataset.closeDataset();
+    }
+}
@@ -0,0 +1,54 @@
+package kp.reactive.controller;
+
+import kp.dataset.Page;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import reactor.core.publisher.Flux;
+
+import java.util.Objects;
+import java.util.Optional;
+
+import static kp.Constants.DATASET_VERSION_HEADER;
+import static kp.Constants.NEXT_CURSOR_HEADER;
+
+/**
+ * The reactive responses of the collection endpoints.
+ */
+final class CollectionResponses {
+
+    /**
+     * Private constructor to prevent instantiation.
+     */
+    private CollectionResponses() {
+    }
+
+    /**
+     * Creates the response with the {@link Page}.
+     * <p>
+     * The same as in the servlet server: the cursor of the next page and the dataset version are sent
+     * in the headers and the empty page is the 'Not Found' response, still with the dataset version.
+     * The items are emitted by the {@link Flux}, so the encoder writes them as they come.
+     * </p>
+     *
+     * @param pageOpt the {@link Optional} with the {@link Page}, empty for the invalid cursor
+     * @param <T>     the type of the items
+     * @return the {@link ResponseEntity}
+     */
+    static <T> ResponseEntity<Flux<T>> page(Optional<Page<T>> pageOpt) {
+
+        if (pageOpt.isEmpty()) {
+            return ResponseEntity.badRequest().build();
+        }
+        final Page<T> page = pageOpt.get();
+        if (page.items().isEmpty()) {
+            return ResponseEntity.status(HttpStatus.NOT_FOUND)
+                    .header(DATASET_VERSION_HEADER, String.valueOf(page.version())).build();
+        }
+        final ResponseEntity.BodyBuilder builder = ResponseEntity.ok()
+                .header(DATASET_VERSION_HEADER, String.valueOf(page.version()));
+        if (Objects.nonNull(page.nextCursor())) {
+            builder.header(NEXT_CURSOR_HEADER, page.nextCursor());
+        }
+        return builder.body(Flux.fromIterable(page.items()));
+    }
+}
@@ -0,0 +1,245 @@
+package kp.reactive.controller;
+
+import jakarta.validation.Valid;
+import jakarta.validation.constraints.Max;
+import jakarta.validation.constraints.Min;
+import jakarta.validation.constraints.Pattern;
+import kp.SampleDataset;
+import kp.company.api.reactive.DepartmentsApi;
+import kp.company.controller.BatchResults;
+import kp.company.model.BatchResult;
+import kp.company.model.Department;
+import kp.company.model.DepartmentBatchOperation;
+import kp.company.model.DepartmentBatchRequest;
+import kp.company.model.DepartmentMergeResult;
+import kp.company.model.Employee;
+import kp.company.model.EmployeeBatchOperation;
+import kp.company.model.EmployeeBatchRequest;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.validation.annotation.Validated;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.RequestBody;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.server.ServerWebExchange;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.lang.invoke.MethodHandles;
+import java.util.List;
+import java.util.Optional;
+
+import static kp.Constants.DEPARTMENTS_PATH;
+
+/**
+ * The reactive controller for the {@link Department}.<br/>
+ * The implementation of the reactive {@link DepartmentsApi}. The order of methods here
+ * is equals to the order of endpoints on the Swagger page.
+ * <p>
+ * The dataset is in memory, so the {@link SampleDataset} calls are short and they run on the event loop
+ * when the response is subscribed. The request bodies are decoded without blocking before the call.
+ * </p>
+ */
+@RestController
+@Validated
+public class DepartmentsController implements DepartmentsApi {
+    private static final Logger logger = LoggerFactory.getLogger(MethodHandles.lookup().lookupClass());
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public Mono<ResponseEntity<Flux<Department>>> getDepartments(
+            @Min(1) @Max(10000) @Valid @RequestParam(value = "limit", required = false) Integer limit,
+            @Pattern(regexp = "^[0-9]+(:[0-9]+)?$") @Valid @RequestParam(value = "cursor", required = false)
+            String cursor,
+            final ServerWebExchange exchange) {
+
+        logger.debug("getDepartments(): limit[{}], cursor[{}]", limit, cursor);
+        return Mono.fromSupplier(() -> CollectionResponses.page(SampleDataset.getDepartments(cursor, limit)));
+    }
+
+    /**
+     * Streams all {@link Department}s as newline-delimited JSON.
+     * <p>
+     * The {@link Department}s are pulled from the dataset as the client reads them.
+     * </p>
+     *
+     * @return the {@link Flux} of {@link Department}s
+     */
+    @GetMapping(value = DEPARTMENTS_PATH, produces = MediaType.APPLICATION_NDJSON_VALUE)
+    public Flux<Department> streamDepartments() {
+
+        logger.debug("streamDepartments():");
+        return Flux.fromStream(SampleDataset::streamDepartments);
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public Mono<ResponseEntity<Department>> createDepartment(@Valid @RequestBody Mono<Department> department,
+                                                             final ServerWebExchange exchange) {
+
+        return department.map(dep -> {
+            logger.debug("createDepartment(): department id[{}]", dep.getId());
+            return SampleDataset.putDepartment(dep).map(created -> new ResponseEntity<>(created, HttpStatus.CREATED))
+                    .orElse(ResponseEntity.badRequest().build());
+        });
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public Mono<ResponseEntity<BatchResult>> batchDepartments(
+            @Valid @RequestBody Mono<DepartmentBatchRequest> departmentBatchRequest,
+            final ServerWebExchange exchange) {
+
+        return departmentBatchRequest.map(request -> {
+            final List<DepartmentBatchOperation> operations = request.getOperations();
+            final BatchResult batchResult = BatchResults.of(SampleDataset.applyDepartmentBatch(operations),
+                    index -> Optional.ofNullable(operations.get(index)).map(operation -> Optional
+                            .ofNullable(operation.getId()).orElseGet(() -> Optional
+                                    .ofNullable(operation.getDepartment()).map(Department::getId).orElse(null)))
+                            .orElse(null));
+            logger.debug("batchDepartments(): operations[{}], failed[{}]", operations.size(),
+                    batchResult.getFailed());
+            return ResponseEntity.ok(batchResult);
+        });
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public Mono<ResponseEntity<Department>> getDepartmentById(@Min(1L) @PathVariable("depId") Long depId,
+                                                              final ServerWebExchange exchange) {
+
+        logger.debug("getDepartmentById(): department id[{}]", depId);
+        return Mono.fromSupplier(() -> SampleDataset.getDepartment(depId).map(ResponseEntity::ok)
+                .orElse(ResponseEntity.notFound().build()));
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public Mono<ResponseEntity<Void>> deleteDepartment(@Min(1L) @PathVariable("depId") Long depId,
+                                                       final ServerWebExchange exchange) {
+
+        logger.debug("deleteDepartment(): department id[{}]", depId);
+        return Mono.fromSupplier(() -> SampleDataset.removeDepartment(depId)
+                .map(_ -> ResponseEntity.noContent().<Void>build()).orElse(ResponseEntity.notFound().build()));
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public Mono<ResponseEntity<DepartmentMergeResult>> updateDepartment(@Min(1L) @PathVariable("depId") Long depId,
+                                                                        @Valid @RequestBody Mono<Department> department,
+                                                                        final ServerWebExchange exchange) {
+
+        logger.debug("updateDepartment(): department id[{}]", depId);
+        return department.map(dep -> SampleDataset.mergeDepartment(depId, dep).map(ResponseEntity::ok)
+                .orElse(ResponseEntity.notFound().build()));
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public Mono<ResponseEntity<Flux<Employee>>> getEmployeesInDepartment(@Min(1L) @PathVariable("depId") Long depId,
+                                                                         final ServerWebExchange exchange) {
+
+        logger.debug("getEmployeesInDepartment(): department id[{}]", depId);
+        return Mono.fromSupplier(() -> SampleDataset.getEmployees(depId)
+                .map(employees -> ResponseEntity.ok(Flux.fromIterable(employees)))
+                .orElse(ResponseEntity.notFound().build()));
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public Mono<ResponseEntity<Employee>> createEmployeeInDepartment(@Min(1L) @PathVariable("depId") Long depId,
+                                                                     @Valid @RequestBody Mono<Employee> employee,
+                                                                     final ServerWebExchange exchange) {
+
+        return employee.map(emp -> {
+            logger.debug("createEmployeeInDepartment(): department id[{}], employee id[{}]", depId, emp.getId());
+            return SampleDataset.putEmployee(depId, emp)
+                    .map(created -> new ResponseEntity<>(created, HttpStatus.CREATED))
+                    .orElse(ResponseEntity.badRequest().build());
+        });
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public Mono<ResponseEntity<BatchResult>> batchEmployeesInDepartment(
+            @Min(1L) @PathVariable("depId") Long depId,
+            @Valid @RequestBody Mono<EmployeeBatchRequest> employeeBatchRequest,
+            final ServerWebExchange exchange) {
+
+        return employeeBatchRequest.map(request -> {
+            final List<EmployeeBatchOperation> operations = request.getOperations();
+            logger.debug("batchEmployeesInDepartment(): department id[{}], operations[{}]", depId, operations.size());
+            return SampleDataset.applyEmployeeBatch(depId, operations)
+                    .map(statuses -> BatchResults.of(statuses,
+                            index -> Optional.ofNullable(operations.get(index)).map(operation -> Optional
+                                    .ofNullable(operation.getId()).orElseGet(() -> Optional
+                                            .ofNullable(operation.getEmployee()).map(Employee::getId).orElse(null)))
+                                    .orElse(null)))
+                    .map(ResponseEntity::ok).orElse(ResponseEntity.notFound().build());
+        });
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public Mono<ResponseEntity<Employee>> getEmployeeInDepartmentByIds(@Min(1L) @PathVariable("depId") Long depId,
+                                                                       @Min(1L) @PathVariable("empId") Long empId,
+                                                                       final ServerWebExchange exchange) {
+
+        logger.debug("getEmployeeInDepartmentByIds(): department id[{}], employee id[{}]", depId, empId);
+        return Mono.fromSupplier(() -> SampleDataset.getEmployee(depId, empId).map(ResponseEntity::ok)
+                .orElse(ResponseEntity.notFound().build()));
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public Mono<ResponseEntity<Void>> deleteEmployeeInDepartment(@Min(1L) @PathVariable("depId") Long depId,
+                                                                 @Min(1L) @PathVariable("empId") Long empId,
+                                                                 final ServerWebExchange exchange) {
+
+        logger.debug("deleteEmployeeInDepartment(): department id[{}], employee id[{}]", depId, empId);
+        return Mono.fromSupplier(() -> SampleDataset.removeEmployee(depId, empId)
+                .map(_ -> ResponseEntity.noContent().<Void>build()).orElse(ResponseEntity.notFound().build()));
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public Mono<ResponseEntity<Void>> updateEmployeeInDepartment(@Min(1L) @PathVariable("depId") Long depId,
+                                                                 @Min(1L) @PathVariable("empId") Long empId,
+                                                                 @Valid @RequestBody Mono<Employee> employee,
+                                                                 final ServerWebExchange exchange) {
+
+        logger.debug("updateEmployeeInDepartment(): department id[{}], employee id[{}]", depId, empId);
+        return employee.map(emp -> SampleDataset.mergeEmployee(depId, empId, emp)
+                .map(_ -> ResponseEntity.noContent().<Void>build()).orElse(ResponseEntity.notFound().build()));
+    }
+
+}
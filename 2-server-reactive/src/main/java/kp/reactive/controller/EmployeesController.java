@@ -0,0 +1,138 @@
+package kp.reactive.controller;
+
+import jakarta.validation.Valid;
+import jakarta.validation.constraints.Max;
+import jakarta.validation.constraints.Min;
+import jakarta.validation.constraints.Pattern;
+import jakarta.validation.constraints.Size;
+import kp.SampleDataset;
+import kp.company.api.reactive.EmployeesApi;
+import kp.company.model.Employee;
+import kp.company.model.Title;
+import kp.dataset.DatasetSnapshot;
+import kp.dataset.EmployeeQuery;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.validation.annotation.Validated;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.server.ServerWebExchange;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.lang.invoke.MethodHandles;
+import java.util.List;
+import java.util.Objects;
+import java.util.Optional;
+
+import static kp.Constants.DATASET_VERSION_HEADER;
+import static kp.Constants.EMPLOYEES_PATH;
+
+/**
+ * The reactive controller for the {@link Employee}.<br/>
+ * The implementation of the reactive {@link EmployeesApi}.
+ * <p>
+ * Without the limit and the cursor all {@link Employee}s are streamed with the {@link Flux}:
+ * they are pulled from the dataset snapshot as the client reads them, never copied to the list.
+ * </p>
+ */
+@RestController
+@Validated
+public class EmployeesController implements EmployeesApi {
+    private static final Logger logger = LoggerFactory.getLogger(MethodHandles.lookup().lookupClass());
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public Mono<ResponseEntity<Flux<Employee>>> getEmployees(
+            @Min(1) @Max(10000) @Valid @RequestParam(value = "limit", required = false) Integer limit,
+            @Pattern(regexp = "^[0-9]+(:[0-9]+)?$") @Valid @RequestParam(value = "cursor", required = false)
+            String cursor,
+            final ServerWebExchange exchange) {
+
+        logger.debug("getEmployees(): limit[{}], cursor[{}]", limit, cursor);
+        if (Objects.nonNull(limit) || Objects.nonNull(cursor)) {
+            return Mono.fromSupplier(() -> CollectionResponses.page(SampleDataset.getEmployees(cursor, limit)));
+        }
+        return Mono.fromSupplier(() -> {
+            final DatasetSnapshot datasetSnapshot = SampleDataset.snapshot();
+            if (datasetSnapshot.repository().countEmployees() == 0) {
+                return ResponseEntity.status(HttpStatus.NOT_FOUND)
+                        .header(DATASET_VERSION_HEADER, String.valueOf(datasetSnapshot.version())).build();
+            }
+            return ResponseEntity.ok().header(DATASET_VERSION_HEADER, String.valueOf(datasetSnapshot.version()))
+                    .body(employeesOf(datasetSnapshot));
+        });
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public Mono<ResponseEntity<Flux<Employee>>> searchEmployees(
+            @Valid @RequestParam(value = "title", required = false) Title title,
+            @Min(1L) @Valid @RequestParam(value = "departmentId", required = false) Long departmentId,
+            @Pattern(regexp = "^[A-Za-z0-9 -_]+") @Size(max = 25) @Valid
+            @RequestParam(value = "firstNamePrefix", required = false) String firstNamePrefix,
+            @Pattern(regexp = "^[A-Za-z0-9 -_]+") @Size(max = 25) @Valid
+            @RequestParam(value = "lastNamePrefix", required = false) String lastNamePrefix,
+            @Min(1L) @Valid @RequestParam(value = "minId", required = false) Long minId,
+            @Min(1L) @Valid @RequestParam(value = "maxId", required = false) Long maxId,
+            @Min(1) @Max(10000) @Valid @RequestParam(value = "limit", required = false) Integer limit,
+            @Pattern(regexp = "^[0-9]+(:[0-9]+)?$") @Valid @RequestParam(value = "cursor", required = false)
+            String cursor,
+            final ServerWebExchange exchange) {
+
+        final EmployeeQuery query = new EmployeeQuery(title, departmentId, firstNamePrefix, lastNamePrefix,
+                minId, maxId);
+        logger.debug("searchEmployees(): query[{}], limit[{}], cursor[{}]", query, limit, cursor);
+        return Mono.fromSupplier(() -> CollectionResponses.page(SampleDataset.searchEmployees(query, cursor, limit)));
+    }
+
+    /**
+     * Streams all {@link Employee}s as newline-delimited JSON.
+     * <p>
+     * The {@link Employee}s are pulled from the dataset as the client reads them.
+     * </p>
+     *
+     * @return the {@link Flux} of {@link Employee}s
+     */
+    @GetMapping(value = EMPLOYEES_PATH, produces = MediaType.APPLICATION_NDJSON_VALUE)
+    public Flux<Employee> streamEmployees() {
+
+        logger.debug("streamEmployees():");
+        return Flux.fromStream(SampleDataset::streamEmployees);
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public Mono<ResponseEntity<Employee>> getEmployeeById(@Min(1L) @PathVariable("empId") Long empId,
+                                                          final ServerWebExchange exchange) {
+
+        logger.debug("getEmployeeById(): employee id[{}]", empId);
+        return Mono.fromSupplier(() -> SampleDataset.getEmployee(empId).map(ResponseEntity::ok)
+                .orElse(ResponseEntity.notFound().build()));
+    }
+
+    /**
+     * Streams the {@link Employee}s of the dataset snapshot in the order of the {@link kp.company.model.Department}s,
+     * the same as the pages.
+     *
+     * @param datasetSnapshot the {@link DatasetSnapshot}
+     * @return the {@link Flux} of {@link Employee}s
+     */
+    private static Flux<Employee> employeesOf(DatasetSnapshot datasetSnapshot) {
+
+        return Flux.fromStream(() -> datasetSnapshot.repository().streamDepartments(Long.MIN_VALUE)
+                .flatMap(dep -> Optional.ofNullable(dep.getEmployees()).stream().flatMap(List::stream)));
+    }
+
+}
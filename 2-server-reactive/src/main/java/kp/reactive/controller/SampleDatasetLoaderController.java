@@ -0,0 +1,65 @@
+package kp.reactive.controller;
+
+import jakarta.validation.constraints.Max;
+import jakarta.validation.constraints.Min;
+import kp.Constants;
+import kp.SampleDataset;
+import kp.company.model.Department;
+import kp.company.model.Employee;
+import kp.dataset.LoadReport;
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+import org.springframework.validation.annotation.Validated;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+import reactor.core.publisher.Mono;
+import reactor.core.scheduler.Schedulers;
+
+import java.lang.invoke.MethodHandles;
+import java.util.Optional;
+
+import static kp.Constants.DEP_INDEX_LOWER_BOUND;
+import static kp.Constants.DEP_INDEX_MAX_BOUND;
+import static kp.Constants.DEP_INDEX_UPPER_BOUND;
+import static kp.Constants.EMP_INDEX_LOWER_BOUND;
+import static kp.Constants.EMP_INDEX_MAX_BOUND;
+import static kp.Constants.EMP_INDEX_UPPER_BOUND;
+
+/**
+ * The sample dataset loader controller.
+ * <p>
+ * The loading takes seconds of the CPU, so it runs on the bounded elastic scheduler, not on the event loop.
+ * The bounds are validated like in the servlet server.
+ * </p>
+ */
+@RestController
+@Validated
+public class SampleDatasetLoaderController {
+    private static final Log logger = LogFactory.getLog(MethodHandles.lookup().lookupClass().getName());
+
+    /**
+     * Loads the {@link SampleDataset} for the {@link Department}s with the
+     * {@link Employee}s.
+     *
+     * @param depIndex the {@link Department}'s index upper bound
+     * @param empIndex the {@link Employee}'s index upper bound
+     * @return the dataset loading confirmation response
+     */
+    @GetMapping(Constants.LOAD_SAMPLE_DATASET_PATH)
+    public Mono<String> loadSampleDataset(
+            @Min(DEP_INDEX_LOWER_BOUND) @Max(DEP_INDEX_MAX_BOUND) @RequestParam(required = false) Long depIndex,
+            @Min(EMP_INDEX_LOWER_BOUND) @Max(EMP_INDEX_MAX_BOUND) @RequestParam(required = false) Long empIndex) {
+
+        return Mono.fromSupplier(() -> {
+            final LoadReport report = SampleDataset.loadDataset(
+                    Optional.ofNullable(depIndex).orElse(DEP_INDEX_UPPER_BOUND),
+                    Optional.ofNullable(empIndex).orElse(EMP_INDEX_UPPER_BOUND));
+            final String reportText = Constants.LOAD_SAMPLE_DATASET_REPORT.formatted(report.departments(),
+                    report.employees(), report.elapsedMillis(), report.recordsPerSecond());
+            logger.info("loadSampleDataset():" + reportText);
+            return Constants.LOAD_SAMPLE_DATASET_RESULT + reportText;
+        }).subscribeOn(Schedulers.boundedElastic());
+    }
+
+}
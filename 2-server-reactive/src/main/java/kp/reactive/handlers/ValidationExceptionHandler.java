@@ -0,0 +1,36 @@
+package kp.reactive.handlers;
+
+import jakarta.validation.ConstraintViolationException;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ProblemDetail;
+import org.springframework.web.bind.annotation.ControllerAdvice;
+import org.springframework.web.bind.annotation.ExceptionHandler;
+import org.springframework.web.reactive.result.method.annotation.ResponseEntityExceptionHandler;
+
+import java.lang.invoke.MethodHandles;
+
+/**
+ * The exception handler for web requests validation.
+ * <p>
+ * The validation constraints are defined in the 'openapi.yaml' file.
+ * </p>
+ */
+@ControllerAdvice
+public class ValidationExceptionHandler extends ResponseEntityExceptionHandler {
+    private static final Logger logger = LoggerFactory.getLogger(MethodHandles.lookup().lookupClass());
+
+    /**
+     * Customize the response for the {@link ConstraintViolationException}.
+     *
+     * @param exception the {@link ConstraintViolationException}
+     * @return the {@link ProblemDetail} with the 'Bad Request' status
+     */
+    @ExceptionHandler(ConstraintViolationException.class)
+    protected ProblemDetail handleConstraintViolation(ConstraintViolationException exception) {
+
+        logger.warn("handleConstraintViolation(): ConstraintViolationException[{}]", exception.getMessage());
+        return ProblemDetail.forStatusAndDetail(HttpStatus.BAD_REQUEST, exception.getMessage());
+    }
+}
@@ -12,14 +12,39 @@ public final class Constants {
     public static final long DEP_INDEX_UPPER_BOUND = 2;
     public static final long EMP_INDEX_LOWER_BOUND = 1;
     public static final long EMP_INDEX_UPPER_BOUND = 2;
+    /*
+     * The largest bounds accepted by the loading of the sample dataset. The employee's index stays within
+     * the hundred employees of the department id scheme.
+     */
+    public static final long DEP_INDEX_MAX_BOUND = 20_000;
+    public static final long EMP_INDEX_MAX_BOUND = 100;
 
-    public static final LongFunction<String> DEP_NAME_FUN = "D-Name-%02d"::formatted;
+    /*
+     * The names are built by the string concatenation, which is much cheaper than the 'String::formatted'.
+     */
+    public static final LongFunction<String> DEP_NAME_FUN =
+            depIndex -> depIndex >= 0 && depIndex < 10 ? "D-Name-0" + depIndex : "D-Name-" + depIndex;
     public static final LongBinaryOperator EMP_INDEX_FUN = (depIndex, empIndex) -> 100 * depIndex + empIndex;
-    public static final LongFunction<String> EMP_F_NAME_FUN = "EF-Name-%d"::formatted;
-    public static final LongFunction<String> EMP_L_NAME_FUN = "EL-Name-%d"::formatted;
+    public static final LongFunction<String> EMP_F_NAME_FUN = empIndex -> "EF-Name-" + empIndex;
+    public static final LongFunction<String> EMP_L_NAME_FUN = empIndex -> "EL-Name-" + empIndex;
     private static final String ROOT = "/";
     public static final String LOAD_SAMPLE_DATASET_PATH = ROOT + "loadSampleDataset";
     public static final String LOAD_SAMPLE_DATASET_RESULT = "The sample dataset was loaded with success.";
+    public static final String LOAD_SAMPLE_DATASET_REPORT =
+            " Departments[%d], employees[%d], time[%d ms], records per second[%d].";
+    public static final String DEPARTMENTS_PATH = ROOT + "departments";
+    public static final String EMPLOYEES_PATH = ROOT + "employees";
+    public static final String CHANGES_PATH = ROOT + "changes";
+    public static final String LAST_EVENT_ID_HEADER = "Last-Event-ID";
+    public static final String NEXT_CURSOR_HEADER = "X-Next-Cursor";
+    public static final String DATASET_VERSION_HEADER = "X-Dataset-Version";
+    public static final String CURSOR_SEPARATOR = ":";
+    public static final String SHARD_FORWARDED_HEADER = "X-Shard-Forwarded";
+    public static final String REPLICA_STALENESS_HEADER = "X-Replica-Staleness";
+    /**
+     * The condition of the beans writing the dataset's own mutations, which the read replica must not have.
+     */
+    public static final String NOT_REPLICA_CONDITION = "'${replication.role:none}' != 'follower'";
 
     private Constants() {
         throw new IllegalStateException("Utility class");
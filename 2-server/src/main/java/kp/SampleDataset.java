@@ -1,14 +1,49 @@
 package kp;
 
+import kp.company.model.BatchItemStatus;
 import kp.company.model.Department;
+import kp.company.model.DepartmentBatchOperation;
+import kp.company.model.DepartmentMergeResult;
 import kp.company.model.Employee;
+import kp.company.model.EmployeeBatchOperation;
 import kp.company.model.Title;
+import kp.dataset.DatasetMetrics;
+import kp.dataset.DatasetMutation;
+import kp.dataset.DatasetMutation.DatasetLoaded;
+import kp.dataset.DatasetMutation.DepartmentRemoved;
+import kp.dataset.DatasetMutation.DepartmentRenamed;
+import kp.dataset.DatasetMutation.DepartmentSaved;
+import kp.dataset.DatasetMutation.EmployeeRemoved;
+import kp.dataset.DatasetMutation.EmployeeSaved;
+import kp.dataset.DatasetOperation;
+import kp.dataset.DatasetRepository;
+import kp.dataset.DatasetSnapshot;
+import kp.dataset.DatasetStorage;
+import kp.dataset.EmployeeMatch;
+import kp.dataset.EmployeeQuery;
+import kp.dataset.EmployeeSearchIndex;
+import kp.dataset.LoadReport;
+import kp.dataset.MutationListener;
+import kp.dataset.Page;
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
 
-import java.util.*;
-import java.util.function.BinaryOperator;
+import java.lang.invoke.MethodHandles;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.AtomicReference;
 import java.util.function.Function;
-import java.util.function.Predicate;
-import java.util.stream.Collectors;
+import java.util.function.LongFunction;
+import java.util.function.LongPredicate;
+import java.util.function.LongSupplier;
+import java.util.function.Supplier;
 import java.util.stream.LongStream;
 import java.util.stream.Stream;
 
@@ -33,12 +68,46 @@ import static kp.Constants.*;
  * <li>Employee
  * </ol>
  * </ol>
+ * <p>
+ * The dataset is kept in the thread-safe {@link DatasetRepository} of the current {@link DatasetSnapshot}.
+ * The {@link DatasetStorage} decides how the {@link DatasetRepository} keeps the {@link Employee}s.
+ * Every successful write is reported to the registered {@link MutationListener}s.
+ * The listener is called while the writer holds the lock of the {@link DatasetRepository},
+ * so it must neither block nor throw. The failing listener is logged and skipped, the other listeners
+ * still see the mutation. The listener making the writer wait, e.g. for the durability of the mutation,
+ * defers the wait with the {@link #deferCommit(CompletableFuture)}, and the writer waits after its write
+ * has released the lock.
+ * </p>
+ * <p>
+ * The {@link EmployeeSearchIndex} of the snapshot is built before the snapshot is published
+ * and every write to the current snapshot is applied to it.
+ * </p>
+ * <p>
+ * The operations are timed by the {@link DatasetMetrics}. The streaming operations are not timed,
+ * because their work is done later by the consumer of the stream.
+ * </p>
+ * <p>
+ * The sharded server keeps only the {@link Department}s passing the department filter.
+ * </p>
  */
 public class SampleDataset {
+    private static final Log logger = LogFactory.getLog(MethodHandles.lookup().lookupClass().getName());
 
-    private static final Map<Long, Department> departmentMap = new TreeMap<>();
-    private static long depIndexUpperBound = DEP_INDEX_UPPER_BOUND;
-    private static long empIndexUpperBound = EMP_INDEX_UPPER_BOUND;
+    private static final Title[] TITLES = Title.values();
+    private static final long INSTANCE_EPOCH = System.currentTimeMillis();
+    private static final String VERSION_TAG_FORMAT = "%x-%d-%d";
+    private static final Comparator<Employee> EMPLOYEE_ID_ORDER =
+            Comparator.comparing(Employee::getId, Comparator.nullsFirst(Comparator.naturalOrder()));
+    private static final List<MutationListener> mutationListeners = new CopyOnWriteArrayList<>();
+    private static final ThreadLocal<List<CompletableFuture<Void>>> pendingCommits =
+            ThreadLocal.withInitial(ArrayList::new);
+    private static final ThreadLocal<Boolean> replaying = ThreadLocal.withInitial(() -> false);
+    private static volatile DatasetMetrics datasetMetrics = DatasetMetrics.NONE;
+    private static volatile DatasetStorage datasetStorage = DatasetStorage.OBJECTS;
+    private static volatile boolean searchIndexEnabled;
+    private static volatile LongPredicate departmentFilter = _ -> true;
+    private static final AtomicReference<DatasetSnapshot> currentSnapshot =
+            new AtomicReference<>(new DatasetSnapshot(1, createRepository(1)));
 
     /**
      * Private constructor to prevent instantiation.
@@ -46,18 +115,295 @@ public class SampleDataset {
     private SampleDataset() {
     }
 
+    /**
+     * Gets the current {@link DatasetSnapshot}.
+     * <p>
+     * The reader needing many consistent calls takes the snapshot once and uses its repository.
+     * </p>
+     *
+     * @return the {@link DatasetSnapshot}
+     */
+    public static DatasetSnapshot snapshot() {
+        return currentSnapshot.get();
+    }
+
     /**
      * Loads the sample dataset.
+     * <p>
+     * The new dataset is generated aside and then it is published as the next {@link DatasetSnapshot}.
+     * The readers see either the previous or the new dataset, never the partially loaded one.
+     * The writes to the previous dataset done during the loading are discarded with it.
+     * </p>
+     * <p>
+     * The {@link DatasetLoaded} mutation is reported before the publication,
+     * so it precedes every mutation of the new dataset.
+     * </p>
      *
      * @param depIndex the {@link Department}'s index upper bound
      * @param empIndex the {@link Employee}'s index upper bound
+     * @return the {@link LoadReport}
      */
-    public static void loadDataset(long depIndex, long empIndex) {
+    public static LoadReport loadDataset(long depIndex, long empIndex) {
 
-        depIndexUpperBound = depIndex;
-        empIndexUpperBound = empIndex;
-        departmentMap.clear();
-        generateDepartments();
+        final LoadReport report = loadDatasetSynchronized(depIndex, empIndex);
+        awaitCommits();
+        return report;
+    }
+
+    /**
+     * Loads the sample dataset while holding the lock of the class.
+     *
+     * @param depIndex the {@link Department}'s index upper bound
+     * @param empIndex the {@link Employee}'s index upper bound
+     * @return the {@link LoadReport}
+     */
+    private static synchronized LoadReport loadDatasetSynchronized(long depIndex, long empIndex) {
+
+        final long start = System.nanoTime();
+        final long version = currentSnapshot.get().version() + 1;
+        final DatasetRepository generated = generateDepartments(depIndex, empIndex, version);
+        final long departments = generated.countDepartments();
+        final long employees = generated.countEmployees();
+        notifyListeners(version, new DatasetLoaded(depIndex, empIndex));
+        currentSnapshot.set(createSnapshot(version, generated));
+        datasetMetrics.record(DatasetOperation.LOAD_DATASET, start, true);
+        return new LoadReport(departments, employees, System.nanoTime() - start);
+    }
+
+    /**
+     * Restores the dataset from the {@link Department}s read from the storage.
+     * <p>
+     * The {@link Department}s are loaded in parallel and published as the {@link DatasetSnapshot}
+     * with the given version. The {@link MutationListener}s are not notified.
+     * </p>
+     *
+     * @param version     the version of the {@link DatasetSnapshot}
+     * @param departments the stream of {@link Department}s
+     */
+    public static synchronized void restoreDataset(long version, Stream<Department> departments) {
+
+        final DatasetRepository restored = createRepository(version);
+        departments.parallel().forEach(restored::loadDepartment);
+        currentSnapshot.set(createSnapshot(version, restored));
+    }
+
+    /**
+     * Replays the {@link DatasetMutation} read from the log at the recovery.
+     * <p>
+     * The mutation is applied like by the {@link #applyMutation(long, DatasetMutation)}, but the registered
+     * {@link MutationListener}s are not notified, no matter whether they were registered before the recovery.
+     * The replayed mutation happened before the restart, so it is neither published as the change event
+     * nor counted again. The {@link EmployeeSearchIndex} is still updated.
+     * </p>
+     *
+     * @param version  the version of the {@link DatasetSnapshot} which was changed
+     * @param mutation the {@link DatasetMutation}
+     */
+    public static synchronized void replayMutation(long version, DatasetMutation mutation) {
+
+        replaying.set(true);
+        try {
+            applyMutation(version, mutation);
+        } finally {
+            replaying.remove();
+        }
+    }
+
+    /**
+     * Applies the {@link DatasetMutation} read from the storage or received from the replication leader.
+     * <p>
+     * The mutation of the older version was done on the discarded dataset, so it is skipped.
+     * Every mutation carries the resulting state, so applying it again is harmless.
+     * The applied mutation is reported to the registered {@link MutationListener}s like every write.
+     * </p>
+     *
+     * @param version  the version of the {@link DatasetSnapshot} which was changed
+     * @param mutation the {@link DatasetMutation}
+     */
+    public static synchronized void applyMutation(long version, DatasetMutation mutation) {
+
+        try {
+            applyMutationUnacknowledged(version, mutation);
+        } finally {
+            pendingCommits.remove();
+        }
+    }
+
+    /**
+     * Applies the {@link DatasetMutation} read from the storage without waiting for its commit.
+     *
+     * @param version  the version of the {@link DatasetSnapshot} which was changed
+     * @param mutation the {@link DatasetMutation}
+     */
+    private static void applyMutationUnacknowledged(long version, DatasetMutation mutation) {
+
+        final DatasetSnapshot datasetSnapshot = currentSnapshot.get();
+        if (version < datasetSnapshot.version()) {
+            return;
+        }
+        final DatasetRepository repository = datasetSnapshot.repository();
+        switch (mutation) {
+            case DatasetLoaded(long depIndex, long empIndex) -> {
+                if (version > datasetSnapshot.version()) {
+                    currentSnapshot.set(createSnapshot(version, generateDepartments(depIndex, empIndex, version)));
+                }
+            }
+            case DepartmentSaved(Department department) -> {
+                repository.removeDepartment(department.getId());
+                repository.putDepartment(department);
+            }
+            case DepartmentRenamed(long departmentId, String name) ->
+                    repository.getDepartment(departmentId).ifPresent(
+                            _ -> repository.mergeDepartment(departmentId, new Department().name(name)));
+            case DepartmentRemoved(long departmentId) -> repository.removeDepartment(departmentId);
+            case EmployeeSaved(long departmentId, Employee employee) ->
+                    repository.mergeEmployee(departmentId, employee.getId(), employee);
+            case EmployeeRemoved(long departmentId, long employeeId) ->
+                    repository.removeEmployee(departmentId, employeeId);
+        }
+    }
+
+    /**
+     * Registers the {@link MutationListener}.
+     *
+     * @param listener the {@link MutationListener}
+     */
+    public static void addMutationListener(MutationListener listener) {
+        mutationListeners.add(listener);
+    }
+
+    /**
+     * Unregisters the {@link MutationListener}.
+     *
+     * @param listener the {@link MutationListener}
+     */
+    public static void removeMutationListener(MutationListener listener) {
+        mutationListeners.remove(listener);
+    }
+
+    /**
+     * Defers the wait for the commit of the mutation until the write has released the lock.
+     * <p>
+     * It is called by the {@link MutationListener} on the writer's thread. The write of the sample dataset
+     * returns after all its deferred commits are completed, and it fails if any of them has failed.
+     * </p>
+     *
+     * @param commit the {@link CompletableFuture} completed when the mutation is committed
+     */
+    public static void deferCommit(CompletableFuture<Void> commit) {
+        pendingCommits.get().add(commit);
+    }
+
+    /**
+     * Sets the {@link DatasetMetrics} timing the operations and counting the mutations.
+     *
+     * @param metrics the {@link DatasetMetrics}
+     */
+    public static synchronized void setDatasetMetrics(DatasetMetrics metrics) {
+
+        mutationListeners.remove(datasetMetrics);
+        datasetMetrics = metrics;
+        mutationListeners.add(metrics);
+    }
+
+    /**
+     * Sets the {@link DatasetStorage} of the {@link DatasetRepository}.
+     * <p>
+     * The dataset kept by the new storage over the restart replaces the current dataset.
+     * Otherwise, the current dataset is copied into the repository of the new storage with the same version.
+     * The modification counters start again, so it is meant to be called at the startup,
+     * before any version tag is issued.
+     * </p>
+     *
+     * @param storage the {@link DatasetStorage}
+     */
+    public static synchronized void setDatasetStorage(DatasetStorage storage) {
+
+        if (storage == datasetStorage) {
+            return;
+        }
+        datasetStorage = storage;
+        final Optional<DatasetSnapshot> reopenedOpt = storage.reopenSnapshot(SampleDataset::notifyListeners);
+        if (reopenedOpt.isPresent()) {
+            currentSnapshot.set(createSnapshot(reopenedOpt.get().version(), reopenedOpt.get().repository()));
+            return;
+        }
+        final DatasetSnapshot datasetSnapshot = currentSnapshot.get();
+        final DatasetRepository copied = createRepository(datasetSnapshot.version());
+        datasetSnapshot.repository().streamDepartments(Long.MIN_VALUE).forEach(copied::loadDepartment);
+        currentSnapshot.set(createSnapshot(datasetSnapshot.version(), copied));
+    }
+
+    /**
+     * Enables or disables the {@link EmployeeSearchIndex}.
+     * <p>
+     * The index of the current dataset is built or dropped at once. The writes done meanwhile
+     * may be missing from the index, so it is meant to be called at the startup.
+     * Without the index the search scans all {@link Employee}s.
+     * </p>
+     *
+     * @param enabled the flag of the enabled {@link EmployeeSearchIndex}
+     */
+    public static synchronized void setSearchIndexEnabled(boolean enabled) {
+
+        if (enabled == searchIndexEnabled) {
+            return;
+        }
+        searchIndexEnabled = enabled;
+        final DatasetSnapshot datasetSnapshot = currentSnapshot.get();
+        currentSnapshot.set(createSnapshot(datasetSnapshot.version(), datasetSnapshot.repository()));
+    }
+
+    /**
+     * Sets the filter of the {@link Department}s kept by this server.
+     * <p>
+     * The loading of the sample dataset generates only the {@link Department}s passing the filter.
+     * The current dataset is not filtered, so it is meant to be called at the startup.
+     * </p>
+     *
+     * @param filter the filter of the {@link Department}'s ids
+     */
+    public static void setDepartmentFilter(LongPredicate filter) {
+        departmentFilter = filter;
+    }
+
+    /**
+     * Closes the {@link DatasetRepository} of the current dataset at the shutdown.
+     */
+    public static synchronized void closeDataset() {
+        currentSnapshot.get().repository().close();
+    }
+
+    /**
+     * Gets the version tag of the collections of {@link Department}s and {@link Employee}s.
+     * <p>
+     * The tag changes on every write and every loading of the dataset. It holds the start time of the server,
+     * so the tags issued before the restart never match the recovered dataset.
+     * </p>
+     *
+     * @return the version tag
+     */
+    public static String getCollectionVersionTag() {
+
+        final DatasetSnapshot snapshot = currentSnapshot.get();
+        return VERSION_TAG_FORMAT.formatted(INSTANCE_EPOCH, snapshot.version(),
+                snapshot.repository().getModificationCount());
+    }
+
+    /**
+     * Gets the version tag of the {@link Department} with its {@link Employee}s.
+     * <p>
+     * The tag changes on every write to this {@link Department} and every loading of the dataset.
+     * </p>
+     *
+     * @param departmentId the {@link Department}'s id
+     * @return the version tag
+     */
+    public static String getDepartmentVersionTag(Long departmentId) {
+
+        final DatasetSnapshot snapshot = currentSnapshot.get();
+        return VERSION_TAG_FORMAT.formatted(INSTANCE_EPOCH, snapshot.version(),
+                snapshot.repository().getDepartmentVersion(departmentId));
     }
 
     /**
@@ -68,41 +414,26 @@ public class SampleDataset {
      */
     public static Optional<Department> putDepartment(Department department) {
 
-        if (Objects.isNull(department) || Objects.isNull(department.getId())
-            || Objects.nonNull(departmentMap.get(department.getId()))) {
+        if (Objects.isNull(department) || Objects.isNull(department.getId())) {
             return Optional.empty();
         }
-        departmentMap.put(department.getId(), department);
-        return Optional.of(department);
+        return written(DatasetOperation.PUT_DEPARTMENT, () -> repository().putDepartment(department));
     }
 
     /**
-     * Updates the {@link Department} in the sample dataset.
+     * Merges the patch into the {@link Department} in the sample dataset.
      *
      * @param id         the {@link Department}'s id
-     * @param department the {@link Department}
-     * @return the {@link Optional} with the {@link Department}
+     * @param department the merge patch {@link Department}
+     * @return the {@link Optional} with the {@link DepartmentMergeResult}
      */
-    public static Optional<Department> mergeDepartment(Long id, Department department) {
+    public static Optional<DepartmentMergeResult> mergeDepartment(Long id, Department department) {
 
         if (Objects.isNull(id) || Objects.isNull(department)) {
             return Optional.empty();
         }
-        department.setId(id);
-        final BinaryOperator<Department> mapper = (existingDep, updatedDep) -> {
-            Optional.ofNullable(updatedDep.getName()).ifPresent(existingDep::setName);
-            if (Objects.isNull(existingDep.getEmployees()) || Objects.isNull(updatedDep.getEmployees())) {
-                return existingDep;
-            }
-            final Map<Long, Employee> existingEmpMap = existingDep.getEmployees().stream()
-                    .collect(Collectors.toMap(Employee::getId, Function.identity()));
-            final Map<Long, Employee> updatedEmpMap = updatedDep.getEmployees().stream()
-                    .collect(Collectors.toMap(Employee::getId, Function.identity()));
-            existingEmpMap.keySet().stream().filter(updatedEmpMap::containsKey)
-                    .forEach(key -> mergeEmployee(id, key, updatedEmpMap.get(key)));
-            return existingDep;
-        };
-        return Optional.of(departmentMap.merge(id, department, mapper));
+        return written(DatasetOperation.MERGE_DEPARTMENT,
+                () -> Optional.of(repository().mergeDepartment(id, department)));
     }
 
     /**
@@ -112,7 +443,25 @@ public class SampleDataset {
      * @return the {@link Optional} with the {@link Department}
      */
     public static Optional<Department> removeDepartment(Long id) {
-        return Optional.ofNullable(id).map(departmentMap::remove);
+        return written(DatasetOperation.REMOVE_DEPARTMENT,
+                () -> Optional.ofNullable(id).flatMap(repository()::removeDepartment));
+    }
+
+    /**
+     * Applies the batch of operations on the {@link Department}s in the sample dataset.
+     *
+     * @param operations the list of {@link DepartmentBatchOperation}s
+     * @return the list of {@link BatchItemStatus}es in the order of the operations
+     */
+    public static List<BatchItemStatus> applyDepartmentBatch(List<DepartmentBatchOperation> operations) {
+        if (Objects.isNull(operations)) {
+            return List.of();
+        }
+        final long start = System.nanoTime();
+        final List<BatchItemStatus> statuses = repository().applyDepartmentBatch(operations);
+        awaitCommits();
+        datasetMetrics.record(DatasetOperation.APPLY_DEPARTMENT_BATCH, start, true);
+        return statuses;
     }
 
     /**
@@ -121,7 +470,68 @@ public class SampleDataset {
      * @return the list of {@link Department}s
      */
     public static List<Department> getDepartments() {
-        return departmentMap.values().stream().toList();
+
+        final long start = System.nanoTime();
+        final List<Department> departments = repository().getDepartments();
+        datasetMetrics.record(DatasetOperation.GET_DEPARTMENTS, start, !departments.isEmpty());
+        return departments;
+    }
+
+    /**
+     * Gets the page of {@link Department}s from the sample dataset.
+     * <p>
+     * The cursor is the id of the last {@link Department} on the previous page.
+     * </p>
+     *
+     * @param cursor the cursor, {@code null} for the first page
+     * @param limit  the maximum number of {@link Department}s, {@code null} for all
+     * @return the {@link Optional} with the {@link Page} of {@link Department}s, empty for the invalid cursor
+     */
+    public static Optional<Page<Department>> getDepartments(String cursor, Integer limit) {
+
+        return timed(DatasetOperation.GET_DEPARTMENTS, () -> {
+            final DatasetSnapshot datasetSnapshot = snapshot();
+            return pageDepartments(datasetSnapshot.repository()::streamDepartments, datasetSnapshot::version,
+                    cursor, limit);
+        });
+    }
+
+    /**
+     * Cuts the page of {@link Department}s from the source streaming them in the order of their ids.
+     * <p>
+     * The cursor is the id of the last {@link Department} on the previous page.
+     * The source streams the {@link Department}s following the given {@link Department}'s id.
+     * The version is taken after the page is read from the source.
+     * </p>
+     *
+     * @param source  the source of the {@link Department}s
+     * @param version the supplier of the version of the source
+     * @param cursor  the cursor, {@code null} for the first page
+     * @param limit   the maximum number of {@link Department}s, {@code null} for all
+     * @return the {@link Optional} with the {@link Page} of {@link Department}s, empty for the invalid cursor
+     */
+    public static Optional<Page<Department>> pageDepartments(LongFunction<Stream<Department>> source,
+                                                             LongSupplier version, String cursor, Integer limit) {
+
+        final Optional<long[]> cursorOpt = Objects.isNull(cursor) ? Optional.of(new long[]{Long.MIN_VALUE})
+                : parseCursor(cursor).filter(ids -> ids.length == 1);
+        return cursorOpt.map(ids -> {
+            final int pageSize = Optional.ofNullable(limit).orElse(Integer.MAX_VALUE);
+            final List<Department> departments;
+            try (Stream<Department> stream = source.apply(ids[0])) {
+                departments = stream.limit(pageSize + 1L).toList();
+            }
+            return toPage(departments, pageSize, dep -> String.valueOf(dep.getId()), version.getAsLong());
+        });
+    }
+
+    /**
+     * Streams all {@link Department}s from the sample dataset without copying them to the list.
+     *
+     * @return the stream of {@link Department}s
+     */
+    public static Stream<Department> streamDepartments() {
+        return repository().streamDepartments(Long.MIN_VALUE);
     }
 
     /**
@@ -131,7 +541,8 @@ public class SampleDataset {
      * @return the {@link Optional} with the {@link Department}
      */
     public static Optional<Department> getDepartment(Long id) {
-        return Optional.ofNullable(id).map(departmentMap::get);
+        return timed(DatasetOperation.GET_DEPARTMENT,
+                () -> Optional.ofNullable(id).flatMap(repository()::getDepartment));
     }
 
     /**
@@ -143,18 +554,10 @@ public class SampleDataset {
      */
     public static Optional<Employee> putEmployee(Long departmentId, Employee employee) {
 
-        if (Objects.isNull(departmentId) || Objects.isNull(employee) || Objects.isNull(employee.getId())
-            || Objects.isNull(departmentMap.get(departmentId))) {
+        if (Objects.isNull(departmentId) || Objects.isNull(employee) || Objects.isNull(employee.getId())) {
             return Optional.empty();
         }
-        final Department department = departmentMap.get(departmentId);
-        if (Objects.nonNull(department.getEmployees())
-            && department.getEmployees().stream().anyMatch(emp -> employee.getId().equals(emp.getId()))) {
-            return Optional.empty();
-        }
-        department.addEmployeesItem(employee);
-        departmentMap.put(departmentId, department);
-        return Optional.of(employee);
+        return written(DatasetOperation.PUT_EMPLOYEE, () -> repository().putEmployee(departmentId, employee));
     }
 
     /**
@@ -167,20 +570,11 @@ public class SampleDataset {
      */
     public static Optional<Employee> mergeEmployee(Long departmentId, Long employeeId, Employee employee) {
 
-        if (Objects.isNull(employee)) {
+        if (Objects.isNull(departmentId) || Objects.isNull(employeeId) || Objects.isNull(employee)) {
             return Optional.empty();
         }
-        final Optional<Employee> existingEmployeeOpt = getEmployee(departmentId, employeeId);
-        if (existingEmployeeOpt.isPresent()) {
-            final Employee existingEmployee = existingEmployeeOpt.get();
-            Optional.ofNullable(employee.getFirstName()).ifPresent(existingEmployee::setFirstName);
-            Optional.ofNullable(employee.getLastName()).ifPresent(existingEmployee::setLastName);
-            Optional.ofNullable(employee.getTitle()).ifPresent(existingEmployee::setTitle);
-        } else {
-            employee.setId(employeeId);
-            departmentMap.get(departmentId).addEmployeesItem(employee);
-        }
-        return Optional.of(employee);
+        return written(DatasetOperation.MERGE_EMPLOYEE,
+                () -> repository().mergeEmployee(departmentId, employeeId, employee));
     }
 
     /**
@@ -192,9 +586,28 @@ public class SampleDataset {
      */
     public static Optional<Employee> removeEmployee(Long departmentId, Long employeeId) {
 
-        final Optional<Employee> existingEmployeeOpt = getEmployee(departmentId, employeeId);
-        existingEmployeeOpt.ifPresent(employee -> departmentMap.get(departmentId).getEmployees().remove(employee));
-        return existingEmployeeOpt;
+        if (Objects.isNull(departmentId) || Objects.isNull(employeeId)) {
+            return Optional.empty();
+        }
+        return written(DatasetOperation.REMOVE_EMPLOYEE,
+                () -> repository().removeEmployee(departmentId, employeeId));
+    }
+
+    /**
+     * Applies the batch of operations on the {@link Employee}s in the {@link Department} in the sample dataset.
+     *
+     * @param departmentId the {@link Department}'s id
+     * @param operations   the list of {@link EmployeeBatchOperation}s
+     * @return the {@link Optional} with the list of {@link BatchItemStatus}es, empty if the department is missing
+     */
+    public static Optional<List<BatchItemStatus>> applyEmployeeBatch(Long departmentId,
+                                                                     List<EmployeeBatchOperation> operations) {
+
+        if (Objects.isNull(departmentId) || Objects.isNull(operations)) {
+            return Optional.empty();
+        }
+        return written(DatasetOperation.APPLY_EMPLOYEE_BATCH,
+                () -> repository().applyEmployeeBatch(departmentId, operations));
     }
 
     /**
@@ -204,7 +617,8 @@ public class SampleDataset {
      * @return the list of {@link Employee}
      */
     public static Optional<List<Employee>> getEmployees(Long departmentId) {
-        return Optional.ofNullable(departmentId).map(departmentMap::get).map(Department::getEmployees);
+        return timed(DatasetOperation.GET_EMPLOYEES,
+                () -> Optional.ofNullable(departmentId).flatMap(repository()::getEmployees));
     }
 
     /**
@@ -216,10 +630,21 @@ public class SampleDataset {
      */
     public static Optional<Employee> getEmployee(Long departmentId, Long employeeId) {
 
-        final Function<List<Employee>, Optional<Employee>> function =
-                list -> list.stream().filter(emp -> employeeId.equals(emp.getId())).findFirst();
-        return Optional.ofNullable(departmentId).map(departmentMap::get)
-                .map(Department::getEmployees).filter(_ -> Objects.nonNull(employeeId)).flatMap(function);
+        if (Objects.isNull(departmentId) || Objects.isNull(employeeId)) {
+            return Optional.empty();
+        }
+        return timed(DatasetOperation.GET_EMPLOYEE, () -> repository().getEmployee(departmentId, employeeId));
+    }
+
+    /**
+     * Gets the {@link Employee} by id from any {@link Department} in the sample dataset.
+     *
+     * @param employeeId the id of the {@link Employee}
+     * @return the {@link Optional} with the {@link Employee}
+     */
+    public static Optional<Employee> getEmployee(Long employeeId) {
+        return timed(DatasetOperation.GET_EMPLOYEE,
+                () -> Optional.ofNullable(employeeId).flatMap(repository()::getEmployee));
     }
 
     /**
@@ -229,66 +654,392 @@ public class SampleDataset {
      */
     public static List<Employee> getEmployees() {
 
-        return departmentMap.values().stream()
-                .map(dep -> Optional.ofNullable(dep.getEmployees()).orElse(List.of()))
-                .flatMap(List::stream).toList();
+        final long start = System.nanoTime();
+        final List<Employee> employees = repository().getEmployees();
+        datasetMetrics.record(DatasetOperation.GET_EMPLOYEES, start, !employees.isEmpty());
+        return employees;
     }
 
     /**
-     * Generates the list of {@link Department}.
+     * Gets the page of all {@link Employee}s from the sample dataset.
+     * <p>
+     * The cursor is the {@link Department}'s id and the {@link Employee}'s id separated by the colon
+     * for the last {@link Employee} on the previous page.
+     * </p>
+     *
+     * @param cursor the cursor, {@code null} for the first page
+     * @param limit  the maximum number of {@link Employee}s, {@code null} for all
+     * @return the {@link Optional} with the {@link Page} of {@link Employee}s, empty for the invalid cursor
      */
-    private static void generateDepartments() {
-        LongStream.rangeClosed(DEP_INDEX_LOWER_BOUND, depIndexUpperBound).boxed()
-                .forEach(SampleDataset::generateDepartment);
+    public static Optional<Page<Employee>> getEmployees(String cursor, Integer limit) {
+
+        return timed(DatasetOperation.GET_EMPLOYEES, () -> {
+            final DatasetSnapshot datasetSnapshot = snapshot();
+            return pageEmployees(datasetSnapshot.repository()::streamDepartments, datasetSnapshot::version,
+                    cursor, limit);
+        });
     }
 
     /**
-     * Generates the {@link Department}.
+     * Cuts the page of {@link Employee}s from the source streaming the {@link Department}s in the order of their ids.
+     * <p>
+     * The {@link Employee}s of every {@link Department} are ordered by their ids.
+     * The cursor is the {@link Department}'s id and the {@link Employee}'s id separated by the colon
+     * for the last {@link Employee} on the previous page.
+     * The source streams the {@link Department}s following the given {@link Department}'s id.
+     * The version is taken after the page is read from the source.
+     * </p>
      *
-     * @param departmentId the id of the {@link Department}
+     * @param source  the source of the {@link Department}s
+     * @param version the supplier of the version of the source
+     * @param cursor  the cursor, {@code null} for the first page
+     * @param limit   the maximum number of {@link Employee}s, {@code null} for all
+     * @return the {@link Optional} with the {@link Page} of {@link Employee}s, empty for the invalid cursor
      */
-    private static void generateDepartment(long departmentId) {
+    public static Optional<Page<Employee>> pageEmployees(LongFunction<Stream<Department>> source,
+                                                         LongSupplier version, String cursor, Integer limit) {
 
-        final Department department = new Department().id(departmentId).name(DEP_NAME_FUN.apply(departmentId));
-        generateEmployees(department);
-        departmentMap.put(departmentId, department);
+        final Optional<long[]> cursorOpt = Objects.isNull(cursor) ? Optional.of(new long[]{Long.MIN_VALUE, 0})
+                : parseCursor(cursor).filter(ids -> ids.length == 2);
+        return cursorOpt.map(ids -> {
+            final int pageSize = Optional.ofNullable(limit).orElse(Integer.MAX_VALUE);
+            final long afterDepartmentId = ids[0] > Long.MIN_VALUE ? ids[0] - 1 : Long.MIN_VALUE;
+            final List<Map.Entry<Long, Employee>> entries;
+            try (Stream<Department> stream = source.apply(afterDepartmentId)) {
+                entries = stream.flatMap(dep -> employeesAfter(dep, ids[0], ids[1])
+                        .map(emp -> Map.entry(dep.getId(), emp))).limit(pageSize + 1L).toList();
+            }
+            final Page<Map.Entry<Long, Employee>> page = toPage(entries, pageSize,
+                    entry -> entry.getKey() + CURSOR_SEPARATOR + entry.getValue().getId(), version.getAsLong());
+            return new Page<>(page.items().stream().map(Map.Entry::getValue).toList(), page.nextCursor(),
+                    page.version());
+        });
     }
 
     /**
-     * Generates the list of {@link Employee}.
+     * Searches the page of {@link Employee}s matching all filters of the {@link EmployeeQuery}.
+     * <p>
+     * The {@link Employee}s are ordered by the {@link Employee}'s id and the {@link Department}'s id.
+     * The cursor is the {@link Employee}'s id and the {@link Department}'s id separated by the colon
+     * for the last {@link Employee} on the previous page.
+     * </p>
      *
-     * @param department the {@link Department}
+     * @param query  the {@link EmployeeQuery}
+     * @param cursor the cursor, {@code null} for the first page
+     * @param limit  the maximum number of {@link Employee}s, {@code null} for all
+     * @return the {@link Optional} with the {@link Page} of {@link Employee}s, empty for the invalid cursor
+     */
+    public static Optional<Page<Employee>> searchEmployees(EmployeeQuery query, String cursor, Integer limit) {
+
+        final Optional<long[]> cursorOpt = Objects.isNull(cursor) ? Optional.of(new long[]{Long.MIN_VALUE, 0})
+                : parseCursor(cursor).filter(ids -> ids.length == 2);
+        return timed(DatasetOperation.SEARCH_EMPLOYEES, () -> cursorOpt.map(ids -> {
+            final DatasetSnapshot datasetSnapshot = snapshot();
+            final int pageSize = Optional.ofNullable(limit).orElse(Integer.MAX_VALUE);
+            final List<EmployeeMatch> matches = datasetSnapshot.searchIndex().search(datasetSnapshot.repository(),
+                    query, ids[0], ids[1], (int) Math.min(Integer.MAX_VALUE, pageSize + 1L));
+            final Page<EmployeeMatch> page = toPage(matches, pageSize,
+                    match -> match.employee().getId() + CURSOR_SEPARATOR + match.departmentId(),
+                    datasetSnapshot.version());
+            return new Page<>(page.items().stream().map(EmployeeMatch::employee).toList(), page.nextCursor(),
+                    page.version());
+        }));
+    }
+
+    /**
+     * Streams all {@link Employee}s from the sample dataset without copying them to the list.
+     *
+     * @return the stream of {@link Employee}s
+     */
+    public static Stream<Employee> streamEmployees() {
+
+        return streamDepartments()
+                .flatMap(dep -> Optional.ofNullable(dep.getEmployees()).stream().flatMap(List::stream));
+    }
+
+    /**
+     * Parses the cursor.
+     *
+     * @param cursor the cursor
+     * @return the {@link Optional} with the ids from the cursor, empty for the invalid cursor
+     */
+    private static Optional<long[]> parseCursor(String cursor) {
+
+        try {
+            return Optional.of(Stream.of(cursor.split(CURSOR_SEPARATOR)).mapToLong(Long::parseLong).toArray());
+        } catch (NumberFormatException _) {
+            return Optional.empty();
+        }
+    }
+
+    /**
+     * Streams the {@link Employee}s of the {@link Department} placed after the cursor, ordered by their ids.
+     * <p>
+     * Only the {@link Department} from the cursor skips the {@link Employee}s with the ids up to
+     * the cursor's {@link Employee}'s id, found by the binary search. The cursor's {@link Employee}
+     * need not exist any more, the page resumes after its id.
+     * </p>
+     *
+     * @param department         the {@link Department}
+     * @param cursorDepartmentId the {@link Department}'s id from the cursor
+     * @param cursorEmployeeId   the {@link Employee}'s id from the cursor
+     * @return the stream of {@link Employee}s
+     */
+    private static Stream<Employee> employeesAfter(Department department, long cursorDepartmentId,
+                                                   long cursorEmployeeId) {
+
+        final List<Employee> employees = idOrdered(Optional.ofNullable(department.getEmployees()).orElse(List.of()));
+        if (department.getId() != cursorDepartmentId) {
+            return employees.stream();
+        }
+        int low = 0;
+        int high = employees.size();
+        while (low < high) {
+            final int middle = (low + high) >>> 1;
+            final Long employeeId = employees.get(middle).getId();
+            if (Objects.isNull(employeeId) || employeeId <= cursorEmployeeId) {
+                low = middle + 1;
+            } else {
+                high = middle;
+            }
+        }
+        return employees.subList(low, employees.size()).stream();
+    }
+
+    /**
+     * Gets the {@link Employee}s ordered by their ids.
+     * <p>
+     * The repositories keep the {@link Employee}s in the order of their creation, which is the order of the ids
+     * for the generated and the appended ones. The list already in order is returned as it is,
+     * so the page costs one pass over the {@link Department} instead of the sort.
+     * </p>
+     *
+     * @param employees the list of {@link Employee}s
+     * @return the list of {@link Employee}s ordered by their ids
+     */
+    private static List<Employee> idOrdered(List<Employee> employees) {
+
+        for (int i = 1; i < employees.size(); i++) {
+            if (EMPLOYEE_ID_ORDER.compare(employees.get(i - 1), employees.get(i)) > 0) {
+                return employees.stream().sorted(EMPLOYEE_ID_ORDER).toList();
+            }
+        }
+        return employees;
+    }
+
+    /**
+     * Cuts the page from the items fetched with one item more than the page size.
+     *
+     * @param items     the items
+     * @param pageSize  the page size
+     * @param cursorFun the function creating the cursor from the last item on the page
+     * @param version   the version of the {@link DatasetSnapshot}
+     * @param <T>       the type of the items
+     * @return the {@link Page}
+     */
+    private static <T> Page<T> toPage(List<T> items, int pageSize, Function<T, String> cursorFun, long version) {
+
+        if (items.size() <= pageSize) {
+            return new Page<>(items, null, version);
+        }
+        final List<T> pageItems = items.subList(0, pageSize);
+        return new Page<>(pageItems, cursorFun.apply(pageItems.getLast()), version);
+    }
+
+    /**
+     * Times the operation returning the {@link Optional}.
+     * <p>
+     * The present result is the hit, the empty one is the miss.
+     * </p>
+     *
+     * @param operation the {@link DatasetOperation}
+     * @param call      the call of the operation
+     * @param <T>       the type of the result
+     * @return the {@link Optional} with the result
+     */
+    private static <T> Optional<T> timed(DatasetOperation operation, Supplier<Optional<T>> call) {
+
+        final long start = System.nanoTime();
+        final Optional<T> resultOpt = call.get();
+        datasetMetrics.record(operation, start, resultOpt.isPresent());
+        return resultOpt;
+    }
+
+    /**
+     * Times the write returning the {@link Optional} and waits for its deferred commits.
+     *
+     * @param operation the {@link DatasetOperation}
+     * @param call      the call of the write
+     * @param <T>       the type of the result
+     * @return the {@link Optional} with the result
+     */
+    private static <T> Optional<T> written(DatasetOperation operation, Supplier<Optional<T>> call) {
+
+        return timed(operation, () -> {
+            final Optional<T> resultOpt = call.get();
+            awaitCommits();
+            return resultOpt;
+        });
+    }
+
+    /**
+     * Waits for the commits deferred by the {@link MutationListener}s during the write of this thread.
+     * <p>
+     * The write is already published when its commit fails. Then the writer is not acknowledged.
+     * </p>
+     *
+     * @throws IllegalStateException if any commit has failed
+     */
+    private static void awaitCommits() {
+
+        final List<CompletableFuture<Void>> commits = pendingCommits.get();
+        if (commits.isEmpty()) {
+            return;
+        }
+        try {
+            commits.forEach(CompletableFuture::join);
+        } catch (CompletionException e) {
+            throw new IllegalStateException("The write is not committed", e.getCause());
+        } finally {
+            pendingCommits.remove();
+        }
+    }
+
+    /**
+     * Gets the {@link DatasetRepository} of the current {@link DatasetSnapshot}.
+     *
+     * @return the {@link DatasetRepository}
+     */
+    private static DatasetRepository repository() {
+        return currentSnapshot.get().repository();
+    }
+
+    /**
+     * Creates the empty {@link DatasetRepository} reporting to the registered {@link MutationListener}s.
+     *
+     * @param version the version of the {@link DatasetSnapshot}
+     * @return the {@link DatasetRepository}
+     */
+    private static DatasetRepository createRepository(long version) {
+        return datasetStorage.createRepository(version, SampleDataset::notifyListeners);
+    }
+
+    /**
+     * Creates the {@link DatasetSnapshot} with the {@link EmployeeSearchIndex} of its repository.
+     *
+     * @param version    the version of the {@link DatasetSnapshot}
+     * @param repository the {@link DatasetRepository}
+     * @return the {@link DatasetSnapshot}
+     */
+    private static DatasetSnapshot createSnapshot(long version, DatasetRepository repository) {
+
+        return new DatasetSnapshot(version, repository,
+                searchIndexEnabled ? EmployeeSearchIndex.build(repository) : EmployeeSearchIndex.NONE);
+    }
+
+    /**
+     * Notifies the {@link EmployeeSearchIndex} of the current dataset and the registered {@link MutationListener}s.
+     * <p>
+     * The mutation of the other version was done on the discarded dataset, so its index is not notified.
+     * The mutation replayed at the recovery is not reported to the registered listeners.
+     * The failure of one listener is logged and does not keep the mutation from the others.
+     * </p>
+     *
+     * @param version  the version of the {@link DatasetSnapshot}
+     * @param mutation the {@link DatasetMutation}
+     */
+    private static void notifyListeners(long version, DatasetMutation mutation) {
+
+        final DatasetSnapshot datasetSnapshot = currentSnapshot.get();
+        if (datasetSnapshot.version() == version) {
+            notifyListener(EmployeeSearchIndex.class, () -> datasetSnapshot.searchIndex().onMutation(mutation),
+                    mutation);
+        }
+        if (replaying.get()) {
+            return;
+        }
+        for (MutationListener listener : mutationListeners) {
+            notifyListener(listener.getClass(), () -> listener.onMutation(version, mutation), mutation);
+        }
+    }
+
+    /**
+     * Notifies the listener and logs its failure.
+     *
+     * @param listenerClass the class of the listener
+     * @param notification  the notification of the listener
+     * @param mutation      the {@link DatasetMutation}
+     */
+    private static void notifyListener(Class<?> listenerClass, Runnable notification, DatasetMutation mutation) {
+
+        try {
+            notification.run();
+        } catch (RuntimeException e) {
+            logger.error("notifyListener(): listener[%s], mutation[%s], exception[%s]".formatted(
+                    listenerClass.getName(), mutation.getClass().getSimpleName(), e.getMessage()));
+        }
+    }
+
+    /**
+     * Generates the {@link Department}s in parallel into the new {@link DatasetRepository}.
+     * <p>
+     * The {@link Department}s are generated on the common fork-join pool.
+     * Only the {@link Department}s passing the department filter are generated.
+     * </p>
+     *
+     * @param depIndex the {@link Department}'s index upper bound
+     * @param empIndex the {@link Employee}'s index upper bound
+     * @param version  the version of the {@link DatasetSnapshot}
+     * @return the {@link DatasetRepository} with the generated {@link Department}s
      */
-    private static void generateEmployees(Department department) {
+    private static DatasetRepository generateDepartments(long depIndex, long empIndex, long version) {
 
-        LongStream.rangeClosed(EMP_INDEX_LOWER_BOUND, empIndexUpperBound).boxed()
-                .filter(_ -> Objects.nonNull(department))
-                .filter(_ -> Objects.nonNull(department.getId()))
-                .map(empIndex -> EMP_INDEX_FUN.applyAsLong(department.getId(), empIndex))
-                .forEach(employeeId -> generateEmployee(department, employeeId));
+        final DatasetRepository generated = createRepository(version);
+        LongStream.rangeClosed(DEP_INDEX_LOWER_BOUND, depIndex).parallel().filter(departmentFilter)
+                .mapToObj(departmentId -> generateDepartment(departmentId, empIndex))
+                .forEach(generated::loadDepartment);
+        return generated;
+    }
+
+    /**
+     * Generates the {@link Department}.
+     *
+     * @param departmentId the id of the {@link Department}
+     * @param empIndex     the {@link Employee}'s index upper bound
+     * @return the {@link Department}
+     */
+    private static Department generateDepartment(long departmentId, long empIndex) {
+
+        final List<Employee> employees = LongStream.rangeClosed(EMP_INDEX_LOWER_BOUND, empIndex)
+                .map(index -> EMP_INDEX_FUN.applyAsLong(departmentId, index))
+                .mapToObj(SampleDataset::generateEmployee).toList();
+        return new Department().id(departmentId).name(DEP_NAME_FUN.apply(departmentId)).employees(employees);
     }
 
     /**
      * Generates the {@link Employee}.
      *
-     * @param department the {@link Department}
      * @param employeeId the id of the {@link Employee}
+     * @return the {@link Employee}
      */
-    private static void generateEmployee(Department department, long employeeId) {
+    private static Employee generateEmployee(long employeeId) {
 
-        final Employee employee = new Employee().id(employeeId).firstName(EMP_F_NAME_FUN.apply(employeeId))
+        return new Employee().id(employeeId).firstName(EMP_F_NAME_FUN.apply(employeeId))
                 .lastName(EMP_L_NAME_FUN.apply(employeeId)).title(generateTitle(employeeId));
-        department.addEmployeesItem(employee);
     }
 
     /**
      * Generates the {@link Title}.
+     * <p>
+     * It is public for the benchmarks only.
+     * </p>
      *
      * @param employeeId the id of the {@link Employee}
+     * @return the {@link Title}
      */
-    private static Title generateTitle(long employeeId) {
+    public static Title generateTitle(long employeeId) {
 
-        final Predicate<Title> predicate = arg -> arg.ordinal() == ((int) employeeId - 1) % 3;
-        return Stream.of(Title.values()).filter(predicate).findFirst().orElse(Title.ANALYST);
+        final int ordinal = ((int) employeeId - 1) % TITLES.length;
+        return ordinal >= 0 ? TITLES[ordinal] : Title.ANALYST;
     }
-}
\ No newline at end of file
+}
@@ -0,0 +1,255 @@
+package kp.accesslog;
+
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+
+import java.io.BufferedOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.lang.invoke.MethodHandles;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.Duration;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * The asynchronous access log.
+ * <p>
+ * The request thread only decides whether the request is logged and puts the {@link AccessLogRecord}
+ * into the {@link RingBuffer}. It never waits for the lock or for the I/O: when the buffer is full
+ * the record is dropped and counted. The single writer thread drains the buffer in batches,
+ * encodes the records in the {@link AccessLogFormat} and flushes the file when the buffer is empty.
+ * </p>
+ * <p>
+ * The requests are sampled with the given rate, and the records of every endpoint are limited per second.
+ * The server errors bypass the sampling, but not the limit.
+ * The limiters idle for a second are evicted at most once per second, and above the maximum number
+ * of the endpoints the records of the new endpoints share one limiter, so the unknown paths of the scanning
+ * client cannot grow the kept limiters without bound.
+ * </p>
+ */
+public class AccessLog implements AutoCloseable {
+    private static final Log logger = LogFactory.getLog(MethodHandles.lookup().lookupClass().getName());
+
+    private static final int MAX_BATCH_SIZE = 1024;
+    private static final Duration IDLE_PAUSE = Duration.ofMillis(5);
+    private static final int OUTPUT_BUFFER_SIZE = 64 * 1024;
+    private static final int SERVER_ERROR_STATUS = 500;
+    private static final int MAX_ENDPOINTS = 1024;
+
+    private final AccessLogFormat format;
+    private final double sampleRate;
+    private final int endpointRateLimit;
+    private final RingBuffer<AccessLogRecord> ringBuffer;
+    private final Map<String, EndpointLimiter> limiterMap = new ConcurrentHashMap<>();
+    private final EndpointLimiter overflowLimiter = new EndpointLimiter();
+    private final AtomicLong evictedSecond = new AtomicLong();
+    private final LongAdder writtenCount = new LongAdder();
+    private final LongAdder droppedCount = new LongAdder();
+    private final DataOutputStream output;
+    private final Thread writerThread;
+    private volatile boolean closed;
+
+    /**
+     * The constructor. It opens the file and starts the writer thread.
+     *
+     * @param file              the file the records are appended to
+     * @param format            the {@link AccessLogFormat}
+     * @param sampleRate        the fraction of the logged requests from 0 to 1
+     * @param endpointRateLimit the maximum number of the records per endpoint per second
+     * @param capacity          the capacity of the {@link RingBuffer}
+     * @throws IOException if the file cannot be opened
+     */
+    public AccessLog(Path file, AccessLogFormat format, double sampleRate, int endpointRateLimit, int capacity)
+            throws IOException {
+
+        this.format = format;
+        this.sampleRate = sampleRate;
+        this.endpointRateLimit = endpointRateLimit;
+        this.ringBuffer = new RingBuffer<>(capacity);
+        if (Objects.nonNull(file.getParent())) {
+            Files.createDirectories(file.getParent());
+        }
+        this.output = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(file,
+                StandardOpenOption.CREATE, StandardOpenOption.APPEND), OUTPUT_BUFFER_SIZE));
+        this.writerThread = Thread.ofPlatform().name("access-log-writer").daemon().start(this::writeLoop);
+    }
+
+    /**
+     * Checks whether the request is sampled.
+     * <p>
+     * It is called before the request is processed, so the record of the skipped request is never built.
+     * </p>
+     *
+     * @return true if the request is sampled
+     */
+    public boolean isSampled() {
+        return sampleRate >= 1 || ThreadLocalRandom.current().nextDouble() < sampleRate;
+    }
+
+    /**
+     * Logs the request.
+     *
+     * @param accessLogRecord the {@link AccessLogRecord}
+     * @param sampled         the flag whether the request was sampled
+     */
+    public void log(AccessLogRecord accessLogRecord, boolean sampled) {
+
+        if (closed || !sampled && accessLogRecord.status() < SERVER_ERROR_STATUS
+            || !limiterOf(accessLogRecord.endpoint()).tryAcquire()) {
+            return;
+        }
+        if (!ringBuffer.offer(accessLogRecord)) {
+            droppedCount.increment();
+        }
+    }
+
+    /**
+     * Gets the {@link EndpointLimiter} of the endpoint.
+     * <p>
+     * The idle limiters are evicted first. The new endpoint above the maximum number gets the shared limiter.
+     * </p>
+     *
+     * @param endpoint the endpoint
+     * @return the {@link EndpointLimiter}
+     */
+    private EndpointLimiter limiterOf(String endpoint) {
+
+        final long currentSecond = currentSecond();
+        final long lastEvictedSecond = evictedSecond.get();
+        if (currentSecond != lastEvictedSecond && evictedSecond.compareAndSet(lastEvictedSecond, currentSecond)) {
+            limiterMap.values().removeIf(limiter -> limiter.isIdle(currentSecond));
+        }
+        final EndpointLimiter limiter = limiterMap.get(endpoint);
+        if (Objects.nonNull(limiter)) {
+            return limiter;
+        }
+        if (limiterMap.size() >= MAX_ENDPOINTS) {
+            return overflowLimiter;
+        }
+        return limiterMap.computeIfAbsent(endpoint, _ -> new EndpointLimiter());
+    }
+
+    /**
+     * Gets the current second from the {@link System#nanoTime()}.
+     *
+     * @return the current second
+     */
+    private static long currentSecond() {
+        return TimeUnit.NANOSECONDS.toSeconds(System.nanoTime());
+    }
+
+    /**
+     * Gets the number of the written records.
+     *
+     * @return the number of the written records
+     */
+    public long getWrittenCount() {
+        return writtenCount.sum();
+    }
+
+    /**
+     * Gets the number of the records dropped on the full buffer.
+     *
+     * @return the number of the dropped records
+     */
+    public long getDroppedCount() {
+        return droppedCount.sum();
+    }
+
+    /**
+     * Writes the buffered records, stops the writer thread and closes the file.
+     */
+    @Override
+    public void close() {
+
+        closed = true;
+        LockSupport.unpark(writerThread);
+        try {
+            writerThread.join();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    /**
+     * The loop of the writer thread.
+     */
+    private void writeLoop() {
+
+        try (output) {
+            while (true) {
+                final boolean stopping = closed;
+                final int drained = ringBuffer.drain(this::write, MAX_BATCH_SIZE);
+                if (drained == 0) {
+                    output.flush();
+                    if (stopping) {
+                        return;
+                    }
+                    LockSupport.parkNanos(IDLE_PAUSE.toNanos());
+                }
+            }
+        } catch (IOException | UncheckedIOException e) {
+            logger.error("writeLoop(): exception[%s]".formatted(e.getMessage()));
+        }
+    }
+
+    /**
+     * Writes the {@link AccessLogRecord}.
+     *
+     * @param accessLogRecord the {@link AccessLogRecord}
+     */
+    private void write(AccessLogRecord accessLogRecord) {
+
+        try {
+            format.write(accessLogRecord, output);
+            writtenCount.increment();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    /**
+     * The limiter of the records of one endpoint in the current second.
+     */
+    private final class EndpointLimiter {
+
+        private final AtomicLong second = new AtomicLong();
+        private final AtomicInteger count = new AtomicInteger();
+
+        /**
+         * Acquires the permit for the record.
+         *
+         * @return true if the record is within the limit
+         */
+        boolean tryAcquire() {
+
+            final long currentSecond = currentSecond();
+            final long limiterSecond = second.get();
+            if (currentSecond != limiterSecond && second.compareAndSet(limiterSecond, currentSecond)) {
+                count.set(0);
+            }
+            return count.incrementAndGet() <= endpointRateLimit;
+        }
+
+        /**
+         * Checks whether the limiter has not been used in the previous second.
+         *
+         * @param currentSecond the current second
+         * @return true if the limiter is idle
+         */
+        boolean isIdle(long currentSecond) {
+            return currentSecond - second.get() > 1;
+        }
+    }
+}
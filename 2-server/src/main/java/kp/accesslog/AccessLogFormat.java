@@ -0,0 +1,78 @@
+package kp.accesslog;
+
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.time.Instant;
+
+/**
+ * The output format of the access log.
+ */
+public enum AccessLogFormat {
+    /**
+     * One JSON object per line.
+     */
+    JSON {
+        @Override
+        void write(AccessLogRecord accessLogRecord, DataOutputStream output) throws IOException {
+
+            final String line = JSON_LINE.formatted(Instant.ofEpochMilli(accessLogRecord.epochMillis()),
+                    accessLogRecord.method(), escape(accessLogRecord.path()), escape(accessLogRecord.endpoint()),
+                    accessLogRecord.status(), accessLogRecord.durationNanos() / NANOS_PER_MICRO);
+            output.write(line.getBytes(StandardCharsets.UTF_8));
+        }
+    },
+    /**
+     * The compact binary frames written with the {@link DataOutputStream}:
+     * the start time, the duration in nanoseconds, the status, the method, the path and the endpoint.
+     */
+    BINARY {
+        @Override
+        void write(AccessLogRecord accessLogRecord, DataOutputStream output) throws IOException {
+
+            output.writeLong(accessLogRecord.epochMillis());
+            output.writeLong(accessLogRecord.durationNanos());
+            output.writeShort(accessLogRecord.status());
+            output.writeUTF(accessLogRecord.method());
+            output.writeUTF(accessLogRecord.path());
+            output.writeUTF(accessLogRecord.endpoint());
+        }
+    };
+
+    private static final String JSON_LINE =
+            "{\"time\":\"%s\",\"method\":\"%s\",\"path\":\"%s\",\"endpoint\":\"%s\",\"status\":%d,\"micros\":%d}\n";
+    private static final long NANOS_PER_MICRO = 1_000;
+
+    /**
+     * Writes the {@link AccessLogRecord}.
+     *
+     * @param accessLogRecord the {@link AccessLogRecord}
+     * @param output          the {@link DataOutputStream}
+     * @throws IOException if an I/O error occurs
+     */
+    abstract void write(AccessLogRecord accessLogRecord, DataOutputStream output) throws IOException;
+
+    /**
+     * Escapes the string for the JSON string literal.
+     *
+     * @param text the text
+     * @return the escaped text
+     */
+    private static String escape(String text) {
+
+        final StringBuilder builder = new StringBuilder(text.length());
+        for (char character : text.toCharArray()) {
+            switch (character) {
+                case '"', '\\' -> builder.append('\\').append(character);
+                default -> {
+                    if (character < ' ') {
+                        builder.append("\\u%04x".formatted((int) character));
+                    } else {
+                        builder.append(character);
+                    }
+                }
+            }
+        }
+        return builder.toString();
+    }
+}
@@ -0,0 +1,15 @@
+package kp.accesslog;
+
+/**
+ * The record of the access log.
+ *
+ * @param epochMillis   the start time of the request in milliseconds since the epoch
+ * @param method        the HTTP method
+ * @param path          the request path with the query string
+ * @param endpoint      the matched endpoint pattern, or the path when no endpoint matched
+ * @param status        the HTTP status
+ * @param durationNanos the duration of the request in nanoseconds
+ */
+public record AccessLogRecord(long epochMillis, String method, String path, String endpoint, int status,
+                              long durationNanos) {
+}
@@ -0,0 +1,87 @@
+package kp.accesslog;
+
+import java.util.Objects;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.function.Consumer;
+
+/**
+ * The bounded lock-free ring buffer with many producers and one consumer.
+ * <p>
+ * The producer claims the slot by advancing the tail with the compare-and-set and then publishes the item
+ * into the slot. It never blocks: when the buffer is full the item is rejected.
+ * The consumer takes the published items in the claim order and frees their slots.
+ * </p>
+ *
+ * @param <T> the type of the items
+ */
+final class RingBuffer<T> {
+
+    private final AtomicReferenceArray<T> slots;
+    private final int mask;
+    private final AtomicLong tail = new AtomicLong();
+    private volatile long head;
+
+    /**
+     * The constructor.
+     *
+     * @param capacity the capacity rounded up to the power of two
+     */
+    RingBuffer(int capacity) {
+
+        final int roundedCapacity = Integer.highestOneBit(Math.max(2, capacity) - 1) << 1;
+        this.slots = new AtomicReferenceArray<>(roundedCapacity);
+        this.mask = roundedCapacity - 1;
+    }
+
+    /**
+     * Offers the item.
+     * <p>
+     * It may be called from many threads.
+     * </p>
+     *
+     * @param item the item
+     * @return true if the item was accepted, false if the buffer is full
+     */
+    boolean offer(T item) {
+
+        long claimed;
+        do {
+            claimed = tail.get();
+            if (claimed - head > mask) {
+                return false;
+            }
+        } while (!tail.compareAndSet(claimed, claimed + 1));
+        slots.setRelease((int) claimed & mask, item);
+        return true;
+    }
+
+    /**
+     * Drains the published items.
+     * <p>
+     * It must be called from one thread only.
+     * </p>
+     *
+     * @param consumer the consumer of the items
+     * @param maxItems the maximum number of the drained items
+     * @return the number of the drained items
+     */
+    int drain(Consumer<T> consumer, int maxItems) {
+
+        long position = head;
+        int drained = 0;
+        while (drained < maxItems) {
+            final int index = (int) position & mask;
+            final T item = slots.getAcquire(index);
+            if (Objects.isNull(item)) {
+                break;
+            }
+            slots.setRelease(index, null);
+            consumer.accept(item);
+            position++;
+            drained++;
+        }
+        head = position;
+        return drained;
+    }
+}
@@ -0,0 +1,121 @@
+package kp.admission;
+
+import java.time.Duration;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * The limiter of the concurrent requests adapting its limit to their latency.
+ * <p>
+ * The limit follows the additive-increase multiplicative-decrease rule:
+ * </p>
+ * <ul>
+ * <li>the request completed above the latency threshold cuts the limit by the backoff ratio,
+ * at most once per the threshold, so the burst of the slow completions counts as one signal
+ * <li>the request completed within the threshold while the limit was at least half used raises the limit
+ * by the reciprocal of the limit, i.e. by about one per the round of the requests
+ * </ul>
+ * <p>
+ * The requests above the limit are rejected at once. So when the latency rises the server sheds the load
+ * instead of queueing it, and the limit recovers when the latency falls.
+ * </p>
+ */
+public class AdaptiveConcurrencyLimiter {
+
+    private static final double BACKOFF_RATIO = 0.9;
+    private final int minLimit;
+    private final int maxLimit;
+    private final long latencyThresholdNanos;
+    private final AtomicInteger inFlight = new AtomicInteger();
+    private volatile int currentLimit;
+    private double limit;
+    private long decreasedNanos;
+
+    /**
+     * The constructor.
+     * <p>
+     * The limiter starts with the maximum limit.
+     * </p>
+     *
+     * @param minLimit         the lowest limit
+     * @param maxLimit         the highest limit
+     * @param latencyThreshold the latency above which the limit is decreased
+     */
+    public AdaptiveConcurrencyLimiter(int minLimit, int maxLimit, Duration latencyThreshold) {
+
+        if (minLimit < 1 || maxLimit < minLimit) {
+            throw new IllegalArgumentException("Invalid limits, min[%d], max[%d]".formatted(minLimit, maxLimit));
+        }
+        this.minLimit = minLimit;
+        this.maxLimit = maxLimit;
+        this.latencyThresholdNanos = latencyThreshold.toNanos();
+        this.limit = maxLimit;
+        this.currentLimit = maxLimit;
+        this.decreasedNanos = System.nanoTime() - latencyThresholdNanos;
+    }
+
+    /**
+     * Acquires the permit for the request.
+     *
+     * @return true if the request is admitted
+     */
+    public boolean tryAcquire() {
+
+        int current;
+        do {
+            current = inFlight.get();
+            if (current >= currentLimit) {
+                return false;
+            }
+        } while (!inFlight.compareAndSet(current, current + 1));
+        return true;
+    }
+
+    /**
+     * Releases the permit of the completed request and adapts the limit to its latency.
+     *
+     * @param latencyNanos the latency of the request in nanoseconds
+     */
+    public void release(long latencyNanos) {
+
+        final int released = inFlight.getAndDecrement();
+        adapt(latencyNanos, released, System.nanoTime());
+    }
+
+    /**
+     * Gets the current limit.
+     *
+     * @return the limit
+     */
+    public int getLimit() {
+        return currentLimit;
+    }
+
+    /**
+     * Gets the number of the requests in flight.
+     *
+     * @return the number of the requests
+     */
+    public int getInFlight() {
+        return inFlight.get();
+    }
+
+    /**
+     * Adapts the limit.
+     *
+     * @param latencyNanos the latency of the completed request in nanoseconds
+     * @param inFlightNow  the number of the requests in flight including the completed one
+     * @param nowNanos     the current time from the {@link System#nanoTime()}
+     */
+    private synchronized void adapt(long latencyNanos, int inFlightNow, long nowNanos) {
+
+        if (latencyNanos > latencyThresholdNanos) {
+            if (nowNanos - decreasedNanos >= latencyThresholdNanos) {
+                limit = Math.max(minLimit, limit * BACKOFF_RATIO);
+                decreasedNanos = nowNanos;
+            }
+        } else if (2 * inFlightNow >= limit) {
+            limit = Math.min(maxLimit, limit + 1 / limit);
+        }
+        currentLimit = (int) limit;
+    }
+}
@@ -0,0 +1,79 @@
+package kp.admission;
+
+import java.time.Duration;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * The rate limiter with the {@link TokenBucket} for every client and endpoint.
+ * <p>
+ * The client hammering one endpoint exhausts only its own bucket, so neither the other clients
+ * nor its requests to the other endpoints are limited.
+ * The buckets refilled to the full capacity belong to the idle clients and are evicted
+ * at most once per second, so the number of the kept buckets follows the number of the active clients.
+ * </p>
+ */
+public class RateLimiter {
+
+    private static final long EVICTION_INTERVAL_NANOS = TimeUnit.SECONDS.toNanos(1);
+    private final double burst;
+    private final double tokensPerNano;
+    private final Map<String, TokenBucket> bucketMap = new ConcurrentHashMap<>();
+    private final AtomicLong evictedNanos = new AtomicLong(System.nanoTime());
+
+    /**
+     * The constructor.
+     *
+     * @param ratePerSecond the sustained rate of the requests per client and endpoint
+     * @param burst         the largest burst of the requests per client and endpoint
+     */
+    public RateLimiter(double ratePerSecond, int burst) {
+
+        if (ratePerSecond <= 0 || burst < 1) {
+            throw new IllegalArgumentException("The rate and the burst must be positive");
+        }
+        this.burst = burst;
+        this.tokensPerNano = ratePerSecond / TimeUnit.SECONDS.toNanos(1);
+    }
+
+    /**
+     * Acquires the permit for the request of the client to the endpoint.
+     *
+     * @param client   the client, e.g. its address
+     * @param endpoint the endpoint
+     * @return {@link Duration#ZERO} if the request is admitted, otherwise the time until the next permit
+     */
+    public Duration tryAcquire(String client, String endpoint) {
+
+        final long nowNanos = System.nanoTime();
+        evictIdle(nowNanos);
+        final TokenBucket tokenBucket = bucketMap.computeIfAbsent(client + ' ' + endpoint,
+                _ -> new TokenBucket(burst, tokensPerNano, nowNanos));
+        return Duration.ofNanos(tokenBucket.tryAcquire(nowNanos));
+    }
+
+    /**
+     * Gets the number of the kept buckets.
+     *
+     * @return the number of the buckets
+     */
+    public int getBucketCount() {
+        return bucketMap.size();
+    }
+
+    /**
+     * Evicts the full buckets if the eviction interval has elapsed.
+     *
+     * @param nowNanos the current time from the {@link System#nanoTime()}
+     */
+    private void evictIdle(long nowNanos) {
+
+        final long lastEvictedNanos = evictedNanos.get();
+        if (nowNanos - lastEvictedNanos >= EVICTION_INTERVAL_NANOS
+            && evictedNanos.compareAndSet(lastEvictedNanos, nowNanos)) {
+            bucketMap.values().removeIf(tokenBucket -> tokenBucket.isFull(nowNanos));
+        }
+    }
+}
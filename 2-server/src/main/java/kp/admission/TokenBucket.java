@@ -0,0 +1,76 @@
+package kp.admission;
+
+/**
+ * The token bucket of one client's endpoint.
+ * <p>
+ * The bucket holds up to the burst of tokens and is refilled at the constant rate.
+ * Every admitted request takes one token. The refill is computed lazily from the elapsed time
+ * when the token is requested, so the idle bucket costs nothing.
+ * </p>
+ */
+final class TokenBucket {
+
+    private final double burst;
+    private final double tokensPerNano;
+    private double tokens;
+    private long refilledNanos;
+
+    /**
+     * The constructor.
+     * <p>
+     * The new bucket is full.
+     * </p>
+     *
+     * @param burst         the capacity of the bucket
+     * @param tokensPerNano the refill rate in tokens per nanosecond
+     * @param nowNanos      the current time from the {@link System#nanoTime()}
+     */
+    TokenBucket(double burst, double tokensPerNano, long nowNanos) {
+
+        this.burst = burst;
+        this.tokensPerNano = tokensPerNano;
+        this.tokens = burst;
+        this.refilledNanos = nowNanos;
+    }
+
+    /**
+     * Takes the token.
+     *
+     * @param nowNanos the current time from the {@link System#nanoTime()}
+     * @return zero if the token was taken, otherwise the nanoseconds until the next token
+     */
+    synchronized long tryAcquire(long nowNanos) {
+
+        refill(nowNanos);
+        if (tokens >= 1) {
+            tokens--;
+            return 0;
+        }
+        return Math.max(1, (long) Math.ceil((1 - tokens) / tokensPerNano));
+    }
+
+    /**
+     * Checks if the bucket has been refilled to the full capacity, i.e. its client has been idle.
+     *
+     * @param nowNanos the current time from the {@link System#nanoTime()}
+     * @return true if the bucket is full
+     */
+    synchronized boolean isFull(long nowNanos) {
+
+        refill(nowNanos);
+        return tokens >= burst;
+    }
+
+    /**
+     * Adds the tokens for the time elapsed since the last refill.
+     *
+     * @param nowNanos the current time from the {@link System#nanoTime()}
+     */
+    private void refill(long nowNanos) {
+
+        if (nowNanos > refilledNanos) {
+            tokens = Math.min(burst, tokens + (nowNanos - refilledNanos) * tokensPerNano);
+            refilledNanos = nowNanos;
+        }
+    }
+}
@@ -0,0 +1,73 @@
+package kp.company.configuration;
+
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.MeterRegistry;
+import kp.accesslog.AccessLog;
+import kp.accesslog.AccessLogFormat;
+import kp.company.filter.AccessLogFilter;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.web.servlet.FilterRegistrationBean;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.Ordered;
+
+import java.io.IOException;
+import java.nio.file.Path;
+
+/**
+ * The configuration of the asynchronous access log.
+ * <p>
+ * It replaces the synchronous logging of every controller call.
+ * </p>
+ */
+@Configuration
+@ConditionalOnProperty(name = "access-log.enabled", havingValue = "true")
+public class AccessLogConfiguration {
+
+    /**
+     * Creates the {@link AccessLog}.
+     *
+     * @param file              the access log file
+     * @param format            the {@link AccessLogFormat}
+     * @param sampleRate        the fraction of the logged requests from 0 to 1
+     * @param endpointRateLimit the maximum number of the records per endpoint per second
+     * @param capacity          the capacity of the buffer between the request threads and the writer thread
+     * @param meterRegistry     the {@link MeterRegistry}
+     * @return the {@link AccessLog}
+     * @throws IOException if the file cannot be opened
+     */
+    @Bean(destroyMethod = "close")
+    public AccessLog createAccessLog(@Value("${access-log.file}") Path file,
+                                     @Value("${access-log.format}") AccessLogFormat format,
+                                     @Value("${access-log.sample-rate}") double sampleRate,
+                                     @Value("${access-log.endpoint-rate-limit}") int endpointRateLimit,
+                                     @Value("${access-log.capacity}") int capacity,
+                                     MeterRegistry meterRegistry) throws IOException {
+
+        final AccessLog accessLog = new AccessLog(file, format, sampleRate, endpointRateLimit, capacity);
+        FunctionCounter.builder("access.log.written", accessLog, AccessLog::getWrittenCount)
+                .description("The written access log records").register(meterRegistry);
+        FunctionCounter.builder("access.log.dropped", accessLog, AccessLog::getDroppedCount)
+                .description("The access log records dropped on the full buffer").register(meterRegistry);
+        return accessLog;
+    }
+
+    /**
+     * Creates the {@link AccessLogFilter}.
+     * <p>
+     * It is the outermost filter, so the logged duration includes the other filters.
+     * </p>
+     *
+     * @param accessLog the {@link AccessLog}
+     * @return the {@link FilterRegistrationBean} with the {@link AccessLogFilter}
+     */
+    @Bean
+    public FilterRegistrationBean<AccessLogFilter> createAccessLogFilter(AccessLog accessLog) {
+
+        final FilterRegistrationBean<AccessLogFilter> registrationBean =
+                new FilterRegistrationBean<>(new AccessLogFilter(accessLog));
+        registrationBean.setOrder(Ordered.HIGHEST_PRECEDENCE);
+        return registrationBean;
+    }
+}
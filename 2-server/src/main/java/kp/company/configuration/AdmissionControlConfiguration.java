@@ -0,0 +1,104 @@
+package kp.company.configuration;
+
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import kp.admission.AdaptiveConcurrencyLimiter;
+import kp.admission.RateLimiter;
+import jakarta.servlet.http.HttpServletRequest;
+import kp.company.filter.AdmissionControlFilter;
+import kp.sharding.ShardClient;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.web.servlet.FilterRegistrationBean;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.Ordered;
+
+import java.time.Duration;
+import java.util.Objects;
+import java.util.function.Predicate;
+
+import static kp.Constants.LOAD_SAMPLE_DATASET_PATH;
+import static kp.Constants.SHARD_FORWARDED_HEADER;
+
+/**
+ * The configuration of the admission control of the mutating requests.
+ * <p>
+ * The admitted and the rejected requests are counted by the reason of the rejection.
+ * </p>
+ */
+@Configuration
+@ConditionalOnProperty(name = "admission.enabled", havingValue = "true")
+public class AdmissionControlConfiguration {
+
+    private static final String REJECTED_METER = "admission.rejected";
+    private static final String REASON_TAG = "reason";
+
+    /**
+     * Creates the {@link AdmissionControlFilter}.
+     * <p>
+     * It follows the access log filter, so the rejected requests are logged too, and it precedes
+     * the shard routing and the replica filters, so the rejected request is neither proxied nor redirected.
+     * </p>
+     * <p>
+     * The forwarded header is honored only with the sharding enabled and only with the secret shared by the shards,
+     * so the client cannot bypass the rate limit by sending it.
+     * </p>
+     *
+     * @param rate             the sustained rate of the requests per client and endpoint
+     * @param burst            the largest burst of the requests per client and endpoint
+     * @param minConcurrency   the lowest limit of the concurrent writes
+     * @param maxConcurrency   the highest limit of the concurrent writes
+     * @param latencyThreshold the latency of the writes above which the limit is decreased
+     * @param loadConcurrency  the maximum number of the concurrent loads of the sample dataset
+     * @param meterRegistry    the {@link MeterRegistry}
+     * @param shardClients     the {@link ObjectProvider} of the {@link ShardClient}, available with the sharding
+     * @return the {@link FilterRegistrationBean} with the {@link AdmissionControlFilter}
+     */
+    @Bean
+    public FilterRegistrationBean<AdmissionControlFilter> createAdmissionControlFilter(
+            @Value("${admission.rate}") double rate,
+            @Value("${admission.burst}") int burst,
+            @Value("${admission.min-concurrency}") int minConcurrency,
+            @Value("${admission.max-concurrency}") int maxConcurrency,
+            @Value("${admission.latency-threshold}") Duration latencyThreshold,
+            @Value("${admission.load-concurrency}") int loadConcurrency,
+            MeterRegistry meterRegistry,
+            ObjectProvider<ShardClient> shardClients) {
+
+        final RateLimiter rateLimiter = new RateLimiter(rate, burst);
+        final AdaptiveConcurrencyLimiter concurrencyLimiter = new AdaptiveConcurrencyLimiter(minConcurrency,
+                maxConcurrency, latencyThreshold);
+        final ShardClient shardClient = shardClients.getIfAvailable();
+        final Predicate<HttpServletRequest> forwardedByShard = Objects.isNull(shardClient) ? _ -> false
+                : request -> shardClient.isForwardedByShard(request.getHeader(SHARD_FORWARDED_HEADER));
+        final AdmissionControlFilter admissionControlFilter = new AdmissionControlFilter(rateLimiter,
+                concurrencyLimiter, loadConcurrency, forwardedByShard);
+        FunctionCounter.builder("admission.admitted", admissionControlFilter,
+                        AdmissionControlFilter::getAdmittedCount)
+                .description("The admitted mutating requests").register(meterRegistry);
+        FunctionCounter.builder(REJECTED_METER, admissionControlFilter, AdmissionControlFilter::getRateLimitedCount)
+                .tag(REASON_TAG, "rate-limit").description("The mutating requests rejected by the rate limit")
+                .register(meterRegistry);
+        FunctionCounter.builder(REJECTED_METER, admissionControlFilter, AdmissionControlFilter::getShedCount)
+                .tag(REASON_TAG, "load-shedding").description("The writes shed by the adaptive concurrency limit")
+                .register(meterRegistry);
+        FunctionCounter.builder(REJECTED_METER, admissionControlFilter, AdmissionControlFilter::getLoadRejectedCount)
+                .tag(REASON_TAG, "load-concurrency").description("The loads of the sample dataset rejected")
+                .register(meterRegistry);
+        Gauge.builder("admission.concurrency.limit", concurrencyLimiter, AdaptiveConcurrencyLimiter::getLimit)
+                .description("The adaptive limit of the concurrent writes").register(meterRegistry);
+        Gauge.builder("admission.concurrency.in.flight", concurrencyLimiter,
+                        AdaptiveConcurrencyLimiter::getInFlight)
+                .description("The writes in flight").register(meterRegistry);
+        Gauge.builder("admission.rate.buckets", rateLimiter, RateLimiter::getBucketCount)
+                .description("The token buckets of the active clients").register(meterRegistry);
+        final FilterRegistrationBean<AdmissionControlFilter> registrationBean =
+                new FilterRegistrationBean<>(admissionControlFilter);
+        registrationBean.addUrlPatterns("/departments", "/departments/*", LOAD_SAMPLE_DATASET_PATH);
+        registrationBean.setOrder(Ordered.HIGHEST_PRECEDENCE + 1);
+        return registrationBean;
+    }
+}
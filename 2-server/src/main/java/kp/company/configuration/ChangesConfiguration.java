@@ -0,0 +1,44 @@
+package kp.company.configuration;
+
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.MeterRegistry;
+import kp.SampleDataset;
+import kp.dataset.changes.ChangeLog;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnExpression;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import static kp.Constants.NOT_REPLICA_CONDITION;
+
+/**
+ * The configuration of the change-data-capture log of the {@link SampleDataset}.
+ * <p>
+ * The read replica has no change log: its subscribers are redirected to the leader's change log.
+ * </p>
+ */
+@Configuration
+@ConditionalOnProperty(name = "changes.enabled", havingValue = "true")
+@ConditionalOnExpression(NOT_REPLICA_CONDITION)
+public class ChangesConfiguration {
+
+    /**
+     * Creates and starts the {@link ChangeLog}.
+     *
+     * @param capacity      the number of the kept change events
+     * @param meterRegistry the {@link MeterRegistry}
+     * @return the {@link ChangeLog}
+     */
+    @Bean(destroyMethod = "close")
+    public ChangeLog createChangeLog(@Value("${changes.capacity}") int capacity, MeterRegistry meterRegistry) {
+
+        final ChangeLog changeLog = new ChangeLog(capacity);
+        changeLog.start();
+        FunctionCounter.builder("changes.published", changeLog, ChangeLog::getLastSequence)
+                .description("The published change events").register(meterRegistry);
+        FunctionCounter.builder("changes.dropped", changeLog, ChangeLog::getDroppedCount)
+                .description("The change event subscribers dropped for falling behind").register(meterRegistry);
+        return changeLog;
+    }
+}
@@ -0,0 +1,60 @@
+package kp.company.configuration;
+
+import kp.SampleDataset;
+import kp.dataset.DatasetStorage;
+import kp.dataset.OffHeapDatasetRepository;
+import kp.sharding.ShardRing;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import java.nio.file.Path;
+
+/**
+ * The configuration of the sample dataset storage.
+ * <p>
+ * The dataset is closed when the context is closed, after the persistence depending on it.
+ * </p>
+ */
+@Configuration
+public class DatasetConfiguration implements DisposableBean {
+
+    /**
+     * Sets the {@link DatasetStorage} on the {@link SampleDataset}.
+     * <p>
+     * The persistence recovery depends on this bean, so the recovered dataset is loaded
+     * straight into the repository of the configured storage.
+     * The off-heap storage maps its records to the files in the directory, when it is set.
+     * The search index is enabled first, so it is built once for the dataset of the storage.
+     * The sharded node keeps only the departments owned by it, also in the recovered dataset.
+     * </p>
+     *
+     * @param datasetStorage     the {@link DatasetStorage}
+     * @param offHeapDirectory   the directory of the off-heap storage files, empty to keep them in the native memory
+     * @param searchIndexEnabled the flag of the enabled search index of the employees
+     * @param shardRingProvider  the provider of the {@link ShardRing}, available when the sharding is enabled
+     * @return the {@link DatasetStorage}
+     */
+    @Bean
+    public DatasetStorage createDatasetStorage(@Value("${dataset.storage}") DatasetStorage datasetStorage,
+                                               @Value("${dataset.off-heap.directory:}") String offHeapDirectory,
+                                               @Value("${dataset.search-index:true}") boolean searchIndexEnabled,
+                                               ObjectProvider<ShardRing> shardRingProvider) {
+
+        shardRingProvider.ifAvailable(shardRing -> SampleDataset.setDepartmentFilter(shardRing::isLocal));
+        OffHeapDatasetRepository.setDirectory(offHeapDirectory.isBlank() ? null : Path.of(offHeapDirectory));
+        SampleDataset.setSearchIndexEnabled(searchIndexEnabled);
+        SampleDataset.setDatasetStorage(datasetStorage);
+        return datasetStorage;
+    }
+
+    /**
+     * Closes the dataset, so the off-heap storage files are marked as clean for the next startup.
+     */
+    @Override
+    public void destroy() {
+        SampleDataset.closeDataset();
+    }
+}
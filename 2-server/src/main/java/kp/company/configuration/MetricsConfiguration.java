@@ -0,0 +1,33 @@
+package kp.company.configuration;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import kp.SampleDataset;
+import kp.dataset.DatasetMetrics;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+/**
+ * The configuration of the sample dataset metrics.
+ * <p>
+ * The request metrics 'http.server.requests' of the controllers come from Spring Boot Actuator.
+ * The percentile histograms of both are switched on by the 'management.metrics.distribution' properties.
+ * </p>
+ */
+@Configuration
+public class MetricsConfiguration {
+
+    /**
+     * Creates the {@link DatasetMetrics} and sets it on the {@link SampleDataset}.
+     *
+     * @param meterRegistry the {@link MeterRegistry}
+     * @return the {@link DatasetMetrics}
+     */
+    @Bean
+    public DatasetMetrics createDatasetMetrics(MeterRegistry meterRegistry) {
+
+        final DatasetMetrics datasetMetrics = new DatasetMetrics(meterRegistry,
+                () -> SampleDataset.snapshot().repository());
+        SampleDataset.setDatasetMetrics(datasetMetrics);
+        return datasetMetrics;
+    }
+}
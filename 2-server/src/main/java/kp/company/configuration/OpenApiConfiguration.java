@@ -10,14 +10,23 @@ import kp.company.model.Department;
 import kp.company.model.Employee;
 import kp.company.model.Title;
 import org.springdoc.core.models.GroupedOpenApi;
+import org.springframework.beans.factory.annotation.AnnotatedBeanDefinition;
 import org.springframework.beans.factory.annotation.Value;
+import org.springframework.beans.factory.config.BeanDefinition;
+import org.springframework.beans.factory.config.BeanFactoryPostProcessor;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 
+import java.util.Arrays;
+import java.util.Objects;
 import java.util.function.UnaryOperator;
 
 /**
  * The configuration for Open API.
+ * <p>
+ * The beans of the springdoc and of this configuration are initialized lazily, so the Swagger UI
+ * and the OpenAPI document cost nothing at the startup and are built on the first access.
+ * </p>
  */
 @Configuration
 public class OpenApiConfiguration {
@@ -42,6 +51,26 @@ public class OpenApiConfiguration {
     private static final String DEPARTMENTS_PATH_PATTERN = PATTERN_FUN.apply("departments");
     private static final String EMPLOYEES_PATH_PATTERN = PATTERN_FUN.apply("employees");
     private static final String TITLES_PATH_PATTERN = PATTERN_FUN.apply("titles");
+    private static final String SPRINGDOC_PACKAGE_PREFIX = "org.springdoc.";
+
+    /**
+     * Creates the {@link BeanFactoryPostProcessor} marking the Open API beans as lazy.
+     * <p>
+     * The handler methods of the lazy springdoc controllers are still mapped at the startup,
+     * their beans are created on the first request.
+     * The beans injected into the eager beans, e.g. the Swagger UI web configurer, are still created eagerly.
+     * </p>
+     *
+     * @return the {@link BeanFactoryPostProcessor}
+     */
+    @Bean
+    public static BeanFactoryPostProcessor createLazyOpenApiPostProcessor() {
+
+        return beanFactory -> Arrays.stream(beanFactory.getBeanDefinitionNames())
+                .map(beanFactory::getBeanDefinition)
+                .filter(OpenApiConfiguration::isOpenApiBean)
+                .forEach(beanDefinition -> beanDefinition.setLazyInit(true));
+    }
 
     /**
      * Creates the {@link OpenAPI}
@@ -95,4 +124,20 @@ public class OpenApiConfiguration {
         return GroupedOpenApi.builder().group(TITLES_GROUP).pathsToMatch(TITLES_PATH_PATTERN).build();
     }
 
+    /**
+     * Checks if the bean is declared by the springdoc or by this configuration.
+     *
+     * @param beanDefinition the {@link BeanDefinition}
+     * @return true if it is the Open API bean
+     */
+    private static boolean isOpenApiBean(BeanDefinition beanDefinition) {
+
+        final String className = beanDefinition instanceof AnnotatedBeanDefinition annotatedBeanDefinition
+                                 && Objects.nonNull(annotatedBeanDefinition.getFactoryMethodMetadata())
+                ? annotatedBeanDefinition.getFactoryMethodMetadata().getDeclaringClassName()
+                : beanDefinition.getBeanClassName();
+        return Objects.nonNull(className) && (className.startsWith(SPRINGDOC_PACKAGE_PREFIX)
+                                              || className.equals(OpenApiConfiguration.class.getName()));
+    }
+
 }
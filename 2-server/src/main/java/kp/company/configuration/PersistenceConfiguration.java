@@ -0,0 +1,64 @@
+package kp.company.configuration;
+
+import kp.SampleDataset;
+import kp.dataset.persistence.PersistenceEngine;
+import kp.dataset.persistence.RecoveryReport;
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnExpression;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.DependsOn;
+
+import java.io.IOException;
+import java.lang.invoke.MethodHandles;
+import java.nio.file.Path;
+import java.time.Duration;
+
+import static kp.Constants.NOT_REPLICA_CONDITION;
+
+/**
+ * The configuration for the persistence of the {@link SampleDataset}.
+ * <p>
+ * The read replica has no persistence: its dataset is written by the replication,
+ * and after the restart it catches up from the leader.
+ * </p>
+ */
+@Configuration
+@ConditionalOnProperty(name = "persistence.enabled", havingValue = "true")
+@ConditionalOnExpression(NOT_REPLICA_CONDITION)
+public class PersistenceConfiguration {
+    private static final Log logger = LogFactory.getLog(MethodHandles.lookup().lookupClass().getName());
+
+    /**
+     * Creates the {@link PersistenceEngine}.
+     * <p>
+     * The dataset is recovered before the web server accepts the requests.
+     * </p>
+     *
+     * @param directory          the directory of the log segments and the snapshot files
+     * @param fsync              the flag whether the log batches are forced to the storage device
+     * @param syncCommit         the flag whether the writer waits until its mutation is durable,
+     *                           without it the write is acknowledged before it is durable
+     * @param checkpointInterval the interval between the checkpoints
+     * @return the {@link PersistenceEngine}
+     * @throws IOException if an I/O error occurs
+     */
+    @Bean(destroyMethod = "close")
+    @DependsOn("createDatasetStorage")
+    public PersistenceEngine createPersistenceEngine(@Value("${persistence.directory}") Path directory,
+                                                     @Value("${persistence.fsync}") boolean fsync,
+                                                     @Value("${persistence.sync-commit}") boolean syncCommit,
+                                                     @Value("${persistence.checkpoint-interval}")
+                                                     Duration checkpointInterval) throws IOException {
+
+        final PersistenceEngine engine = new PersistenceEngine(directory, fsync, syncCommit);
+        final RecoveryReport report = engine.recover();
+        logger.info("createPersistenceEngine(): version[%d], departments[%d], mutations[%d], time[%d ms]"
+                .formatted(report.version(), report.departments(), report.mutations(), report.elapsedMillis()));
+        engine.start(checkpointInterval);
+        return engine;
+    }
+}
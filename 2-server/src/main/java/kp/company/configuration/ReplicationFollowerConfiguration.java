@@ -0,0 +1,105 @@
+package kp.company.configuration;
+
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.TimeGauge;
+import kp.SampleDataset;
+import kp.company.filter.ReplicaFilter;
+import kp.dataset.persistence.ReplicationFollower;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.web.servlet.FilterRegistrationBean;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.DependsOn;
+import org.springframework.core.Ordered;
+
+import java.net.InetSocketAddress;
+import java.net.URI;
+import java.time.Duration;
+import java.util.concurrent.TimeUnit;
+
+import static kp.Constants.CHANGES_PATH;
+import static kp.Constants.LOAD_SAMPLE_DATASET_PATH;
+
+/**
+ * The configuration of the read replica following the replication leader.
+ * <p>
+ * The replica's {@link SampleDataset} is written only by the replication, so the replica runs
+ * without its own persistence and without its own change log, whatever their properties say:
+ * their configurations are conditional on the role other than the follower.
+ * </p>
+ */
+@Configuration
+@ConditionalOnProperty(name = "replication.role", havingValue = "follower")
+public class ReplicationFollowerConfiguration {
+
+    /**
+     * Creates and starts the {@link ReplicationFollower}.
+     *
+     * @param host           the host of the leader's replication socket
+     * @param port           the port of the leader's replication socket
+     * @param connectTimeout the timeout of the connecting to the leader
+     * @param readTimeout    the longest silence of the leader before the connection is dropped
+     * @param retryInterval  the interval between the attempts to reconnect
+     * @param meterRegistry  the {@link MeterRegistry}
+     * @return the {@link ReplicationFollower}
+     */
+    @Bean(destroyMethod = "close")
+    @DependsOn("createDatasetStorage")
+    public ReplicationFollower createReplicationFollower(@Value("${replication.host}") String host,
+                                                         @Value("${replication.port}") int port,
+                                                         @Value("${replication.connect-timeout}")
+                                                         Duration connectTimeout,
+                                                         @Value("${replication.read-timeout}") Duration readTimeout,
+                                                         @Value("${replication.retry-interval}")
+                                                         Duration retryInterval,
+                                                         MeterRegistry meterRegistry) {
+
+        final ReplicationFollower follower = new ReplicationFollower(new InetSocketAddress(host, port),
+                connectTimeout, readTimeout, retryInterval);
+        follower.start();
+        Gauge.builder("replication.lag", follower, ReplicationFollower::getLag)
+                .description("The leader's mutations not applied yet").register(meterRegistry);
+        TimeGauge.builder("replication.staleness", follower, TimeUnit.MILLISECONDS,
+                        replicationFollower -> replicationFollower.getStaleness().toMillis())
+                .description("The time since the follower applied every mutation of the leader")
+                .register(meterRegistry);
+        FunctionCounter.builder("replication.applied", follower, ReplicationFollower::getAppliedCount)
+                .description("The mutations applied by the follower").register(meterRegistry);
+        FunctionCounter.builder("replication.snapshots", follower, ReplicationFollower::getSnapshotCount)
+                .description("The snapshots the follower caught up from").register(meterRegistry);
+        return follower;
+    }
+
+    /**
+     * Creates the {@link ReplicaFilter}.
+     * <p>
+     * It follows the access log filter, so the redirected and the rejected requests are logged too,
+     * and the admission control filter, so the rate limited client is not redirected.
+     * </p>
+     *
+     * @param follower      the {@link ReplicationFollower}
+     * @param leaderUri     the base URI of the leader's HTTP server
+     * @param maxStaleness  the staleness bound of the served reads
+     * @param meterRegistry the {@link MeterRegistry}
+     * @return the {@link FilterRegistrationBean} with the {@link ReplicaFilter}
+     */
+    @Bean
+    public FilterRegistrationBean<ReplicaFilter> createReplicaFilter(
+            ReplicationFollower follower, @Value("${replication.leader-url}") URI leaderUri,
+            @Value("${replication.max-staleness}") Duration maxStaleness, MeterRegistry meterRegistry) {
+
+        final ReplicaFilter replicaFilter = new ReplicaFilter(follower, leaderUri, maxStaleness);
+        FunctionCounter.builder("replication.redirected", replicaFilter, ReplicaFilter::getRedirectedCount)
+                .description("The requests redirected to the leader").register(meterRegistry);
+        FunctionCounter.builder("replication.rejected", replicaFilter, ReplicaFilter::getRejectedCount)
+                .description("The reads rejected for the staleness").register(meterRegistry);
+        final FilterRegistrationBean<ReplicaFilter> registrationBean = new FilterRegistrationBean<>(replicaFilter);
+        registrationBean.addUrlPatterns("/departments", "/departments/*", "/employees", "/employees/*",
+                LOAD_SAMPLE_DATASET_PATH, CHANGES_PATH);
+        registrationBean.setOrder(Ordered.HIGHEST_PRECEDENCE + 2);
+        return registrationBean;
+    }
+}
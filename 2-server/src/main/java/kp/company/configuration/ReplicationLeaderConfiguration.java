@@ -0,0 +1,66 @@
+package kp.company.configuration;
+
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import kp.SampleDataset;
+import kp.dataset.persistence.PersistenceEngine;
+import kp.dataset.persistence.ReplicationLeader;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.DependsOn;
+
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.time.Duration;
+
+/**
+ * The configuration of the replication leader shipping the mutations of the {@link SampleDataset}
+ * to the read replicas.
+ */
+@Configuration
+@ConditionalOnProperty(name = "replication.role", havingValue = "leader")
+public class ReplicationLeaderConfiguration {
+
+    /**
+     * Creates and starts the {@link ReplicationLeader}.
+     * <p>
+     * The {@link PersistenceEngine} is taken from its provider first, so the dataset is recovered,
+     * when the persistence is enabled, before the followers are accepted. The replayed mutations
+     * are not reported to the listeners, so they are not shipped again.
+     * </p>
+     *
+     * @param host                      the host of the replication socket
+     * @param port                      the port of the replication socket
+     * @param backlog                   the number of the kept mutations for the resuming followers
+     * @param heartbeatInterval         the longest interval between the messages to the follower
+     * @param persistenceEngineProvider the provider of the {@link PersistenceEngine}
+     * @param meterRegistry             the {@link MeterRegistry}
+     * @return the {@link ReplicationLeader}
+     * @throws IOException if the socket cannot be bound
+     */
+    @Bean(destroyMethod = "close")
+    @DependsOn("createDatasetStorage")
+    public ReplicationLeader createReplicationLeader(@Value("${replication.host}") String host,
+                                                     @Value("${replication.port}") int port,
+                                                     @Value("${replication.backlog}") int backlog,
+                                                     @Value("${replication.heartbeat-interval}")
+                                                     Duration heartbeatInterval,
+                                                     ObjectProvider<PersistenceEngine> persistenceEngineProvider,
+                                                     MeterRegistry meterRegistry) throws IOException {
+
+        persistenceEngineProvider.getIfAvailable();
+        final ReplicationLeader leader = new ReplicationLeader(backlog, heartbeatInterval);
+        leader.start(new InetSocketAddress(host, port));
+        Gauge.builder("replication.followers", leader, ReplicationLeader::getFollowerCount)
+                .description("The connected replication followers").register(meterRegistry);
+        FunctionCounter.builder("replication.shipped", leader, ReplicationLeader::getShippedCount)
+                .description("The mutations shipped to the followers").register(meterRegistry);
+        FunctionCounter.builder("replication.snapshots", leader, ReplicationLeader::getSnapshotCount)
+                .description("The snapshots sent to the followers catching up").register(meterRegistry);
+        return leader;
+    }
+}
@@ -0,0 +1,115 @@
+package kp.company.configuration;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.MeterRegistry;
+import kp.company.filter.ShardRoutingFilter;
+import kp.sharding.ScatterGather;
+import kp.sharding.ShardClient;
+import kp.sharding.ShardRing;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.autoconfigure.http.HttpMessageConverters;
+import org.springframework.boot.web.servlet.FilterRegistrationBean;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.Ordered;
+
+import java.net.URI;
+import java.time.Duration;
+import java.util.Arrays;
+
+import static kp.Constants.LOAD_SAMPLE_DATASET_PATH;
+
+/**
+ * The configuration of the dataset sharded across the server instances by the department id.
+ * <p>
+ * Every instance is configured with the same list of the nodes, the same shared secret and its own base URI.
+ * </p>
+ */
+@Configuration
+@ConditionalOnProperty(name = "sharding.enabled", havingValue = "true")
+public class ShardingConfiguration {
+
+    /**
+     * Creates the {@link ShardRing}.
+     *
+     * @param nodes        the base URIs of all nodes
+     * @param localNode    the base URI of this node
+     * @param virtualNodes the number of the points of every node on the ring
+     * @return the {@link ShardRing}
+     */
+    @Bean
+    public ShardRing createShardRing(@Value("${sharding.nodes}") String[] nodes,
+                                     @Value("${sharding.local-node}") URI localNode,
+                                     @Value("${sharding.virtual-nodes}") int virtualNodes) {
+
+        return new ShardRing(Arrays.stream(nodes).map(String::strip).map(URI::create).toList(), localNode,
+                virtualNodes);
+    }
+
+    /**
+     * Creates the {@link ShardClient}.
+     *
+     * @param objectMapper   the {@link ObjectMapper}
+     * @param connectTimeout the timeout of the connecting to the shard
+     * @param requestTimeout the timeout of the response headers from the shard
+     * @param secret         the secret shared by the shards, authenticating the forwarded requests
+     * @return the {@link ShardClient}
+     */
+    @Bean(destroyMethod = "close")
+    public ShardClient createShardClient(ObjectMapper objectMapper,
+                                         @Value("${sharding.connect-timeout}") Duration connectTimeout,
+                                         @Value("${sharding.request-timeout}") Duration requestTimeout,
+                                         @Value("${sharding.secret}") String secret) {
+
+        return new ShardClient(objectMapper, connectTimeout, requestTimeout, secret);
+    }
+
+    /**
+     * Creates the {@link ScatterGather}.
+     *
+     * @param shardRing   the {@link ShardRing}
+     * @param shardClient the {@link ShardClient}
+     * @return the {@link ScatterGather}
+     */
+    @Bean
+    public ScatterGather createScatterGather(ShardRing shardRing, ShardClient shardClient) {
+        return new ScatterGather(shardRing, shardClient);
+    }
+
+    /**
+     * Creates the {@link ShardRoutingFilter}.
+     * <p>
+     * It follows the access log filter, so the routed requests are logged on every node they pass,
+     * and the admission control filter, so the rejected requests are not routed.
+     * It precedes the conditional GET filter, which answers only for this node.
+     * </p>
+     *
+     * @param shardRing         the {@link ShardRing}
+     * @param shardClient       the {@link ShardClient}
+     * @param scatterGather     the {@link ScatterGather}
+     * @param objectMapper      the {@link ObjectMapper}
+     * @param messageConverters the {@link HttpMessageConverters}
+     * @param meterRegistry     the {@link MeterRegistry}
+     * @return the {@link FilterRegistrationBean} with the {@link ShardRoutingFilter}
+     */
+    @Bean
+    public FilterRegistrationBean<ShardRoutingFilter> createShardRoutingFilter(
+            ShardRing shardRing, ShardClient shardClient, ScatterGather scatterGather, ObjectMapper objectMapper,
+            HttpMessageConverters messageConverters, MeterRegistry meterRegistry) {
+
+        final ShardRoutingFilter shardRoutingFilter = new ShardRoutingFilter(shardRing, shardClient, scatterGather,
+                objectMapper, messageConverters.getConverters());
+        FunctionCounter.builder("sharding.proxied", shardRoutingFilter, ShardRoutingFilter::getProxiedCount)
+                .description("The requests proxied to the owner shard").register(meterRegistry);
+        FunctionCounter.builder("sharding.gathered", shardRoutingFilter, ShardRoutingFilter::getGatheredCount)
+                .description("The requests gathered from all shards").register(meterRegistry);
+        final FilterRegistrationBean<ShardRoutingFilter> registrationBean =
+                new FilterRegistrationBean<>(shardRoutingFilter);
+        registrationBean.addUrlPatterns("/departments", "/departments/*", "/employees", "/employees/*",
+                LOAD_SAMPLE_DATASET_PATH);
+        registrationBean.setOrder(Ordered.HIGHEST_PRECEDENCE + 2);
+        return registrationBean;
+    }
+}
@@ -0,0 +1,49 @@
+package kp.company.configuration;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jdk.jfr.consumer.RecordingStream;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import java.time.Duration;
+
+/**
+ * The configuration for the virtual-thread request execution mode.
+ * <p>
+ * The mode itself is switched by the property 'spring.threads.virtual.enabled': Spring Boot then runs
+ * the Tomcat requests and the asynchronous request processing (e.g. the NDJSON streaming) on virtual threads.
+ * This configuration adds the metric of the virtual threads pinned to their carrier threads.
+ * </p>
+ */
+@Configuration
+@ConditionalOnProperty(name = "spring.threads.virtual.enabled", havingValue = "true")
+public class VirtualThreadConfiguration {
+
+    private static final String PINNED_EVENT = "jdk.VirtualThreadPinned";
+    private static final String PINNED_METER = "jvm.threads.virtual.pinned";
+    private static final String PINNED_METER_DESCRIPTION = "The time the virtual threads were pinned to the carriers";
+
+    /**
+     * Creates the JFR {@link RecordingStream} recording the pinned virtual threads into the {@link Timer}.
+     *
+     * @param meterRegistry the {@link MeterRegistry}
+     * @param threshold     the shortest recorded pinning
+     * @return the {@link RecordingStream}
+     */
+    @Bean(destroyMethod = "close")
+    public RecordingStream createPinnedRecordingStream(MeterRegistry meterRegistry,
+                                                       @Value("${virtual-threads.pinned-threshold}")
+                                                       Duration threshold) {
+
+        final Timer timer = Timer.builder(PINNED_METER).description(PINNED_METER_DESCRIPTION)
+                .register(meterRegistry);
+        final RecordingStream recordingStream = new RecordingStream();
+        recordingStream.enable(PINNED_EVENT).withThreshold(threshold);
+        recordingStream.onEvent(PINNED_EVENT, event -> timer.record(event.getDuration()));
+        recordingStream.startAsync();
+        return recordingStream;
+    }
+}
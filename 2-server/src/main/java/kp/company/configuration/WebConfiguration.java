@@ -1,11 +1,31 @@
 package kp.company.configuration;
 
+import com.fasterxml.jackson.dataformat.cbor.CBORFactory;
+import com.fasterxml.jackson.dataformat.smile.SmileFactory;
+import kp.company.filter.ConditionalGetFilter;
+import kp.company.model.Title;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.web.server.Compression;
+import org.springframework.boot.web.server.WebServerFactoryCustomizer;
+import org.springframework.boot.web.servlet.FilterRegistrationBean;
+import org.springframework.boot.web.servlet.server.ConfigurableServletWebServerFactory;
+import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
+import org.springframework.format.FormatterRegistry;
+import org.springframework.http.converter.cbor.MappingJackson2CborHttpMessageConverter;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+import org.springframework.http.converter.smile.MappingJackson2SmileHttpMessageConverter;
+import org.springframework.util.unit.DataSize;
 import org.springframework.web.servlet.config.annotation.CorsRegistry;
 import org.springframework.web.servlet.config.annotation.WebMvcConfigurer;
 
 /**
  * The web configuration.
+ * <p>
+ * Besides the JSON the models are negotiated in the binary CBOR and Smile encodings
+ * with the 'Accept' header 'application/cbor' or 'application/x-jackson-smile'.
+ * The responses above the size threshold are compressed with the gzip when the client accepts it.
+ * </p>
  */
 @Configuration
 public class WebConfiguration implements WebMvcConfigurer {
@@ -20,4 +40,79 @@ public class WebConfiguration implements WebMvcConfigurer {
     public void addCorsMappings(CorsRegistry registry) {
         registry.addMapping("/**").allowedMethods("*");
     }
+
+    /**
+     * Converts the query parameter to the {@link Title} by its value in the API, e.g. 'manager'.
+     *
+     * @param registry the {@link FormatterRegistry}
+     */
+    @Override
+    public void addFormatters(FormatterRegistry registry) {
+        registry.addConverter(String.class, Title.class, Title::fromValue);
+    }
+
+    /**
+     * Creates the customizer of the gzip compression of the responses.
+     * <p>
+     * The small responses are sent uncompressed, because the compression would cost more than it saves.
+     * The Server-Sent Events are never compressed, so every event is sent at once.
+     * </p>
+     *
+     * @param enabled         the flag of the enabled compression
+     * @param minResponseSize the size threshold of the compressed response
+     * @param mimeTypes       the compressed MIME types
+     * @return the {@link WebServerFactoryCustomizer}
+     */
+    @Bean
+    public WebServerFactoryCustomizer<ConfigurableServletWebServerFactory> createCompressionCustomizer(
+            @Value("${compression.enabled}") boolean enabled,
+            @Value("${compression.min-response-size}") DataSize minResponseSize,
+            @Value("${compression.mime-types}") String[] mimeTypes) {
+
+        return factory -> {
+            final Compression compression = new Compression();
+            compression.setEnabled(enabled);
+            compression.setMinResponseSize(minResponseSize);
+            compression.setMimeTypes(mimeTypes);
+            factory.setCompression(compression);
+        };
+    }
+
+    /**
+     * Creates the converter of the CBOR encoding with the {@link com.fasterxml.jackson.databind.ObjectMapper}
+     * configured like the JSON one.
+     *
+     * @param builder the {@link Jackson2ObjectMapperBuilder}
+     * @return the {@link MappingJackson2CborHttpMessageConverter}
+     */
+    @Bean
+    public MappingJackson2CborHttpMessageConverter createCborConverter(Jackson2ObjectMapperBuilder builder) {
+        return new MappingJackson2CborHttpMessageConverter(builder.factory(new CBORFactory()).build());
+    }
+
+    /**
+     * Creates the converter of the Smile encoding with the {@link com.fasterxml.jackson.databind.ObjectMapper}
+     * configured like the JSON one.
+     *
+     * @param builder the {@link Jackson2ObjectMapperBuilder}
+     * @return the {@link MappingJackson2SmileHttpMessageConverter}
+     */
+    @Bean
+    public MappingJackson2SmileHttpMessageConverter createSmileConverter(Jackson2ObjectMapperBuilder builder) {
+        return new MappingJackson2SmileHttpMessageConverter(builder.factory(new SmileFactory()).build());
+    }
+
+    /**
+     * Creates the {@link ConditionalGetFilter} answering the conditional GET requests.
+     *
+     * @return the {@link FilterRegistrationBean} with the {@link ConditionalGetFilter}
+     */
+    @Bean
+    public FilterRegistrationBean<ConditionalGetFilter> createConditionalGetFilter() {
+
+        final FilterRegistrationBean<ConditionalGetFilter> registrationBean =
+                new FilterRegistrationBean<>(new ConditionalGetFilter());
+        registrationBean.addUrlPatterns("/departments/*", "/employees/*", "/titles");
+        return registrationBean;
+    }
 }
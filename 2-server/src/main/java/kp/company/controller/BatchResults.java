@@ -0,0 +1,45 @@
+package kp.company.controller;
+
+import kp.company.model.BatchItemResult;
+import kp.company.model.BatchItemStatus;
+import kp.company.model.BatchResult;
+
+import java.util.EnumSet;
+import java.util.List;
+import java.util.Set;
+import java.util.function.IntFunction;
+import java.util.stream.IntStream;
+
+/**
+ * The factory of the {@link BatchResult}s for the batch endpoints.
+ * <p>
+ * It is shared with the controllers of the reactive server.
+ * </p>
+ */
+public final class BatchResults {
+
+    private static final Set<BatchItemStatus> SUCCEEDED =
+            EnumSet.of(BatchItemStatus.CREATED, BatchItemStatus.UPDATED, BatchItemStatus.DELETED);
+
+    /**
+     * Private constructor to prevent instantiation.
+     */
+    private BatchResults() {
+    }
+
+    /**
+     * Creates the {@link BatchResult} from the statuses of the operations.
+     *
+     * @param statuses the list of {@link BatchItemStatus}es in the order of the operations
+     * @param idFun    the function giving the id of the operation with the given index
+     * @return the {@link BatchResult}
+     */
+    public static BatchResult of(List<BatchItemStatus> statuses, IntFunction<Long> idFun) {
+
+        final List<BatchItemResult> results = IntStream.range(0, statuses.size())
+                .mapToObj(index -> new BatchItemResult().index(index).id(idFun.apply(index))
+                        .status(statuses.get(index))).toList();
+        final int succeeded = (int) statuses.stream().filter(SUCCEEDED::contains).count();
+        return new BatchResult().succeeded(succeeded).failed(statuses.size() - succeeded).results(results);
+    }
+}
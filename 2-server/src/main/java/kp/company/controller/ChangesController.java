@@ -0,0 +1,189 @@
+package kp.company.controller;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import jakarta.validation.constraints.Min;
+import kp.SampleDataset;
+import kp.dataset.changes.ChangeEvent;
+import kp.dataset.changes.ChangeLog;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnExpression;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.validation.annotation.Validated;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestHeader;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import java.io.IOException;
+import java.lang.invoke.MethodHandles;
+import java.time.Duration;
+import java.util.List;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.stream.Stream;
+
+import static kp.Constants.CHANGES_PATH;
+import static kp.Constants.LAST_EVENT_ID_HEADER;
+import static kp.Constants.NOT_REPLICA_CONDITION;
+
+/**
+ * The controller streaming the {@link ChangeEvent}s of the {@link SampleDataset} as the Server-Sent Events.
+ * <p>
+ * Every subscriber has its own virtual thread reading the {@link ChangeLog} from its position.
+ * The event id is the epoch of the {@link ChangeLog} and the sequence number separated by the colon,
+ * so the reconnecting client resumes with the 'Last-Event-ID' header. The sequence numbers restart
+ * with every start of the server, so the id of the other epoch gets the 'Gone' status.
+ * The subscriber whose events were overwritten in the {@link ChangeLog} gets the 'dropped' event
+ * and its stream is completed; it reloads the collections and subscribes again.
+ * </p>
+ */
+@RestController
+@Validated
+@ConditionalOnProperty(name = "changes.enabled", havingValue = "true")
+@ConditionalOnExpression(NOT_REPLICA_CONDITION)
+public class ChangesController {
+    private static final Logger logger = LoggerFactory.getLogger(MethodHandles.lookup().lookupClass());
+    private static final int MAX_EVENTS_PER_READ = 256;
+    private static final String DROPPED_EVENT = "dropped";
+    private static final String HEARTBEAT_COMMENT = "heartbeat";
+    private static final String EVENT_ID_SEPARATOR = ":";
+    private final ChangeLog changeLog;
+    private final Duration heartbeatInterval;
+    private final ObjectWriter writer;
+
+    /**
+     * The constructor.
+     *
+     * @param changeLog         the {@link ChangeLog}
+     * @param heartbeatInterval the interval of the heartbeat comments sent to the idle subscriber
+     * @param objectMapper      the {@link ObjectMapper}
+     */
+    public ChangesController(ChangeLog changeLog,
+                             @Value("${changes.heartbeat-interval}") Duration heartbeatInterval,
+                             ObjectMapper objectMapper) {
+
+        this.changeLog = changeLog;
+        this.heartbeatInterval = heartbeatInterval;
+        this.writer = objectMapper.writer().without(SerializationFeature.INDENT_OUTPUT);
+    }
+
+    /**
+     * Streams the {@link ChangeEvent}s following the sequence number.
+     * <p>
+     * Without the sequence number only the new {@link ChangeEvent}s are streamed.
+     * The 'Last-Event-ID' header takes precedence over the query parameters.
+     * The sequence number of the query parameter without the epoch belongs to the current epoch.
+     * </p>
+     *
+     * @param afterSequence the sequence number of the last consumed {@link ChangeEvent}
+     * @param epoch         the epoch of the sequence number
+     * @param lastEventId   the 'Last-Event-ID' header sent by the reconnecting client, the epoch and the sequence
+     *                      number separated by the colon
+     * @return the {@link ResponseEntity} with the {@link SseEmitter}, the 'Bad Request' status for the invalid
+     * 'Last-Event-ID', or the 'Gone' status when the epoch is not the current one or the {@link ChangeEvent}s
+     * following the sequence number are not kept
+     */
+    @GetMapping(value = CHANGES_PATH, produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    public ResponseEntity<SseEmitter> streamChanges(
+            @Min(0L) @RequestParam(value = "afterSequence", required = false) Long afterSequence,
+            @Min(0L) @RequestParam(value = "epoch", required = false) Long epoch,
+            @RequestHeader(value = LAST_EVENT_ID_HEADER, required = false) String lastEventId) {
+
+        final long[] position;
+        if (Objects.nonNull(lastEventId)) {
+            final Optional<long[]> positionOpt = parseEventId(lastEventId);
+            if (positionOpt.isEmpty()) {
+                logger.debug("streamChanges(): invalid last event id[{}]", lastEventId);
+                return ResponseEntity.badRequest().build();
+            }
+            position = positionOpt.get();
+        } else {
+            position = new long[]{Optional.ofNullable(epoch).orElseGet(changeLog::getEpoch),
+                    Optional.ofNullable(afterSequence).orElseGet(changeLog::getLastSequence)};
+        }
+        final long fromSequence = position[1];
+        if (position[0] != changeLog.getEpoch() || !changeLog.isAvailable(fromSequence)) {
+            logger.debug("streamChanges(): gone, epoch[{}], after sequence[{}]", position[0], fromSequence);
+            return ResponseEntity.status(HttpStatus.GONE).build();
+        }
+        final SseEmitter emitter = new SseEmitter(0L);
+        Thread.ofVirtual().name("changes-" + fromSequence).start(() -> send(emitter, fromSequence));
+        logger.debug("streamChanges(): after sequence[{}]", fromSequence);
+        return ResponseEntity.ok(emitter);
+    }
+
+    /**
+     * Sends the {@link ChangeEvent}s to the subscriber until it disconnects or falls behind.
+     *
+     * @param emitter       the {@link SseEmitter}
+     * @param afterSequence the sequence number of the last sent {@link ChangeEvent}
+     */
+    private void send(SseEmitter emitter, long afterSequence) {
+
+        long sequence = afterSequence;
+        try {
+            while (true) {
+                final Optional<List<ChangeEvent>> eventsOpt =
+                        changeLog.read(sequence, MAX_EVENTS_PER_READ, heartbeatInterval);
+                if (eventsOpt.isEmpty()) {
+                    if (!changeLog.isAvailable(sequence)) {
+                        changeLog.recordDropped();
+                        emitter.send(SseEmitter.event().name(DROPPED_EVENT).data(sequence));
+                        logger.debug("send(): dropped, after sequence[{}]", sequence);
+                    }
+                    emitter.complete();
+                    return;
+                }
+                if (eventsOpt.get().isEmpty()) {
+                    emitter.send(SseEmitter.event().comment(HEARTBEAT_COMMENT));
+                }
+                for (ChangeEvent event : eventsOpt.get()) {
+                    emitter.send(SseEmitter.event().id(eventIdOf(event)).name(event.type())
+                            .data(writer.writeValueAsString(event), MediaType.APPLICATION_JSON));
+                    sequence = event.sequence();
+                }
+            }
+        } catch (IOException | IllegalStateException e) {
+            logger.debug("send(): disconnected, after sequence[{}], exception[{}]", sequence,
+                    Objects.toString(e.getMessage()));
+            emitter.completeWithError(e);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            emitter.complete();
+        }
+    }
+
+    /**
+     * Creates the event id of the {@link ChangeEvent}.
+     *
+     * @param event the {@link ChangeEvent}
+     * @return the event id
+     */
+    private String eventIdOf(ChangeEvent event) {
+        return changeLog.getEpoch() + EVENT_ID_SEPARATOR + event.sequence();
+    }
+
+    /**
+     * Parses the event id.
+     *
+     * @param eventId the event id
+     * @return the {@link Optional} with the epoch and the sequence number, empty for the invalid event id
+     */
+    private static Optional<long[]> parseEventId(String eventId) {
+
+        try {
+            return Optional.of(Stream.of(eventId.strip().split(EVENT_ID_SEPARATOR)).mapToLong(Long::parseLong)
+                    .toArray()).filter(ids -> ids.length == 2 && ids[0] >= 0 && ids[1] >= 0);
+        } catch (NumberFormatException _) {
+            return Optional.empty();
+        }
+    }
+}
@@ -0,0 +1,93 @@
+package kp.company.controller;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import kp.dataset.Page;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+
+import java.util.Iterator;
+import java.util.List;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.function.Supplier;
+import java.util.stream.Stream;
+
+import static kp.Constants.DATASET_VERSION_HEADER;
+import static kp.Constants.NEXT_CURSOR_HEADER;
+
+/**
+ * The response factory for the collection endpoints.
+ */
+final class CollectionResponses {
+
+    private static final String NDJSON_SEPARATOR = "\n";
+
+    /**
+     * Private constructor to prevent instantiation.
+     */
+    private CollectionResponses() {
+    }
+
+    /**
+     * Creates the response with the {@link Page}.
+     * <p>
+     * The cursor of the next page and the dataset version are sent in the headers.
+     * The client paging across the dataset loading sees the changed version.
+     * The empty page is the 'Not Found' response, still with the dataset version.
+     * </p>
+     *
+     * @param pageOpt the {@link Optional} with the {@link Page}, empty for the invalid cursor
+     * @param <T>     the type of the items
+     * @return the {@link ResponseEntity}
+     */
+    static <T> ResponseEntity<List<T>> page(Optional<Page<T>> pageOpt) {
+
+        if (pageOpt.isEmpty()) {
+            return ResponseEntity.badRequest().build();
+        }
+        final Page<T> page = pageOpt.get();
+        if (page.items().isEmpty()) {
+            return ResponseEntity.status(HttpStatus.NOT_FOUND)
+                    .header(DATASET_VERSION_HEADER, String.valueOf(page.version())).build();
+        }
+        final ResponseEntity.BodyBuilder builder = ResponseEntity.ok()
+                .header(DATASET_VERSION_HEADER, String.valueOf(page.version()));
+        if (Objects.nonNull(page.nextCursor())) {
+            builder.header(NEXT_CURSOR_HEADER, page.nextCursor());
+        }
+        return builder.body(page.items());
+    }
+
+    /**
+     * Creates the response streaming the items as newline-delimited JSON.
+     * <p>
+     * The items are written straight to the output stream one by one.
+     * </p>
+     *
+     * @param objectMapper   the {@link ObjectMapper}
+     * @param streamSupplier the supplier of the stream of items
+     * @return the {@link ResponseEntity}
+     */
+    static ResponseEntity<StreamingResponseBody> ndjson(ObjectMapper objectMapper,
+                                                        Supplier<? extends Stream<?>> streamSupplier) {
+
+        final ObjectWriter writer = objectMapper.writer().withRootValueSeparator("")
+                .without(SerializationFeature.INDENT_OUTPUT)
+                .without(SerializationFeature.FLUSH_AFTER_WRITE_VALUE);
+        final StreamingResponseBody body = outputStream -> {
+            try (Stream<?> stream = streamSupplier.get();
+                 JsonGenerator generator = writer.createGenerator(outputStream)) {
+                for (Iterator<?> iterator = stream.iterator(); iterator.hasNext(); ) {
+                    writer.writeValue(generator, iterator.next());
+                    generator.writeRaw(NDJSON_SEPARATOR);
+                }
+            }
+        };
+        return ResponseEntity.ok().contentType(MediaType.APPLICATION_NDJSON).body(body);
+    }
+}
@@ -1,24 +1,39 @@
 package kp.company.controller;
 
+import com.fasterxml.jackson.databind.ObjectMapper;
 import jakarta.validation.Valid;
+import jakarta.validation.constraints.Max;
 import jakarta.validation.constraints.Min;
+import jakarta.validation.constraints.Pattern;
 import kp.SampleDataset;
 import kp.company.api.DepartmentsApi;
+import kp.company.model.BatchResult;
 import kp.company.model.Department;
+import kp.company.model.DepartmentBatchOperation;
+import kp.company.model.DepartmentBatchRequest;
+import kp.company.model.DepartmentMergeResult;
 import kp.company.model.Employee;
+import kp.company.model.EmployeeBatchOperation;
+import kp.company.model.EmployeeBatchRequest;
+import kp.dataset.ConcurrentDatasetRepository;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.validation.annotation.Validated;
+import org.springframework.web.bind.annotation.GetMapping;
 import org.springframework.web.bind.annotation.PathVariable;
 import org.springframework.web.bind.annotation.RequestBody;
+import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
 import java.lang.invoke.MethodHandles;
 import java.util.List;
-import java.util.Optional;
-import java.util.function.Predicate;
+import java.util.Objects;
+
+import static kp.Constants.DEPARTMENTS_PATH;
 
 /**
  * The controller for the {@link Department}.<br/>
@@ -29,17 +44,43 @@ import java.util.function.Predicate;
 @Validated
 public class DepartmentsController implements DepartmentsApi {
     private static final Logger logger = LoggerFactory.getLogger(MethodHandles.lookup().lookupClass());
+    private final ObjectMapper objectMapper;
+
+    /**
+     * The constructor.
+     *
+     * @param objectMapper the {@link ObjectMapper}
+     */
+    public DepartmentsController(ObjectMapper objectMapper) {
+        this.objectMapper = objectMapper;
+    }
 
     /**
      * {@inheritDoc}
      */
     @Override
-    public ResponseEntity<List<Department>> getDepartments() {
+    public ResponseEntity<List<Department>> getDepartments(
+            @Min(1) @Max(10000) @Valid @RequestParam(value = "limit", required = false) Integer limit,
+            @Pattern(regexp = "^[0-9]+(:[0-9]+)?$") @Valid
+            @RequestParam(value = "cursor", required = false) String cursor) {
+
+        final ResponseEntity<List<Department>> responseEntity = CollectionResponses.page(
+                SampleDataset.getDepartments(cursor, limit));
+        logger.debug("getDepartments(): limit[{}], cursor[{}]", limit, cursor);
+        return responseEntity;
+    }
 
-        final ResponseEntity<List<Department>> responseEntity = Optional.of(SampleDataset.getDepartments())
-                .filter(Predicate.not(List::isEmpty)).map(ResponseEntity::ok)
-                .orElse(ResponseEntity.notFound().build());
-        logger.info("getDepartments():");
+    /**
+     * Streams all {@link Department}s as newline-delimited JSON.
+     *
+     * @return the {@link ResponseEntity} with the streaming body
+     */
+    @GetMapping(value = DEPARTMENTS_PATH, produces = MediaType.APPLICATION_NDJSON_VALUE)
+    public ResponseEntity<StreamingResponseBody> streamDepartments() {
+
+        final ResponseEntity<StreamingResponseBody> responseEntity = CollectionResponses.ndjson(objectMapper,
+                SampleDataset::streamDepartments);
+        logger.debug("streamDepartments():");
         return responseEntity;
     }
 
@@ -51,10 +92,28 @@ public class DepartmentsController implements DepartmentsApi {
 
         final ResponseEntity<Department> responseEntity = SampleDataset.putDepartment(department)
                 .map(dep -> new ResponseEntity<>(dep, HttpStatus.CREATED)).orElse(ResponseEntity.badRequest().build());
-        logger.info("createDepartment(): department id[{}]", department.getId());
+        logger.debug("createDepartment(): department id[{}]", department.getId());
         return responseEntity;
     }
 
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public ResponseEntity<BatchResult> batchDepartments(
+            @Valid @RequestBody DepartmentBatchRequest departmentBatchRequest) {
+
+        final List<DepartmentBatchOperation> operations = departmentBatchRequest.getOperations();
+        if (Objects.isNull(operations)) {
+            logger.debug("batchDepartments(): no operations");
+            return ResponseEntity.badRequest().build();
+        }
+        final BatchResult batchResult = BatchResults.of(SampleDataset.applyDepartmentBatch(operations),
+                index -> ConcurrentDatasetRepository.departmentIdOf(operations.get(index)).orElse(null));
+        logger.debug("batchDepartments(): operations[{}], failed[{}]", operations.size(), batchResult.getFailed());
+        return ResponseEntity.ok(batchResult);
+    }
+
     /**
      * {@inheritDoc}
      */
@@ -63,7 +122,7 @@ public class DepartmentsController implements DepartmentsApi {
 
         final ResponseEntity<Department> responseEntity = SampleDataset.getDepartment(depId).map(ResponseEntity::ok)
                 .orElse(ResponseEntity.notFound().build());
-        logger.info("getDepartmentById(): department id[{}]", depId);
+        logger.debug("getDepartmentById(): department id[{}]", depId);
         return responseEntity;
     }
 
@@ -75,7 +134,7 @@ public class DepartmentsController implements DepartmentsApi {
 
         final ResponseEntity<Void> responseEntity = SampleDataset.removeDepartment(depId)
                 .map(_ -> ResponseEntity.noContent().<Void>build()).orElse(ResponseEntity.notFound().build());
-        logger.info("deleteDepartment(): department id[{}]", depId);
+        logger.debug("deleteDepartment(): department id[{}]", depId);
         return responseEntity;
     }
 
@@ -83,12 +142,12 @@ public class DepartmentsController implements DepartmentsApi {
      * {@inheritDoc}
      */
     @Override
-    public ResponseEntity<Void> updateDepartment(@Min(1L) @PathVariable("depId") Long depId,
-                                                 @Valid @RequestBody Department department) {
+    public ResponseEntity<DepartmentMergeResult> updateDepartment(@Min(1L) @PathVariable("depId") Long depId,
+                                                                  @Valid @RequestBody Department department) {
 
-        final ResponseEntity<Void> responseEntity = SampleDataset.mergeDepartment(depId, department)
-                .map(_ -> ResponseEntity.noContent().<Void>build()).orElse(ResponseEntity.notFound().build());
-        logger.info("updateDepartment(): department id[{}]", depId);
+        final ResponseEntity<DepartmentMergeResult> responseEntity = SampleDataset.mergeDepartment(depId, department)
+                .map(ResponseEntity::ok).orElse(ResponseEntity.notFound().build());
+        logger.debug("updateDepartment(): department id[{}]", depId);
         return responseEntity;
     }
 
@@ -100,7 +159,7 @@ public class DepartmentsController implements DepartmentsApi {
 
         final ResponseEntity<List<Employee>> responseEntity = SampleDataset.getEmployees(depId).map(ResponseEntity::ok)
                 .orElse(ResponseEntity.notFound().build());
-        logger.info("getEmployeesInDepartment(): department id[{}]", depId);
+        logger.debug("getEmployeesInDepartment(): department id[{}]", depId);
         return responseEntity;
     }
 
@@ -113,7 +172,28 @@ public class DepartmentsController implements DepartmentsApi {
 
         final ResponseEntity<Employee> responseEntity = SampleDataset.putEmployee(depId, employee)
                 .map(dep -> new ResponseEntity<>(dep, HttpStatus.CREATED)).orElse(ResponseEntity.badRequest().build());
-        logger.info("createEmployeeInDepartment(): department id[{}], employee id[{}]", depId, employee.getId());
+        logger.debug("createEmployeeInDepartment(): department id[{}], employee id[{}]", depId, employee.getId());
+        return responseEntity;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public ResponseEntity<BatchResult> batchEmployeesInDepartment(
+            @Min(1L) @PathVariable("depId") Long depId,
+            @Valid @RequestBody EmployeeBatchRequest employeeBatchRequest) {
+
+        final List<EmployeeBatchOperation> operations = employeeBatchRequest.getOperations();
+        if (Objects.isNull(operations)) {
+            logger.debug("batchEmployeesInDepartment(): department id[{}], no operations", depId);
+            return ResponseEntity.badRequest().build();
+        }
+        final ResponseEntity<BatchResult> responseEntity = SampleDataset.applyEmployeeBatch(depId, operations)
+                .map(statuses -> BatchResults.of(statuses,
+                        index -> ConcurrentDatasetRepository.employeeIdOf(operations.get(index)).orElse(null)))
+                .map(ResponseEntity::ok).orElse(ResponseEntity.notFound().build());
+        logger.debug("batchEmployeesInDepartment(): department id[{}], operations[{}]", depId, operations.size());
         return responseEntity;
     }
 
@@ -126,7 +206,7 @@ public class DepartmentsController implements DepartmentsApi {
 
         final ResponseEntity<Employee> responseEntity = SampleDataset.getEmployee(depId, empId).map(ResponseEntity::ok)
                 .orElse(ResponseEntity.notFound().build());
-        logger.info("getEmployeeInDepartmentByIds(): department id[{}], employee id[{}]", depId, empId);
+        logger.debug("getEmployeeInDepartmentByIds(): department id[{}], employee id[{}]", depId, empId);
         return responseEntity;
     }
 
@@ -139,7 +219,7 @@ public class DepartmentsController implements DepartmentsApi {
 
         final ResponseEntity<Void> responseEntity = SampleDataset.removeEmployee(depId, empId)
                 .map(_ -> ResponseEntity.noContent().<Void>build()).orElse(ResponseEntity.notFound().build());
-        logger.info("deleteEmployeeInDepartment(): department id[{}], employee id[{}]", depId, empId);
+        logger.debug("deleteEmployeeInDepartment(): department id[{}], employee id[{}]", depId, empId);
         return responseEntity;
     }
 
@@ -152,7 +232,7 @@ public class DepartmentsController implements DepartmentsApi {
 
         final ResponseEntity<Void> responseEntity = SampleDataset.mergeEmployee(depId, empId, employee)
                 .map(_ -> ResponseEntity.noContent().<Void>build()).orElse(ResponseEntity.notFound().build());
-        logger.info("updateEmployeeInDepartment(): department id[{}], employee id[{}]", depId, empId);
+        logger.debug("updateEmployeeInDepartment(): department id[{}], employee id[{}]", depId, empId);
         return responseEntity;
     }
 
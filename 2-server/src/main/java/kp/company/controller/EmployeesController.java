@@ -1,18 +1,31 @@
 package kp.company.controller;
 
+import com.fasterxml.jackson.databind.ObjectMapper;
+import jakarta.validation.Valid;
+import jakarta.validation.constraints.Max;
+import jakarta.validation.constraints.Min;
+import jakarta.validation.constraints.Pattern;
+import jakarta.validation.constraints.Size;
 import kp.SampleDataset;
 import kp.company.api.EmployeesApi;
 import kp.company.model.Employee;
+import kp.company.model.Title;
+import kp.dataset.EmployeeQuery;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.validation.annotation.Validated;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
 import java.lang.invoke.MethodHandles;
 import java.util.List;
-import java.util.Optional;
-import java.util.function.Predicate;
+
+import static kp.Constants.EMPLOYEES_PATH;
 
 /**
  * The controller for the {@link Employee}.<br/>
@@ -22,17 +35,79 @@ import java.util.function.Predicate;
 @Validated
 public class EmployeesController implements EmployeesApi {
     private static final Logger logger = LoggerFactory.getLogger(MethodHandles.lookup().lookupClass());
+    private final ObjectMapper objectMapper;
+
+    /**
+     * The constructor.
+     *
+     * @param objectMapper the {@link ObjectMapper}
+     */
+    public EmployeesController(ObjectMapper objectMapper) {
+        this.objectMapper = objectMapper;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public ResponseEntity<List<Employee>> getEmployees(
+            @Min(1) @Max(10000) @Valid @RequestParam(value = "limit", required = false) Integer limit,
+            @Pattern(regexp = "^[0-9]+(:[0-9]+)?$") @Valid @RequestParam(value = "cursor", required = false) String cursor) {
+
+        final ResponseEntity<List<Employee>> responseEntity = CollectionResponses.page(
+                SampleDataset.getEmployees(cursor, limit));
+        logger.debug("getEmployees(): limit[{}], cursor[{}]", limit, cursor);
+        return responseEntity;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public ResponseEntity<List<Employee>> searchEmployees(
+            @Valid @RequestParam(value = "title", required = false) Title title,
+            @Min(1L) @Valid @RequestParam(value = "departmentId", required = false) Long departmentId,
+            @Pattern(regexp = "^[A-Za-z0-9 -_]+") @Size(max = 25) @Valid
+            @RequestParam(value = "firstNamePrefix", required = false) String firstNamePrefix,
+            @Pattern(regexp = "^[A-Za-z0-9 -_]+") @Size(max = 25) @Valid
+            @RequestParam(value = "lastNamePrefix", required = false) String lastNamePrefix,
+            @Min(1L) @Valid @RequestParam(value = "minId", required = false) Long minId,
+            @Min(1L) @Valid @RequestParam(value = "maxId", required = false) Long maxId,
+            @Min(1) @Max(10000) @Valid @RequestParam(value = "limit", required = false) Integer limit,
+            @Pattern(regexp = "^[0-9]+(:[0-9]+)?$") @Valid @RequestParam(value = "cursor", required = false)
+            String cursor) {
+
+        final EmployeeQuery query = new EmployeeQuery(title, departmentId, firstNamePrefix, lastNamePrefix,
+                minId, maxId);
+        final ResponseEntity<List<Employee>> responseEntity = CollectionResponses.page(
+                SampleDataset.searchEmployees(query, cursor, limit));
+        logger.debug("searchEmployees(): query[{}], limit[{}], cursor[{}]", query, limit, cursor);
+        return responseEntity;
+    }
+
+    /**
+     * Streams all {@link Employee}s as newline-delimited JSON.
+     *
+     * @return the {@link ResponseEntity} with the streaming body
+     */
+    @GetMapping(value = EMPLOYEES_PATH, produces = MediaType.APPLICATION_NDJSON_VALUE)
+    public ResponseEntity<StreamingResponseBody> streamEmployees() {
+
+        final ResponseEntity<StreamingResponseBody> responseEntity = CollectionResponses.ndjson(objectMapper,
+                SampleDataset::streamEmployees);
+        logger.debug("streamEmployees():");
+        return responseEntity;
+    }
 
     /**
      * {@inheritDoc}
      */
     @Override
-    public ResponseEntity<List<Employee>> getEmployees() {
+    public ResponseEntity<Employee> getEmployeeById(@Min(1L) @PathVariable("empId") Long empId) {
 
-        final ResponseEntity<List<Employee>> responseEntity = Optional.of(SampleDataset.getEmployees())
-                .filter(Predicate.not(List::isEmpty)).map(ResponseEntity::ok)
+        final ResponseEntity<Employee> responseEntity = SampleDataset.getEmployee(empId).map(ResponseEntity::ok)
                 .orElse(ResponseEntity.notFound().build());
-        logger.info("getEmployees():");
+        logger.debug("getEmployeeById(): employee id[{}]", empId);
         return responseEntity;
     }
 
@@ -1,24 +1,36 @@
 package kp.company.controller;
 
+import jakarta.validation.constraints.Max;
+import jakarta.validation.constraints.Min;
 import kp.Constants;
 import kp.SampleDataset;
 import kp.company.model.Department;
 import kp.company.model.Employee;
+import kp.dataset.LoadReport;
 import org.apache.commons.logging.Log;
 import org.apache.commons.logging.LogFactory;
+import org.springframework.validation.annotation.Validated;
 import org.springframework.web.bind.annotation.GetMapping;
 import org.springframework.web.bind.annotation.RestController;
 
 import java.lang.invoke.MethodHandles;
 import java.util.Optional;
 
+import static kp.Constants.DEP_INDEX_LOWER_BOUND;
+import static kp.Constants.DEP_INDEX_MAX_BOUND;
 import static kp.Constants.DEP_INDEX_UPPER_BOUND;
+import static kp.Constants.EMP_INDEX_LOWER_BOUND;
+import static kp.Constants.EMP_INDEX_MAX_BOUND;
 import static kp.Constants.EMP_INDEX_UPPER_BOUND;
 
 /**
  * The sample dataset loader controller.
+ * <p>
+ * The bounds are validated, so the request cannot make the server generate the unbounded dataset.
+ * </p>
  */
 @RestController
+@Validated
 public class SampleDatasetLoaderController {
     private static final Log logger = LogFactory.getLog(MethodHandles.lookup().lookupClass().getName());
 
@@ -31,12 +43,16 @@ public class SampleDatasetLoaderController {
      * @return the dataset loading confirmation response
      */
     @GetMapping(Constants.LOAD_SAMPLE_DATASET_PATH)
-    public String loadSampleDataset(Long depIndex, Long empIndex) {
+    public String loadSampleDataset(@Min(DEP_INDEX_LOWER_BOUND) @Max(DEP_INDEX_MAX_BOUND) Long depIndex,
+                                    @Min(EMP_INDEX_LOWER_BOUND) @Max(EMP_INDEX_MAX_BOUND) Long empIndex) {
 
-        SampleDataset.loadDataset(Optional.ofNullable(depIndex).orElse(DEP_INDEX_UPPER_BOUND),
+        final LoadReport report = SampleDataset.loadDataset(
+                Optional.ofNullable(depIndex).orElse(DEP_INDEX_UPPER_BOUND),
                 Optional.ofNullable(empIndex).orElse(EMP_INDEX_UPPER_BOUND));
-        logger.debug("loadSampleDataset():");
-        return Constants.LOAD_SAMPLE_DATASET_RESULT;
+        final String reportText = Constants.LOAD_SAMPLE_DATASET_REPORT.formatted(report.departments(),
+                report.employees(), report.elapsedMillis(), report.recordsPerSecond());
+        logger.debug("loadSampleDataset():" + reportText);
+        return Constants.LOAD_SAMPLE_DATASET_RESULT + reportText;
     }
 
 }
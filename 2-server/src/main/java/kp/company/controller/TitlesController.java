@@ -25,7 +25,7 @@ public class TitlesController implements TitlesApi {
      */
     @Override
     public ResponseEntity<List<Title>> getTitles() {
-        logger.info("getTitles():");
+        logger.debug("getTitles():");
         return ResponseEntity.ok(List.of(Title.values()));
     }
 
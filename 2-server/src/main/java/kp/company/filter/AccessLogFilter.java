@@ -0,0 +1,145 @@
+package kp.company.filter;
+
+import jakarta.servlet.AsyncEvent;
+import jakarta.servlet.AsyncListener;
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import kp.accesslog.AccessLog;
+import kp.accesslog.AccessLogRecord;
+import org.springframework.lang.NonNull;
+import org.springframework.web.filter.OncePerRequestFilter;
+import org.springframework.web.servlet.HandlerMapping;
+
+import java.io.IOException;
+import java.util.Objects;
+import java.util.Optional;
+
+/**
+ * The filter putting the finished requests into the {@link AccessLog}.
+ * <p>
+ * The sampling is decided when the request starts, but the {@link AccessLog} keeps the unsampled request
+ * that failed with the server error.
+ * The endpoint is the matched request mapping pattern, so the rate limit applies to the whole endpoint,
+ * not to every department id. The request answered before the mapping, e.g. not found, not modified,
+ * rejected or proxied to the other shard, has the path with the ids replaced by the placeholder.
+ * The asynchronous request, e.g. the NDJSON stream, is logged when its response completes.
+ * </p>
+ */
+public class AccessLogFilter extends OncePerRequestFilter {
+
+    private final AccessLog accessLog;
+
+    /**
+     * The constructor.
+     *
+     * @param accessLog the {@link AccessLog}
+     */
+    public AccessLogFilter(AccessLog accessLog) {
+        this.accessLog = accessLog;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    protected void doFilterInternal(@NonNull HttpServletRequest request, @NonNull HttpServletResponse response,
+                                    @NonNull FilterChain filterChain) throws ServletException, IOException {
+
+        final long epochMillis = System.currentTimeMillis();
+        final long startNanos = System.nanoTime();
+        final boolean sampled = accessLog.isSampled();
+        try {
+            filterChain.doFilter(request, response);
+        } finally {
+            if (request.isAsyncStarted()) {
+                request.getAsyncContext().addListener(new CompletionListener(epochMillis, startNanos, sampled));
+            } else {
+                log(request, response, epochMillis, startNanos, sampled);
+            }
+        }
+    }
+
+    /**
+     * Logs the finished request.
+     *
+     * @param request     the {@link HttpServletRequest}
+     * @param response    the {@link HttpServletResponse}
+     * @param epochMillis the start time in milliseconds since the epoch
+     * @param startNanos  the start time from the {@link System#nanoTime()}
+     * @param sampled     the flag whether the request was sampled
+     */
+    private void log(HttpServletRequest request, HttpServletResponse response, long epochMillis, long startNanos,
+                     boolean sampled) {
+
+        final long durationNanos = System.nanoTime() - startNanos;
+        final String path = Optional.ofNullable(request.getQueryString())
+                .map(query -> "%s?%s".formatted(request.getRequestURI(), query)).orElse(request.getRequestURI());
+        final Object pattern = request.getAttribute(HandlerMapping.BEST_MATCHING_PATTERN_ATTRIBUTE);
+        final String endpoint = Objects.nonNull(pattern) ? pattern.toString()
+                : AdmissionControlFilter.templateOf(request.getRequestURI());
+        accessLog.log(new AccessLogRecord(epochMillis, request.getMethod(), path, endpoint,
+                response.getStatus(), durationNanos), sampled);
+    }
+
+    /**
+     * The listener logging the asynchronous request on its completion.
+     */
+    private final class CompletionListener implements AsyncListener {
+
+        private final long epochMillis;
+        private final long startNanos;
+        private final boolean sampled;
+
+        /**
+         * The constructor.
+         *
+         * @param epochMillis the start time in milliseconds since the epoch
+         * @param startNanos  the start time from the {@link System#nanoTime()}
+         * @param sampled     the flag whether the request was sampled
+         */
+        CompletionListener(long epochMillis, long startNanos, boolean sampled) {
+
+            this.epochMillis = epochMillis;
+            this.startNanos = startNanos;
+            this.sampled = sampled;
+        }
+
+        /**
+         * {@inheritDoc}
+         */
+        @Override
+        public void onComplete(AsyncEvent event) {
+
+            if (event.getSuppliedRequest() instanceof HttpServletRequest request
+                && event.getSuppliedResponse() instanceof HttpServletResponse response) {
+                log(request, response, epochMillis, startNanos, sampled);
+            }
+        }
+
+        /**
+         * {@inheritDoc}
+         */
+        @Override
+        public void onTimeout(AsyncEvent event) {
+            // the request is logged on its completion
+        }
+
+        /**
+         * {@inheritDoc}
+         */
+        @Override
+        public void onError(AsyncEvent event) {
+            // the request is logged on its completion
+        }
+
+        /**
+         * {@inheritDoc}
+         */
+        @Override
+        public void onStartAsync(AsyncEvent event) {
+            // the request is logged on its completion
+        }
+    }
+}
@@ -0,0 +1,197 @@
+package kp.company.filter;
+
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import kp.admission.AdaptiveConcurrencyLimiter;
+import kp.admission.RateLimiter;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpMethod;
+import org.springframework.http.HttpStatus;
+import org.springframework.lang.NonNull;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+import java.io.IOException;
+import java.lang.invoke.MethodHandles;
+import java.time.Duration;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Predicate;
+import java.util.regex.Pattern;
+
+import static kp.Constants.LOAD_SAMPLE_DATASET_PATH;
+
+/**
+ * The filter admitting the mutating requests: the writes and the loading of the sample dataset.
+ * <p>
+ * The request passes three checks, every one rejecting it at once with the '429 Too Many Requests'
+ * and the 'Retry-After' header:
+ * </p>
+ * <ul>
+ * <li>the {@link RateLimiter} of the client's address and the endpoint, the method with the path
+ * with the ids replaced, so the client creating the employees in many departments shares one limit
+ * <li>the loading of the sample dataset is limited to the given number of the concurrent loads
+ * <li>the other requests are limited by the {@link AdaptiveConcurrencyLimiter}, which sheds the load
+ * when the latency of the writes rises
+ * </ul>
+ * <p>
+ * The request forwarded by the other shard has been rate limited by the shard the client called,
+ * so here it passes only the concurrency limits. The forwarded request is recognized by the given predicate,
+ * which verifies the secret shared by the shards and rejects everything when the sharding is disabled.
+ * The reads are not filtered.
+ * </p>
+ */
+public class AdmissionControlFilter extends OncePerRequestFilter {
+    private static final Logger logger = LoggerFactory.getLogger(MethodHandles.lookup().lookupClass());
+    private static final Pattern ID_SEGMENT = Pattern.compile("/\\d+(?=/|$)");
+    private static final String ID_PLACEHOLDER = "/{id}";
+    private final RateLimiter rateLimiter;
+    private final AdaptiveConcurrencyLimiter concurrencyLimiter;
+    private final Semaphore loadSemaphore;
+    private final Predicate<HttpServletRequest> forwardedByShard;
+    private final LongAdder admittedCount = new LongAdder();
+    private final LongAdder rateLimitedCount = new LongAdder();
+    private final LongAdder shedCount = new LongAdder();
+    private final LongAdder loadRejectedCount = new LongAdder();
+
+    /**
+     * The constructor.
+     *
+     * @param rateLimiter        the {@link RateLimiter}
+     * @param concurrencyLimiter the {@link AdaptiveConcurrencyLimiter}
+     * @param loadConcurrency    the maximum number of the concurrent loads of the sample dataset
+     * @param forwardedByShard   the predicate recognizing the request forwarded by the other shard
+     */
+    public AdmissionControlFilter(RateLimiter rateLimiter, AdaptiveConcurrencyLimiter concurrencyLimiter,
+                                  int loadConcurrency, Predicate<HttpServletRequest> forwardedByShard) {
+
+        this.rateLimiter = rateLimiter;
+        this.concurrencyLimiter = concurrencyLimiter;
+        this.loadSemaphore = new Semaphore(loadConcurrency);
+        this.forwardedByShard = forwardedByShard;
+    }
+
+    /**
+     * Gets the number of the admitted requests.
+     *
+     * @return the number of the admitted requests
+     */
+    public long getAdmittedCount() {
+        return admittedCount.sum();
+    }
+
+    /**
+     * Gets the number of the requests rejected by the rate limit.
+     *
+     * @return the number of the rate limited requests
+     */
+    public long getRateLimitedCount() {
+        return rateLimitedCount.sum();
+    }
+
+    /**
+     * Gets the number of the requests shed by the adaptive concurrency limit.
+     *
+     * @return the number of the shed requests
+     */
+    public long getShedCount() {
+        return shedCount.sum();
+    }
+
+    /**
+     * Gets the number of the loads of the sample dataset rejected by the concurrency limit.
+     *
+     * @return the number of the rejected loads
+     */
+    public long getLoadRejectedCount() {
+        return loadRejectedCount.sum();
+    }
+
+    /**
+     * {@inheritDoc}
+     * <p>
+     * The reads are not filtered.
+     * </p>
+     */
+    @Override
+    protected boolean shouldNotFilter(@NonNull HttpServletRequest request) {
+
+        final String method = request.getMethod();
+        return (HttpMethod.GET.matches(method) || HttpMethod.HEAD.matches(method)
+                || HttpMethod.OPTIONS.matches(method)) && !LOAD_SAMPLE_DATASET_PATH.equals(request.getRequestURI());
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    protected void doFilterInternal(@NonNull HttpServletRequest request, @NonNull HttpServletResponse response,
+                                    @NonNull FilterChain filterChain) throws ServletException, IOException {
+
+        final String path = request.getRequestURI();
+        if (!forwardedByShard.test(request)) {
+            final String endpoint = request.getMethod() + ' ' + templateOf(path);
+            final Duration retryAfter = rateLimiter.tryAcquire(request.getRemoteAddr(), endpoint);
+            if (retryAfter.isPositive()) {
+                rateLimitedCount.increment();
+                logger.debug("doFilterInternal(): rate limited, client[{}], endpoint[{}]", request.getRemoteAddr(),
+                        endpoint);
+                reject(response, retryAfter);
+                return;
+            }
+        }
+        if (LOAD_SAMPLE_DATASET_PATH.equals(path)) {
+            if (!loadSemaphore.tryAcquire()) {
+                loadRejectedCount.increment();
+                reject(response, Duration.ZERO);
+                return;
+            }
+            try {
+                admittedCount.increment();
+                filterChain.doFilter(request, response);
+            } finally {
+                loadSemaphore.release();
+            }
+            return;
+        }
+        if (!concurrencyLimiter.tryAcquire()) {
+            shedCount.increment();
+            logger.debug("doFilterInternal(): shed, path[{}], limit[{}]", path, concurrencyLimiter.getLimit());
+            reject(response, Duration.ZERO);
+            return;
+        }
+        final long startNanos = System.nanoTime();
+        try {
+            admittedCount.increment();
+            filterChain.doFilter(request, response);
+        } finally {
+            concurrencyLimiter.release(System.nanoTime() - startNanos);
+        }
+    }
+
+    /**
+     * Gets the template of the path with the ids replaced by the placeholder.
+     *
+     * @param path the path
+     * @return the template of the path
+     */
+    static String templateOf(String path) {
+        return ID_SEGMENT.matcher(path).replaceAll(ID_PLACEHOLDER);
+    }
+
+    /**
+     * Rejects the request with the '429 Too Many Requests'.
+     *
+     * @param response   the {@link HttpServletResponse}
+     * @param retryAfter the time after which the client should retry, at least one second is sent
+     */
+    private static void reject(HttpServletResponse response, Duration retryAfter) {
+
+        final long seconds = retryAfter.toSeconds() + (retryAfter.toNanosPart() > 0 ? 1 : 0);
+        response.setHeader(HttpHeaders.RETRY_AFTER, String.valueOf(Math.max(1, seconds)));
+        response.setStatus(HttpStatus.TOO_MANY_REQUESTS.value());
+    }
+}
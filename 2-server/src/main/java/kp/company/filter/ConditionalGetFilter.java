@@ -0,0 +1,435 @@
+package kp.company.filter;
+
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import kp.SampleDataset;
+import kp.company.model.Department;
+import kp.company.model.Title;
+import kp.dataset.DatasetMutation;
+import kp.dataset.DatasetMutation.DatasetLoaded;
+import kp.dataset.DatasetMutation.DepartmentRemoved;
+import kp.dataset.DatasetMutation.DepartmentRenamed;
+import kp.dataset.DatasetMutation.DepartmentSaved;
+import kp.dataset.DatasetMutation.EmployeeRemoved;
+import kp.dataset.DatasetMutation.EmployeeSaved;
+import kp.dataset.MutationListener;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpMethod;
+import org.springframework.http.MediaType;
+import org.springframework.lang.NonNull;
+import org.springframework.web.filter.OncePerRequestFilter;
+import org.springframework.web.util.ContentCachingResponseWrapper;
+
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+import java.util.stream.Collectors;
+
+/**
+ * The filter answering the conditional GET requests from the dataset versions.
+ * <p>
+ * The weak ETag of the resource is built from the version tag kept by the {@link SampleDataset}:
+ * </p>
+ * <ul>
+ * <li>the {@link Department} and its {@link kp.company.model.Employee}s use the {@link Department}'s version
+ * <li>the collections and the {@link kp.company.model.Employee} found in any {@link Department}
+ * use the collection version
+ * <li>the {@link Title}s never change
+ * </ul>
+ * <p>
+ * The tag also holds the subtype of the media type of the representation, so the JSON, the CBOR and the Smile
+ * of the same version have distinct tags, and the responses vary by the 'Accept' header.
+ * The tag is weak, because the embedded Tomcat never compresses the response with the strong ETag,
+ * and the gzip changes the bytes on the wire but not the representation.
+ * </p>
+ * <p>
+ * The request with the matching 'If-None-Match' header gets the '304 Not Modified' response
+ * without reading the dataset. The 'If-None-Match: *' matches only the existing resource,
+ * so it gets the '304 Not Modified' only after the resource was rendered. Otherwise, the serialized body
+ * is cached with its ETag and sent again until the version changes. The JSON and the binary encodings
+ * are cached apart, by the 'Accept' header of the request. The write to the {@link Department} evicts
+ * its cached responses and the cached collections. The cache keys are indexed by the {@link Department}'s id
+ * and by the collection scope, so the eviction removes the keys directly without scanning the cache.
+ * </p>
+ * <p>
+ * The version is taken before the response is rendered. The concurrent write may only make the ETag
+ * older than the body, which costs one more full response but never hides the change.
+ * </p>
+ */
+public class ConditionalGetFilter extends OncePerRequestFilter {
+
+    private static final Pattern DEPARTMENT_PATH =
+            Pattern.compile("^/departments/(\\d{1,18})(/employees(/\\d+)?)?$");
+    private static final Pattern COLLECTION_PATH = Pattern.compile("^/(departments|employees(/\\d+)?)$");
+    private static final String TITLES_PATH = "/titles";
+    private static final String TITLES_VERSION_TAG = "titles-%d".formatted(Title.values().length);
+    private static final String ANY_ETAG = "*";
+    private static final String WEAK_ETAG_PREFIX = "W/";
+    private static final Comparator<MediaType> BY_QUALITY =
+            Comparator.comparingDouble(MediaType::getQualityValue).reversed();
+    private static final List<MediaType> CACHED_MEDIA_TYPES = List.of(MediaType.APPLICATION_JSON,
+            MediaType.APPLICATION_CBOR, new MediaType("application", "x-jackson-smile"));
+    private static final String KEY_SEPARATOR = " ";
+    private static final int MAX_CACHED_RESPONSES = 1024;
+    private static final int MAX_CACHED_BODY_LENGTH = 8 * 1024 * 1024;
+    private final Map<String, CachedResponse> cache = new ConcurrentHashMap<>();
+    private final Map<Long, Set<String>> departmentKeys = new ConcurrentHashMap<>();
+    private final Set<String> collectionKeys = ConcurrentHashMap.newKeySet();
+    private final MutationListener evictingListener = (_, mutation) -> evict(mutation);
+
+    /**
+     * The constructor.
+     * <p>
+     * It registers the listener evicting the cached responses on the dataset writes.
+     * </p>
+     */
+    public ConditionalGetFilter() {
+        SampleDataset.addMutationListener(evictingListener);
+    }
+
+    /**
+     * Unregisters the evicting listener.
+     */
+    @Override
+    public void destroy() {
+
+        SampleDataset.removeMutationListener(evictingListener);
+        clearCache();
+    }
+
+    /**
+     * {@inheritDoc}
+     * <p>
+     * Only the GET and HEAD requests accepting the JSON, the CBOR or the Smile are filtered.
+     * The newline-delimited JSON streams are never cached.
+     * </p>
+     */
+    @Override
+    protected boolean shouldNotFilter(@NonNull HttpServletRequest request) {
+
+        if (!HttpMethod.GET.matches(request.getMethod()) && !HttpMethod.HEAD.matches(request.getMethod())) {
+            return true;
+        }
+        final String accept = request.getHeader(HttpHeaders.ACCEPT);
+        return Objects.nonNull(accept) && MediaType.parseMediaTypes(accept).stream()
+                .noneMatch(mediaType -> CACHED_MEDIA_TYPES.stream().anyMatch(mediaType::includes));
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    protected void doFilterInternal(@NonNull HttpServletRequest request, @NonNull HttpServletResponse response,
+                                    @NonNull FilterChain filterChain) throws ServletException, IOException {
+
+        final Optional<Resource> resourceOpt = resourceOf(request.getRequestURI());
+        if (resourceOpt.isEmpty()) {
+            filterChain.doFilter(request, response);
+            return;
+        }
+        final Resource resource = resourceOpt.get();
+        final String ifNoneMatch = request.getHeader(HttpHeaders.IF_NONE_MATCH);
+        final String etag = etagOf(resource.versionTag(), representationOf(request.getHeader(HttpHeaders.ACCEPT)));
+        response.addHeader(HttpHeaders.VARY, HttpHeaders.ACCEPT);
+        if (matches(ifNoneMatch, etag)) {
+            response.setHeader(HttpHeaders.ETAG, etag);
+            response.setStatus(HttpServletResponse.SC_NOT_MODIFIED);
+            return;
+        }
+        final String key = Optional.ofNullable(request.getQueryString())
+                .map(query -> request.getRequestURI() + "?" + query).orElse(request.getRequestURI())
+                           + KEY_SEPARATOR + Objects.toString(request.getHeader(HttpHeaders.ACCEPT), "");
+        final CachedResponse cached = cache.get(key);
+        if (Objects.nonNull(cached) && cached.versionTag().equals(resource.versionTag())) {
+            if (matchesAny(ifNoneMatch)) {
+                response.setHeader(HttpHeaders.ETAG, cached.etag());
+                response.setStatus(HttpServletResponse.SC_NOT_MODIFIED);
+                return;
+            }
+            write(cached, response, HttpMethod.HEAD.matches(request.getMethod()));
+            return;
+        }
+        final ContentCachingResponseWrapper wrapper = new ContentCachingResponseWrapper(response);
+        filterChain.doFilter(request, wrapper);
+        if (wrapper.getStatus() == HttpServletResponse.SC_OK) {
+            final String renderedEtag = Optional.ofNullable(wrapper.getContentType()).map(MediaType::parseMediaType)
+                    .map(mediaType -> etagOf(resource.versionTag(), mediaType)).orElse(etag);
+            wrapper.setHeader(HttpHeaders.ETAG, renderedEtag);
+            if (HttpMethod.GET.matches(request.getMethod()) && wrapper.getContentSize() <= MAX_CACHED_BODY_LENGTH) {
+                store(key, resource, new CachedResponse(resource.versionTag(), renderedEtag,
+                        wrapper.getContentType(), headersOf(wrapper), wrapper.getContentAsByteArray()));
+            }
+            if (matchesAny(ifNoneMatch)) {
+                wrapper.resetBuffer();
+                wrapper.setStatus(HttpServletResponse.SC_NOT_MODIFIED);
+            }
+        }
+        wrapper.copyBodyToResponse();
+    }
+
+    /**
+     * Resolves the versioned resource of the request path.
+     *
+     * @param path the request path
+     * @return the {@link Optional} with the {@link Resource}, empty for the path without the version
+     */
+    private static Optional<Resource> resourceOf(String path) {
+
+        if (TITLES_PATH.equals(path)) {
+            return Optional.of(new Resource(TITLES_VERSION_TAG, Scope.TITLES, null));
+        }
+        final Matcher matcher = DEPARTMENT_PATH.matcher(path);
+        if (matcher.matches()) {
+            final long departmentId = Long.parseLong(matcher.group(1));
+            return Optional.of(new Resource(SampleDataset.getDepartmentVersionTag(departmentId),
+                    Scope.DEPARTMENT, departmentId));
+        }
+        if (COLLECTION_PATH.matcher(path).matches()) {
+            return Optional.of(new Resource(SampleDataset.getCollectionVersionTag(), Scope.COLLECTION, null));
+        }
+        return Optional.empty();
+    }
+
+    /**
+     * Predicts the media type of the representation negotiated for the 'Accept' header.
+     * <p>
+     * The accepted media types are tried by the quality. The missing header and the wildcard get the JSON,
+     * the first message converter. The wrong prediction only makes the ETag differ from the rendered one,
+     * which costs one more full response but never gives the wrong '304 Not Modified'.
+     * </p>
+     *
+     * @param accept the 'Accept' header
+     * @return the predicted {@link MediaType}
+     */
+    private static MediaType representationOf(String accept) {
+
+        if (Objects.isNull(accept)) {
+            return MediaType.APPLICATION_JSON;
+        }
+        return MediaType.parseMediaTypes(accept).stream()
+                .filter(accepted -> accepted.getQualityValue() > 0).sorted(BY_QUALITY)
+                .flatMap(accepted -> CACHED_MEDIA_TYPES.stream().filter(accepted::includes))
+                .findFirst().orElse(MediaType.APPLICATION_JSON);
+    }
+
+    /**
+     * Builds the weak ETag of the representation.
+     *
+     * @param versionTag the version tag of the resource
+     * @param mediaType  the {@link MediaType} of the representation
+     * @return the ETag
+     */
+    private static String etagOf(String versionTag, MediaType mediaType) {
+        return "%s\"%s-%s\"".formatted(WEAK_ETAG_PREFIX, versionTag, mediaType.getSubtype());
+    }
+
+    /**
+     * Checks whether the 'If-None-Match' header matches the ETag.
+     * <p>
+     * The weak comparison is used as required for the 'If-None-Match' header.
+     * The '*' is not matched here, it needs the existing resource.
+     * </p>
+     *
+     * @param ifNoneMatch the 'If-None-Match' header
+     * @param etag        the current ETag
+     * @return true if matches
+     */
+    private static boolean matches(String ifNoneMatch, String etag) {
+
+        if (Objects.isNull(ifNoneMatch)) {
+            return false;
+        }
+        final String opaqueTag = opaqueTagOf(etag);
+        return Arrays.stream(ifNoneMatch.split(",")).map(String::strip)
+                .map(ConditionalGetFilter::opaqueTagOf).anyMatch(opaqueTag::equals);
+    }
+
+    /**
+     * Gets the opaque tag of the ETag, i.e. the ETag without the weakness indicator.
+     *
+     * @param etag the ETag
+     * @return the opaque tag
+     */
+    private static String opaqueTagOf(String etag) {
+        return etag.startsWith(WEAK_ETAG_PREFIX) ? etag.substring(WEAK_ETAG_PREFIX.length()) : etag;
+    }
+
+    /**
+     * Checks whether the 'If-None-Match' header is the '*', matching any existing resource.
+     *
+     * @param ifNoneMatch the 'If-None-Match' header
+     * @return true if it is the '*'
+     */
+    private static boolean matchesAny(String ifNoneMatch) {
+        return Objects.nonNull(ifNoneMatch) && ANY_ETAG.equals(ifNoneMatch.strip());
+    }
+
+    /**
+     * Gets the headers of the rendered response without the content headers and the 'Vary' header
+     * added before the rendering.
+     *
+     * @param wrapper the {@link ContentCachingResponseWrapper}
+     * @return the map of the header values by the name
+     */
+    private static Map<String, List<String>> headersOf(ContentCachingResponseWrapper wrapper) {
+
+        return wrapper.getHeaderNames().stream().distinct()
+                .filter(name -> !HttpHeaders.CONTENT_TYPE.equalsIgnoreCase(name)
+                                && !HttpHeaders.CONTENT_LENGTH.equalsIgnoreCase(name)
+                                && !HttpHeaders.VARY.equalsIgnoreCase(name))
+                .collect(Collectors.toMap(name -> name, name -> List.copyOf(wrapper.getHeaders(name))));
+    }
+
+    /**
+     * Writes the cached response.
+     *
+     * @param cached   the {@link CachedResponse}
+     * @param response the {@link HttpServletResponse}
+     * @param headOnly the flag whether the body is omitted
+     * @throws IOException if an I/O error occurs
+     */
+    private static void write(CachedResponse cached, HttpServletResponse response, boolean headOnly)
+            throws IOException {
+
+        response.setStatus(HttpServletResponse.SC_OK);
+        cached.headers().forEach((name, values) -> values.forEach(value -> response.addHeader(name, value)));
+        response.setContentType(cached.contentType());
+        response.setContentLength(cached.body().length);
+        if (!headOnly) {
+            response.getOutputStream().write(cached.body());
+        }
+    }
+
+    /**
+     * Stores the response in the cache.
+     * <p>
+     * The full cache is emptied instead of tracking the least recently used entries.
+     * The hot entries are rendered again at once.
+     * </p>
+     * <p>
+     * The key is indexed before the response is cached. The entry which the concurrent eviction misses
+     * is never sent, because its version tag no longer matches, and it goes with the next emptying.
+     * </p>
+     *
+     * @param key      the cache key
+     * @param resource the {@link Resource}
+     * @param cached   the {@link CachedResponse}
+     */
+    private void store(String key, Resource resource, CachedResponse cached) {
+
+        if (cache.size() >= MAX_CACHED_RESPONSES) {
+            clearCache();
+        }
+        switch (resource.scope()) {
+            case TITLES -> {
+                // the titles never change
+            }
+            case COLLECTION -> collectionKeys.add(key);
+            case DEPARTMENT -> departmentKeys.computeIfAbsent(resource.departmentId(),
+                    _ -> ConcurrentHashMap.newKeySet()).add(key);
+        }
+        cache.put(key, cached);
+    }
+
+    /**
+     * Empties the cache and its key indexes.
+     */
+    private void clearCache() {
+
+        cache.clear();
+        departmentKeys.clear();
+        collectionKeys.clear();
+    }
+
+    /**
+     * Evicts the cached responses changed by the {@link DatasetMutation}.
+     *
+     * @param mutation the {@link DatasetMutation}
+     */
+    private void evict(DatasetMutation mutation) {
+
+        switch (mutation) {
+            case DepartmentSaved(Department department) -> evictDepartment(department.getId());
+            case DepartmentRenamed(long departmentId, _) -> evictDepartment(departmentId);
+            case DepartmentRemoved(long departmentId) -> evictDepartment(departmentId);
+            case EmployeeSaved(long departmentId, _) -> evictDepartment(departmentId);
+            case EmployeeRemoved(long departmentId, _) -> evictDepartment(departmentId);
+            case DatasetLoaded _ -> departmentKeys.keySet().forEach(this::evictDepartment);
+        }
+        evictKeys(collectionKeys);
+    }
+
+    /**
+     * Evicts the cached responses of the {@link Department}.
+     *
+     * @param departmentId the {@link Department}'s id
+     */
+    private void evictDepartment(Long departmentId) {
+        Optional.ofNullable(departmentKeys.remove(departmentId)).ifPresent(this::evictKeys);
+    }
+
+    /**
+     * Evicts the cached responses of the keys and removes the keys from their index.
+     *
+     * @param keys the set of the cache keys
+     */
+    private void evictKeys(Set<String> keys) {
+
+        for (Iterator<String> iterator = keys.iterator(); iterator.hasNext(); ) {
+            cache.remove(iterator.next());
+            iterator.remove();
+        }
+    }
+
+    /**
+     * The scope of the versioned resource.
+     */
+    private enum Scope {
+        /**
+         * The {@link Title}s.
+         */
+        TITLES,
+        /**
+         * The collections.
+         */
+        COLLECTION,
+        /**
+         * The {@link Department}.
+         */
+        DEPARTMENT
+    }
+
+    /**
+     * The versioned resource.
+     *
+     * @param versionTag   the version tag
+     * @param scope        the {@link Scope}
+     * @param departmentId the {@link Department}'s id, null outside the {@link Department} scope
+     */
+    private record Resource(String versionTag, Scope scope, Long departmentId) {
+    }
+
+    /**
+     * The cached response.
+     *
+     * @param versionTag  the version tag of the resource
+     * @param etag        the ETag
+     * @param contentType the content type
+     * @param headers     the headers
+     * @param body        the serialized body
+     */
+    private record CachedResponse(String versionTag, String etag, String contentType,
+                                  Map<String, List<String>> headers, byte[] body) {
+    }
+}
@@ -0,0 +1,107 @@
+package kp.company.filter;
+
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import kp.dataset.persistence.ReplicationFollower;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpMethod;
+import org.springframework.lang.NonNull;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+import java.io.IOException;
+import java.lang.invoke.MethodHandles;
+import java.net.URI;
+import java.time.Duration;
+import java.util.Objects;
+import java.util.concurrent.atomic.LongAdder;
+
+import static kp.Constants.CHANGES_PATH;
+import static kp.Constants.LOAD_SAMPLE_DATASET_PATH;
+import static kp.Constants.REPLICA_STALENESS_HEADER;
+
+/**
+ * The filter of the read replica following the leader with the {@link ReplicationFollower}.
+ * <p>
+ * The replica serves only the reads of its dataset:
+ * </p>
+ * <ul>
+ * <li>the writes, the loading of the sample dataset and the change events are redirected to the leader
+ * with the '307 Temporary Redirect', which keeps the method and the body
+ * <li>the reads are rejected with the '503 Service Unavailable' while the replica is staler than the bound
+ * <li>the other reads carry the staleness in milliseconds in the 'X-Replica-Staleness' header
+ * </ul>
+ */
+public class ReplicaFilter extends OncePerRequestFilter {
+    private static final Logger logger = LoggerFactory.getLogger(MethodHandles.lookup().lookupClass());
+    private final ReplicationFollower follower;
+    private final URI leaderUri;
+    private final Duration maxStaleness;
+    private final LongAdder redirectedCount = new LongAdder();
+    private final LongAdder rejectedCount = new LongAdder();
+
+    /**
+     * The constructor.
+     *
+     * @param follower     the {@link ReplicationFollower}
+     * @param leaderUri    the base URI of the leader's HTTP server
+     * @param maxStaleness the staleness bound of the served reads
+     */
+    public ReplicaFilter(ReplicationFollower follower, URI leaderUri, Duration maxStaleness) {
+
+        this.follower = follower;
+        this.leaderUri = leaderUri;
+        this.maxStaleness = maxStaleness;
+    }
+
+    /**
+     * Gets the number of the requests redirected to the leader.
+     *
+     * @return the number of the redirected requests
+     */
+    public long getRedirectedCount() {
+        return redirectedCount.sum();
+    }
+
+    /**
+     * Gets the number of the reads rejected for the staleness.
+     *
+     * @return the number of the rejected reads
+     */
+    public long getRejectedCount() {
+        return rejectedCount.sum();
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    protected void doFilterInternal(@NonNull HttpServletRequest request, @NonNull HttpServletResponse response,
+                                    @NonNull FilterChain filterChain) throws ServletException, IOException {
+
+        final String path = request.getRequestURI();
+        final boolean read = HttpMethod.GET.matches(request.getMethod())
+                             || HttpMethod.HEAD.matches(request.getMethod())
+                             || HttpMethod.OPTIONS.matches(request.getMethod());
+        if (!read || LOAD_SAMPLE_DATASET_PATH.equals(path) || CHANGES_PATH.equals(path)) {
+            redirectedCount.increment();
+            final String query = request.getQueryString();
+            response.setStatus(HttpServletResponse.SC_TEMPORARY_REDIRECT);
+            response.setHeader(HttpHeaders.LOCATION, leaderUri + path + (Objects.isNull(query) ? "" : "?" + query));
+            return;
+        }
+        final Duration staleness = follower.getStaleness();
+        if (!follower.isCaughtUp() || staleness.compareTo(maxStaleness) > 0) {
+            rejectedCount.increment();
+            logger.debug("doFilterInternal(): path[{}], staleness[{} ms]", path, staleness.toMillis());
+            response.setHeader(HttpHeaders.RETRY_AFTER, String.valueOf(Math.max(1, maxStaleness.toSeconds())));
+            response.setStatus(HttpServletResponse.SC_SERVICE_UNAVAILABLE);
+            return;
+        }
+        response.setHeader(REPLICA_STALENESS_HEADER, String.valueOf(staleness.toMillis()));
+        filterChain.doFilter(request, response);
+    }
+}
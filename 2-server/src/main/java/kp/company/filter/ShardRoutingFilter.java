@@ -0,0 +1,633 @@
+package kp.company.filter;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ReadListener;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.ServletInputStream;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletRequestWrapper;
+import jakarta.servlet.http.HttpServletResponse;
+import kp.company.model.Department;
+import kp.company.model.DepartmentBatchRequest;
+import kp.dataset.Page;
+import kp.sharding.NodeReply;
+import kp.sharding.ScatterGather;
+import kp.sharding.ShardClient;
+import kp.sharding.ShardRing;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpMethod;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.converter.HttpMessageConverter;
+import org.springframework.http.server.ServletServerHttpResponse;
+import org.springframework.lang.NonNull;
+import org.springframework.util.MimeTypeUtils;
+import org.springframework.web.filter.OncePerRequestFilter;
+import org.springframework.web.util.ContentCachingResponseWrapper;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.lang.invoke.MethodHandles;
+import java.net.URI;
+import java.net.http.HttpResponse;
+import java.nio.charset.StandardCharsets;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Supplier;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+import java.util.stream.Stream;
+
+import static kp.Constants.DATASET_VERSION_HEADER;
+import static kp.Constants.DEPARTMENTS_PATH;
+import static kp.Constants.EMPLOYEES_PATH;
+import static kp.Constants.LOAD_SAMPLE_DATASET_PATH;
+import static kp.Constants.NEXT_CURSOR_HEADER;
+import static kp.Constants.SHARD_FORWARDED_HEADER;
+
+/**
+ * The filter routing the requests to the shards owning the {@link Department}s.
+ * <p>
+ * The {@link ShardRing} assigns every {@link Department} to one shard by its id:
+ * </p>
+ * <ul>
+ * <li>the request to the {@link Department} and its {@link kp.company.model.Employee}s is proxied to the owner,
+ * the creation of the {@link Department} by the id in the body
+ * <li>the batch of the {@link Department} operations is split between the owners
+ * <li>the collections, the search and the {@link kp.company.model.Employee} by id are gathered from all shards
+ * <li>the loading of the sample dataset is sent to all shards, every shard keeps only its own {@link Department}s
+ * </ul>
+ * <p>
+ * The request already forwarded by the other shard, verified by the shared secret in the forwarded header,
+ * is never routed again, it is answered from this shard.
+ * The owned {@link Department}s pass to the controllers on this node, with their conditional GET support.
+ * The gathered collections are not cached and have no ETag. The unavailable shard is the 'Bad Gateway' response.
+ * </p>
+ */
+public class ShardRoutingFilter extends OncePerRequestFilter {
+    private static final Logger logger = LoggerFactory.getLogger(MethodHandles.lookup().lookupClass());
+    private static final Pattern DEPARTMENT_PATH = Pattern.compile("^" + DEPARTMENTS_PATH + "/(\\d{1,18})(/.*)?$");
+    private static final Pattern EMPLOYEE_PATH = Pattern.compile("^" + EMPLOYEES_PATH + "/(\\d{1,18})$");
+    private static final String DEPARTMENTS_BATCH_PATH = DEPARTMENTS_PATH + "/batch";
+    private static final String SEARCH_PATH = EMPLOYEES_PATH + "/search";
+    private static final String ID_FIELD = "id";
+    private static final String CURSOR_PARAM = "cursor";
+    private static final String LIMIT_PARAM = "limit";
+    private static final String DEPARTMENT_ID_PARAM = "departmentId";
+    private static final String NDJSON_SEPARATOR = "\n";
+    private static final String LOADING_FAILED = "FAILED ";
+    private final ShardRing shardRing;
+    private final ShardClient shardClient;
+    private final ScatterGather scatterGather;
+    private final ObjectMapper objectMapper;
+    private final List<HttpMessageConverter<?>> messageConverters;
+    private final LongAdder proxiedCount = new LongAdder();
+    private final LongAdder gatheredCount = new LongAdder();
+
+    /**
+     * The constructor.
+     *
+     * @param shardRing         the {@link ShardRing}
+     * @param shardClient       the {@link ShardClient}
+     * @param scatterGather     the {@link ScatterGather}
+     * @param objectMapper      the {@link ObjectMapper}
+     * @param messageConverters the {@link HttpMessageConverter}s writing the gathered collections
+     */
+    public ShardRoutingFilter(ShardRing shardRing, ShardClient shardClient, ScatterGather scatterGather,
+                              ObjectMapper objectMapper, List<HttpMessageConverter<?>> messageConverters) {
+
+        this.shardRing = shardRing;
+        this.shardClient = shardClient;
+        this.scatterGather = scatterGather;
+        this.objectMapper = objectMapper;
+        this.messageConverters = messageConverters;
+    }
+
+    /**
+     * Gets the number of the requests proxied to the other shards.
+     *
+     * @return the number of the proxied requests
+     */
+    public long getProxiedCount() {
+        return proxiedCount.sum();
+    }
+
+    /**
+     * Gets the number of the requests gathered from all shards.
+     *
+     * @return the number of the gathered requests
+     */
+    public long getGatheredCount() {
+        return gatheredCount.sum();
+    }
+
+    /**
+     * {@inheritDoc}
+     * <p>
+     * The request forwarded by the other shard is not filtered. The forwarded header without the shared secret
+     * is ignored, so the client cannot bypass the routing.
+     * </p>
+     */
+    @Override
+    protected boolean shouldNotFilter(@NonNull HttpServletRequest request) {
+        return shardClient.isForwardedByShard(request.getHeader(SHARD_FORWARDED_HEADER));
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    protected void doFilterInternal(@NonNull HttpServletRequest request, @NonNull HttpServletResponse response,
+                                    @NonNull FilterChain filterChain) throws ServletException, IOException {
+
+        final String path = request.getRequestURI();
+        final boolean get = HttpMethod.GET.matches(request.getMethod());
+        final boolean post = HttpMethod.POST.matches(request.getMethod());
+        try {
+            final Matcher departmentMatcher = DEPARTMENT_PATH.matcher(path);
+            final Matcher employeeMatcher = EMPLOYEE_PATH.matcher(path);
+            if (departmentMatcher.matches()) {
+                route(Long.parseLong(departmentMatcher.group(1)), request, response, filterChain);
+            } else if (post && DEPARTMENTS_PATH.equals(path)) {
+                routeCreation(request, response, filterChain);
+            } else if (post && DEPARTMENTS_BATCH_PATH.equals(path)) {
+                gatherBatch(request, response);
+            } else if (get && DEPARTMENTS_PATH.equals(path)) {
+                gatherCollection(request, response, scatterGather::streamDepartments, scatterGather::getDepartments);
+            } else if (get && EMPLOYEES_PATH.equals(path)) {
+                gatherCollection(request, response, scatterGather::streamEmployees, scatterGather::getEmployees);
+            } else if (get && SEARCH_PATH.equals(path)) {
+                gatherSearch(request, response, filterChain);
+            } else if (get && employeeMatcher.matches()) {
+                gatheredCount.increment();
+                final Optional<?> employeeOpt = scatterGather.getEmployee(Long.parseLong(employeeMatcher.group(1)));
+                if (employeeOpt.isEmpty()) {
+                    response.setStatus(HttpServletResponse.SC_NOT_FOUND);
+                } else {
+                    write(request, response, employeeOpt.get(), Map.of());
+                }
+            } else if (get && LOAD_SAMPLE_DATASET_PATH.equals(path)) {
+                gatherLoading(request, response, filterChain);
+            } else {
+                filterChain.doFilter(request, response);
+            }
+        } catch (UncheckedIOException e) {
+            logger.warn("doFilterInternal(): path[{}], exception[{}]", path, e.getMessage());
+            if (!response.isCommitted()) {
+                response.reset();
+                response.setStatus(HttpServletResponse.SC_BAD_GATEWAY);
+            }
+        }
+    }
+
+    /**
+     * Passes the request to this node or proxies it to the owner of the {@link Department}.
+     *
+     * @param departmentId the {@link Department}'s id
+     * @param request      the {@link HttpServletRequest}
+     * @param response     the {@link HttpServletResponse}
+     * @param filterChain  the {@link FilterChain}
+     * @throws ServletException if the chain fails
+     * @throws IOException      if an I/O error occurs
+     */
+    private void route(long departmentId, HttpServletRequest request, HttpServletResponse response,
+                       FilterChain filterChain) throws ServletException, IOException {
+
+        if (shardRing.isLocal(departmentId)) {
+            filterChain.doFilter(request, response);
+            return;
+        }
+        proxy(shardRing.ownerOf(departmentId), request, request.getInputStream().readAllBytes(), response);
+    }
+
+    /**
+     * Routes the creation of the {@link Department} by the id in the body.
+     * <p>
+     * The body without the id is passed to this node, which rejects it.
+     * </p>
+     *
+     * @param request     the {@link HttpServletRequest}
+     * @param response    the {@link HttpServletResponse}
+     * @param filterChain the {@link FilterChain}
+     * @throws ServletException if the chain fails
+     * @throws IOException      if an I/O error occurs
+     */
+    private void routeCreation(HttpServletRequest request, HttpServletResponse response, FilterChain filterChain)
+            throws ServletException, IOException {
+
+        final byte[] body = request.getInputStream().readAllBytes();
+        final Optional<Long> departmentIdOpt = readId(body);
+        if (departmentIdOpt.isEmpty() || shardRing.isLocal(departmentIdOpt.get())) {
+            filterChain.doFilter(new CachedBodyRequest(request, body), response);
+            return;
+        }
+        proxy(shardRing.ownerOf(departmentIdOpt.get()), request, body, response);
+    }
+
+    /**
+     * Sends the request to the shard and copies its response.
+     *
+     * @param node     the base URI of the shard
+     * @param request  the {@link HttpServletRequest}
+     * @param body     the request body
+     * @param response the {@link HttpServletResponse}
+     * @throws IOException if an I/O error occurs
+     */
+    private void proxy(URI node, HttpServletRequest request, byte[] body, HttpServletResponse response)
+            throws IOException {
+
+        proxiedCount.increment();
+        final Map<String, List<String>> headers = new LinkedHashMap<>();
+        for (String name : Collections.list(request.getHeaderNames())) {
+            headers.put(name, Collections.list(request.getHeaders(name)));
+        }
+        final String pathAndQuery = Optional.ofNullable(request.getQueryString())
+                .map(query -> request.getRequestURI() + "?" + query).orElse(request.getRequestURI());
+        final HttpResponse<InputStream> shardResponse = shardClient.exchange(node, request.getMethod(),
+                pathAndQuery, headers, body);
+        try (InputStream shardBody = shardResponse.body()) {
+            response.setStatus(shardResponse.statusCode());
+            shardResponse.headers().map().forEach((name, values) -> {
+                if (!name.startsWith(":") && !ShardClient.HOP_BY_HOP_HEADERS.contains(name.toLowerCase(Locale.ROOT))) {
+                    values.forEach(value -> response.addHeader(name, value));
+                }
+            });
+            shardBody.transferTo(response.getOutputStream());
+        }
+        logger.debug("proxy(): node[{}], method[{}], path[{}], status[{}]", node, request.getMethod(),
+                request.getRequestURI(), shardResponse.statusCode());
+    }
+
+    /**
+     * Splits the batch of the {@link Department} operations between the shards.
+     *
+     * @param request  the {@link HttpServletRequest}
+     * @param response the {@link HttpServletResponse}
+     * @throws IOException if an I/O error occurs
+     */
+    private void gatherBatch(HttpServletRequest request, HttpServletResponse response) throws IOException {
+
+        final DepartmentBatchRequest batchRequest;
+        try {
+            batchRequest = objectMapper.readValue(request.getInputStream(), DepartmentBatchRequest.class);
+        } catch (IOException _) {
+            response.setStatus(HttpServletResponse.SC_BAD_REQUEST);
+            return;
+        }
+        if (Objects.isNull(batchRequest.getOperations()) || batchRequest.getOperations().isEmpty()) {
+            response.setStatus(HttpServletResponse.SC_BAD_REQUEST);
+            return;
+        }
+        gatheredCount.increment();
+        write(request, response, scatterGather.applyDepartmentBatch(batchRequest), Map.of());
+    }
+
+    /**
+     * Gathers the collection from all shards, as the newline-delimited JSON stream or as the page.
+     *
+     * @param request        the {@link HttpServletRequest}
+     * @param response       the {@link HttpServletResponse}
+     * @param streamSupplier the supplier of the merged stream
+     * @param pageFunction   the function getting the merged page by the cursor and the limit
+     * @throws IOException if an I/O error occurs
+     */
+    private void gatherCollection(HttpServletRequest request, HttpServletResponse response,
+                                  Supplier<? extends Stream<?>> streamSupplier,
+                                  PageFunction pageFunction) throws IOException {
+
+        gatheredCount.increment();
+        if (acceptsNdjson(request)) {
+            writeNdjson(response, streamSupplier);
+            return;
+        }
+        final LimitParam limitParam = parseLimit(request);
+        if (!limitParam.valid()) {
+            response.setStatus(HttpServletResponse.SC_BAD_REQUEST);
+            return;
+        }
+        writePage(request, response, pageFunction.apply(request.getParameter(CURSOR_PARAM), limitParam.limit()));
+    }
+
+    /**
+     * Gathers the search from all shards.
+     * <p>
+     * The search in one {@link Department} is routed to its owner.
+     * </p>
+     *
+     * @param request     the {@link HttpServletRequest}
+     * @param response    the {@link HttpServletResponse}
+     * @param filterChain the {@link FilterChain}
+     * @throws ServletException if the chain fails
+     * @throws IOException      if an I/O error occurs
+     */
+    private void gatherSearch(HttpServletRequest request, HttpServletResponse response, FilterChain filterChain)
+            throws ServletException, IOException {
+
+        final Optional<Long> departmentIdOpt = parseLong(request.getParameter(DEPARTMENT_ID_PARAM));
+        if (departmentIdOpt.isPresent()) {
+            route(departmentIdOpt.get(), request, response, filterChain);
+            return;
+        }
+        final LimitParam limitParam = parseLimit(request);
+        if (!limitParam.valid()) {
+            response.setStatus(HttpServletResponse.SC_BAD_REQUEST);
+            return;
+        }
+        gatheredCount.increment();
+        writePage(request, response, scatterGather.searchEmployees(request.getQueryString(), limitParam.limit()));
+    }
+
+    /**
+     * Loads the sample dataset on all shards.
+     * <p>
+     * This node loads its part through the controller first, and the other shards are called only when it succeeds.
+     * The reports of all shards are sent line by line. The shard which failed is reported with its failure
+     * and the response status is '502 Bad Gateway'. The loading replaces the whole dataset of the shard,
+     * so repeating the request repairs the shards left with the previous dataset.
+     * </p>
+     *
+     * @param request     the {@link HttpServletRequest}
+     * @param response    the {@link HttpServletResponse}
+     * @param filterChain the {@link FilterChain}
+     * @throws ServletException if the chain fails
+     * @throws IOException      if an I/O error occurs
+     */
+    private void gatherLoading(HttpServletRequest request, HttpServletResponse response, FilterChain filterChain)
+            throws ServletException, IOException {
+
+        gatheredCount.increment();
+        final String pathAndQuery = Optional.ofNullable(request.getQueryString())
+                .map(query -> request.getRequestURI() + "?" + query).orElse(request.getRequestURI());
+        final ContentCachingResponseWrapper wrapper = new ContentCachingResponseWrapper(response);
+        filterChain.doFilter(request, wrapper);
+        if (wrapper.getStatus() != HttpServletResponse.SC_OK) {
+            wrapper.copyBodyToResponse();
+            return;
+        }
+        final Map<URI, NodeReply> remoteReplies = scatterGather.broadcast(pathAndQuery);
+        final StringBuilder reports = new StringBuilder().append(shardRing.getLocalNode()).append(' ')
+                .append(new String(wrapper.getContentAsByteArray(), StandardCharsets.UTF_8));
+        remoteReplies.forEach((node, reply) -> reports.append(NDJSON_SEPARATOR).append(node).append(' ')
+                .append(reply.failed() ? LOADING_FAILED : "").append(reply.text()));
+        final List<URI> failedNodes = remoteReplies.entrySet().stream().filter(entry -> entry.getValue().failed())
+                .map(Map.Entry::getKey).toList();
+        if (!failedNodes.isEmpty()) {
+            logger.warn("gatherLoading(): loading failed on the shards{}", failedNodes);
+            wrapper.setStatus(HttpServletResponse.SC_BAD_GATEWAY);
+        }
+        wrapper.resetBuffer();
+        wrapper.setContentType(MediaType.TEXT_PLAIN_VALUE);
+        wrapper.setCharacterEncoding(StandardCharsets.UTF_8.name());
+        wrapper.getOutputStream().write(reports.toString().getBytes(StandardCharsets.UTF_8));
+        wrapper.copyBodyToResponse();
+    }
+
+    /**
+     * Writes the {@link Page} like the collection endpoints of the controllers.
+     *
+     * @param request  the {@link HttpServletRequest}
+     * @param response the {@link HttpServletResponse}
+     * @param pageOpt  the {@link Optional} with the {@link Page}, empty for the invalid cursor
+     * @throws IOException if an I/O error occurs
+     */
+    private void writePage(HttpServletRequest request, HttpServletResponse response,
+                           Optional<? extends Page<?>> pageOpt) throws IOException {
+
+        if (pageOpt.isEmpty()) {
+            response.setStatus(HttpServletResponse.SC_BAD_REQUEST);
+            return;
+        }
+        final Page<?> page = pageOpt.get();
+        if (page.items().isEmpty()) {
+            response.setHeader(DATASET_VERSION_HEADER, String.valueOf(page.version()));
+            response.setStatus(HttpServletResponse.SC_NOT_FOUND);
+            return;
+        }
+        final Map<String, String> headers = new LinkedHashMap<>();
+        headers.put(DATASET_VERSION_HEADER, String.valueOf(page.version()));
+        if (Objects.nonNull(page.nextCursor())) {
+            headers.put(NEXT_CURSOR_HEADER, page.nextCursor());
+        }
+        write(request, response, page.items(), headers);
+    }
+
+    /**
+     * Writes the body with the first {@link HttpMessageConverter} of the accepted media type.
+     *
+     * @param request  the {@link HttpServletRequest}
+     * @param response the {@link HttpServletResponse}
+     * @param body     the body
+     * @param headers  the additional headers
+     * @throws IOException if an I/O error occurs
+     */
+    @SuppressWarnings("unchecked")
+    private void write(HttpServletRequest request, HttpServletResponse response, Object body,
+                       Map<String, String> headers) throws IOException {
+
+        final List<MediaType> acceptedTypes = Optional.ofNullable(request.getHeader(HttpHeaders.ACCEPT))
+                .map(MediaType::parseMediaTypes).filter(types -> !types.isEmpty()).orElse(List.of(MediaType.ALL));
+        MimeTypeUtils.sortBySpecificity(acceptedTypes);
+        for (MediaType acceptedType : acceptedTypes) {
+            for (HttpMessageConverter<?> converter : messageConverters) {
+                if (converter.canWrite(body.getClass(), acceptedType)) {
+                    response.setStatus(HttpServletResponse.SC_OK);
+                    headers.forEach(response::setHeader);
+                    ((HttpMessageConverter<Object>) converter).write(body,
+                            acceptedType.isConcrete() ? acceptedType : null, new ServletServerHttpResponse(response));
+                    return;
+                }
+            }
+        }
+        response.setStatus(HttpServletResponse.SC_NOT_ACCEPTABLE);
+    }
+
+    /**
+     * Writes the stream of items as newline-delimited JSON.
+     *
+     * @param response       the {@link HttpServletResponse}
+     * @param streamSupplier the supplier of the stream of items
+     * @throws IOException if an I/O error occurs
+     */
+    private void writeNdjson(HttpServletResponse response, Supplier<? extends Stream<?>> streamSupplier)
+            throws IOException {
+
+        final ObjectWriter writer = objectMapper.writer().withRootValueSeparator("")
+                .without(SerializationFeature.INDENT_OUTPUT)
+                .without(SerializationFeature.FLUSH_AFTER_WRITE_VALUE);
+        try (Stream<?> stream = streamSupplier.get()) {
+            response.setStatus(HttpServletResponse.SC_OK);
+            response.setContentType(MediaType.APPLICATION_NDJSON_VALUE);
+            final OutputStream outputStream = response.getOutputStream();
+            try (JsonGenerator generator = writer.createGenerator(outputStream)) {
+                for (Iterator<?> iterator = stream.iterator(); iterator.hasNext(); ) {
+                    writer.writeValue(generator, iterator.next());
+                    generator.writeRaw(NDJSON_SEPARATOR);
+                }
+            }
+        }
+    }
+
+    /**
+     * Checks if the request accepts the newline-delimited JSON rather than the JSON.
+     *
+     * @param request the {@link HttpServletRequest}
+     * @return true for the newline-delimited JSON
+     */
+    private static boolean acceptsNdjson(HttpServletRequest request) {
+
+        final String accept = request.getHeader(HttpHeaders.ACCEPT);
+        return Objects.nonNull(accept) && MediaType.parseMediaTypes(accept).stream()
+                .anyMatch(MediaType.APPLICATION_NDJSON::equalsTypeAndSubtype);
+    }
+
+    /**
+     * Reads the id from the JSON body.
+     *
+     * @param body the body
+     * @return the {@link Optional} with the id, empty for the body without the id
+     */
+    private Optional<Long> readId(byte[] body) {
+
+        try {
+            final JsonNode idNode = objectMapper.readTree(body).path(ID_FIELD);
+            return idNode.canConvertToLong() ? Optional.of(idNode.asLong()) : Optional.empty();
+        } catch (IOException _) {
+            return Optional.empty();
+        }
+    }
+
+    /**
+     * Parses the limit parameter.
+     *
+     * @param request the {@link HttpServletRequest}
+     * @return the {@link LimitParam}
+     */
+    private static LimitParam parseLimit(HttpServletRequest request) {
+
+        final String limit = request.getParameter(LIMIT_PARAM);
+        if (Objects.isNull(limit)) {
+            return LimitParam.ABSENT;
+        }
+        return parseLong(limit).filter(value -> value >= 1 && value <= 10_000)
+                .map(value -> new LimitParam(value.intValue(), true)).orElse(LimitParam.INVALID);
+    }
+
+    /**
+     * Parses the number.
+     *
+     * @param value the text
+     * @return the {@link Optional} with the number, empty for the missing or the invalid number
+     */
+    private static Optional<Long> parseLong(String value) {
+
+        try {
+            return Optional.ofNullable(value).map(Long::parseLong);
+        } catch (NumberFormatException _) {
+            return Optional.empty();
+        }
+    }
+
+    /**
+     * The function getting the page by the cursor and the limit.
+     */
+    @FunctionalInterface
+    private interface PageFunction {
+        /**
+         * Gets the page.
+         *
+         * @param cursor the cursor, {@code null} for the first page
+         * @param limit  the maximum number of the items, {@code null} for all
+         * @return the {@link Optional} with the {@link Page}, empty for the invalid cursor
+         */
+        Optional<? extends Page<?>> apply(String cursor, Integer limit);
+    }
+
+    /**
+     * The parsed limit parameter.
+     *
+     * @param limit the maximum number of the items, {@code null} for all
+     * @param valid the flag whether the parameter is valid
+     */
+    private record LimitParam(Integer limit, boolean valid) {
+        private static final LimitParam ABSENT = new LimitParam(null, true);
+        private static final LimitParam INVALID = new LimitParam(null, false);
+    }
+
+    /**
+     * The request with the body already read by this filter.
+     */
+    private static class CachedBodyRequest extends HttpServletRequestWrapper {
+
+        private final byte[] body;
+
+        /**
+         * The constructor.
+         *
+         * @param request the {@link HttpServletRequest}
+         * @param body    the body
+         */
+        CachedBodyRequest(HttpServletRequest request, byte[] body) {
+
+            super(request);
+            this.body = body;
+        }
+
+        /**
+         * {@inheritDoc}
+         */
+        @Override
+        public ServletInputStream getInputStream() {
+
+            final ByteArrayInputStream inputStream = new ByteArrayInputStream(body);
+            return new ServletInputStream() {
+                @Override
+                public boolean isFinished() {
+                    return inputStream.available() == 0;
+                }
+
+                @Override
+                public boolean isReady() {
+                    return true;
+                }
+
+                @Override
+                public void setReadListener(ReadListener readListener) {
+
+                    try {
+                        readListener.onDataAvailable();
+                        readListener.onAllDataRead();
+                    } catch (IOException e) {
+                        readListener.onError(e);
+                    }
+                }
+
+                @Override
+                public int read() {
+                    return inputStream.read();
+                }
+
+                @Override
+                public int read(@NonNull byte[] buffer, int offset, int length) {
+                    return inputStream.read(buffer, offset, length);
+                }
+            };
+        }
+    }
+}
@@ -0,0 +1,569 @@
+package kp.dataset;
+
+import kp.company.model.BatchItemStatus;
+import kp.company.model.Department;
+import kp.company.model.DepartmentBatchOperation;
+import kp.company.model.DepartmentMergeResult;
+import kp.company.model.Employee;
+import kp.company.model.EmployeeBatchOperation;
+import kp.dataset.DatasetMutation.DepartmentRemoved;
+import kp.dataset.DatasetMutation.DepartmentRenamed;
+import kp.dataset.DatasetMutation.DepartmentSaved;
+import kp.dataset.DatasetMutation.EmployeeRemoved;
+import kp.dataset.DatasetMutation.EmployeeSaved;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentNavigableMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.Lock;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Supplier;
+import java.util.stream.IntStream;
+import java.util.stream.Stream;
+
+/**
+ * The thread-safe {@link DatasetRepository} keeping the {@link Employee}s in the primitive columns.
+ * <p>
+ * It has the same concurrency as the {@link ConcurrentDatasetRepository}: the {@link DepartmentColumns}
+ * are published in the {@link ConcurrentSkipListMap}, never modified, and replaced by the writers
+ * holding the stripe lock of the {@link Department}. The readers take no lock.
+ * The point reads find the {@link DepartmentColumns} in the hash map instead of the skip list,
+ * which is the few cache misses cheaper.
+ * </p>
+ * <p>
+ * The {@link Employee} is not kept as the object with the boxed id and the two strings,
+ * and it has no entries in the boxed hash maps:
+ * </p>
+ * <ul>
+ * <li>the {@link Employee} by the {@link Department}'s id and the {@link Employee}'s id is found
+ * in the positions table of the {@link DepartmentColumns}
+ * <li>the {@link Department}s' ids by the {@link Employee}'s id are kept in the {@link EmployeeDepartmentIndex}
+ * </ul>
+ * <p>
+ * The {@link Department} and {@link Employee} objects are materialized on every read, so the reads
+ * allocate more than with the {@link ConcurrentDatasetRepository}. The single-{@link Employee} writes
+ * and the merge of the {@link Department} copy the columns, materializing only the changed {@link Employee}s.
+ * The batch of the {@link Employee}s materializes the {@link Employee}s of the one {@link Department}.
+ * </p>
+ */
+public class ColumnarDatasetRepository implements DatasetRepository {
+
+    private static final int STRIPES_PER_PROCESSOR = 4;
+    private static final long MAP_ENTRY_BYTES = 24 + 16 + 16 + 32 + 16 + 32 + 16 + 16;
+    private final ConcurrentNavigableMap<Long, DepartmentColumns> departmentMap = new ConcurrentSkipListMap<>();
+    private final Map<Long, DepartmentColumns> departmentIndex = new ConcurrentHashMap<>();
+    private final EmployeeDepartmentIndex departmentIdsIndex = new EmployeeDepartmentIndex();
+    private final Map<Long, Long> departmentVersionMap = new ConcurrentHashMap<>();
+    private final AtomicLong modificationCount = new AtomicLong();
+    private final AtomicLong employeeCount = new AtomicLong();
+    private final Lock[] stripes;
+    private final long version;
+    private final MutationListener listener;
+
+    /**
+     * The constructor of the repository without the {@link MutationListener}.
+     */
+    public ColumnarDatasetRepository() {
+        this(0, MutationListener.NONE);
+    }
+
+    /**
+     * The constructor.
+     *
+     * @param version  the version of the {@link DatasetSnapshot} reported with the mutations
+     * @param listener the {@link MutationListener}
+     */
+    public ColumnarDatasetRepository(long version, MutationListener listener) {
+
+        this.version = version;
+        this.listener = listener;
+        final int stripeCount = Integer.highestOneBit(
+                Runtime.getRuntime().availableProcessors() * STRIPES_PER_PROCESSOR - 1) << 1;
+        stripes = Stream.generate(ReentrantLock::new).limit(stripeCount).toArray(Lock[]::new);
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public Optional<Department> putDepartment(Department department) {
+        return withLock(department.getId(), () -> putDepartmentLocked(department.getId(), department));
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public void loadDepartment(Department department) {
+        replace(null, DepartmentColumns.of(department));
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public DepartmentMergeResult mergeDepartment(long id, Department department) {
+        return withLock(id, () -> mergeDepartmentLocked(id, department));
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public Optional<Department> removeDepartment(long id) {
+        return withLock(id, () -> removeDepartmentLocked(id));
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public List<BatchItemStatus> applyDepartmentBatch(List<DepartmentBatchOperation> operations) {
+
+        final BatchItemStatus[] statuses = new BatchItemStatus[operations.size()];
+        final Map<Lock, List<Integer>> indexesByStripe = new LinkedHashMap<>();
+        for (int i = 0; i < operations.size(); i++) {
+            final Optional<Long> idOpt = ConcurrentDatasetRepository.departmentIdOf(operations.get(i));
+            if (idOpt.isPresent()) {
+                indexesByStripe.computeIfAbsent(stripeOf(idOpt.get()), _ -> new ArrayList<>()).add(i);
+            } else {
+                statuses[i] = BatchItemStatus.INVALID;
+            }
+        }
+        indexesByStripe.forEach((stripe, indexes) -> {
+            stripe.lock();
+            try {
+                indexes.forEach(i -> statuses[i] = applyDepartmentOperationLocked(operations.get(i)));
+            } finally {
+                stripe.unlock();
+            }
+        });
+        return List.of(statuses);
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public Optional<Department> getDepartment(long id) {
+        return Optional.ofNullable(departmentIndex.get(id)).map(DepartmentColumns::toDepartment);
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public List<Department> getDepartments() {
+        return departmentMap.values().stream().map(DepartmentColumns::toDepartment).toList();
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public Stream<Department> streamDepartments(long afterDepartmentId) {
+        return departmentMap.tailMap(afterDepartmentId, false).values().stream()
+                .map(DepartmentColumns::toDepartment);
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public Optional<Employee> putEmployee(long departmentId, Employee employee) {
+
+        return withLock(departmentId, () -> {
+            final DepartmentColumns columns = departmentMap.get(departmentId);
+            if (Objects.isNull(columns) || columns.positionOf(employee.getId()) >= 0) {
+                return Optional.empty();
+            }
+            replace(columns, columns.withEmployee(employee));
+            publish(departmentId, new EmployeeSaved(departmentId, employee));
+            return Optional.of(employee);
+        });
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public Optional<Employee> mergeEmployee(long departmentId, long employeeId, Employee employee) {
+
+        return withLock(departmentId, () -> {
+            final DepartmentColumns columns = departmentMap.get(departmentId);
+            if (Objects.isNull(columns)) {
+                return Optional.empty();
+            }
+            final int position = columns.positionOf(employeeId);
+            final Employee indexedEmp;
+            if (position >= 0) {
+                indexedEmp = ConcurrentDatasetRepository.mergeOf(columns.employeeAt(position), employee);
+                replace(columns, columns.withEmployeeAt(position, indexedEmp));
+            } else {
+                indexedEmp = employee.id(employeeId);
+                replace(columns, columns.withEmployee(indexedEmp));
+            }
+            publish(departmentId, new EmployeeSaved(departmentId, indexedEmp));
+            return Optional.of(employee);
+        });
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public Optional<Employee> removeEmployee(long departmentId, long employeeId) {
+
+        return withLock(departmentId, () -> {
+            final DepartmentColumns columns = departmentMap.get(departmentId);
+            if (Objects.isNull(columns)) {
+                return Optional.empty();
+            }
+            final int position = columns.positionOf(employeeId);
+            if (position < 0) {
+                return Optional.empty();
+            }
+            final Employee existingEmp = columns.employeeAt(position);
+            replace(columns, columns.withoutEmployeeAt(position));
+            publish(departmentId, new EmployeeRemoved(departmentId, employeeId));
+            return Optional.of(existingEmp);
+        });
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public Optional<List<BatchItemStatus>> applyEmployeeBatch(long departmentId,
+                                                              List<EmployeeBatchOperation> operations) {
+
+        return withLock(departmentId, () -> {
+            final DepartmentColumns columns = departmentMap.get(departmentId);
+            if (Objects.isNull(columns)) {
+                return Optional.empty();
+            }
+            final Map<Object, Employee> workingMap = new LinkedHashMap<>();
+            IntStream.range(0, columns.size()).forEach(position -> workingMap.put(
+                    Objects.nonNull(columns.employeeIdAt(position)) ? columns.employeeIdAt(position) : new Object(),
+                    columns.employeeAt(position)));
+            final Map<Long, Optional<Employee>> changedMap = new LinkedHashMap<>();
+            final List<BatchItemStatus> statuses = operations.stream().map(operation ->
+                    ConcurrentDatasetRepository.applyEmployeeOperation(operation, workingMap, changedMap)).toList();
+            if (changedMap.isEmpty()) {
+                return Optional.of(statuses);
+            }
+            replace(columns, DepartmentColumns.of(departmentId, columns.name(), List.copyOf(workingMap.values())));
+            changedMap.forEach((employeeId, employeeOpt) -> publish(departmentId, employeeOpt
+                    .<DatasetMutation>map(emp -> new EmployeeSaved(departmentId, emp))
+                    .orElseGet(() -> new EmployeeRemoved(departmentId, employeeId))));
+            return Optional.of(statuses);
+        });
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public Optional<Employee> getEmployee(long departmentId, long employeeId) {
+
+        final DepartmentColumns columns = departmentIndex.get(departmentId);
+        if (Objects.isNull(columns)) {
+            return Optional.empty();
+        }
+        final int position = columns.positionOf(employeeId);
+        return position < 0 ? Optional.empty() : Optional.of(columns.employeeAt(position));
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public Optional<Employee> getEmployee(long employeeId) {
+
+        return getDepartmentIds(employeeId).stream().min(Long::compare)
+                .flatMap(departmentId -> getEmployee(departmentId, employeeId));
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public Set<Long> getDepartmentIds(long employeeId) {
+        return departmentIdsIndex.get(employeeId);
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public Optional<List<Employee>> getEmployees(long departmentId) {
+        return Optional.ofNullable(departmentIndex.get(departmentId)).map(DepartmentColumns::toEmployees);
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public List<Employee> getEmployees() {
+
+        return departmentMap.values().stream().filter(DepartmentColumns::employeesPresent)
+                .flatMap(columns -> columns.toEmployees().stream()).toList();
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public long countDepartments() {
+        return departmentMap.size();
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public long countEmployees() {
+        return employeeCount.get();
+    }
+
+    /**
+     * {@inheritDoc}
+     * <p>
+     * The columns are summed with their array headers. Every {@link Department} adds its map entries.
+     * </p>
+     */
+    @Override
+    public long estimateFootprint() {
+
+        return departmentMap.values().stream().mapToLong(columns -> MAP_ENTRY_BYTES + columns.footprint()).sum()
+               + departmentIdsIndex.footprint();
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public long getModificationCount() {
+        return modificationCount.get();
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public long getDepartmentVersion(long departmentId) {
+        return departmentVersionMap.getOrDefault(departmentId, 0L);
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public void clear() {
+
+        departmentMap.clear();
+        departmentIndex.clear();
+        departmentIdsIndex.clear();
+        employeeCount.set(0);
+        final long count = modificationCount.incrementAndGet();
+        departmentVersionMap.replaceAll((_, _) -> count);
+    }
+
+    /**
+     * Advances the versions and reports the {@link DatasetMutation} to the {@link MutationListener}.
+     * <p>
+     * It must be called while holding the stripe lock of the {@link Department},
+     * after the changed {@link DepartmentColumns} are published.
+     * </p>
+     *
+     * @param departmentId the {@link Department}'s id
+     * @param mutation     the {@link DatasetMutation}
+     */
+    private void publish(long departmentId, DatasetMutation mutation) {
+
+        departmentVersionMap.put(departmentId, modificationCount.incrementAndGet());
+        listener.onMutation(version, mutation);
+    }
+
+    /**
+     * Publishes the new {@link DepartmentColumns} and updates the index and the counter.
+     * <p>
+     * It must be called while holding the stripe lock of the {@link Department},
+     * unless the repository is loaded before it is visible.
+     * </p>
+     *
+     * @param previous the previous {@link DepartmentColumns}, null when missing
+     * @param next     the new {@link DepartmentColumns}
+     */
+    private void replace(DepartmentColumns previous, DepartmentColumns next) {
+
+        departmentMap.put(next.id(), next);
+        departmentIndex.put(next.id(), next);
+        if (Objects.nonNull(previous)) {
+            previous.forEachEmployeeId(employeeId -> {
+                if (next.positionOf(employeeId) < 0) {
+                    departmentIdsIndex.remove(employeeId, next.id());
+                }
+            });
+        }
+        next.forEachEmployeeId(employeeId -> {
+            if (Objects.isNull(previous) || previous.positionOf(employeeId) < 0) {
+                departmentIdsIndex.add(employeeId, next.id());
+            }
+        });
+        employeeCount.addAndGet(next.indexedCount() - (Objects.isNull(previous) ? 0 : previous.indexedCount()));
+    }
+
+    /**
+     * Creates the {@link Department}.
+     * <p>
+     * It must be called while holding the stripe lock of the {@link Department}.
+     * </p>
+     *
+     * @param id         the {@link Department}'s id
+     * @param department the {@link Department}
+     * @return the {@link Optional} with the {@link Department}, empty if the id is already taken
+     */
+    private Optional<Department> putDepartmentLocked(long id, Department department) {
+
+        if (departmentMap.containsKey(id)) {
+            return Optional.empty();
+        }
+        final DepartmentColumns created = DepartmentColumns.of(id, department.getName(),
+                ConcurrentDatasetRepository.distinctCopyOf(department.getEmployees()));
+        replace(null, created);
+        final Department createdDep = created.toDepartment();
+        publish(id, new DepartmentSaved(createdDep));
+        return Optional.of(createdDep);
+    }
+
+    /**
+     * Merges the patch into the {@link Department} or creates it when it does not exist.
+     * <p>
+     * It must be called while holding the stripe lock of the {@link Department}.
+     * The {@link Employee}s of the patch are found in the positions table, and the columns are copied once
+     * with the changed {@link Employee}s written at their positions.
+     * </p>
+     *
+     * @param id         the {@link Department}'s id
+     * @param department the merge patch {@link Department}
+     * @return the {@link DepartmentMergeResult}
+     */
+    private DepartmentMergeResult mergeDepartmentLocked(long id, Department department) {
+
+        final DepartmentColumns existing = departmentMap.get(id);
+        if (Objects.isNull(existing)) {
+            final DepartmentMerge merge = DepartmentMerge.ofCreated(department);
+            putDepartmentLocked(id, merge.toCreatedDepartment(id, department));
+            return merge.toCreatedResult(id);
+        }
+        final DepartmentMerge merge = DepartmentMerge.of(existing.name(), existing.employeesPresent(), department,
+                employeeId -> {
+                    final int position = existing.positionOf(employeeId);
+                    return position >= 0 ? existing.employeeAt(position) : null;
+                });
+        if (!merge.changed()) {
+            return merge.toResult(id);
+        }
+        final NavigableMap<Integer, Employee> replacedMap = new TreeMap<>();
+        merge.mergedEmployees().forEach((employeeId, mergedEmp) ->
+                replacedMap.put(existing.positionOf(employeeId), mergedEmp));
+        replace(existing, existing.withEmployeesAt(merge.name(), replacedMap));
+        if (merge.renamed()) {
+            publish(id, new DepartmentRenamed(id, merge.name()));
+        }
+        merge.mergedEmployees().values().forEach(emp -> publish(id, new EmployeeSaved(id, emp)));
+        return merge.toResult(id);
+    }
+
+    /**
+     * Removes the {@link Department}.
+     * <p>
+     * It must be called while holding the stripe lock of the {@link Department}.
+     * </p>
+     *
+     * @param id the {@link Department}'s id
+     * @return the {@link Optional} with the removed {@link Department}
+     */
+    private Optional<Department> removeDepartmentLocked(long id) {
+
+        final DepartmentColumns removed = departmentMap.remove(id);
+        if (Objects.isNull(removed)) {
+            return Optional.empty();
+        }
+        departmentIndex.remove(id);
+        removed.forEachEmployeeId(employeeId -> departmentIdsIndex.remove(employeeId, id));
+        employeeCount.addAndGet(-removed.indexedCount());
+        publish(id, new DepartmentRemoved(id));
+        return Optional.of(removed.toDepartment());
+    }
+
+    /**
+     * Applies the operation on the {@link Department} from the batch.
+     * <p>
+     * It must be called while holding the stripe lock of the {@link Department}.
+     * </p>
+     *
+     * @param operation the {@link DepartmentBatchOperation} with the {@link Department}'s id
+     * @return the {@link BatchItemStatus}
+     */
+    private BatchItemStatus applyDepartmentOperationLocked(DepartmentBatchOperation operation) {
+
+        final long id = ConcurrentDatasetRepository.departmentIdOf(operation).orElseThrow();
+        final Department department = operation.getDepartment();
+        return switch (operation.getOperation()) {
+            case CREATE -> Objects.isNull(department) ? BatchItemStatus.INVALID
+                    : putDepartmentLocked(id, department).map(_ -> BatchItemStatus.CREATED)
+                    .orElse(BatchItemStatus.CONFLICT);
+            case UPDATE -> {
+                if (Objects.isNull(department)) {
+                    yield BatchItemStatus.INVALID;
+                }
+                final boolean existing = departmentMap.containsKey(id);
+                mergeDepartmentLocked(id, department);
+                yield existing ? BatchItemStatus.UPDATED : BatchItemStatus.CREATED;
+            }
+            case DELETE -> removeDepartmentLocked(id).map(_ -> BatchItemStatus.DELETED)
+                    .orElse(BatchItemStatus.NOT_FOUND);
+        };
+    }
+
+    /**
+     * Gets the stripe lock of the {@link Department}.
+     *
+     * @param departmentId the {@link Department}'s id
+     * @return the stripe lock
+     */
+    private Lock stripeOf(long departmentId) {
+        return stripes[Long.hashCode(departmentId * 0x9E3779B97F4A7C15L) & (stripes.length - 1)];
+    }
+
+    /**
+     * Runs the action while holding the stripe lock of the {@link Department}.
+     *
+     * @param departmentId the {@link Department}'s id
+     * @param action       the action
+     * @param <T>          the type of the result
+     * @return the result
+     */
+    private <T> T withLock(long departmentId, Supplier<T> action) {
+
+        final Lock lock = stripeOf(departmentId);
+        lock.lock();
+        try {
+            return action.get();
+        } finally {
+            lock.unlock();
+        }
+    }
+}
@@ -0,0 +1,804 @@
+package kp.dataset;
+
+import kp.company.model.BatchItemStatus;
+import kp.company.model.BatchOperationType;
+import kp.company.model.Department;
+import kp.company.model.DepartmentBatchOperation;
+import kp.company.model.DepartmentMergeResult;
+import kp.company.model.Employee;
+import kp.company.model.EmployeeBatchOperation;
+import kp.dataset.DatasetMutation.DepartmentRemoved;
+import kp.dataset.DatasetMutation.DepartmentRenamed;
+import kp.dataset.DatasetMutation.DepartmentSaved;
+import kp.dataset.DatasetMutation.EmployeeRemoved;
+import kp.dataset.DatasetMutation.EmployeeSaved;
+
+import java.util.ArrayList;
+import java.util.IdentityHashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentNavigableMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.Lock;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Supplier;
+import java.util.stream.Stream;
+
+/**
+ * The thread-safe {@link DatasetRepository}.
+ * <p>
+ * The {@link Department}s are kept in the lock-free ordered {@link ConcurrentSkipListMap}.
+ * The published {@link Department} and its list of {@link Employee}s are never modified:
+ * every write builds the new {@link Department} copy and replaces the map entry.
+ * The readers do not take any lock and always see the complete {@link Department}.
+ * The generated models are mutable, so the {@link Department}s and the {@link Employee}s are copied
+ * on the way in and on the way out: the caller neither changes the published data nor gets its own object kept.
+ * </p>
+ * <p>
+ * The writers of the same {@link Department} are serialized by the striped locks.
+ * The writers of different {@link Department}s usually take different stripes and run in parallel.
+ * </p>
+ * <p>
+ * The {@link Employee}s are found in constant time with the hash indexes:
+ * </p>
+ * <ul>
+ * <li>the {@link Employee} by the {@link Department}'s id and the {@link Employee}'s id
+ * <li>the {@link Department}s' ids by the {@link Employee}'s id
+ * </ul>
+ * <p>
+ * The indexes are updated under the same stripe lock as the {@link Department}.
+ * </p>
+ * <p>
+ * Every successful write is reported to the {@link MutationListener} under the stripe lock.
+ * </p>
+ * <p>
+ * Every successful write also advances the modification counter of the repository and stamps
+ * the written {@link Department} with the new counter value. The counter is advanced after the new
+ * {@link Department} copy is published, so the reader taking the version before the data
+ * never pairs the new version with the old data.
+ * </p>
+ * <p>
+ * The footprint is the estimate of the retained heap of the {@link Department}s and the indexes
+ * from the shallow sizes with the compressed references: the object, the boxed id, the strings and the map entries.
+ * </p>
+ */
+public class ConcurrentDatasetRepository implements DatasetRepository {
+
+    private static final int STRIPES_PER_PROCESSOR = 4;
+    private static final long DEPARTMENT_BYTES = 24 + 16 + 48;
+    private static final long EMPLOYEE_BYTES = 32 + 16 + 4 + 32 + 24 + 48;
+    private static final long STRING_BYTES = 24 + 16;
+    private final ConcurrentNavigableMap<Long, Department> departmentMap = new ConcurrentSkipListMap<>();
+    private final Map<EmployeeKey, Employee> employeeIndex = new ConcurrentHashMap<>();
+    private final Map<Long, Set<Long>> departmentIdsIndex = new ConcurrentHashMap<>();
+    private final Map<Long, Long> departmentVersionMap = new ConcurrentHashMap<>();
+    private final AtomicLong modificationCount = new AtomicLong();
+    private final Lock[] stripes;
+    private final long version;
+    private final MutationListener listener;
+
+    /**
+     * The constructor of the repository without the {@link MutationListener}.
+     */
+    public ConcurrentDatasetRepository() {
+        this(0, MutationListener.NONE);
+    }
+
+    /**
+     * The constructor.
+     *
+     * @param version  the version of the {@link DatasetSnapshot} reported with the mutations
+     * @param listener the {@link MutationListener}
+     */
+    public ConcurrentDatasetRepository(long version, MutationListener listener) {
+
+        this.version = version;
+        this.listener = listener;
+        final int stripeCount = Integer.highestOneBit(
+                Runtime.getRuntime().availableProcessors() * STRIPES_PER_PROCESSOR - 1) << 1;
+        stripes = Stream.generate(ReentrantLock::new).limit(stripeCount).toArray(Lock[]::new);
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public Optional<Department> putDepartment(Department department) {
+        return withLock(department.getId(), () -> putDepartmentLocked(department))
+                .map(ConcurrentDatasetRepository::deepCopyOf);
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public void loadDepartment(Department department) {
+
+        final long id = department.getId();
+        departmentMap.put(id, department);
+        employeesOf(department).forEach(emp -> index(id, emp));
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public DepartmentMergeResult mergeDepartment(long id, Department department) {
+        return withLock(id, () -> mergeDepartmentLocked(id, department));
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public Optional<Department> removeDepartment(long id) {
+        return withLock(id, () -> removeDepartmentLocked(id)).map(ConcurrentDatasetRepository::deepCopyOf);
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public List<BatchItemStatus> applyDepartmentBatch(List<DepartmentBatchOperation> operations) {
+
+        final BatchItemStatus[] statuses = new BatchItemStatus[operations.size()];
+        final Map<Lock, List<Integer>> indexesByStripe = new LinkedHashMap<>();
+        for (int i = 0; i < operations.size(); i++) {
+            final Optional<Long> idOpt = departmentIdOf(operations.get(i));
+            if (idOpt.isPresent()) {
+                indexesByStripe.computeIfAbsent(stripeOf(idOpt.get()), _ -> new ArrayList<>()).add(i);
+            } else {
+                statuses[i] = BatchItemStatus.INVALID;
+            }
+        }
+        indexesByStripe.forEach((stripe, indexes) -> {
+            stripe.lock();
+            try {
+                indexes.forEach(i -> statuses[i] = applyDepartmentOperationLocked(operations.get(i)));
+            } finally {
+                stripe.unlock();
+            }
+        });
+        return List.of(statuses);
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public Optional<Department> getDepartment(long id) {
+        return Optional.ofNullable(departmentMap.get(id)).map(ConcurrentDatasetRepository::deepCopyOf);
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public List<Department> getDepartments() {
+        return departmentMap.values().stream().map(ConcurrentDatasetRepository::deepCopyOf).toList();
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public Stream<Department> streamDepartments(long afterDepartmentId) {
+        return departmentMap.tailMap(afterDepartmentId, false).values().stream()
+                .map(ConcurrentDatasetRepository::deepCopyOf);
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public Optional<Employee> putEmployee(long departmentId, Employee employee) {
+
+        return withLock(departmentId, () -> {
+            final Department department = departmentMap.get(departmentId);
+            if (Objects.isNull(department)
+                || employeeIndex.containsKey(new EmployeeKey(departmentId, employee.getId()))) {
+                return Optional.empty();
+            }
+            final Employee createdEmp = copyOf(employee);
+            final List<Employee> employees = Stream.concat(employeesOf(department), Stream.of(createdEmp)).toList();
+            departmentMap.put(departmentId, copyOf(department, department.getName(), employees));
+            index(departmentId, createdEmp);
+            publish(departmentId, new EmployeeSaved(departmentId, createdEmp));
+            return Optional.of(copyOf(createdEmp));
+        });
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public Optional<Employee> mergeEmployee(long departmentId, long employeeId, Employee employee) {
+
+        return withLock(departmentId, () -> {
+            final Department department = departmentMap.get(departmentId);
+            if (Objects.isNull(department)) {
+                return Optional.empty();
+            }
+            final Employee existingEmp = employeeIndex.get(new EmployeeKey(departmentId, employeeId));
+            final List<Employee> employees;
+            final Employee indexedEmp;
+            if (Objects.nonNull(existingEmp)) {
+                indexedEmp = mergeOf(existingEmp, employee);
+                employees = employeesOf(department).map(emp -> emp == existingEmp ? indexedEmp : emp).toList();
+            } else {
+                indexedEmp = mergeOf(new Employee().id(employeeId), employee);
+                employees = Stream.concat(employeesOf(department), Stream.of(indexedEmp)).toList();
+            }
+            departmentMap.put(departmentId, copyOf(department, department.getName(), employees));
+            index(departmentId, indexedEmp);
+            publish(departmentId, new EmployeeSaved(departmentId, indexedEmp));
+            return Optional.of(copyOf(indexedEmp));
+        });
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public Optional<Employee> removeEmployee(long departmentId, long employeeId) {
+
+        return withLock(departmentId, () -> {
+            final Department department = departmentMap.get(departmentId);
+            if (Objects.isNull(department)) {
+                return Optional.empty();
+            }
+            final Optional<Employee> existingEmployeeOpt = Optional.ofNullable(
+                    employeeIndex.get(new EmployeeKey(departmentId, employeeId)));
+            existingEmployeeOpt.ifPresent(existingEmp -> {
+                final List<Employee> employees = employeesOf(department).filter(emp -> emp != existingEmp).toList();
+                departmentMap.put(departmentId, copyOf(department, department.getName(), employees));
+                unindex(departmentId, existingEmp);
+                publish(departmentId, new EmployeeRemoved(departmentId, employeeId));
+            });
+            return existingEmployeeOpt.map(ConcurrentDatasetRepository::copyOf);
+        });
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public Optional<List<BatchItemStatus>> applyEmployeeBatch(long departmentId,
+                                                              List<EmployeeBatchOperation> operations) {
+
+        return withLock(departmentId, () -> {
+            final Department department = departmentMap.get(departmentId);
+            if (Objects.isNull(department)) {
+                return Optional.empty();
+            }
+            final Map<Object, Employee> workingMap = new LinkedHashMap<>();
+            employeesOf(department).forEach(emp -> workingMap.put(
+                    Objects.nonNull(emp.getId()) ? emp.getId() : new Object(), emp));
+            final Map<Long, Optional<Employee>> changedMap = new LinkedHashMap<>();
+            final List<BatchItemStatus> statuses = operations.stream()
+                    .map(operation -> applyEmployeeOperation(operation, workingMap, changedMap)).toList();
+            if (changedMap.isEmpty()) {
+                return Optional.of(statuses);
+            }
+            departmentMap.put(departmentId,
+                    copyOf(department, department.getName(), List.copyOf(workingMap.values())));
+            changedMap.forEach((employeeId, employeeOpt) -> {
+                Optional.ofNullable(employeeIndex.get(new EmployeeKey(departmentId, employeeId)))
+                        .ifPresent(existingEmp -> unindex(departmentId, existingEmp));
+                if (employeeOpt.isPresent()) {
+                    index(departmentId, employeeOpt.get());
+                    publish(departmentId, new EmployeeSaved(departmentId, employeeOpt.get()));
+                } else {
+                    publish(departmentId, new EmployeeRemoved(departmentId, employeeId));
+                }
+            });
+            return Optional.of(statuses);
+        });
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public Optional<Employee> getEmployee(long departmentId, long employeeId) {
+
+        return Optional.ofNullable(employeeIndex.get(new EmployeeKey(departmentId, employeeId)))
+                .map(ConcurrentDatasetRepository::copyOf);
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public Optional<Employee> getEmployee(long employeeId) {
+
+        return getDepartmentIds(employeeId).stream().min(Long::compare)
+                .flatMap(departmentId -> getEmployee(departmentId, employeeId));
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public Set<Long> getDepartmentIds(long employeeId) {
+        return Optional.ofNullable(departmentIdsIndex.get(employeeId)).map(Set::copyOf).orElse(Set.of());
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public Optional<List<Employee>> getEmployees(long departmentId) {
+
+        return Optional.ofNullable(departmentMap.get(departmentId)).map(Department::getEmployees)
+                .map(employees -> employees.stream().map(ConcurrentDatasetRepository::copyOf).toList());
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public List<Employee> getEmployees() {
+        return departmentMap.values().stream().flatMap(ConcurrentDatasetRepository::employeesOf)
+                .map(ConcurrentDatasetRepository::copyOf).toList();
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public long countDepartments() {
+        return departmentMap.size();
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public long countEmployees() {
+        return employeeIndex.size();
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public long estimateFootprint() {
+        return departmentMap.values().stream().mapToLong(ConcurrentDatasetRepository::departmentBytes).sum();
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public long getModificationCount() {
+        return modificationCount.get();
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public long getDepartmentVersion(long departmentId) {
+        return departmentVersionMap.getOrDefault(departmentId, 0L);
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public void clear() {
+
+        departmentMap.clear();
+        employeeIndex.clear();
+        departmentIdsIndex.clear();
+        final long count = modificationCount.incrementAndGet();
+        departmentVersionMap.replaceAll((_, _) -> count);
+    }
+
+    /**
+     * Advances the versions and reports the {@link DatasetMutation} to the {@link MutationListener}.
+     * <p>
+     * It must be called while holding the stripe lock of the {@link Department},
+     * after the changed {@link Department} is published.
+     * </p>
+     *
+     * @param departmentId the {@link Department}'s id
+     * @param mutation     the {@link DatasetMutation}
+     */
+    private void publish(long departmentId, DatasetMutation mutation) {
+
+        departmentVersionMap.put(departmentId, modificationCount.incrementAndGet());
+        listener.onMutation(version, mutation);
+    }
+
+    /**
+     * Creates the {@link Department}.
+     * <p>
+     * It must be called while holding the stripe lock of the {@link Department}.
+     * </p>
+     *
+     * @param department the {@link Department}
+     * @return the {@link Optional} with the {@link Department}, empty if the id is already taken
+     */
+    private Optional<Department> putDepartmentLocked(Department department) {
+
+        final long id = department.getId();
+        if (departmentMap.containsKey(id)) {
+            return Optional.empty();
+        }
+        final Department created = copyOf(department, department.getName(),
+                distinctCopyOf(department.getEmployees()));
+        departmentMap.put(id, created);
+        employeesOf(created).forEach(emp -> index(id, emp));
+        publish(id, new DepartmentSaved(created));
+        return Optional.of(created);
+    }
+
+    /**
+     * Merges the patch into the {@link Department} or creates it when it does not exist.
+     * <p>
+     * It must be called while holding the stripe lock of the {@link Department}.
+     * The {@link Employee}s of the patch are found in the {@link Employee}s index. The list of {@link Employee}s
+     * is copied once with the changed {@link Employee}s swapped in, and it is kept when none changed.
+     * </p>
+     *
+     * @param id         the {@link Department}'s id
+     * @param department the merge patch {@link Department}
+     * @return the {@link DepartmentMergeResult}
+     */
+    private DepartmentMergeResult mergeDepartmentLocked(long id, Department department) {
+
+        final Department existingDep = departmentMap.get(id);
+        if (Objects.isNull(existingDep)) {
+            final DepartmentMerge merge = DepartmentMerge.ofCreated(department);
+            final Department createdDep = merge.toCreatedDepartment(id, department);
+            final Department created = copyOf(createdDep, createdDep.getName(), createdDep.getEmployees());
+            departmentMap.put(id, created);
+            employeesOf(created).forEach(emp -> index(id, emp));
+            publish(id, new DepartmentSaved(created));
+            return merge.toCreatedResult(id);
+        }
+        final DepartmentMerge merge = DepartmentMerge.of(existingDep.getName(),
+                Objects.nonNull(existingDep.getEmployees()), department,
+                employeeId -> employeeIndex.get(new EmployeeKey(id, employeeId)));
+        if (!merge.changed()) {
+            return merge.toResult(id);
+        }
+        final Map<Employee, Employee> replacedMap = new IdentityHashMap<>();
+        merge.mergedEmployees().forEach((employeeId, mergedEmp) ->
+                replacedMap.put(employeeIndex.get(new EmployeeKey(id, employeeId)), mergedEmp));
+        final List<Employee> employees = replacedMap.isEmpty() ? existingDep.getEmployees()
+                : employeesOf(existingDep).map(emp -> replacedMap.getOrDefault(emp, emp)).toList();
+        departmentMap.put(id, copyOf(existingDep, merge.name(), employees));
+        if (merge.renamed()) {
+            publish(id, new DepartmentRenamed(id, merge.name()));
+        }
+        merge.mergedEmployees().values().forEach(emp -> {
+            index(id, emp);
+            publish(id, new EmployeeSaved(id, emp));
+        });
+        return merge.toResult(id);
+    }
+
+    /**
+     * Removes the {@link Department}.
+     * <p>
+     * It must be called while holding the stripe lock of the {@link Department}.
+     * </p>
+     *
+     * @param id the {@link Department}'s id
+     * @return the {@link Optional} with the removed {@link Department}
+     */
+    private Optional<Department> removeDepartmentLocked(long id) {
+
+        final Optional<Department> removedOpt = Optional.ofNullable(departmentMap.remove(id));
+        removedOpt.ifPresent(removed -> {
+            employeesOf(removed).forEach(emp -> unindex(id, emp));
+            publish(id, new DepartmentRemoved(id));
+        });
+        return removedOpt;
+    }
+
+    /**
+     * Applies the operation on the {@link Department} from the batch.
+     * <p>
+     * It must be called while holding the stripe lock of the {@link Department}.
+     * </p>
+     *
+     * @param operation the {@link DepartmentBatchOperation} with the {@link Department}'s id
+     * @return the {@link BatchItemStatus}
+     */
+    private BatchItemStatus applyDepartmentOperationLocked(DepartmentBatchOperation operation) {
+
+        final long id = departmentIdOf(operation).orElseThrow();
+        final Department department = operation.getDepartment();
+        return switch (operation.getOperation()) {
+            case CREATE -> Objects.isNull(department) ? BatchItemStatus.INVALID
+                    : putDepartmentLocked(copyOf(department, department.getName(), department.getEmployees()).id(id))
+                    .map(_ -> BatchItemStatus.CREATED)
+                    .orElse(BatchItemStatus.CONFLICT);
+            case UPDATE -> {
+                if (Objects.isNull(department)) {
+                    yield BatchItemStatus.INVALID;
+                }
+                final boolean existing = departmentMap.containsKey(id);
+                mergeDepartmentLocked(id, department);
+                yield existing ? BatchItemStatus.UPDATED : BatchItemStatus.CREATED;
+            }
+            case DELETE -> removeDepartmentLocked(id).map(_ -> BatchItemStatus.DELETED)
+                    .orElse(BatchItemStatus.NOT_FOUND);
+        };
+    }
+
+    /**
+     * Applies the operation on the {@link Employee} from the batch to the working map of the {@link Employee}s.
+     *
+     * @param operation  the {@link EmployeeBatchOperation}
+     * @param workingMap the working map of the {@link Employee}s in the {@link Department}'s order
+     * @param changedMap the map of the changed {@link Employee}s, empty for the removed one
+     * @return the {@link BatchItemStatus}
+     */
+    static BatchItemStatus applyEmployeeOperation(EmployeeBatchOperation operation,
+                                                  Map<Object, Employee> workingMap,
+                                                  Map<Long, Optional<Employee>> changedMap) {
+
+        final Optional<Long> idOpt = employeeIdOf(operation);
+        if (idOpt.isEmpty()
+            || operation.getOperation() != BatchOperationType.DELETE && Objects.isNull(operation.getEmployee())) {
+            return BatchItemStatus.INVALID;
+        }
+        final long id = idOpt.get();
+        final Employee employee = operation.getEmployee();
+        final Employee existingEmp = workingMap.get(id);
+        return switch (operation.getOperation()) {
+            case CREATE -> {
+                if (Objects.nonNull(existingEmp)) {
+                    yield BatchItemStatus.CONFLICT;
+                }
+                final Employee created = mergeOf(new Employee().id(id), employee);
+                workingMap.put(id, created);
+                changedMap.put(id, Optional.of(created));
+                yield BatchItemStatus.CREATED;
+            }
+            case UPDATE -> {
+                final Employee merged = mergeOf(Objects.nonNull(existingEmp) ? existingEmp : new Employee().id(id),
+                        employee);
+                workingMap.put(id, merged);
+                changedMap.put(id, Optional.of(merged));
+                yield Objects.nonNull(existingEmp) ? BatchItemStatus.UPDATED : BatchItemStatus.CREATED;
+            }
+            case DELETE -> {
+                if (Objects.isNull(existingEmp)) {
+                    yield BatchItemStatus.NOT_FOUND;
+                }
+                workingMap.remove(id);
+                changedMap.put(id, Optional.empty());
+                yield BatchItemStatus.DELETED;
+            }
+        };
+    }
+
+    /**
+     * Gets the {@link Department}'s id of the operation from the batch.
+     *
+     * @param operation the {@link DepartmentBatchOperation}
+     * @return the {@link Optional} with the {@link Department}'s id, empty for the invalid operation
+     */
+    public static Optional<Long> departmentIdOf(DepartmentBatchOperation operation) {
+
+        if (Objects.isNull(operation) || Objects.isNull(operation.getOperation())) {
+            return Optional.empty();
+        }
+        return Optional.ofNullable(operation.getId())
+                .or(() -> Optional.ofNullable(operation.getDepartment()).map(Department::getId));
+    }
+
+    /**
+     * Gets the {@link Employee}'s id of the operation from the batch.
+     *
+     * @param operation the {@link EmployeeBatchOperation}
+     * @return the {@link Optional} with the {@link Employee}'s id, empty for the invalid operation
+     */
+    public static Optional<Long> employeeIdOf(EmployeeBatchOperation operation) {
+
+        if (Objects.isNull(operation) || Objects.isNull(operation.getOperation())) {
+            return Optional.empty();
+        }
+        return Optional.ofNullable(operation.getId())
+                .or(() -> Optional.ofNullable(operation.getEmployee()).map(Employee::getId));
+    }
+
+    /**
+     * Gets the stripe lock of the {@link Department}.
+     *
+     * @param departmentId the {@link Department}'s id
+     * @return the stripe lock
+     */
+    private Lock stripeOf(long departmentId) {
+        return stripes[Long.hashCode(departmentId * 0x9E3779B97F4A7C15L) & (stripes.length - 1)];
+    }
+
+    /**
+     * Runs the action while holding the stripe lock of the {@link Department}.
+     *
+     * @param departmentId the {@link Department}'s id
+     * @param action       the action
+     * @param <T>          the type of the result
+     * @return the result
+     */
+    private <T> T withLock(long departmentId, Supplier<T> action) {
+
+        final Lock lock = stripeOf(departmentId);
+        lock.lock();
+        try {
+            return action.get();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Adds the {@link Employee} to the indexes.
+     * <p>
+     * It must be called while holding the stripe lock of the {@link Department}.
+     * </p>
+     *
+     * @param departmentId the {@link Department}'s id
+     * @param employee     the {@link Employee}
+     */
+    private void index(long departmentId, Employee employee) {
+
+        if (Objects.isNull(employee.getId())) {
+            return;
+        }
+        employeeIndex.put(new EmployeeKey(departmentId, employee.getId()), employee);
+        departmentIdsIndex.computeIfAbsent(employee.getId(), _ -> ConcurrentHashMap.newKeySet()).add(departmentId);
+    }
+
+    /**
+     * Removes the {@link Employee} from the indexes.
+     * <p>
+     * It must be called while holding the stripe lock of the {@link Department}.
+     * </p>
+     *
+     * @param departmentId the {@link Department}'s id
+     * @param employee     the {@link Employee}
+     */
+    private void unindex(long departmentId, Employee employee) {
+
+        if (Objects.isNull(employee.getId())) {
+            return;
+        }
+        employeeIndex.remove(new EmployeeKey(departmentId, employee.getId()));
+        departmentIdsIndex.computeIfPresent(employee.getId(), (_, departmentIds) -> {
+            departmentIds.remove(departmentId);
+            return departmentIds.isEmpty() ? null : departmentIds;
+        });
+    }
+
+    /**
+     * Streams the {@link Employee}s of the {@link Department}.
+     *
+     * @param department the {@link Department}
+     * @return the stream of {@link Employee}s
+     */
+    private static Stream<Employee> employeesOf(Department department) {
+        return Optional.ofNullable(department.getEmployees()).stream().flatMap(List::stream);
+    }
+
+    /**
+     * Copies the {@link Department} with the unmodifiable list of {@link Employee}s.
+     *
+     * @param department the {@link Department}
+     * @param name       the name
+     * @param employees  the list of {@link Employee}s
+     * @return the {@link Department} copy
+     */
+    private static Department copyOf(Department department, String name, List<Employee> employees) {
+
+        final List<Employee> employeesCopy = Optional.ofNullable(employees)
+                .map(list -> list.stream().filter(Objects::nonNull).toList()).orElse(null);
+        return new Department().id(department.getId()).name(name).employees(employeesCopy);
+    }
+
+    /**
+     * Copies the {@link Department} with the copies of its {@link Employee}s.
+     *
+     * @param department the {@link Department}
+     * @return the {@link Department} copy
+     */
+    private static Department deepCopyOf(Department department) {
+
+        return new Department().id(department.getId()).name(department.getName())
+                .employees(Optional.ofNullable(department.getEmployees())
+                        .map(employees -> employees.stream().map(ConcurrentDatasetRepository::copyOf).toList())
+                        .orElse(null));
+    }
+
+    /**
+     * Copies the {@link Employee}s of the new {@link Department} without the null {@link Employee}s.
+     * <p>
+     * The duplicate ids are merged one after another into the first {@link Employee} with the id,
+     * so every id is kept once in the list and in the index.
+     * </p>
+     *
+     * @param employees the list of {@link Employee}s, null when missing
+     * @return the list of {@link Employee} copies, null when missing
+     */
+    static List<Employee> distinctCopyOf(List<Employee> employees) {
+
+        if (Objects.isNull(employees)) {
+            return null;
+        }
+        final Map<Object, Employee> employeeMap = new LinkedHashMap<>();
+        employees.stream().filter(Objects::nonNull).forEach(emp -> employeeMap.merge(
+                Objects.nonNull(emp.getId()) ? emp.getId() : new Object(), copyOf(emp),
+                ConcurrentDatasetRepository::mergeOf));
+        return List.copyOf(employeeMap.values());
+    }
+
+    /**
+     * Copies the {@link Employee}.
+     *
+     * @param employee the {@link Employee}
+     * @return the {@link Employee} copy
+     */
+    static Employee copyOf(Employee employee) {
+        return mergeOf(new Employee().id(employee.getId()), employee);
+    }
+
+    /**
+     * Merges the non-null fields of the updated {@link Employee} into the copy of the existing {@link Employee}.
+     *
+     * @param existingEmp the existing {@link Employee}
+     * @param updatedEmp  the updated {@link Employee}
+     * @return the merged {@link Employee}
+     */
+    static Employee mergeOf(Employee existingEmp, Employee updatedEmp) {
+
+        return new Employee().id(existingEmp.getId())
+                .firstName(Optional.ofNullable(updatedEmp.getFirstName()).orElse(existingEmp.getFirstName()))
+                .lastName(Optional.ofNullable(updatedEmp.getLastName()).orElse(existingEmp.getLastName()))
+                .title(Optional.ofNullable(updatedEmp.getTitle()).orElse(existingEmp.getTitle()));
+    }
+
+    /**
+     * Estimates the heap footprint of the {@link Department} with its {@link Employee}s.
+     *
+     * @param department the {@link Department}
+     * @return the footprint in bytes
+     */
+    private static long departmentBytes(Department department) {
+
+        final long employeesBytes = employeesOf(department).mapToLong(ConcurrentDatasetRepository::employeeBytes)
+                .sum();
+        return DEPARTMENT_BYTES + stringBytes(department.getName()) + employeesBytes;
+    }
+
+    /**
+     * Estimates the heap footprint of the {@link Employee}.
+     *
+     * @param employee the {@link Employee}
+     * @return the footprint in bytes
+     */
+    private static long employeeBytes(Employee employee) {
+        return EMPLOYEE_BYTES + stringBytes(employee.getFirstName()) + stringBytes(employee.getLastName());
+    }
+
+    /**
+     * Estimates the heap footprint of the Latin-1 string.
+     *
+     * @param string the string
+     * @return the footprint in bytes
+     */
+    private static long stringBytes(String string) {
+        return Objects.isNull(string) ? 0 : STRING_BYTES + string.length();
+    }
+}
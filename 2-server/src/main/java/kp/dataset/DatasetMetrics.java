@@ -0,0 +1,133 @@
+package kp.dataset;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import io.micrometer.core.instrument.composite.CompositeMeterRegistry;
+
+import java.util.Arrays;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
+import java.util.stream.Collectors;
+
+/**
+ * The Micrometer metrics of the sample dataset.
+ * <p>
+ * All meters are registered up front, so the hot path only reads the clock
+ * and records into the {@link Timer} taken from the array:
+ * </p>
+ * <ul>
+ * <li>the timer 'dataset.operation' tagged with the {@link DatasetOperation} and the 'hit' or 'miss' outcome
+ * <li>the counter 'dataset.mutations' tagged with the {@link DatasetMutation} type
+ * <li>the gauges 'dataset.departments', 'dataset.employees' and 'dataset.footprint'
+ * </ul>
+ * <p>
+ * The footprint is estimated by the {@link DatasetRepository}.
+ * It walks the whole dataset, so it is computed off the hot path, on the gauge read,
+ * and at most once per refresh interval.
+ * </p>
+ */
+public class DatasetMetrics implements MutationListener {
+
+    /**
+     * The metrics without the registry. All meters are no-op.
+     */
+    public static final DatasetMetrics NONE = new DatasetMetrics(new CompositeMeterRegistry(),
+            ConcurrentDatasetRepository::new);
+    private static final String OPERATION_TIMER = "dataset.operation";
+    private static final String MUTATION_COUNTER = "dataset.mutations";
+    private static final String DEPARTMENTS_GAUGE = "dataset.departments";
+    private static final String EMPLOYEES_GAUGE = "dataset.employees";
+    private static final String FOOTPRINT_GAUGE = "dataset.footprint";
+    private static final String OPERATION_TAG = "operation";
+    private static final String OUTCOME_TAG = "outcome";
+    private static final String TYPE_TAG = "type";
+    private static final String HIT = "hit";
+    private static final String MISS = "miss";
+    private static final long FOOTPRINT_REFRESH_NANOS = TimeUnit.SECONDS.toNanos(10);
+    private final Timer[] hitTimers;
+    private final Timer[] missTimers;
+    private final Map<Class<?>, Counter> mutationCounters;
+    private final Supplier<DatasetRepository> repositorySupplier;
+    private volatile long footprint;
+    private volatile long footprintNanos = System.nanoTime() - FOOTPRINT_REFRESH_NANOS;
+
+    /**
+     * The constructor.
+     *
+     * @param meterRegistry      the {@link MeterRegistry}
+     * @param repositorySupplier the supplier of the current {@link DatasetRepository}
+     */
+    public DatasetMetrics(MeterRegistry meterRegistry, Supplier<DatasetRepository> repositorySupplier) {
+
+        this.repositorySupplier = repositorySupplier;
+        hitTimers = Arrays.stream(DatasetOperation.values())
+                .map(operation -> createTimer(meterRegistry, operation, HIT)).toArray(Timer[]::new);
+        missTimers = Arrays.stream(DatasetOperation.values())
+                .map(operation -> createTimer(meterRegistry, operation, MISS)).toArray(Timer[]::new);
+        mutationCounters = Arrays.stream(DatasetMutation.class.getPermittedSubclasses()).collect(Collectors.toMap(
+                type -> type, type -> Counter.builder(MUTATION_COUNTER).description("The dataset mutations")
+                        .tag(TYPE_TAG, type.getSimpleName()).register(meterRegistry)));
+        Gauge.builder(DEPARTMENTS_GAUGE, () -> repositorySupplier.get().countDepartments())
+                .description("The number of departments").register(meterRegistry);
+        Gauge.builder(EMPLOYEES_GAUGE, () -> repositorySupplier.get().countEmployees())
+                .description("The number of employees").register(meterRegistry);
+        Gauge.builder(FOOTPRINT_GAUGE, this::getFootprint).baseUnit("bytes")
+                .description("The estimated memory footprint of the dataset").register(meterRegistry);
+    }
+
+    /**
+     * Records the operation.
+     *
+     * @param operation  the {@link DatasetOperation}
+     * @param startNanos the start time from the {@link System#nanoTime()}
+     * @param hit        the flag whether the operation found or changed the data
+     */
+    public void record(DatasetOperation operation, long startNanos, boolean hit) {
+
+        final long elapsedNanos = System.nanoTime() - startNanos;
+        (hit ? hitTimers : missTimers)[operation.ordinal()].record(elapsedNanos, TimeUnit.NANOSECONDS);
+    }
+
+    /**
+     * {@inheritDoc}
+     * <p>
+     * Counts the mutation by its type.
+     * </p>
+     */
+    @Override
+    public void onMutation(long version, DatasetMutation mutation) {
+        mutationCounters.get(mutation.getClass()).increment();
+    }
+
+    /**
+     * Gets the estimated memory footprint of the dataset.
+     *
+     * @return the footprint in bytes
+     */
+    private double getFootprint() {
+
+        final long now = System.nanoTime();
+        if (now - footprintNanos >= FOOTPRINT_REFRESH_NANOS) {
+            footprint = repositorySupplier.get().estimateFootprint();
+            footprintNanos = now;
+        }
+        return footprint;
+    }
+
+    /**
+     * Creates the {@link Timer} of the operation.
+     *
+     * @param meterRegistry the {@link MeterRegistry}
+     * @param operation     the {@link DatasetOperation}
+     * @param outcome       the outcome
+     * @return the {@link Timer}
+     */
+    private static Timer createTimer(MeterRegistry meterRegistry, DatasetOperation operation, String outcome) {
+
+        return Timer.builder(OPERATION_TIMER).description("The sample dataset operations")
+                .tag(OPERATION_TAG, operation.getTagValue()).tag(OUTCOME_TAG, outcome).register(meterRegistry);
+    }
+}
@@ -0,0 +1,66 @@
+package kp.dataset;
+
+import kp.company.model.Department;
+import kp.company.model.Employee;
+
+/**
+ * The successful mutation of the dataset.
+ * <p>
+ * Every mutation carries the resulting state, not the requested change.
+ * Applying the same mutation again leaves the dataset unchanged.
+ * </p>
+ */
+public sealed interface DatasetMutation {
+
+    /**
+     * The {@link Department} was created or replaced.
+     *
+     * @param department the {@link Department} with its {@link Employee}s
+     */
+    record DepartmentSaved(Department department) implements DatasetMutation {
+    }
+
+    /**
+     * The {@link Department} was renamed.
+     *
+     * @param departmentId the {@link Department}'s id
+     * @param name         the {@link Department}'s name
+     */
+    record DepartmentRenamed(long departmentId, String name) implements DatasetMutation {
+    }
+
+    /**
+     * The {@link Department} was removed.
+     *
+     * @param departmentId the {@link Department}'s id
+     */
+    record DepartmentRemoved(long departmentId) implements DatasetMutation {
+    }
+
+    /**
+     * The {@link Employee} was created or updated.
+     *
+     * @param departmentId the {@link Department}'s id
+     * @param employee     the {@link Employee}
+     */
+    record EmployeeSaved(long departmentId, Employee employee) implements DatasetMutation {
+    }
+
+    /**
+     * The {@link Employee} was removed.
+     *
+     * @param departmentId the {@link Department}'s id
+     * @param employeeId   the {@link Employee}'s id
+     */
+    record EmployeeRemoved(long departmentId, long employeeId) implements DatasetMutation {
+    }
+
+    /**
+     * The sample dataset was generated.
+     *
+     * @param depIndex the {@link Department}'s index upper bound
+     * @param empIndex the {@link Employee}'s index upper bound
+     */
+    record DatasetLoaded(long depIndex, long empIndex) implements DatasetMutation {
+    }
+}
@@ -0,0 +1,83 @@
+package kp.dataset;
+
+/**
+ * The timed operation of the sample dataset.
+ */
+public enum DatasetOperation {
+    /**
+     * Loading the generated dataset.
+     */
+    LOAD_DATASET("loadDataset"),
+    /**
+     * Creating the department.
+     */
+    PUT_DEPARTMENT("putDepartment"),
+    /**
+     * Updating the department.
+     */
+    MERGE_DEPARTMENT("mergeDepartment"),
+    /**
+     * Removing the department.
+     */
+    REMOVE_DEPARTMENT("removeDepartment"),
+    /**
+     * Applying the batch of department operations.
+     */
+    APPLY_DEPARTMENT_BATCH("applyDepartmentBatch"),
+    /**
+     * Getting the department.
+     */
+    GET_DEPARTMENT("getDepartment"),
+    /**
+     * Getting the list or the page of departments.
+     */
+    GET_DEPARTMENTS("getDepartments"),
+    /**
+     * Creating the employee.
+     */
+    PUT_EMPLOYEE("putEmployee"),
+    /**
+     * Updating the employee.
+     */
+    MERGE_EMPLOYEE("mergeEmployee"),
+    /**
+     * Removing the employee.
+     */
+    REMOVE_EMPLOYEE("removeEmployee"),
+    /**
+     * Applying the batch of employee operations.
+     */
+    APPLY_EMPLOYEE_BATCH("applyEmployeeBatch"),
+    /**
+     * Getting the employee.
+     */
+    GET_EMPLOYEE("getEmployee"),
+    /**
+     * Getting the list or the page of employees.
+     */
+    GET_EMPLOYEES("getEmployees"),
+    /**
+     * Searching the employees.
+     */
+    SEARCH_EMPLOYEES("searchEmployees");
+
+    private final String tagValue;
+
+    /**
+     * The constructor.
+     *
+     * @param tagValue the value of the metric tag
+     */
+    DatasetOperation(String tagValue) {
+        this.tagValue = tagValue;
+    }
+
+    /**
+     * Gets the value of the metric tag.
+     *
+     * @return the tag value
+     */
+    public String getTagValue() {
+        return tagValue;
+    }
+}
@@ -0,0 +1,246 @@
+package kp.dataset;
+
+import kp.company.model.BatchItemStatus;
+import kp.company.model.Department;
+import kp.company.model.DepartmentBatchOperation;
+import kp.company.model.DepartmentMergeResult;
+import kp.company.model.Employee;
+import kp.company.model.EmployeeBatchOperation;
+
+import java.util.List;
+import java.util.Optional;
+import java.util.Set;
+import java.util.stream.Stream;
+
+/**
+ * The repository for the {@link Department}s with the {@link Employee}s.
+ * <p>
+ * The implementations must be safe for use by concurrent request threads.
+ * </p>
+ */
+public interface DatasetRepository {
+
+    /**
+     * Creates the {@link Department}.
+     *
+     * @param department the {@link Department}
+     * @return the {@link Optional} with the {@link Department}, empty if the id is already taken
+     */
+    Optional<Department> putDepartment(Department department);
+
+    /**
+     * Loads the generated {@link Department} while the repository is not yet visible to the readers.
+     * <p>
+     * The {@link Department} and its list of {@link Employee}s are taken over without copying,
+     * so they must not be modified afterward. It may be called from many threads at once.
+     * </p>
+     *
+     * @param department the {@link Department}
+     */
+    void loadDepartment(Department department);
+
+    /**
+     * Merges the patch into the {@link Department} or creates it when it does not exist.
+     * <p>
+     * The {@link Employee}s of the patch are merged by id into the existing {@link Employee}s.
+     * Only the changed name and the changed {@link Employee}s are written and reported.
+     * </p>
+     *
+     * @param id         the {@link Department}'s id
+     * @param department the merge patch {@link Department}
+     * @return the {@link DepartmentMergeResult} with the outcome for every {@link Employee} of the patch
+     */
+    DepartmentMergeResult mergeDepartment(long id, Department department);
+
+    /**
+     * Removes the {@link Department}.
+     *
+     * @param id the {@link Department}'s id
+     * @return the {@link Optional} with the removed {@link Department}
+     */
+    Optional<Department> removeDepartment(long id);
+
+    /**
+     * Applies the batch of operations on the {@link Department}s.
+     * <p>
+     * The operations are applied in order, but the batch is not atomic.
+     * The operations of the {@link Department}s guarded by the same lock are applied under one lock acquisition.
+     * </p>
+     *
+     * @param operations the list of {@link DepartmentBatchOperation}s
+     * @return the list of {@link BatchItemStatus}es in the order of the operations
+     */
+    List<BatchItemStatus> applyDepartmentBatch(List<DepartmentBatchOperation> operations);
+
+    /**
+     * Gets the {@link Department} by id.
+     *
+     * @param id the {@link Department}'s id
+     * @return the {@link Optional} with the {@link Department}
+     */
+    Optional<Department> getDepartment(long id);
+
+    /**
+     * Gets the list of {@link Department}s ordered by id.
+     *
+     * @return the list of {@link Department}s
+     */
+    List<Department> getDepartments();
+
+    /**
+     * Streams the {@link Department}s ordered by id, starting after the given id.
+     * <p>
+     * The stream is lazy and does not copy the dataset.
+     * </p>
+     *
+     * @param afterDepartmentId the exclusive lower bound of the {@link Department}s' ids
+     * @return the stream of {@link Department}s
+     */
+    Stream<Department> streamDepartments(long afterDepartmentId);
+
+    /**
+     * Creates the {@link Employee} in the {@link Department}.
+     *
+     * @param departmentId the {@link Department}'s id
+     * @param employee     the {@link Employee}
+     * @return the {@link Optional} with the {@link Employee}, empty if the department is missing
+     * or the id is already taken
+     */
+    Optional<Employee> putEmployee(long departmentId, Employee employee);
+
+    /**
+     * Updates the {@link Employee} or creates it when it does not exist.
+     *
+     * @param departmentId the {@link Department}'s id
+     * @param employeeId   the {@link Employee}'s id
+     * @param employee     the {@link Employee}
+     * @return the {@link Optional} with the {@link Employee}, empty if the department is missing
+     */
+    Optional<Employee> mergeEmployee(long departmentId, long employeeId, Employee employee);
+
+    /**
+     * Removes the {@link Employee} from the {@link Department}.
+     *
+     * @param departmentId the {@link Department}'s id
+     * @param employeeId   the {@link Employee}'s id
+     * @return the {@link Optional} with the removed {@link Employee}
+     */
+    Optional<Employee> removeEmployee(long departmentId, long employeeId);
+
+    /**
+     * Applies the batch of operations on the {@link Employee}s in the {@link Department}.
+     * <p>
+     * The whole batch is applied under one lock acquisition and publishes one {@link Department} copy,
+     * but the batch is not atomic: every operation succeeds or fails on its own.
+     * </p>
+     *
+     * @param departmentId the {@link Department}'s id
+     * @param operations   the list of {@link EmployeeBatchOperation}s
+     * @return the {@link Optional} with the list of {@link BatchItemStatus}es in the order of the operations,
+     * empty if the department is missing
+     */
+    Optional<List<BatchItemStatus>> applyEmployeeBatch(long departmentId, List<EmployeeBatchOperation> operations);
+
+    /**
+     * Gets the {@link Employee} by ids.
+     *
+     * @param departmentId the {@link Department}'s id
+     * @param employeeId   the {@link Employee}'s id
+     * @return the {@link Optional} with the {@link Employee}
+     */
+    Optional<Employee> getEmployee(long departmentId, long employeeId);
+
+    /**
+     * Gets the {@link Employee} by id from any {@link Department}.
+     * <p>
+     * When the id is used in many {@link Department}s, the {@link Department} with the lowest id wins.
+     * </p>
+     *
+     * @param employeeId the {@link Employee}'s id
+     * @return the {@link Optional} with the {@link Employee}
+     */
+    Optional<Employee> getEmployee(long employeeId);
+
+    /**
+     * Gets the ids of the {@link Department}s having the {@link Employee} with the given id.
+     *
+     * @param employeeId the {@link Employee}'s id
+     * @return the set of the {@link Department}s' ids
+     */
+    Set<Long> getDepartmentIds(long employeeId);
+
+    /**
+     * Gets the list of {@link Employee}s in the {@link Department}.
+     *
+     * @param departmentId the {@link Department}'s id
+     * @return the {@link Optional} with the list of {@link Employee}s
+     */
+    Optional<List<Employee>> getEmployees(long departmentId);
+
+    /**
+     * Gets the list of all {@link Employee}s ordered by the {@link Department}'s id.
+     *
+     * @return the list of {@link Employee}s
+     */
+    List<Employee> getEmployees();
+
+    /**
+     * Counts the {@link Department}s.
+     *
+     * @return the number of {@link Department}s
+     */
+    long countDepartments();
+
+    /**
+     * Counts the {@link Employee}s with the ids in all {@link Department}s.
+     *
+     * @return the number of {@link Employee}s
+     */
+    long countEmployees();
+
+    /**
+     * Estimates the retained memory of the {@link Department}s, the {@link Employee}s and the indexes.
+     * <p>
+     * It walks the whole dataset, so it must not be called on the hot path.
+     * </p>
+     *
+     * @return the estimated footprint in bytes
+     */
+    long estimateFootprint();
+
+    /**
+     * Gets the modification counter of the repository.
+     * <p>
+     * The counter grows on every successful write, so it is the version of the whole collection.
+     * </p>
+     *
+     * @return the modification counter
+     */
+    long getModificationCount();
+
+    /**
+     * Gets the version of the {@link Department}.
+     * <p>
+     * It is the modification counter value of the last write to the {@link Department} and its {@link Employee}s,
+     * or zero when the {@link Department} was only loaded.
+     * </p>
+     *
+     * @param departmentId the {@link Department}'s id
+     * @return the version of the {@link Department}
+     */
+    long getDepartmentVersion(long departmentId);
+
+    /**
+     * Removes all {@link Department}s.
+     */
+    void clear();
+
+    /**
+     * Closes the repository of the current dataset at the shutdown.
+     * <p>
+     * The repository keeping nothing outside the heap has nothing to close.
+     * </p>
+     */
+    default void close() {
+    }
+}
@@ -0,0 +1,32 @@
+package kp.dataset;
+
+/**
+ * The published version of the dataset.
+ * <p>
+ * The snapshot itself is immutable: loading the dataset publishes the new snapshot
+ * with the next version instead of changing the current one.
+ * The reader keeps the snapshot it has taken for the whole request, so a concurrent loading
+ * never switches the dataset under it. The previous snapshot is reclaimed by the garbage collector
+ * as soon as the last reader holding it drops the reference.
+ * </p>
+ * <p>
+ * The {@link EmployeeSearchIndex} is built before the snapshot is published and it follows
+ * the {@link DatasetMutation}s of the snapshot's repository.
+ * </p>
+ *
+ * @param version     the version, increased by every loading of the dataset
+ * @param repository  the {@link DatasetRepository}
+ * @param searchIndex the {@link EmployeeSearchIndex} of the repository
+ */
+public record DatasetSnapshot(long version, DatasetRepository repository, EmployeeSearchIndex searchIndex) {
+
+    /**
+     * The constructor of the snapshot without the {@link EmployeeSearchIndex}.
+     *
+     * @param version    the version, increased by every loading of the dataset
+     * @param repository the {@link DatasetRepository}
+     */
+    public DatasetSnapshot(long version, DatasetRepository repository) {
+        this(version, repository, EmployeeSearchIndex.NONE);
+    }
+}
@@ -0,0 +1,64 @@
+package kp.dataset;
+
+import kp.company.model.Employee;
+
+import java.util.Optional;
+
+/**
+ * The storage engine of the dataset.
+ */
+public enum DatasetStorage {
+    /**
+     * The generated model objects in the {@link ConcurrentDatasetRepository}.
+     */
+    OBJECTS {
+        @Override
+        public DatasetRepository createRepository(long version, MutationListener listener) {
+            return new ConcurrentDatasetRepository(version, listener);
+        }
+    },
+    /**
+     * The primitive columns in the {@link ColumnarDatasetRepository}.
+     * The {@link Employee}s are materialized only when they are read.
+     */
+    COLUMNAR {
+        @Override
+        public DatasetRepository createRepository(long version, MutationListener listener) {
+            return new ColumnarDatasetRepository(version, listener);
+        }
+    },
+    /**
+     * The fixed-layout records off the heap in the {@link OffHeapDatasetRepository}.
+     * The records are mapped to the files when the directory is set, so the dataset survives the restart.
+     */
+    OFF_HEAP {
+        @Override
+        public DatasetRepository createRepository(long version, MutationListener listener) {
+            return OffHeapDatasetRepository.create(version, listener);
+        }
+
+        @Override
+        public Optional<DatasetSnapshot> reopenSnapshot(MutationListener listener) {
+            return OffHeapDatasetRepository.reopen(listener);
+        }
+    };
+
+    /**
+     * Creates the empty {@link DatasetRepository}.
+     *
+     * @param version  the version of the {@link DatasetSnapshot} reported with the mutations
+     * @param listener the {@link MutationListener}
+     * @return the {@link DatasetRepository}
+     */
+    public abstract DatasetRepository createRepository(long version, MutationListener listener);
+
+    /**
+     * Reopens the dataset kept by the storage over the restart.
+     *
+     * @param listener the {@link MutationListener}
+     * @return the {@link Optional} with the {@link DatasetSnapshot}, empty if the storage kept nothing
+     */
+    public Optional<DatasetSnapshot> reopenSnapshot(MutationListener listener) {
+        return Optional.empty();
+    }
+}
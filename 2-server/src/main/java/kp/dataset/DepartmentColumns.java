@@ -0,0 +1,510 @@
+package kp.dataset;
+
+import kp.company.model.Department;
+import kp.company.model.Employee;
+import kp.company.model.Title;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.Objects;
+import java.util.function.LongConsumer;
+import java.util.stream.IntStream;
+
+/**
+ * The immutable columnar form of the {@link Department} with its {@link Employee}s.
+ * <p>
+ * Every attribute of the {@link Employee}s is kept in its own primitive array, indexed by the position
+ * of the {@link Employee} in the {@link Department}:
+ * </p>
+ * <ul>
+ * <li>the ids in the long column, with the sentinel for the missing id
+ * <li>the {@link Title} ordinals in the byte column
+ * <li>the first names and the last names as the UTF-8 bytes in one byte array with the offsets column
+ * </ul>
+ * <p>
+ * The positions are found by the id in the open-addressing table of the int positions.
+ * The {@link Employee} objects are materialized only when they are read.
+ * The write builds the new instance, copying the unchanged ranges of the columns.
+ * </p>
+ */
+final class DepartmentColumns {
+
+    private static final long NO_ID = Long.MIN_VALUE;
+    private static final byte NO_TITLE = -1;
+    private static final byte FIRST_NAME_NULL = 1;
+    private static final byte LAST_NAME_NULL = 2;
+    private static final Title[] TITLES = Title.values();
+    private static final long OBJECT_BYTES = 16 + 4 + 8 * 4 + 8 + 4;
+    private static final long ARRAY_BYTES = 16;
+    private static final long STRING_BYTES = 24 + 16;
+    private final long id;
+    private final String name;
+    private final boolean employeesPresent;
+    private final long[] employeeIds;
+    private final byte[] titles;
+    private final byte[] nullNames;
+    private final int[] nameOffsets;
+    private final byte[] nameBytes;
+    private final int[] positionSlots;
+    private final int indexedCount;
+
+    /**
+     * The constructor.
+     *
+     * @param id               the {@link Department}'s id
+     * @param name             the {@link Department}'s name
+     * @param employeesPresent the flag whether the {@link Department} has the list of {@link Employee}s
+     * @param employeeIds      the ids column
+     * @param titles           the {@link Title} ordinals column
+     * @param nullNames        the null names flags column
+     * @param nameOffsets      the offsets of the first name and the last name of every {@link Employee}
+     * @param nameBytes        the UTF-8 bytes of the names
+     */
+    private DepartmentColumns(long id, String name, boolean employeesPresent, long[] employeeIds, byte[] titles,
+                              byte[] nullNames, int[] nameOffsets, byte[] nameBytes) {
+
+        this.id = id;
+        this.name = name;
+        this.employeesPresent = employeesPresent;
+        this.employeeIds = employeeIds;
+        this.titles = titles;
+        this.nullNames = nullNames;
+        this.nameOffsets = nameOffsets;
+        this.nameBytes = nameBytes;
+        this.positionSlots = new int[Integer.highestOneBit(Math.max(1, employeeIds.length) * 2 - 1) << 1];
+        int count = 0;
+        for (int position = 0; position < employeeIds.length; position++) {
+            if (employeeIds[position] != NO_ID && putPosition(employeeIds[position], position)) {
+                count++;
+            }
+        }
+        this.indexedCount = count;
+    }
+
+    /**
+     * The constructor of the renamed copy sharing the columns.
+     *
+     * @param columns the {@link DepartmentColumns}
+     * @param name    the {@link Department}'s name
+     */
+    private DepartmentColumns(DepartmentColumns columns, String name) {
+
+        this.id = columns.id;
+        this.name = name;
+        this.employeesPresent = columns.employeesPresent;
+        this.employeeIds = columns.employeeIds;
+        this.titles = columns.titles;
+        this.nullNames = columns.nullNames;
+        this.nameOffsets = columns.nameOffsets;
+        this.nameBytes = columns.nameBytes;
+        this.positionSlots = columns.positionSlots;
+        this.indexedCount = columns.indexedCount;
+    }
+
+    /**
+     * Encodes the {@link Department}. The null {@link Employee}s are skipped.
+     *
+     * @param department the {@link Department}
+     * @return the {@link DepartmentColumns}
+     */
+    static DepartmentColumns of(Department department) {
+        return of(department.getId(), department.getName(), department.getEmployees());
+    }
+
+    /**
+     * Encodes the {@link Department}. The null {@link Employee}s are skipped.
+     *
+     * @param id        the {@link Department}'s id
+     * @param name      the {@link Department}'s name
+     * @param employees the list of {@link Employee}s, null when missing
+     * @return the {@link DepartmentColumns}
+     */
+    static DepartmentColumns of(long id, String name, List<Employee> employees) {
+
+        if (Objects.isNull(employees)) {
+            return new Builder(0).build(id, name, false);
+        }
+        final Builder builder = new Builder(employees.size());
+        employees.stream().filter(Objects::nonNull).forEach(builder::add);
+        return builder.build(id, name, true);
+    }
+
+    /**
+     * Gets the {@link Department}'s id.
+     *
+     * @return the id
+     */
+    long id() {
+        return id;
+    }
+
+    /**
+     * Gets the {@link Department}'s name.
+     *
+     * @return the name
+     */
+    String name() {
+        return name;
+    }
+
+    /**
+     * Checks whether the {@link Department} has the list of {@link Employee}s.
+     *
+     * @return true if the list is present
+     */
+    boolean employeesPresent() {
+        return employeesPresent;
+    }
+
+    /**
+     * Gets the number of the {@link Employee}s.
+     *
+     * @return the number of the {@link Employee}s
+     */
+    int size() {
+        return employeeIds.length;
+    }
+
+    /**
+     * Gets the number of the distinct {@link Employee}s' ids.
+     *
+     * @return the number of the indexed {@link Employee}s
+     */
+    int indexedCount() {
+        return indexedCount;
+    }
+
+    /**
+     * Gets the position of the {@link Employee}. When the id is used many times, the last position wins.
+     *
+     * @param employeeId the {@link Employee}'s id
+     * @return the position, or -1 if the {@link Employee} is missing
+     */
+    int positionOf(long employeeId) {
+
+        if (employeeId == NO_ID) {
+            return -1;
+        }
+        final int mask = positionSlots.length - 1;
+        for (int slot = slotOf(employeeId, mask); positionSlots[slot] != 0; slot = (slot + 1) & mask) {
+            if (employeeIds[positionSlots[slot] - 1] == employeeId) {
+                return positionSlots[slot] - 1;
+            }
+        }
+        return -1;
+    }
+
+    /**
+     * Gets the id of the {@link Employee}.
+     *
+     * @param position the position of the {@link Employee}
+     * @return the {@link Employee}'s id, or null when missing
+     */
+    Long employeeIdAt(int position) {
+        return employeeIds[position] == NO_ID ? null : employeeIds[position];
+    }
+
+    /**
+     * Passes the distinct ids of the {@link Employee}s to the consumer.
+     *
+     * @param consumer the consumer of the ids
+     */
+    void forEachEmployeeId(LongConsumer consumer) {
+
+        for (int positionSlot : positionSlots) {
+            if (positionSlot != 0) {
+                consumer.accept(employeeIds[positionSlot - 1]);
+            }
+        }
+    }
+
+    /**
+     * Materializes the {@link Employee}.
+     *
+     * @param position the position of the {@link Employee}
+     * @return the {@link Employee}
+     */
+    Employee employeeAt(int position) {
+
+        return new Employee().id(employeeIdAt(position))
+                .firstName(nameAt(2 * position, FIRST_NAME_NULL, position))
+                .lastName(nameAt(2 * position + 1, LAST_NAME_NULL, position))
+                .title(titles[position] == NO_TITLE ? null : TITLES[titles[position]]);
+    }
+
+    /**
+     * Materializes the list of {@link Employee}s.
+     *
+     * @return the list of {@link Employee}s, null when missing
+     */
+    List<Employee> toEmployees() {
+        return employeesPresent ? IntStream.range(0, size()).mapToObj(this::employeeAt).toList() : null;
+    }
+
+    /**
+     * Materializes the {@link Department}.
+     *
+     * @return the {@link Department}
+     */
+    Department toDepartment() {
+        return new Department().id(id).name(name).employees(toEmployees());
+    }
+
+    /**
+     * Creates the renamed copy.
+     *
+     * @param newName the new name
+     * @return the {@link DepartmentColumns}
+     */
+    DepartmentColumns withName(String newName) {
+        return new DepartmentColumns(this, newName);
+    }
+
+    /**
+     * Creates the copy with the {@link Employee} appended.
+     *
+     * @param employee the {@link Employee}
+     * @return the {@link DepartmentColumns}
+     */
+    DepartmentColumns withEmployee(Employee employee) {
+
+        final Builder builder = new Builder(size() + 1);
+        builder.addRange(this, 0, size());
+        builder.add(employee);
+        return builder.build(id, name, true);
+    }
+
+    /**
+     * Creates the copy with the {@link Employee} replaced.
+     *
+     * @param position the position of the replaced {@link Employee}
+     * @param employee the {@link Employee}
+     * @return the {@link DepartmentColumns}
+     */
+    DepartmentColumns withEmployeeAt(int position, Employee employee) {
+
+        final Builder builder = new Builder(size());
+        builder.addRange(this, 0, position);
+        builder.add(employee);
+        builder.addRange(this, position + 1, size());
+        return builder.build(id, name, true);
+    }
+
+    /**
+     * Creates the renamed copy with the {@link Employee}s replaced.
+     *
+     * @param newName     the new name
+     * @param employeeMap the replacing {@link Employee}s by their positions
+     * @return the {@link DepartmentColumns}
+     */
+    DepartmentColumns withEmployeesAt(String newName, NavigableMap<Integer, Employee> employeeMap) {
+
+        if (employeeMap.isEmpty()) {
+            return withName(newName);
+        }
+        final Builder builder = new Builder(size());
+        int from = 0;
+        for (Map.Entry<Integer, Employee> entry : employeeMap.entrySet()) {
+            builder.addRange(this, from, entry.getKey());
+            builder.add(entry.getValue());
+            from = entry.getKey() + 1;
+        }
+        builder.addRange(this, from, size());
+        return builder.build(id, newName, true);
+    }
+
+    /**
+     * Creates the copy with the {@link Employee} removed.
+     *
+     * @param position the position of the removed {@link Employee}
+     * @return the {@link DepartmentColumns}
+     */
+    DepartmentColumns withoutEmployeeAt(int position) {
+
+        final Builder builder = new Builder(size() - 1);
+        builder.addRange(this, 0, position);
+        builder.addRange(this, position + 1, size());
+        return builder.build(id, name, true);
+    }
+
+    /**
+     * Estimates the heap footprint with the compressed references.
+     *
+     * @return the footprint in bytes
+     */
+    long footprint() {
+
+        return OBJECT_BYTES + (Objects.isNull(name) ? 0 : STRING_BYTES + name.length())
+               + 6 * ARRAY_BYTES + 8L * employeeIds.length + 2L * titles.length + 4L * nameOffsets.length
+               + nameBytes.length + 4L * positionSlots.length;
+    }
+
+    /**
+     * Decodes the name.
+     *
+     * @param offsetIndex the index of the name in the offsets column
+     * @param nullFlag    the null flag of the name
+     * @param position    the position of the {@link Employee}
+     * @return the name
+     */
+    private String nameAt(int offsetIndex, byte nullFlag, int position) {
+
+        if ((nullNames[position] & nullFlag) != 0) {
+            return null;
+        }
+        final int offset = nameOffsets[offsetIndex];
+        return new String(nameBytes, offset, nameOffsets[offsetIndex + 1] - offset, StandardCharsets.UTF_8);
+    }
+
+    /**
+     * Puts the position into the positions table.
+     *
+     * @param employeeId the {@link Employee}'s id
+     * @param position   the position
+     * @return true if the id was not in the table
+     */
+    private boolean putPosition(long employeeId, int position) {
+
+        final int mask = positionSlots.length - 1;
+        int slot = slotOf(employeeId, mask);
+        while (positionSlots[slot] != 0) {
+            if (employeeIds[positionSlots[slot] - 1] == employeeId) {
+                positionSlots[slot] = position + 1;
+                return false;
+            }
+            slot = (slot + 1) & mask;
+        }
+        positionSlots[slot] = position + 1;
+        return true;
+    }
+
+    /**
+     * Gets the home slot of the id in the positions table.
+     *
+     * @param employeeId the {@link Employee}'s id
+     * @param mask       the mask of the table size
+     * @return the slot
+     */
+    private static int slotOf(long employeeId, int mask) {
+        return (int) ((employeeId * 0x9E3779B97F4A7C15L) >>> 32) & mask;
+    }
+
+    /**
+     * The builder of the columns.
+     */
+    private static final class Builder {
+
+        private final long[] employeeIds;
+        private final byte[] titles;
+        private final byte[] nullNames;
+        private final int[] nameOffsets;
+        private byte[] nameBytes;
+        private int size;
+
+        /**
+         * The constructor.
+         *
+         * @param capacity the number of the {@link Employee}s
+         */
+        Builder(int capacity) {
+
+            this.employeeIds = new long[capacity];
+            this.titles = new byte[capacity];
+            this.nullNames = new byte[capacity];
+            this.nameOffsets = new int[2 * capacity + 1];
+            this.nameBytes = new byte[16 * capacity];
+        }
+
+        /**
+         * Adds the {@link Employee}.
+         *
+         * @param employee the {@link Employee}
+         */
+        void add(Employee employee) {
+
+            employeeIds[size] = Objects.isNull(employee.getId()) ? NO_ID : employee.getId();
+            titles[size] = Objects.isNull(employee.getTitle()) ? NO_TITLE : (byte) employee.getTitle().ordinal();
+            nullNames[size] = (byte) ((Objects.isNull(employee.getFirstName()) ? FIRST_NAME_NULL : 0)
+                                      | (Objects.isNull(employee.getLastName()) ? LAST_NAME_NULL : 0));
+            appendName(2 * size, employee.getFirstName());
+            appendName(2 * size + 1, employee.getLastName());
+            size++;
+        }
+
+        /**
+         * Adds the range of the {@link Employee}s copied from the other columns.
+         *
+         * @param columns the source {@link DepartmentColumns}
+         * @param from    the first position, inclusive
+         * @param to      the last position, exclusive
+         */
+        void addRange(DepartmentColumns columns, int from, int to) {
+
+            if (from >= to) {
+                return;
+            }
+            final int count = to - from;
+            System.arraycopy(columns.employeeIds, from, employeeIds, size, count);
+            System.arraycopy(columns.titles, from, titles, size, count);
+            System.arraycopy(columns.nullNames, from, nullNames, size, count);
+            final int sourceStart = columns.nameOffsets[2 * from];
+            final int length = columns.nameOffsets[2 * to] - sourceStart;
+            final int targetStart = nameOffsets[2 * size];
+            ensureNameCapacity(targetStart + length);
+            System.arraycopy(columns.nameBytes, sourceStart, nameBytes, targetStart, length);
+            for (int i = 1; i <= 2 * count; i++) {
+                nameOffsets[2 * size + i] = columns.nameOffsets[2 * from + i] - sourceStart + targetStart;
+            }
+            size += count;
+        }
+
+        /**
+         * Builds the {@link DepartmentColumns} with the trimmed columns.
+         *
+         * @param id               the {@link Department}'s id
+         * @param name             the {@link Department}'s name
+         * @param employeesPresent the flag whether the {@link Department} has the list of {@link Employee}s
+         * @return the {@link DepartmentColumns}
+         */
+        DepartmentColumns build(long id, String name, boolean employeesPresent) {
+
+            return new DepartmentColumns(id, name, employeesPresent, Arrays.copyOf(employeeIds, size),
+                    Arrays.copyOf(titles, size), Arrays.copyOf(nullNames, size),
+                    Arrays.copyOf(nameOffsets, 2 * size + 1), Arrays.copyOf(nameBytes, nameOffsets[2 * size]));
+        }
+
+        /**
+         * Appends the name.
+         *
+         * @param offsetIndex the index of the name in the offsets column
+         * @param name        the name, may be null
+         */
+        private void appendName(int offsetIndex, String name) {
+
+            final int start = nameOffsets[offsetIndex];
+            if (Objects.isNull(name)) {
+                nameOffsets[offsetIndex + 1] = start;
+                return;
+            }
+            final byte[] bytes = name.getBytes(StandardCharsets.UTF_8);
+            ensureNameCapacity(start + bytes.length);
+            System.arraycopy(bytes, 0, nameBytes, start, bytes.length);
+            nameOffsets[offsetIndex + 1] = start + bytes.length;
+        }
+
+        /**
+         * Grows the names array.
+         *
+         * @param capacity the required capacity
+         */
+        private void ensureNameCapacity(int capacity) {
+
+            if (capacity > nameBytes.length) {
+                nameBytes = Arrays.copyOf(nameBytes, Math.max(capacity, 2 * nameBytes.length));
+            }
+        }
+    }
+}
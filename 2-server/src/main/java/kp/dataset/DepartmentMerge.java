@@ -0,0 +1,153 @@
+package kp.dataset;
+
+import kp.company.model.Department;
+import kp.company.model.DepartmentMergeResult;
+import kp.company.model.Employee;
+import kp.company.model.EmployeeMergeResult;
+import kp.company.model.EmployeeMergeStatus;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.function.LongFunction;
+
+/**
+ * The diff of the merge patch against the existing {@link Department}.
+ * <p>
+ * Every {@link Employee} of the patch is looked up by its id with the index of the repository,
+ * so the diff takes the time of the patch, not of the {@link Department}. The merged {@link Employee}
+ * equal to the existing one is unchanged, and it is neither written nor reported to the listener.
+ * The duplicate ids of the patch are merged one after another into the same {@link Employee}.
+ * The {@link Department} missing in the repository is created from the patch by the {@link #ofCreated(Department)}.
+ * </p>
+ *
+ * @param name            the merged name of the {@link Department}
+ * @param renamed         the flag of the changed name
+ * @param mergedEmployees the changed or created {@link Employee}s by id, in the patch order
+ * @param results         the {@link EmployeeMergeResult}s in the patch order
+ */
+record DepartmentMerge(String name, boolean renamed, Map<Long, Employee> mergedEmployees,
+                       List<EmployeeMergeResult> results) {
+
+    /**
+     * Computes the diff of the merge patch.
+     *
+     * @param existingName     the name of the existing {@link Department}
+     * @param employeesPresent the flag whether the existing {@link Department} has the list of {@link Employee}s
+     * @param patch            the merge patch {@link Department}
+     * @param finder           the finder of the existing {@link Employee} by id, returning null for the missing one
+     * @return the {@link DepartmentMerge}
+     */
+    static DepartmentMerge of(String existingName, boolean employeesPresent, Department patch,
+                              LongFunction<Employee> finder) {
+
+        final String name = Optional.ofNullable(patch.getName()).orElse(existingName);
+        final Map<Long, Employee> mergedEmployees = new LinkedHashMap<>();
+        final List<EmployeeMergeResult> results = new ArrayList<>();
+        final List<Employee> patchEmployees = Optional.ofNullable(patch.getEmployees()).orElse(List.of());
+        for (int index = 0; index < patchEmployees.size(); index++) {
+            final Employee updatedEmp = patchEmployees.get(index);
+            final EmployeeMergeResult result = new EmployeeMergeResult().index(index);
+            results.add(result);
+            if (Objects.isNull(updatedEmp) || Objects.isNull(updatedEmp.getId())) {
+                result.status(EmployeeMergeStatus.INVALID);
+                continue;
+            }
+            final long id = updatedEmp.getId();
+            result.id(id);
+            final Employee existingEmp = employeesPresent
+                    ? Optional.ofNullable(mergedEmployees.get(id)).orElseGet(() -> finder.apply(id)) : null;
+            if (Objects.isNull(existingEmp)) {
+                result.status(EmployeeMergeStatus.NOT_FOUND);
+                continue;
+            }
+            final Employee mergedEmp = ConcurrentDatasetRepository.mergeOf(existingEmp, updatedEmp);
+            if (mergedEmp.equals(existingEmp)) {
+                result.status(EmployeeMergeStatus.UNCHANGED);
+                continue;
+            }
+            mergedEmployees.put(id, mergedEmp);
+            result.status(EmployeeMergeStatus.UPDATED);
+        }
+        return new DepartmentMerge(name, !Objects.equals(name, existingName), mergedEmployees, results);
+    }
+
+    /**
+     * Computes the {@link Department} created from the merge patch.
+     * <p>
+     * The null {@link Employee} and the {@link Employee} without the id are invalid and are not created.
+     * The duplicate ids of the patch are merged one after another into the first {@link Employee} with the id,
+     * like into the existing {@link Employee}. The created {@link Employee}s are copies of the patch.
+     * </p>
+     *
+     * @param patch the merge patch {@link Department}
+     * @return the {@link DepartmentMerge} with the created {@link Employee}s
+     */
+    static DepartmentMerge ofCreated(Department patch) {
+
+        final Map<Long, Employee> createdEmployees = new LinkedHashMap<>();
+        final List<EmployeeMergeResult> results = new ArrayList<>();
+        final List<Employee> patchEmployees = Optional.ofNullable(patch.getEmployees()).orElse(List.of());
+        for (int index = 0; index < patchEmployees.size(); index++) {
+            final Employee createdEmp = patchEmployees.get(index);
+            final EmployeeMergeResult result = new EmployeeMergeResult().index(index);
+            results.add(result);
+            if (Objects.isNull(createdEmp) || Objects.isNull(createdEmp.getId())) {
+                result.status(EmployeeMergeStatus.INVALID);
+                continue;
+            }
+            final long id = createdEmp.getId();
+            final Employee earlierEmp = createdEmployees.get(id);
+            createdEmployees.put(id, ConcurrentDatasetRepository.mergeOf(
+                    Objects.isNull(earlierEmp) ? new Employee().id(id) : earlierEmp, createdEmp));
+            result.id(id).status(Objects.isNull(earlierEmp) ? EmployeeMergeStatus.CREATED
+                    : EmployeeMergeStatus.UPDATED);
+        }
+        return new DepartmentMerge(patch.getName(), false, createdEmployees, results);
+    }
+
+    /**
+     * Creates the {@link Department} computed by the {@link #ofCreated(Department)}.
+     *
+     * @param id    the {@link Department}'s id
+     * @param patch the merge patch {@link Department}
+     * @return the created {@link Department}, without the list of {@link Employee}s when the patch has none
+     */
+    Department toCreatedDepartment(long id, Department patch) {
+
+        return new Department().id(id).name(name).employees(Objects.isNull(patch.getEmployees()) ? null
+                : new ArrayList<>(mergedEmployees.values()));
+    }
+
+    /**
+     * Creates the result of the {@link Department} created from the merge patch.
+     *
+     * @param id the {@link Department}'s id
+     * @return the {@link DepartmentMergeResult}
+     */
+    DepartmentMergeResult toCreatedResult(long id) {
+        return new DepartmentMergeResult().id(id).created(true).renamed(false).employees(results);
+    }
+
+    /**
+     * Checks if the merge changes the {@link Department}.
+     *
+     * @return true if anything changed
+     */
+    boolean changed() {
+        return renamed || !mergedEmployees.isEmpty();
+    }
+
+    /**
+     * Creates the result of the merge into the existing {@link Department}.
+     *
+     * @param id the {@link Department}'s id
+     * @return the {@link DepartmentMergeResult}
+     */
+    DepartmentMergeResult toResult(long id) {
+        return new DepartmentMergeResult().id(id).created(false).renamed(renamed).employees(results);
+    }
+}
@@ -0,0 +1,369 @@
+package kp.dataset;
+
+import kp.company.model.Department;
+import kp.company.model.Employee;
+
+import java.util.Arrays;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.locks.StampedLock;
+
+/**
+ * The index of the {@link Department}s' ids by the {@link Employee}'s id without the boxed keys.
+ * <p>
+ * The index is split into the segments by the hash of the {@link Employee}'s id.
+ * Every segment keeps the open-addressing table with the linear probing in one long array
+ * of the interleaved keys and values. The value is the {@link Department}'s id of the {@link Employee}.
+ * Only the {@link Employee} present in many {@link Department}s has the marker value
+ * and its set of the {@link Department}s' ids in the overflow map.
+ * </p>
+ * <p>
+ * The writers lock the segment. The readers use the optimistic read of the {@link StampedLock}
+ * and fall back to the read lock when the segment was changed meanwhile.
+ * </p>
+ */
+final class EmployeeDepartmentIndex {
+
+    private static final long FREE = Long.MIN_VALUE;
+    private static final long MANY = Long.MIN_VALUE;
+    private static final int SEGMENT_BITS = 6;
+    private static final int INITIAL_CAPACITY = 16;
+    private static final long OVERFLOW_ENTRY_BYTES = 32 + 16 + 64 + 48;
+    private final Segment[] segments = new Segment[1 << SEGMENT_BITS];
+
+    /**
+     * The constructor.
+     */
+    EmployeeDepartmentIndex() {
+        Arrays.setAll(segments, _ -> new Segment());
+    }
+
+    /**
+     * Adds the {@link Department}'s id of the {@link Employee}.
+     *
+     * @param employeeId   the {@link Employee}'s id
+     * @param departmentId the {@link Department}'s id
+     */
+    void add(long employeeId, long departmentId) {
+
+        final long hash = hashOf(employeeId);
+        final Segment segment = segmentOf(hash);
+        final long stamp = segment.lock.writeLock();
+        try {
+            segment.add(employeeId, hash, departmentId);
+        } finally {
+            segment.lock.unlockWrite(stamp);
+        }
+    }
+
+    /**
+     * Removes the {@link Department}'s id of the {@link Employee}.
+     *
+     * @param employeeId   the {@link Employee}'s id
+     * @param departmentId the {@link Department}'s id
+     */
+    void remove(long employeeId, long departmentId) {
+
+        final long hash = hashOf(employeeId);
+        final Segment segment = segmentOf(hash);
+        final long stamp = segment.lock.writeLock();
+        try {
+            segment.remove(employeeId, hash, departmentId);
+        } finally {
+            segment.lock.unlockWrite(stamp);
+        }
+    }
+
+    /**
+     * Gets the {@link Department}s' ids of the {@link Employee}.
+     *
+     * @param employeeId the {@link Employee}'s id
+     * @return the set of the {@link Department}s' ids
+     */
+    Set<Long> get(long employeeId) {
+
+        final long hash = hashOf(employeeId);
+        final Segment segment = segmentOf(hash);
+        final long optimisticStamp = segment.lock.tryOptimisticRead();
+        final Set<Long> departmentIds = segment.get(employeeId, hash);
+        if (segment.lock.validate(optimisticStamp)) {
+            return departmentIds;
+        }
+        final long stamp = segment.lock.readLock();
+        try {
+            return segment.get(employeeId, hash);
+        } finally {
+            segment.lock.unlockRead(stamp);
+        }
+    }
+
+    /**
+     * Removes all entries.
+     */
+    void clear() {
+
+        for (Segment segment : segments) {
+            final long stamp = segment.lock.writeLock();
+            try {
+                segment.clear();
+            } finally {
+                segment.lock.unlockWrite(stamp);
+            }
+        }
+    }
+
+    /**
+     * Estimates the heap footprint.
+     *
+     * @return the footprint in bytes
+     */
+    long footprint() {
+
+        return Arrays.stream(segments).mapToLong(segment -> 8L * segment.table.length
+                                                            + OVERFLOW_ENTRY_BYTES * segment.overflowMap.size()).sum();
+    }
+
+    /**
+     * Mixes the bits of the {@link Employee}'s id.
+     *
+     * @param employeeId the {@link Employee}'s id
+     * @return the hash
+     */
+    private static long hashOf(long employeeId) {
+
+        final long product = employeeId * 0x9E3779B97F4A7C15L;
+        return product ^ (product >>> 32);
+    }
+
+    /**
+     * Gets the segment by the high bits of the hash.
+     *
+     * @param hash the hash
+     * @return the segment
+     */
+    private Segment segmentOf(long hash) {
+        return segments[(int) (hash >>> (Long.SIZE - SEGMENT_BITS))];
+    }
+
+    /**
+     * The segment of the index.
+     * <p>
+     * The {@link Employee}'s id equal to the free slot marker is kept in the overflow map only.
+     * So is the {@link Department}'s id equal to the overflow marker.
+     * </p>
+     */
+    private static final class Segment {
+
+        private final StampedLock lock = new StampedLock();
+        private final Map<Long, Set<Long>> overflowMap = new ConcurrentHashMap<>();
+        private long[] table = newTable(INITIAL_CAPACITY);
+        private int size;
+
+        /**
+         * Adds the {@link Department}'s id of the {@link Employee}.
+         * It must be called while holding the write lock.
+         *
+         * @param employeeId   the {@link Employee}'s id
+         * @param hash         the hash of the {@link Employee}'s id
+         * @param departmentId the {@link Department}'s id
+         */
+        void add(long employeeId, long hash, long departmentId) {
+
+            if (employeeId == FREE) {
+                overflowMap.computeIfAbsent(employeeId, _ -> ConcurrentHashMap.newKeySet()).add(departmentId);
+                return;
+            }
+            final int slot = find(table, employeeId, hash);
+            if (slot < 0) {
+                if (departmentId == MANY) {
+                    overflowMap.computeIfAbsent(employeeId, _ -> ConcurrentHashMap.newKeySet()).add(departmentId);
+                }
+                insert(employeeId, hash, departmentId);
+                return;
+            }
+            final long current = table[2 * slot + 1];
+            if (current == MANY) {
+                overflowMap.get(employeeId).add(departmentId);
+            } else if (current != departmentId) {
+                final Set<Long> departmentIds = ConcurrentHashMap.newKeySet();
+                departmentIds.add(current);
+                departmentIds.add(departmentId);
+                overflowMap.put(employeeId, departmentIds);
+                table[2 * slot + 1] = MANY;
+            }
+        }
+
+        /**
+         * Removes the {@link Department}'s id of the {@link Employee}.
+         * It must be called while holding the write lock.
+         *
+         * @param employeeId   the {@link Employee}'s id
+         * @param hash         the hash of the {@link Employee}'s id
+         * @param departmentId the {@link Department}'s id
+         */
+        void remove(long employeeId, long hash, long departmentId) {
+
+            if (employeeId == FREE) {
+                overflowMap.computeIfPresent(employeeId, (_, departmentIds) -> {
+                    departmentIds.remove(departmentId);
+                    return departmentIds.isEmpty() ? null : departmentIds;
+                });
+                return;
+            }
+            final int slot = find(table, employeeId, hash);
+            if (slot < 0) {
+                return;
+            }
+            final long current = table[2 * slot + 1];
+            if (current != MANY) {
+                if (current == departmentId) {
+                    delete(slot);
+                }
+                return;
+            }
+            final Set<Long> departmentIds = overflowMap.get(employeeId);
+            departmentIds.remove(departmentId);
+            if (departmentIds.isEmpty()) {
+                overflowMap.remove(employeeId);
+                delete(slot);
+            } else if (departmentIds.size() == 1 && !departmentIds.contains(MANY)) {
+                table[2 * slot + 1] = departmentIds.iterator().next();
+                overflowMap.remove(employeeId);
+            }
+        }
+
+        /**
+         * Gets the {@link Department}s' ids of the {@link Employee}.
+         * <p>
+         * It may run concurrently with the writer, so it reads the table once and bounds the probing.
+         * The result is valid only if the stamp of the optimistic read is still valid.
+         * </p>
+         *
+         * @param employeeId the {@link Employee}'s id
+         * @param hash       the hash of the {@link Employee}'s id
+         * @return the set of the {@link Department}s' ids
+         */
+        Set<Long> get(long employeeId, long hash) {
+
+            if (employeeId == FREE) {
+                return Set.copyOf(overflowMap.getOrDefault(employeeId, Set.of()));
+            }
+            final long[] currentTable = table;
+            final int slot = find(currentTable, employeeId, hash);
+            if (slot < 0) {
+                return Set.of();
+            }
+            final long value = currentTable[2 * slot + 1];
+            return value == MANY ? Set.copyOf(overflowMap.getOrDefault(employeeId, Set.of())) : Set.of(value);
+        }
+
+        /**
+         * Removes all entries. It must be called while holding the write lock.
+         */
+        void clear() {
+
+            table = newTable(INITIAL_CAPACITY);
+            size = 0;
+            overflowMap.clear();
+        }
+
+        /**
+         * Inserts the new key. It must be called while holding the write lock.
+         *
+         * @param employeeId the {@link Employee}'s id
+         * @param hash       the hash of the {@link Employee}'s id
+         * @param value      the value
+         */
+        private void insert(long employeeId, long hash, long value) {
+
+            if (4 * (size + 1) > 3 * (table.length / 2)) {
+                final long[] oldTable = table;
+                final long[] newTable = newTable(oldTable.length);
+                for (int i = 0; i < oldTable.length; i += 2) {
+                    if (oldTable[i] != FREE) {
+                        put(newTable, oldTable[i], hashOf(oldTable[i]), oldTable[i + 1]);
+                    }
+                }
+                table = newTable;
+            }
+            put(table, employeeId, hash, value);
+            size++;
+        }
+
+        /**
+         * Deletes the entry and shifts back the following entries of the probe sequence.
+         * It must be called while holding the write lock.
+         *
+         * @param slot the slot of the deleted entry
+         */
+        private void delete(int slot) {
+
+            final int mask = table.length / 2 - 1;
+            int hole = slot;
+            for (int next = (hole + 1) & mask; table[2 * next] != FREE; next = (next + 1) & mask) {
+                final int home = (int) hashOf(table[2 * next]) & mask;
+                if (((next - home) & mask) >= ((next - hole) & mask)) {
+                    table[2 * hole] = table[2 * next];
+                    table[2 * hole + 1] = table[2 * next + 1];
+                    hole = next;
+                }
+            }
+            table[2 * hole] = FREE;
+            size--;
+        }
+
+        /**
+         * Finds the slot of the key.
+         *
+         * @param table      the table
+         * @param employeeId the {@link Employee}'s id
+         * @param hash       the hash of the {@link Employee}'s id
+         * @return the slot, or -1 if the key is missing
+         */
+        private static int find(long[] table, long employeeId, long hash) {
+
+            final int mask = table.length / 2 - 1;
+            int slot = (int) hash & mask;
+            for (int probe = 0; probe <= mask && table[2 * slot] != FREE; probe++) {
+                if (table[2 * slot] == employeeId) {
+                    return slot;
+                }
+                slot = (slot + 1) & mask;
+            }
+            return -1;
+        }
+
+        /**
+         * Puts the entry into the free slot of the table.
+         *
+         * @param table      the table
+         * @param employeeId the {@link Employee}'s id
+         * @param hash       the hash of the {@link Employee}'s id
+         * @param value      the value
+         */
+        private static void put(long[] table, long employeeId, long hash, long value) {
+
+            final int mask = table.length / 2 - 1;
+            int slot = (int) hash & mask;
+            while (table[2 * slot] != FREE) {
+                slot = (slot + 1) & mask;
+            }
+            table[2 * slot] = employeeId;
+            table[2 * slot + 1] = value;
+        }
+
+        /**
+         * Creates the table with all slots free.
+         *
+         * @param capacity the number of the slots
+         * @return the table
+         */
+        private static long[] newTable(int capacity) {
+
+            final long[] newTable = new long[2 * capacity];
+            Arrays.fill(newTable, FREE);
+            return newTable;
+        }
+    }
+}
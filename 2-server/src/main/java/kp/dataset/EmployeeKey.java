@@ -0,0 +1,13 @@
+package kp.dataset;
+
+import kp.company.model.Department;
+import kp.company.model.Employee;
+
+/**
+ * The key of the {@link Employee} in the {@link Department}.
+ *
+ * @param departmentId the {@link Department}'s id
+ * @param employeeId   the {@link Employee}'s id
+ */
+record EmployeeKey(long departmentId, long employeeId) {
+}
@@ -0,0 +1,13 @@
+package kp.dataset;
+
+import kp.company.model.Department;
+import kp.company.model.Employee;
+
+/**
+ * The {@link Employee} found by the search with its {@link Department}'s id.
+ *
+ * @param departmentId the {@link Department}'s id
+ * @param employee     the {@link Employee}
+ */
+public record EmployeeMatch(long departmentId, Employee employee) {
+}
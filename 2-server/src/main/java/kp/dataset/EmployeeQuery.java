@@ -0,0 +1,64 @@
+package kp.dataset;
+
+import kp.company.model.Department;
+import kp.company.model.Employee;
+import kp.company.model.Title;
+
+import java.util.Objects;
+
+/**
+ * The filters of the {@link Employee}s search. The absent filter, {@code null}, accepts every {@link Employee}.
+ *
+ * @param title           the {@link Employee}'s {@link Title}
+ * @param departmentId    the {@link Department}'s id
+ * @param firstNamePrefix the prefix of the {@link Employee}'s first name
+ * @param lastNamePrefix  the prefix of the {@link Employee}'s last name
+ * @param minId           the lowest {@link Employee}'s id
+ * @param maxId           the highest {@link Employee}'s id
+ */
+public record EmployeeQuery(Title title, Long departmentId, String firstNamePrefix, String lastNamePrefix,
+                            Long minId, Long maxId) {
+
+    /**
+     * Checks the {@link Employee} against all filters.
+     *
+     * @param departmentId the {@link Department}'s id
+     * @param employee     the {@link Employee}
+     * @return true if the {@link Employee} matches
+     */
+    public boolean matches(long departmentId, Employee employee) {
+
+        return Objects.nonNull(employee.getId()) && matches(departmentId, employee.getId(), employee.getTitle(),
+                employee.getFirstName(), employee.getLastName());
+    }
+
+    /**
+     * Checks the fields of the {@link Employee} against all filters.
+     *
+     * @param departmentId the {@link Department}'s id
+     * @param employeeId   the {@link Employee}'s id
+     * @param title        the {@link Employee}'s {@link Title}
+     * @param firstName    the {@link Employee}'s first name
+     * @param lastName     the {@link Employee}'s last name
+     * @return true if the {@link Employee} matches
+     */
+    boolean matches(long departmentId, long employeeId, Title title, String firstName, String lastName) {
+
+        return (Objects.isNull(this.title) || this.title == title)
+               && (Objects.isNull(this.departmentId) || this.departmentId == departmentId)
+               && startsWith(firstName, firstNamePrefix) && startsWith(lastName, lastNamePrefix)
+               && (Objects.isNull(minId) || employeeId >= minId)
+               && (Objects.isNull(maxId) || employeeId <= maxId);
+    }
+
+    /**
+     * Checks the name against the prefix filter.
+     *
+     * @param name   the name
+     * @param prefix the prefix, {@code null} for any name
+     * @return true if the name matches
+     */
+    private static boolean startsWith(String name, String prefix) {
+        return Objects.isNull(prefix) || Objects.nonNull(name) && name.startsWith(prefix);
+    }
+}
@@ -0,0 +1,527 @@
+package kp.dataset;
+
+import kp.company.model.Department;
+import kp.company.model.Employee;
+import kp.company.model.Title;
+import kp.dataset.DatasetMutation.DatasetLoaded;
+import kp.dataset.DatasetMutation.DepartmentRemoved;
+import kp.dataset.DatasetMutation.DepartmentRenamed;
+import kp.dataset.DatasetMutation.DepartmentSaved;
+import kp.dataset.DatasetMutation.EmployeeRemoved;
+import kp.dataset.DatasetMutation.EmployeeSaved;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableSet;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.PrimitiveIterator;
+import java.util.TreeSet;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.function.Supplier;
+import java.util.stream.IntStream;
+import java.util.stream.Stream;
+
+/**
+ * The secondary indexes of the {@link Employee}s for the search.
+ * <p>
+ * Every {@link Employee} in every {@link Department} takes one row of the index. The rows are found by:
+ * </p>
+ * <ul>
+ * <li>the {@link Employee}'s id in the {@link OffHeapTable}
+ * <li>the {@link Department}'s id in the chain of the {@link Department}'s rows
+ * <li>the {@link Title} in the {@link IdBitmap} of the {@link Employee}s' ids
+ * <li>the name prefix in the sorted sets of the first names and the last names
+ * </ul>
+ * <p>
+ * The search takes the narrowest index for the {@link EmployeeQuery}: the rows of the {@link Department},
+ * the small range of the name prefix, or else the ascending ids from the bitmap of the {@link Title}.
+ * The found rows are confirmed by the {@link DatasetRepository} after the lock of the index is released,
+ * so the index never waits for the repository and the row left behind by the concurrent write
+ * never yields the wrong {@link Employee}.
+ * </p>
+ * <p>
+ * The index follows the {@link DatasetMutation}s of its {@link DatasetRepository}.
+ * The {@link Employee} without the id is not indexed, so it is never found.
+ * The duplicate ids in one {@link Department} take one row with the last saved {@link Employee}.
+ * </p>
+ */
+public final class EmployeeSearchIndex {
+
+    /**
+     * The disabled index. Its search scans all {@link Employee}s of the {@link DatasetRepository}.
+     */
+    public static final EmployeeSearchIndex NONE = new EmployeeSearchIndex(false);
+    private static final int NONE_ROW = OffHeapTable.NONE;
+    private static final int INITIAL_ROWS = 1 << 10;
+    private static final int PREFIX_RANGE_LIMIT = 1 << 12;
+    private static final Comparator<NameEntry> NAME_ORDER =
+            Comparator.comparing(NameEntry::name).thenComparingInt(NameEntry::row);
+    private static final Comparator<EmployeeMatch> MATCH_ORDER =
+            Comparator.comparing((EmployeeMatch match) -> match.employee().getId())
+                    .thenComparingLong(EmployeeMatch::departmentId);
+    private final boolean enabled;
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+    private final OffHeapTable employeeRows;
+    private final Map<Long, Integer> departmentHeads = new HashMap<>();
+    private final IdBitmap allIds = new IdBitmap();
+    private final IdBitmap[] titleIds = Stream.of(Title.values()).map(_ -> new IdBitmap())
+            .toArray(IdBitmap[]::new);
+    private final NavigableSet<NameEntry> firstNames = new TreeSet<>(NAME_ORDER);
+    private final NavigableSet<NameEntry> lastNames = new TreeSet<>(NAME_ORDER);
+    private long[] employeeIds = new long[0];
+    private long[] departmentIds = new long[0];
+    private Title[] titles = new Title[0];
+    private String[] firstNameRows = new String[0];
+    private String[] lastNameRows = new String[0];
+    private int[] previousRows = new int[0];
+    private int[] nextRows = new int[0];
+    private int rowCount;
+    private int freeRow = NONE_ROW;
+
+    /**
+     * The constructor.
+     *
+     * @param enabled the flag of the enabled index
+     */
+    private EmployeeSearchIndex(boolean enabled) {
+
+        this.enabled = enabled;
+        this.employeeRows = enabled ? new OffHeapTable() : null;
+    }
+
+    /**
+     * Builds the index of all {@link Employee}s of the {@link DatasetRepository}.
+     * <p>
+     * The repository must not be changed until the index is published with it.
+     * </p>
+     *
+     * @param repository the {@link DatasetRepository}
+     * @return the {@link EmployeeSearchIndex}
+     */
+    public static EmployeeSearchIndex build(DatasetRepository repository) {
+
+        final EmployeeSearchIndex index = new EmployeeSearchIndex(true);
+        index.writeLocked(() -> repository.streamDepartments(Long.MIN_VALUE)
+                .forEach(dep -> Optional.ofNullable(dep.getEmployees()).ifPresent(
+                        employees -> employees.forEach(emp -> index.saveRow(dep.getId(), emp)))));
+        return index;
+    }
+
+    /**
+     * Searches the {@link Employee}s in the order of the {@link Employee}'s id and the {@link Department}'s id.
+     *
+     * @param repository        the {@link DatasetRepository} confirming the found {@link Employee}s
+     * @param query             the {@link EmployeeQuery}
+     * @param afterEmployeeId   the {@link Employee}'s id of the last match on the previous page
+     * @param afterDepartmentId the {@link Department}'s id of the last match on the previous page
+     * @param limit             the maximum number of the {@link EmployeeMatch}es
+     * @return the list of the {@link EmployeeMatch}es
+     */
+    public List<EmployeeMatch> search(DatasetRepository repository, EmployeeQuery query, long afterEmployeeId,
+                                      long afterDepartmentId, int limit) {
+
+        final Position start = new Position(afterEmployeeId, afterDepartmentId);
+        if (!enabled) {
+            return repository.streamDepartments(Long.MIN_VALUE)
+                    .flatMap(dep -> Optional.ofNullable(dep.getEmployees()).stream().flatMap(List::stream)
+                            .filter(emp -> query.matches(dep.getId(), emp))
+                            .map(emp -> new EmployeeMatch(dep.getId(), emp)))
+                    .filter(match -> new Position(match.employee().getId(), match.departmentId()).isAfter(start))
+                    .sorted(MATCH_ORDER).limit(limit).toList();
+        }
+        final List<EmployeeMatch> matches = new ArrayList<>();
+        Position after = start;
+        while (matches.size() < limit) {
+            final int wanted = limit - matches.size();
+            final Position from = after;
+            final List<Position> candidates = readLocked(() -> collect(query, from, wanted));
+            for (Position candidate : candidates) {
+                repository.getEmployee(candidate.departmentId(), candidate.employeeId())
+                        .filter(emp -> query.matches(candidate.departmentId(), emp))
+                        .ifPresent(emp -> matches.add(new EmployeeMatch(candidate.departmentId(), emp)));
+            }
+            if (candidates.size() < wanted) {
+                break;
+            }
+            after = candidates.getLast();
+        }
+        return matches;
+    }
+
+    /**
+     * Applies the {@link DatasetMutation} of the {@link DatasetRepository}.
+     *
+     * @param mutation the {@link DatasetMutation}
+     */
+    public void onMutation(DatasetMutation mutation) {
+
+        if (!enabled) {
+            return;
+        }
+        writeLocked(() -> {
+            switch (mutation) {
+                case DepartmentSaved(Department department) -> {
+                    removeDepartmentRows(department.getId());
+                    Optional.ofNullable(department.getEmployees()).ifPresent(
+                            employees -> employees.forEach(emp -> saveRow(department.getId(), emp)));
+                }
+                case DepartmentRemoved(long departmentId) -> removeDepartmentRows(departmentId);
+                case EmployeeSaved(long departmentId, Employee employee) -> saveRow(departmentId, employee);
+                case EmployeeRemoved(long departmentId, long employeeId) -> {
+                    final int row = findRow(departmentId, employeeId);
+                    if (row != NONE_ROW) {
+                        removeRow(row);
+                    }
+                }
+                case DepartmentRenamed _, DatasetLoaded _ -> {
+                }
+            }
+        });
+    }
+
+    /**
+     * Collects the candidate rows placed after the given position. It must be called while holding the read lock.
+     *
+     * @param query the {@link EmployeeQuery}
+     * @param after the position of the last candidate on the previous page
+     * @param count the maximum number of the candidates
+     * @return the positions of the candidates in the ascending order
+     */
+    private List<Position> collect(EmployeeQuery query, Position after, int count) {
+
+        if (Objects.nonNull(query.departmentId())) {
+            return collectSorted(departmentRows(query.departmentId()), query, after, count);
+        }
+        return Stream.of(prefixRows(firstNames, query.firstNamePrefix()),
+                        prefixRows(lastNames, query.lastNamePrefix()))
+                .flatMap(Optional::stream).min(Comparator.comparingInt(rows -> rows.length))
+                .map(rows -> collectSorted(Arrays.stream(rows), query, after, count))
+                .orElseGet(() -> collectAscending(query, after, count));
+    }
+
+    /**
+     * Collects the matching rows from the small set of rows by sorting them.
+     *
+     * @param rows  the rows
+     * @param query the {@link EmployeeQuery}
+     * @param after the position of the last candidate on the previous page
+     * @param count the maximum number of the candidates
+     * @return the positions of the candidates in the ascending order
+     */
+    private List<Position> collectSorted(IntStream rows, EmployeeQuery query, Position after, int count) {
+
+        return rows.filter(row -> matches(row, query)).mapToObj(this::positionOf)
+                .filter(position -> position.isAfter(after)).sorted().limit(count).toList();
+    }
+
+    /**
+     * Collects the matching rows by walking the ascending ids of the {@link IdBitmap}.
+     * <p>
+     * The bitmap of the {@link Title} is walked for the {@link Title} filter, the bitmap of all ids otherwise.
+     * The walk starts at the position or at the lowest id of the filter and stops at its highest id.
+     * </p>
+     *
+     * @param query the {@link EmployeeQuery}
+     * @param after the position of the last candidate on the previous page
+     * @param count the maximum number of the candidates
+     * @return the positions of the candidates in the ascending order
+     */
+    private List<Position> collectAscending(EmployeeQuery query, Position after, int count) {
+
+        final IdBitmap ids = Objects.isNull(query.title()) ? allIds : titleIds[query.title().ordinal()];
+        final long fromId = Math.max(after.employeeId(), Optional.ofNullable(query.minId()).orElse(Long.MIN_VALUE));
+        final long toId = Optional.ofNullable(query.maxId()).orElse(Long.MAX_VALUE);
+        final List<Position> positions = new ArrayList<>();
+        final PrimitiveIterator.OfLong idIterator = ids.stream(fromId).takeWhile(id -> id <= toId).iterator();
+        while (positions.size() < count && idIterator.hasNext()) {
+            Arrays.stream(employeeRows.mapValues(idIterator.nextLong(), row -> row)).mapToInt(Math::toIntExact)
+                    .filter(row -> matches(row, query)).mapToObj(this::positionOf)
+                    .filter(position -> position.isAfter(after)).sorted().forEach(positions::add);
+        }
+        return positions.size() > count ? positions.subList(0, count) : positions;
+    }
+
+    /**
+     * Gets the rows of the names starting with the prefix, unless there are too many of them.
+     *
+     * @param names  the sorted set of the names
+     * @param prefix the prefix, {@code null} for no prefix filter
+     * @return the {@link Optional} with the rows, empty for no prefix filter or for the too big range
+     */
+    private static Optional<int[]> prefixRows(NavigableSet<NameEntry> names, String prefix) {
+
+        if (Objects.isNull(prefix)) {
+            return Optional.empty();
+        }
+        final int[] rows = names.tailSet(new NameEntry(prefix, NONE_ROW), true).stream()
+                .takeWhile(entry -> entry.name().startsWith(prefix)).limit(PREFIX_RANGE_LIMIT + 1L)
+                .mapToInt(NameEntry::row).toArray();
+        return Optional.of(rows).filter(_ -> rows.length <= PREFIX_RANGE_LIMIT);
+    }
+
+    /**
+     * Streams the rows of the {@link Department}.
+     *
+     * @param departmentId the {@link Department}'s id
+     * @return the stream of the rows
+     */
+    private IntStream departmentRows(long departmentId) {
+        return IntStream.iterate(departmentHeads.getOrDefault(departmentId, NONE_ROW), row -> row != NONE_ROW,
+                row -> nextRows[row]);
+    }
+
+    /**
+     * Checks the row against the {@link EmployeeQuery}.
+     *
+     * @param row   the row
+     * @param query the {@link EmployeeQuery}
+     * @return true if the row matches
+     */
+    private boolean matches(int row, EmployeeQuery query) {
+        return query.matches(departmentIds[row], employeeIds[row], titles[row], firstNameRows[row],
+                lastNameRows[row]);
+    }
+
+    /**
+     * Gets the position of the row.
+     *
+     * @param row the row
+     * @return the position
+     */
+    private Position positionOf(int row) {
+        return new Position(employeeIds[row], departmentIds[row]);
+    }
+
+    /**
+     * Finds the row of the {@link Employee} in the {@link Department}.
+     *
+     * @param departmentId the {@link Department}'s id
+     * @param employeeId   the {@link Employee}'s id
+     * @return the row, or {@link #NONE_ROW} if it is missing
+     */
+    private int findRow(long departmentId, long employeeId) {
+        return employeeRows.find(employeeId, row -> departmentIds[row] == departmentId);
+    }
+
+    /**
+     * Creates or updates the row of the {@link Employee}. It must be called while holding the write lock.
+     *
+     * @param departmentId the {@link Department}'s id
+     * @param employee     the {@link Employee}
+     */
+    private void saveRow(long departmentId, Employee employee) {
+
+        if (Objects.isNull(employee.getId())) {
+            return;
+        }
+        int row = findRow(departmentId, employee.getId());
+        if (row == NONE_ROW) {
+            row = addRow(departmentId, employee.getId());
+        } else {
+            unindexFields(row);
+        }
+        titles[row] = employee.getTitle();
+        firstNameRows[row] = employee.getFirstName();
+        lastNameRows[row] = employee.getLastName();
+        if (Objects.nonNull(titles[row])) {
+            titleIds[titles[row].ordinal()].add(employeeIds[row]);
+        }
+        if (Objects.nonNull(firstNameRows[row])) {
+            firstNames.add(new NameEntry(firstNameRows[row], row));
+        }
+        if (Objects.nonNull(lastNameRows[row])) {
+            lastNames.add(new NameEntry(lastNameRows[row], row));
+        }
+    }
+
+    /**
+     * Adds the empty row of the {@link Employee} to the chain of the {@link Department}'s rows.
+     * It must be called while holding the write lock.
+     *
+     * @param departmentId the {@link Department}'s id
+     * @param employeeId   the {@link Employee}'s id
+     * @return the row
+     */
+    private int addRow(long departmentId, long employeeId) {
+
+        final int row;
+        if (freeRow != NONE_ROW) {
+            row = freeRow;
+            freeRow = nextRows[row];
+        } else {
+            if (rowCount == employeeIds.length) {
+                growRows(Math.max(INITIAL_ROWS, rowCount + (rowCount >> 1)));
+            }
+            row = rowCount++;
+        }
+        employeeIds[row] = employeeId;
+        departmentIds[row] = departmentId;
+        final int head = departmentHeads.getOrDefault(departmentId, NONE_ROW);
+        previousRows[row] = NONE_ROW;
+        nextRows[row] = head;
+        if (head != NONE_ROW) {
+            previousRows[head] = row;
+        }
+        departmentHeads.put(departmentId, row);
+        employeeRows.add(employeeId, row);
+        allIds.add(employeeId);
+        return row;
+    }
+
+    /**
+     * Removes the row of the {@link Employee}. It must be called while holding the write lock.
+     *
+     * @param row the row
+     */
+    private void removeRow(int row) {
+
+        unindexFields(row);
+        final long employeeId = employeeIds[row];
+        final int previous = previousRows[row];
+        final int next = nextRows[row];
+        if (next != NONE_ROW) {
+            previousRows[next] = previous;
+        }
+        if (previous != NONE_ROW) {
+            nextRows[previous] = next;
+        } else if (next != NONE_ROW) {
+            departmentHeads.put(departmentIds[row], next);
+        } else {
+            departmentHeads.remove(departmentIds[row]);
+        }
+        employeeRows.remove(employeeId, row);
+        if (employeeRows.find(employeeId, _ -> true) == NONE_ROW) {
+            allIds.remove(employeeId);
+        }
+        nextRows[row] = freeRow;
+        freeRow = row;
+    }
+
+    /**
+     * Removes all rows of the {@link Department}. It must be called while holding the write lock.
+     *
+     * @param departmentId the {@link Department}'s id
+     */
+    private void removeDepartmentRows(long departmentId) {
+        Arrays.stream(departmentRows(departmentId).toArray()).forEach(this::removeRow);
+    }
+
+    /**
+     * Removes the {@link Title} and the names of the row from the indexes.
+     * It must be called while holding the write lock.
+     * <p>
+     * The id stays in the bitmap of the {@link Title} while any other row of the id has this {@link Title}.
+     * </p>
+     *
+     * @param row the row
+     */
+    private void unindexFields(int row) {
+
+        final Title title = titles[row];
+        titles[row] = null;
+        if (Objects.nonNull(title)
+            && employeeRows.find(employeeIds[row], other -> titles[other] == title) == NONE_ROW) {
+            titleIds[title.ordinal()].remove(employeeIds[row]);
+        }
+        if (Objects.nonNull(firstNameRows[row])) {
+            firstNames.remove(new NameEntry(firstNameRows[row], row));
+            firstNameRows[row] = null;
+        }
+        if (Objects.nonNull(lastNameRows[row])) {
+            lastNames.remove(new NameEntry(lastNameRows[row], row));
+            lastNameRows[row] = null;
+        }
+    }
+
+    /**
+     * Grows the arrays of the rows.
+     *
+     * @param capacity the new number of the rows
+     */
+    private void growRows(int capacity) {
+
+        employeeIds = Arrays.copyOf(employeeIds, capacity);
+        departmentIds = Arrays.copyOf(departmentIds, capacity);
+        titles = Arrays.copyOf(titles, capacity);
+        firstNameRows = Arrays.copyOf(firstNameRows, capacity);
+        lastNameRows = Arrays.copyOf(lastNameRows, capacity);
+        previousRows = Arrays.copyOf(previousRows, capacity);
+        nextRows = Arrays.copyOf(nextRows, capacity);
+    }
+
+    /**
+     * Calls the supplier while holding the read lock.
+     *
+     * @param supplier the supplier
+     * @param <T>      the type of the result
+     * @return the result
+     */
+    private <T> T readLocked(Supplier<T> supplier) {
+
+        lock.readLock().lock();
+        try {
+            return supplier.get();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Runs the action while holding the write lock.
+     *
+     * @param action the action
+     */
+    private void writeLocked(Runnable action) {
+
+        lock.writeLock().lock();
+        try {
+            action.run();
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * The name in the sorted set of the names.
+     *
+     * @param name the name
+     * @param row  the row
+     */
+    private record NameEntry(String name, int row) {
+    }
+
+    /**
+     * The position of the row in the order of the search.
+     *
+     * @param employeeId   the {@link Employee}'s id
+     * @param departmentId the {@link Department}'s id
+     */
+    private record Position(long employeeId, long departmentId) implements Comparable<Position> {
+
+        /**
+         * {@inheritDoc}
+         */
+        @Override
+        public int compareTo(Position other) {
+
+            final int byEmployee = Long.compare(employeeId, other.employeeId);
+            return byEmployee != 0 ? byEmployee : Long.compare(departmentId, other.departmentId);
+        }
+
+        /**
+         * Checks if this position is placed after the other position.
+         *
+         * @param other the other position
+         * @return true if this position is placed after
+         */
+        boolean isAfter(Position other) {
+            return compareTo(other) > 0;
+        }
+    }
+}
@@ -0,0 +1,79 @@
+package kp.dataset;
+
+import java.util.BitSet;
+import java.util.NavigableMap;
+import java.util.Objects;
+import java.util.TreeMap;
+import java.util.stream.LongStream;
+
+/**
+ * The compressed bitmap of the ids.
+ * <p>
+ * The ids are split into the chunks of {@value #CHUNK_IDS} consecutive ids. Only the chunk
+ * holding any id keeps its {@link BitSet}, so the dense ranges take one bit per id
+ * and the sparse ids take the chunk each.
+ * </p>
+ * <p>
+ * It is not thread-safe. The owner guards it.
+ * </p>
+ */
+final class IdBitmap {
+
+    private static final int CHUNK_SHIFT = 10;
+    private static final int CHUNK_IDS = 1 << CHUNK_SHIFT;
+    private final NavigableMap<Long, BitSet> chunks = new TreeMap<>();
+
+    /**
+     * Adds the id.
+     *
+     * @param id the id
+     */
+    void add(long id) {
+
+        chunks.computeIfAbsent(id >> CHUNK_SHIFT, _ -> new BitSet(CHUNK_IDS)).set(bitOf(id));
+    }
+
+    /**
+     * Removes the id.
+     *
+     * @param id the id
+     */
+    void remove(long id) {
+
+        final BitSet chunk = chunks.get(id >> CHUNK_SHIFT);
+        if (Objects.isNull(chunk)) {
+            return;
+        }
+        chunk.clear(bitOf(id));
+        if (chunk.isEmpty()) {
+            chunks.remove(id >> CHUNK_SHIFT);
+        }
+    }
+
+    /**
+     * Streams the ids in the ascending order.
+     * <p>
+     * The stream is lazy, so the bitmap must stay unchanged until the stream is consumed.
+     * </p>
+     *
+     * @param fromId the lowest streamed id
+     * @return the stream of ids
+     */
+    LongStream stream(long fromId) {
+
+        return chunks.tailMap(fromId >> CHUNK_SHIFT, true).entrySet().stream()
+                .flatMapToLong(entry -> entry.getValue().stream()
+                        .mapToLong(bit -> (entry.getKey() << CHUNK_SHIFT) + bit))
+                .filter(id -> id >= fromId);
+    }
+
+    /**
+     * Gets the bit of the id in its chunk.
+     *
+     * @param id the id
+     * @return the bit
+     */
+    private static int bitOf(long id) {
+        return (int) (id & (CHUNK_IDS - 1));
+    }
+}
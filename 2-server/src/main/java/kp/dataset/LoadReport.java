@@ -0,0 +1,31 @@
+package kp.dataset;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * The report of the dataset loading.
+ *
+ * @param departments  the number of loaded departments
+ * @param employees    the number of loaded employees
+ * @param elapsedNanos the loading time in nanoseconds
+ */
+public record LoadReport(long departments, long employees, long elapsedNanos) {
+
+    /**
+     * Gets the loading time in milliseconds.
+     *
+     * @return the loading time in milliseconds
+     */
+    public long elapsedMillis() {
+        return TimeUnit.NANOSECONDS.toMillis(elapsedNanos);
+    }
+
+    /**
+     * Gets the number of loaded records (departments and employees) per second.
+     *
+     * @return the number of records per second
+     */
+    public long recordsPerSecond() {
+        return elapsedNanos == 0 ? 0 : (departments + employees) * TimeUnit.SECONDS.toNanos(1) / elapsedNanos;
+    }
+}
@@ -0,0 +1,28 @@
+package kp.dataset;
+
+/**
+ * The listener of the {@link DatasetMutation}s.
+ * <p>
+ * The repository calls it while holding the lock of the changed department,
+ * so the mutations of the same department arrive in order. The listener must be fast,
+ * and it must neither block nor throw: the mutation is already published, and the listener
+ * failing in the middle of the write would leave the repository and the other listeners behind.
+ * </p>
+ */
+@FunctionalInterface
+public interface MutationListener {
+
+    /**
+     * The listener ignoring all mutations.
+     */
+    MutationListener NONE = (_, _) -> {
+    };
+
+    /**
+     * Receives the {@link DatasetMutation}.
+     *
+     * @param version  the version of the {@link DatasetSnapshot} which was changed
+     * @param mutation the {@link DatasetMutation}
+     */
+    void onMutation(long version, DatasetMutation mutation);
+}
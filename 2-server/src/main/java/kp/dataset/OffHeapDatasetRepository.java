@@ -0,0 +1,1179 @@
+package kp.dataset;
+
+import kp.company.model.BatchItemStatus;
+import kp.company.model.Department;
+import kp.company.model.DepartmentBatchOperation;
+import kp.company.model.DepartmentMergeResult;
+import kp.company.model.Employee;
+import kp.company.model.EmployeeBatchOperation;
+import kp.company.model.Title;
+import kp.dataset.DatasetMutation.DepartmentRemoved;
+import kp.dataset.DatasetMutation.DepartmentRenamed;
+import kp.dataset.DatasetMutation.DepartmentSaved;
+import kp.dataset.DatasetMutation.EmployeeRemoved;
+import kp.dataset.DatasetMutation.EmployeeSaved;
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.lang.foreign.MemoryLayout;
+import java.lang.foreign.MemorySegment;
+import java.lang.foreign.StructLayout;
+import java.lang.foreign.ValueLayout;
+import java.lang.invoke.MethodHandles;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentNavigableMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.StampedLock;
+import java.util.function.Supplier;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+import static java.lang.foreign.MemoryLayout.PathElement.groupElement;
+
+/**
+ * The thread-safe {@link DatasetRepository} keeping the {@link Department}s and the {@link Employee}s
+ * off the heap, in the fixed-layout records of the {@link MemorySegment}s.
+ * <p>
+ * Every {@link Department} and every {@link Employee} is one record in its {@link OffHeapRecords} slab.
+ * The {@link Employee} records of the {@link Department} are doubly linked in the list order.
+ * The names are kept in the fixed fields of {@value #NAME_BYTES} UTF-8 bytes, which hold the names
+ * allowed by the API with the room to spare. The longer name is rejected with the {@link IllegalArgumentException}
+ * before anything is changed.
+ * The records are found by the ids in the {@link OffHeapTable}s. Only the order of the {@link Department}s' ids
+ * is kept on the heap, so the garbage collector neither traces nor copies the {@link Employee}s.
+ * </p>
+ * <p>
+ * The records are changed in place by the writers holding the stripe lock of the {@link Department}.
+ * The readers use the optimistic read of the stripe {@link StampedLock} and fall back to the read lock
+ * when the {@link Department} was changed meanwhile. The reads materialize the objects the same way
+ * as with the {@link ColumnarDatasetRepository}.
+ * </p>
+ * <p>
+ * When the directory is set, the slabs are mapped to the files of the generation of the repository.
+ * The repository closed at the shutdown leaves its files marked as clean. They are reopened at the next startup
+ * without loading the dataset: only the indexes are rebuilt by one scan of the records.
+ * </p>
+ */
+public class OffHeapDatasetRepository implements DatasetRepository {
+
+    private static final Log logger = LogFactory.getLog(MethodHandles.lookup().lookupClass().getName());
+    private static final int NAME_BYTES = 30;
+    private static final int NONE = OffHeapTable.NONE;
+    private static final int STRIPES_PER_PROCESSOR = 4;
+    private static final long MAP_ENTRY_BYTES = 24 + 16 + 16 + 32 + 16;
+    private static final byte NO_TITLE = -1;
+    private static final Title[] TITLES = Title.values();
+    private static final byte EMPLOYEES_PRESENT = 1;
+    private static final byte DUPLICATES_PRESENT = 2;
+    private static final byte ID_PRESENT = 1;
+    private static final byte INDEXED = 2;
+    private static final StructLayout DEPARTMENT = OffHeapRecords.recordLayout(
+            ValueLayout.JAVA_LONG.withName("id"),
+            ValueLayout.JAVA_INT.withName("head"),
+            ValueLayout.JAVA_INT.withName("tail"),
+            ValueLayout.JAVA_INT.withName("size"),
+            ValueLayout.JAVA_BYTE.withName("flags"),
+            MemoryLayout.sequenceLayout(NAME_BYTES + 1, ValueLayout.JAVA_BYTE).withName("name"),
+            MemoryLayout.paddingLayout(4));
+    private static final long DEP_ID = DEPARTMENT.byteOffset(groupElement("id"));
+    private static final long DEP_HEAD = DEPARTMENT.byteOffset(groupElement("head"));
+    private static final long DEP_TAIL = DEPARTMENT.byteOffset(groupElement("tail"));
+    private static final long DEP_SIZE = DEPARTMENT.byteOffset(groupElement("size"));
+    private static final long DEP_FLAGS = DEPARTMENT.byteOffset(groupElement("flags"));
+    private static final long DEP_NAME = DEPARTMENT.byteOffset(groupElement("name"));
+    private static final StructLayout EMPLOYEE = OffHeapRecords.recordLayout(
+            ValueLayout.JAVA_LONG.withName("id"),
+            ValueLayout.JAVA_INT.withName("department"),
+            ValueLayout.JAVA_INT.withName("previous"),
+            ValueLayout.JAVA_INT.withName("next"),
+            ValueLayout.JAVA_BYTE.withName("title"),
+            ValueLayout.JAVA_BYTE.withName("flags"),
+            MemoryLayout.sequenceLayout(NAME_BYTES + 1, ValueLayout.JAVA_BYTE).withName("firstName"),
+            MemoryLayout.sequenceLayout(NAME_BYTES + 1, ValueLayout.JAVA_BYTE).withName("lastName"),
+            MemoryLayout.paddingLayout(4));
+    private static final long EMP_ID = EMPLOYEE.byteOffset(groupElement("id"));
+    private static final long EMP_DEPARTMENT = EMPLOYEE.byteOffset(groupElement("department"));
+    private static final long EMP_PREVIOUS = EMPLOYEE.byteOffset(groupElement("previous"));
+    private static final long EMP_NEXT = EMPLOYEE.byteOffset(groupElement("next"));
+    private static final long EMP_TITLE = EMPLOYEE.byteOffset(groupElement("title"));
+    private static final long EMP_FLAGS = EMPLOYEE.byteOffset(groupElement("flags"));
+    private static final long EMP_FIRST_NAME = EMPLOYEE.byteOffset(groupElement("firstName"));
+    private static final long EMP_LAST_NAME = EMPLOYEE.byteOffset(groupElement("lastName"));
+    private static final String FILE_FORMAT = "dataset-%s-%s.bin";
+    private static final String DEPARTMENTS = "departments";
+    private static final String EMPLOYEES = "employees";
+    private static final Pattern FILE_PATTERN = Pattern.compile("dataset-(\\d+)-(\\d+)-(departments|employees)\\.bin");
+    private static volatile Path directory;
+    private final OffHeapRecords departments;
+    private final OffHeapRecords employees;
+    private final OffHeapTable departmentTable = new OffHeapTable();
+    private final OffHeapTable employeeTable = new OffHeapTable();
+    private final ConcurrentNavigableMap<Long, Integer> departmentOrder = new ConcurrentSkipListMap<>();
+    private final Map<Long, Long> departmentVersionMap = new ConcurrentHashMap<>();
+    private final AtomicLong modificationCount = new AtomicLong();
+    private final AtomicLong employeeCount = new AtomicLong();
+    private final StampedLock[] stripes;
+    private final long version;
+    private final MutationListener listener;
+    private volatile boolean closed;
+
+    /**
+     * The constructor of the repository in the native memory without the {@link MutationListener}.
+     */
+    public OffHeapDatasetRepository() {
+        this(0, MutationListener.NONE);
+    }
+
+    /**
+     * The constructor of the repository in the native memory.
+     *
+     * @param version  the version of the {@link DatasetSnapshot} reported with the mutations
+     * @param listener the {@link MutationListener}
+     */
+    public OffHeapDatasetRepository(long version, MutationListener listener) {
+        this(version, listener, new OffHeapRecords(DEPARTMENT), new OffHeapRecords(EMPLOYEE));
+    }
+
+    /**
+     * The constructor.
+     *
+     * @param version     the version of the {@link DatasetSnapshot} reported with the mutations
+     * @param listener    the {@link MutationListener}
+     * @param departments the slab of the {@link Department} records
+     * @param employees   the slab of the {@link Employee} records
+     */
+    private OffHeapDatasetRepository(long version, MutationListener listener, OffHeapRecords departments,
+                                     OffHeapRecords employees) {
+
+        this.version = version;
+        this.listener = listener;
+        this.departments = departments;
+        this.employees = employees;
+        final int stripeCount = Integer.highestOneBit(
+                Runtime.getRuntime().availableProcessors() * STRIPES_PER_PROCESSOR - 1) << 1;
+        stripes = Stream.generate(StampedLock::new).limit(stripeCount).toArray(StampedLock[]::new);
+    }
+
+    /**
+     * Sets the directory of the mapped files.
+     *
+     * @param mappedDirectory the directory, or null to keep the repositories in the native memory
+     */
+    public static void setDirectory(Path mappedDirectory) {
+        directory = mappedDirectory;
+    }
+
+    /**
+     * Creates the empty repository, mapped to the new files when the directory is set.
+     * <p>
+     * The files of the other generations are deleted. The file still mapped by the previous repository
+     * may fail to be deleted on some systems, but it is not marked as clean, so it is never reopened.
+     * </p>
+     *
+     * @param version  the version of the {@link DatasetSnapshot} reported with the mutations
+     * @param listener the {@link MutationListener}
+     * @return the repository
+     */
+    static OffHeapDatasetRepository create(long version, MutationListener listener) {
+
+        final Path mappedDirectory = directory;
+        if (Objects.isNull(mappedDirectory)) {
+            return new OffHeapDatasetRepository(version, listener);
+        }
+        final String generation = "%d-%d".formatted(version, System.currentTimeMillis());
+        try {
+            Files.createDirectories(mappedDirectory);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        deleteOtherGenerations(mappedDirectory, generation);
+        return new OffHeapDatasetRepository(version, listener,
+                new OffHeapRecords(DEPARTMENT, fileOf(mappedDirectory, generation, DEPARTMENTS), version),
+                new OffHeapRecords(EMPLOYEE, fileOf(mappedDirectory, generation, EMPLOYEES), version));
+    }
+
+    /**
+     * Reopens the latest generation of the files when its repository was closed cleanly.
+     *
+     * @param listener the {@link MutationListener}
+     * @return the {@link Optional} with the {@link DatasetSnapshot}, empty if there is nothing to reopen
+     */
+    static Optional<DatasetSnapshot> reopen(MutationListener listener) {
+
+        final Path mappedDirectory = directory;
+        if (Objects.isNull(mappedDirectory) || !Files.isDirectory(mappedDirectory)) {
+            return Optional.empty();
+        }
+        final Optional<Matcher> latestOpt;
+        try (Stream<Path> files = Files.list(mappedDirectory)) {
+            latestOpt = files.map(file -> FILE_PATTERN.matcher(file.getFileName().toString()))
+                    .filter(Matcher::matches)
+                    .filter(matcher -> DEPARTMENTS.equals(matcher.group(3)))
+                    .max(Comparator.<Matcher>comparingLong(matcher -> Long.parseLong(matcher.group(1)))
+                            .thenComparingLong(matcher -> Long.parseLong(matcher.group(2))));
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        if (latestOpt.isEmpty()) {
+            return Optional.empty();
+        }
+        final String generation = "%s-%s".formatted(latestOpt.get().group(1), latestOpt.get().group(2));
+        final Path departmentsFile = fileOf(mappedDirectory, generation, DEPARTMENTS);
+        final Path employeesFile = fileOf(mappedDirectory, generation, EMPLOYEES);
+        final long fileVersion = OffHeapRecords.readCleanVersion(departmentsFile);
+        if (fileVersion < 0 || OffHeapRecords.readCleanVersion(employeesFile) != fileVersion) {
+            logger.warn("reopen(): the off-heap dataset files were not closed cleanly, generation[%s]"
+                    .formatted(generation));
+            return Optional.empty();
+        }
+        final long start = System.nanoTime();
+        final Optional<OffHeapRecords> departmentsOpt = OffHeapRecords.reopen(DEPARTMENT, departmentsFile);
+        final Optional<OffHeapRecords> employeesOpt = OffHeapRecords.reopen(EMPLOYEE, employeesFile);
+        if (departmentsOpt.isEmpty() || employeesOpt.isEmpty()) {
+            return Optional.empty();
+        }
+        final OffHeapDatasetRepository reopened = new OffHeapDatasetRepository(fileVersion, listener,
+                departmentsOpt.get(), employeesOpt.get());
+        reopened.rebuildIndexes();
+        deleteOtherGenerations(mappedDirectory, generation);
+        logger.info("reopen(): version[%d], departments[%d], employees[%d], time[%d ms]".formatted(fileVersion,
+                reopened.countDepartments(), reopened.countEmployees(), (System.nanoTime() - start) / 1_000_000));
+        return Optional.of(new DatasetSnapshot(fileVersion, reopened));
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public Optional<Department> putDepartment(Department department) {
+        return withLock(department.getId(), () -> putDepartmentLocked(department.getId(), department));
+    }
+
+    /**
+     * {@inheritDoc}
+     * <p>
+     * The records are written while holding the stripe lock, because the slabs are shared
+     * by all {@link Department}s.
+     * </p>
+     */
+    @Override
+    public void loadDepartment(Department department) {
+        withLock(department.getId(), () -> createDepartmentLocked(department.getId(), department.getName(),
+                department.getEmployees()));
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public DepartmentMergeResult mergeDepartment(long id, Department department) {
+        return withLock(id, () -> mergeDepartmentLocked(id, department));
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public Optional<Department> removeDepartment(long id) {
+        return withLock(id, () -> removeDepartmentLocked(id));
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public List<BatchItemStatus> applyDepartmentBatch(List<DepartmentBatchOperation> operations) {
+
+        final BatchItemStatus[] statuses = new BatchItemStatus[operations.size()];
+        final Map<StampedLock, List<Integer>> indexesByStripe = new LinkedHashMap<>();
+        for (int i = 0; i < operations.size(); i++) {
+            final Optional<Long> idOpt = ConcurrentDatasetRepository.departmentIdOf(operations.get(i));
+            if (idOpt.isPresent()) {
+                indexesByStripe.computeIfAbsent(stripeOf(idOpt.get()), _ -> new ArrayList<>()).add(i);
+            } else {
+                statuses[i] = BatchItemStatus.INVALID;
+            }
+        }
+        indexesByStripe.forEach((stripe, indexes) -> {
+            final long stamp = stripe.writeLock();
+            try {
+                checkOpen();
+                indexes.forEach(i -> statuses[i] = applyDepartmentOperationLocked(operations.get(i)));
+            } finally {
+                stripe.unlockWrite(stamp);
+            }
+        });
+        return List.of(statuses);
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public Optional<Department> getDepartment(long id) {
+
+        return read(id, () -> {
+            final int slot = departmentSlotOf(id);
+            return slot == NONE ? Optional.empty() : Optional.of(departmentAt(slot));
+        });
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public List<Department> getDepartments() {
+        return streamDepartments(Long.MIN_VALUE).toList();
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public Stream<Department> streamDepartments(long afterDepartmentId) {
+
+        return departmentOrder.tailMap(afterDepartmentId, false).keySet().stream()
+                .map(this::getDepartment).flatMap(Optional::stream);
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public Optional<Employee> putEmployee(long departmentId, Employee employee) {
+
+        return withLock(departmentId, () -> {
+            final int departmentSlot = departmentSlotOf(departmentId);
+            if (departmentSlot == NONE || employeeSlotOf(departmentSlot, employee.getId()) != NONE) {
+                return Optional.empty();
+            }
+            appendEmployeeLocked(departmentSlot, EncodedEmployee.of(employee));
+            publish(departmentId, new EmployeeSaved(departmentId, employee));
+            return Optional.of(employee);
+        });
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public Optional<Employee> mergeEmployee(long departmentId, long employeeId, Employee employee) {
+
+        return withLock(departmentId, () -> {
+            final int departmentSlot = departmentSlotOf(departmentId);
+            if (departmentSlot == NONE) {
+                return Optional.empty();
+            }
+            final int slot = employeeSlotOf(departmentSlot, employeeId);
+            final Employee indexedEmp;
+            if (slot != NONE) {
+                indexedEmp = ConcurrentDatasetRepository.mergeOf(employeeAt(slot), employee);
+                writeEmployeeLocked(slot, EncodedEmployee.of(indexedEmp));
+            } else {
+                indexedEmp = employee.id(employeeId);
+                appendEmployeeLocked(departmentSlot, EncodedEmployee.of(indexedEmp));
+            }
+            publish(departmentId, new EmployeeSaved(departmentId, indexedEmp));
+            return Optional.of(employee);
+        });
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public Optional<Employee> removeEmployee(long departmentId, long employeeId) {
+
+        return withLock(departmentId, () -> {
+            final int departmentSlot = departmentSlotOf(departmentId);
+            if (departmentSlot == NONE) {
+                return Optional.empty();
+            }
+            final int slot = employeeSlotOf(departmentSlot, employeeId);
+            if (slot == NONE) {
+                return Optional.empty();
+            }
+            final Employee existingEmp = employeeAt(slot);
+            removeEmployeeLocked(departmentSlot, slot);
+            publish(departmentId, new EmployeeRemoved(departmentId, employeeId));
+            return Optional.of(existingEmp);
+        });
+    }
+
+    /**
+     * {@inheritDoc}
+     * <p>
+     * The {@link Employee}s of the {@link Department} are materialized, changed and written back.
+     * </p>
+     */
+    @Override
+    public Optional<List<BatchItemStatus>> applyEmployeeBatch(long departmentId,
+                                                              List<EmployeeBatchOperation> operations) {
+
+        return withLock(departmentId, () -> {
+            final int departmentSlot = departmentSlotOf(departmentId);
+            if (departmentSlot == NONE) {
+                return Optional.empty();
+            }
+            final Map<Object, Employee> workingMap = new LinkedHashMap<>();
+            Optional.ofNullable(employeesAt(departmentSlot)).orElse(List.of()).forEach(emp -> workingMap.put(
+                    Objects.nonNull(emp.getId()) ? emp.getId() : new Object(), emp));
+            final Map<Long, Optional<Employee>> changedMap = new LinkedHashMap<>();
+            final List<BatchItemStatus> statuses = operations.stream().map(operation ->
+                    ConcurrentDatasetRepository.applyEmployeeOperation(operation, workingMap, changedMap)).toList();
+            if (changedMap.isEmpty()) {
+                return Optional.of(statuses);
+            }
+            final List<EncodedEmployee> encodedEmployees = workingMap.values().stream()
+                    .map(EncodedEmployee::of).toList();
+            removeEmployeesLocked(departmentSlot);
+            encodedEmployees.forEach(encoded -> appendEmployeeLocked(departmentSlot, encoded));
+            departments.setByte(departmentSlot, DEP_FLAGS,
+                    (byte) (departments.getByte(departmentSlot, DEP_FLAGS) | EMPLOYEES_PRESENT));
+            changedMap.forEach((employeeId, employeeOpt) -> publish(departmentId, employeeOpt
+                    .<DatasetMutation>map(emp -> new EmployeeSaved(departmentId, emp))
+                    .orElseGet(() -> new EmployeeRemoved(departmentId, employeeId))));
+            return Optional.of(statuses);
+        });
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public Optional<Employee> getEmployee(long departmentId, long employeeId) {
+
+        return read(departmentId, () -> {
+            final int departmentSlot = departmentSlotOf(departmentId);
+            if (departmentSlot == NONE) {
+                return Optional.empty();
+            }
+            final int slot = employeeSlotOf(departmentSlot, employeeId);
+            return slot == NONE ? Optional.empty() : Optional.of(employeeAt(slot));
+        });
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public Optional<Employee> getEmployee(long employeeId) {
+
+        return getDepartmentIds(employeeId).stream().min(Long::compare)
+                .flatMap(departmentId -> getEmployee(departmentId, employeeId));
+    }
+
+    /**
+     * {@inheritDoc}
+     * <p>
+     * The {@link Employee} record is removed from the table before it is freed,
+     * so the records are read while the table is unchanged.
+     * </p>
+     */
+    @Override
+    public Set<Long> getDepartmentIds(long employeeId) {
+
+        return Arrays.stream(employeeTable.mapValues(employeeId,
+                        slot -> departments.getLong(employees.getInt(slot, EMP_DEPARTMENT), DEP_ID)))
+                .boxed().collect(Collectors.toUnmodifiableSet());
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public Optional<List<Employee>> getEmployees(long departmentId) {
+
+        return read(departmentId, () -> {
+            final int departmentSlot = departmentSlotOf(departmentId);
+            return departmentSlot == NONE ? Optional.empty() : Optional.ofNullable(employeesAt(departmentSlot));
+        });
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public List<Employee> getEmployees() {
+
+        return departmentOrder.keySet().stream().map(this::getEmployees).flatMap(Optional::stream)
+                .flatMap(List::stream).toList();
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public long countDepartments() {
+        return departmentOrder.size();
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public long countEmployees() {
+        return employeeCount.get();
+    }
+
+    /**
+     * {@inheritDoc}
+     * <p>
+     * The off-heap slabs and tables are counted with their whole capacity.
+     * On the heap only the entries of the {@link Department}s' order remain.
+     * </p>
+     */
+    @Override
+    public long estimateFootprint() {
+
+        return MAP_ENTRY_BYTES * departmentOrder.size() + departments.byteSize() + employees.byteSize()
+               + departmentTable.byteSize() + employeeTable.byteSize();
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public long getModificationCount() {
+        return modificationCount.get();
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public long getDepartmentVersion(long departmentId) {
+        return departmentVersionMap.getOrDefault(departmentId, 0L);
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public void clear() {
+
+        departmentOrder.keySet().forEach(id -> withLock(id, () -> {
+            final int departmentSlot = departmentSlotOf(id);
+            if (departmentSlot != NONE) {
+                removeDepartmentRecordLocked(id, departmentSlot);
+            }
+            return null;
+        }));
+        final long count = modificationCount.incrementAndGet();
+        departmentVersionMap.replaceAll((_, _) -> count);
+    }
+
+    /**
+     * {@inheritDoc}
+     * <p>
+     * The mapped records are written to the storage device and the files are marked as clean,
+     * so the next startup reopens them. The later writes fail.
+     * </p>
+     */
+    @Override
+    public void close() {
+
+        final long[] stamps = Arrays.stream(stripes).mapToLong(StampedLock::writeLock).toArray();
+        try {
+            if (closed) {
+                return;
+            }
+            closed = true;
+            departments.close();
+            employees.close();
+        } finally {
+            for (int i = 0; i < stripes.length; i++) {
+                stripes[i].unlockWrite(stamps[i]);
+            }
+        }
+    }
+
+    /**
+     * Advances the versions and reports the {@link DatasetMutation} to the {@link MutationListener}.
+     * <p>
+     * It must be called while holding the stripe lock of the {@link Department},
+     * after the changed records are written.
+     * </p>
+     *
+     * @param departmentId the {@link Department}'s id
+     * @param mutation     the {@link DatasetMutation}
+     */
+    private void publish(long departmentId, DatasetMutation mutation) {
+
+        departmentVersionMap.put(departmentId, modificationCount.incrementAndGet());
+        listener.onMutation(version, mutation);
+    }
+
+    /**
+     * Creates the {@link Department}.
+     * <p>
+     * It must be called while holding the stripe lock of the {@link Department}.
+     * </p>
+     *
+     * @param id         the {@link Department}'s id
+     * @param department the {@link Department}
+     * @return the {@link Optional} with the {@link Department}, empty if the id is already taken
+     */
+    private Optional<Department> putDepartmentLocked(long id, Department department) {
+
+        if (departmentSlotOf(id) != NONE) {
+            return Optional.empty();
+        }
+        final int slot = createDepartmentLocked(id, department.getName(),
+                ConcurrentDatasetRepository.distinctCopyOf(department.getEmployees()));
+        final Department createdDep = departmentAt(slot);
+        publish(id, new DepartmentSaved(createdDep));
+        return Optional.of(createdDep);
+    }
+
+    /**
+     * Writes the records of the new {@link Department}.
+     * <p>
+     * It must be called while holding the stripe lock of the {@link Department}.
+     * All names are encoded before the first record is written.
+     * </p>
+     *
+     * @param id             the {@link Department}'s id
+     * @param name           the {@link Department}'s name
+     * @param departmentEmps the list of {@link Employee}s, null when missing
+     * @return the slot of the {@link Department} record
+     */
+    private int createDepartmentLocked(long id, String name, List<Employee> departmentEmps) {
+
+        final byte[] nameBytes = encode(name);
+        final List<EncodedEmployee> encodedEmployees = Optional.ofNullable(departmentEmps)
+                .map(list -> list.stream().map(EncodedEmployee::of).toList()).orElse(List.of());
+        final int slot = departments.allocate();
+        departments.setLong(slot, DEP_ID, id);
+        departments.setInt(slot, DEP_HEAD, NONE);
+        departments.setInt(slot, DEP_TAIL, NONE);
+        departments.setByte(slot, DEP_FLAGS, Objects.nonNull(departmentEmps) ? EMPLOYEES_PRESENT : 0);
+        departments.setString(slot, DEP_NAME, nameBytes);
+        encodedEmployees.forEach(encoded -> appendEmployeeLocked(slot, encoded));
+        departmentTable.add(id, slot);
+        departmentOrder.put(id, slot);
+        return slot;
+    }
+
+    /**
+     * Merges the patch into the {@link Department} or creates it when it does not exist.
+     * <p>
+     * It must be called while holding the stripe lock of the {@link Department}.
+     * The {@link Employee}s of the patch are found in the {@link Employee}s table,
+     * and the changed {@link Employee}s are rewritten in place.
+     * </p>
+     *
+     * @param id         the {@link Department}'s id
+     * @param department the merge patch {@link Department}
+     * @return the {@link DepartmentMergeResult}
+     */
+    private DepartmentMergeResult mergeDepartmentLocked(long id, Department department) {
+
+        final int departmentSlot = departmentSlotOf(id);
+        if (departmentSlot == NONE) {
+            final DepartmentMerge merge = DepartmentMerge.ofCreated(department);
+            putDepartmentLocked(id, merge.toCreatedDepartment(id, department));
+            return merge.toCreatedResult(id);
+        }
+        final boolean employeesPresent = (departments.getByte(departmentSlot, DEP_FLAGS) & EMPLOYEES_PRESENT) != 0;
+        final DepartmentMerge merge = DepartmentMerge.of(departments.getString(departmentSlot, DEP_NAME),
+                employeesPresent, department, employeeId -> {
+                    final int slot = employeeSlotOf(departmentSlot, employeeId);
+                    return slot != NONE ? employeeAt(slot) : null;
+                });
+        final Map<Integer, EncodedEmployee> encodedMap = new LinkedHashMap<>();
+        merge.mergedEmployees().forEach((employeeId, emp) ->
+                encodedMap.put(employeeSlotOf(departmentSlot, employeeId), EncodedEmployee.of(emp)));
+        final byte[] nameBytes = merge.renamed() ? encode(merge.name()) : null;
+        if (Objects.nonNull(nameBytes)) {
+            departments.setString(departmentSlot, DEP_NAME, nameBytes);
+        }
+        encodedMap.forEach(this::writeEmployeeLocked);
+        if (merge.renamed()) {
+            publish(id, new DepartmentRenamed(id, merge.name()));
+        }
+        merge.mergedEmployees().values().forEach(emp -> publish(id, new EmployeeSaved(id, emp)));
+        return merge.toResult(id);
+    }
+
+    /**
+     * Removes the {@link Department}.
+     * <p>
+     * It must be called while holding the stripe lock of the {@link Department}.
+     * </p>
+     *
+     * @param id the {@link Department}'s id
+     * @return the {@link Optional} with the removed {@link Department}
+     */
+    private Optional<Department> removeDepartmentLocked(long id) {
+
+        final int departmentSlot = departmentSlotOf(id);
+        if (departmentSlot == NONE) {
+            return Optional.empty();
+        }
+        final Department removed = departmentAt(departmentSlot);
+        removeDepartmentRecordLocked(id, departmentSlot);
+        publish(id, new DepartmentRemoved(id));
+        return Optional.of(removed);
+    }
+
+    /**
+     * Frees the records of the {@link Department} after removing them from the indexes.
+     * <p>
+     * It must be called while holding the stripe lock of the {@link Department}.
+     * </p>
+     *
+     * @param id             the {@link Department}'s id
+     * @param departmentSlot the slot of the {@link Department} record
+     */
+    private void removeDepartmentRecordLocked(long id, int departmentSlot) {
+
+        removeEmployeesLocked(departmentSlot);
+        departmentOrder.remove(id);
+        departmentTable.remove(id, departmentSlot);
+        departments.free(departmentSlot);
+    }
+
+    /**
+     * Applies the operation on the {@link Department} from the batch.
+     * <p>
+     * It must be called while holding the stripe lock of the {@link Department}.
+     * </p>
+     *
+     * @param operation the {@link DepartmentBatchOperation} with the {@link Department}'s id
+     * @return the {@link BatchItemStatus}
+     */
+    private BatchItemStatus applyDepartmentOperationLocked(DepartmentBatchOperation operation) {
+
+        final long id = ConcurrentDatasetRepository.departmentIdOf(operation).orElseThrow();
+        final Department department = operation.getDepartment();
+        return switch (operation.getOperation()) {
+            case CREATE -> Objects.isNull(department) ? BatchItemStatus.INVALID
+                    : putDepartmentLocked(id, department).map(_ -> BatchItemStatus.CREATED)
+                    .orElse(BatchItemStatus.CONFLICT);
+            case UPDATE -> {
+                if (Objects.isNull(department)) {
+                    yield BatchItemStatus.INVALID;
+                }
+                final boolean existing = departmentSlotOf(id) != NONE;
+                mergeDepartmentLocked(id, department);
+                yield existing ? BatchItemStatus.UPDATED : BatchItemStatus.CREATED;
+            }
+            case DELETE -> removeDepartmentLocked(id).map(_ -> BatchItemStatus.DELETED)
+                    .orElse(BatchItemStatus.NOT_FOUND);
+        };
+    }
+
+    /**
+     * Appends the {@link Employee} record to the list of the {@link Department} and indexes it.
+     * <p>
+     * It must be called while holding the stripe lock of the {@link Department}.
+     * The appended {@link Employee} hides the earlier one with the same id, as the last occurrence wins.
+     * </p>
+     *
+     * @param departmentSlot the slot of the {@link Department} record
+     * @param encoded        the {@link EncodedEmployee}
+     */
+    private void appendEmployeeLocked(int departmentSlot, EncodedEmployee encoded) {
+
+        final int slot = employees.allocate();
+        final int tail = departments.getInt(departmentSlot, DEP_TAIL);
+        employees.setInt(slot, EMP_DEPARTMENT, departmentSlot);
+        employees.setInt(slot, EMP_PREVIOUS, tail);
+        employees.setInt(slot, EMP_NEXT, NONE);
+        writeEmployeeLocked(slot, encoded);
+        if (tail == NONE) {
+            departments.setInt(departmentSlot, DEP_HEAD, slot);
+        } else {
+            employees.setInt(tail, EMP_NEXT, slot);
+        }
+        departments.setInt(departmentSlot, DEP_TAIL, slot);
+        departments.setInt(departmentSlot, DEP_SIZE, departments.getInt(departmentSlot, DEP_SIZE) + 1);
+        if (Objects.nonNull(encoded.id())) {
+            indexEmployeeLocked(departmentSlot, slot, encoded.id());
+        }
+    }
+
+    /**
+     * Writes the fields of the {@link Employee} record, keeping its links and its index flag.
+     * <p>
+     * It must be called while holding the stripe lock of the {@link Department}.
+     * </p>
+     *
+     * @param slot    the slot of the {@link Employee} record
+     * @param encoded the {@link EncodedEmployee}
+     */
+    private void writeEmployeeLocked(int slot, EncodedEmployee encoded) {
+
+        final byte indexed = (byte) (employees.getByte(slot, EMP_FLAGS) & INDEXED);
+        employees.setLong(slot, EMP_ID, Objects.nonNull(encoded.id()) ? encoded.id() : 0);
+        employees.setByte(slot, EMP_FLAGS, (byte) (indexed | (Objects.nonNull(encoded.id()) ? ID_PRESENT : 0)));
+        employees.setByte(slot, EMP_TITLE, encoded.title());
+        employees.setString(slot, EMP_FIRST_NAME, encoded.firstName());
+        employees.setString(slot, EMP_LAST_NAME, encoded.lastName());
+    }
+
+    /**
+     * Indexes the {@link Employee} record, replacing the indexed record with the same id in the {@link Department}.
+     * <p>
+     * It must be called while holding the stripe lock of the {@link Department}.
+     * </p>
+     *
+     * @param departmentSlot the slot of the {@link Department} record
+     * @param slot           the slot of the {@link Employee} record
+     * @param employeeId     the {@link Employee}'s id
+     */
+    private void indexEmployeeLocked(int departmentSlot, int slot, long employeeId) {
+
+        final int indexedSlot = employeeSlotOf(departmentSlot, employeeId);
+        if (indexedSlot == NONE) {
+            employeeTable.add(employeeId, slot);
+            employeeCount.incrementAndGet();
+        } else {
+            employeeTable.replace(employeeId, indexedSlot, slot);
+            employees.setByte(indexedSlot, EMP_FLAGS, (byte) (employees.getByte(indexedSlot, EMP_FLAGS) & ~INDEXED));
+            departments.setByte(departmentSlot, DEP_FLAGS,
+                    (byte) (departments.getByte(departmentSlot, DEP_FLAGS) | DUPLICATES_PRESENT));
+        }
+        employees.setByte(slot, EMP_FLAGS, (byte) (employees.getByte(slot, EMP_FLAGS) | INDEXED));
+    }
+
+    /**
+     * Unlinks and frees the {@link Employee} record.
+     * <p>
+     * It must be called while holding the stripe lock of the {@link Department}.
+     * When the {@link Department} ever had the duplicated ids, the last remaining {@link Employee}
+     * with the same id is indexed instead.
+     * </p>
+     *
+     * @param departmentSlot the slot of the {@link Department} record
+     * @param slot           the slot of the {@link Employee} record
+     */
+    private void removeEmployeeLocked(int departmentSlot, int slot) {
+
+        final int previous = employees.getInt(slot, EMP_PREVIOUS);
+        final int next = employees.getInt(slot, EMP_NEXT);
+        if (previous == NONE) {
+            departments.setInt(departmentSlot, DEP_HEAD, next);
+        } else {
+            employees.setInt(previous, EMP_NEXT, next);
+        }
+        if (next == NONE) {
+            departments.setInt(departmentSlot, DEP_TAIL, previous);
+        } else {
+            employees.setInt(next, EMP_PREVIOUS, previous);
+        }
+        departments.setInt(departmentSlot, DEP_SIZE, departments.getInt(departmentSlot, DEP_SIZE) - 1);
+        final boolean indexed = (employees.getByte(slot, EMP_FLAGS) & INDEXED) != 0;
+        final long employeeId = employees.getLong(slot, EMP_ID);
+        if (indexed) {
+            employeeTable.remove(employeeId, slot);
+            employeeCount.decrementAndGet();
+        }
+        employees.free(slot);
+        if (!indexed || (departments.getByte(departmentSlot, DEP_FLAGS) & DUPLICATES_PRESENT) == 0) {
+            return;
+        }
+        for (int duplicate = departments.getInt(departmentSlot, DEP_TAIL); duplicate != NONE;
+             duplicate = employees.getInt(duplicate, EMP_PREVIOUS)) {
+            if ((employees.getByte(duplicate, EMP_FLAGS) & ID_PRESENT) != 0
+                && employees.getLong(duplicate, EMP_ID) == employeeId) {
+                indexEmployeeLocked(departmentSlot, duplicate, employeeId);
+                return;
+            }
+        }
+    }
+
+    /**
+     * Frees all {@link Employee} records of the {@link Department} after removing them from the index.
+     * <p>
+     * It must be called while holding the stripe lock of the {@link Department}.
+     * </p>
+     *
+     * @param departmentSlot the slot of the {@link Department} record
+     */
+    private void removeEmployeesLocked(int departmentSlot) {
+
+        int slot = departments.getInt(departmentSlot, DEP_HEAD);
+        while (slot != NONE) {
+            final int next = employees.getInt(slot, EMP_NEXT);
+            if ((employees.getByte(slot, EMP_FLAGS) & INDEXED) != 0) {
+                employeeTable.remove(employees.getLong(slot, EMP_ID), slot);
+                employeeCount.decrementAndGet();
+            }
+            employees.free(slot);
+            slot = next;
+        }
+        departments.setInt(departmentSlot, DEP_HEAD, NONE);
+        departments.setInt(departmentSlot, DEP_TAIL, NONE);
+        departments.setInt(departmentSlot, DEP_SIZE, 0);
+        departments.setByte(departmentSlot, DEP_FLAGS,
+                (byte) (departments.getByte(departmentSlot, DEP_FLAGS) & ~DUPLICATES_PRESENT));
+    }
+
+    /**
+     * Rebuilds the indexes from the records of the reopened slabs.
+     */
+    private void rebuildIndexes() {
+
+        departments.forEachUsed(slot -> {
+            final long id = departments.getLong(slot, DEP_ID);
+            departmentTable.add(id, slot);
+            departmentOrder.put(id, slot);
+        });
+        employees.forEachUsed(slot -> {
+            if ((employees.getByte(slot, EMP_FLAGS) & INDEXED) != 0) {
+                employeeTable.add(employees.getLong(slot, EMP_ID), slot);
+                employeeCount.incrementAndGet();
+            }
+        });
+    }
+
+    /**
+     * Finds the slot of the {@link Department} record.
+     *
+     * @param id the {@link Department}'s id
+     * @return the slot, or {@link #NONE} if the {@link Department} is missing
+     */
+    private int departmentSlotOf(long id) {
+        return departmentTable.find(id, _ -> true);
+    }
+
+    /**
+     * Finds the slot of the indexed {@link Employee} record in the {@link Department}.
+     *
+     * @param departmentSlot the slot of the {@link Department} record
+     * @param employeeId     the {@link Employee}'s id, null never matches
+     * @return the slot, or {@link #NONE} if the {@link Employee} is missing
+     */
+    private int employeeSlotOf(int departmentSlot, Long employeeId) {
+
+        return Objects.isNull(employeeId) ? NONE : employeeTable.find(employeeId,
+                slot -> employees.getInt(slot, EMP_DEPARTMENT) == departmentSlot);
+    }
+
+    /**
+     * Materializes the {@link Department}.
+     *
+     * @param departmentSlot the slot of the {@link Department} record
+     * @return the {@link Department}
+     */
+    private Department departmentAt(int departmentSlot) {
+
+        return new Department().id(departments.getLong(departmentSlot, DEP_ID))
+                .name(departments.getString(departmentSlot, DEP_NAME)).employees(employeesAt(departmentSlot));
+    }
+
+    /**
+     * Materializes the list of {@link Employee}s of the {@link Department}.
+     * <p>
+     * The walk is bounded by the size, as the links may be torn under the optimistic read.
+     * </p>
+     *
+     * @param departmentSlot the slot of the {@link Department} record
+     * @return the list of {@link Employee}s, null when missing
+     */
+    private List<Employee> employeesAt(int departmentSlot) {
+
+        if ((departments.getByte(departmentSlot, DEP_FLAGS) & EMPLOYEES_PRESENT) == 0) {
+            return null;
+        }
+        final int size = departments.getInt(departmentSlot, DEP_SIZE);
+        final List<Employee> departmentEmps = new ArrayList<>();
+        for (int slot = departments.getInt(departmentSlot, DEP_HEAD); slot != NONE && departmentEmps.size() < size;
+             slot = employees.getInt(slot, EMP_NEXT)) {
+            departmentEmps.add(employeeAt(slot));
+        }
+        return Collections.unmodifiableList(departmentEmps);
+    }
+
+    /**
+     * Materializes the {@link Employee}.
+     *
+     * @param slot the slot of the {@link Employee} record
+     * @return the {@link Employee}
+     */
+    private Employee employeeAt(int slot) {
+
+        final byte title = employees.getByte(slot, EMP_TITLE);
+        return new Employee()
+                .id((employees.getByte(slot, EMP_FLAGS) & ID_PRESENT) != 0 ? employees.getLong(slot, EMP_ID) : null)
+                .firstName(employees.getString(slot, EMP_FIRST_NAME))
+                .lastName(employees.getString(slot, EMP_LAST_NAME))
+                .title(title == NO_TITLE ? null : TITLES[title]);
+    }
+
+    /**
+     * Gets the stripe lock of the {@link Department}.
+     *
+     * @param departmentId the {@link Department}'s id
+     * @return the stripe lock
+     */
+    private StampedLock stripeOf(long departmentId) {
+        return stripes[Long.hashCode(departmentId * 0x9E3779B97F4A7C15L) & (stripes.length - 1)];
+    }
+
+    /**
+     * Runs the reader under the optimistic read of the stripe lock of the {@link Department}.
+     * <p>
+     * The reader may see the records torn by the concurrent writer and even fail on them.
+     * The result or the failure counts only when the stamp is still valid,
+     * otherwise the reader runs again while holding the read lock.
+     * </p>
+     *
+     * @param departmentId the {@link Department}'s id
+     * @param reader       the reader
+     * @param <T>          the type of the result
+     * @return the result
+     */
+    private <T> T read(long departmentId, Supplier<T> reader) {
+
+        final StampedLock lock = stripeOf(departmentId);
+        final long optimisticStamp = lock.tryOptimisticRead();
+        if (optimisticStamp != 0) {
+            try {
+                final T result = reader.get();
+                if (lock.validate(optimisticStamp)) {
+                    return result;
+                }
+            } catch (RuntimeException e) {
+                if (lock.validate(optimisticStamp)) {
+                    throw e;
+                }
+            }
+        }
+        final long stamp = lock.readLock();
+        try {
+            return reader.get();
+        } finally {
+            lock.unlockRead(stamp);
+        }
+    }
+
+    /**
+     * Runs the action while holding the stripe lock of the {@link Department}.
+     *
+     * @param departmentId the {@link Department}'s id
+     * @param action       the action
+     * @param <T>          the type of the result
+     * @return the result
+     */
+    private <T> T withLock(long departmentId, Supplier<T> action) {
+
+        final StampedLock lock = stripeOf(departmentId);
+        final long stamp = lock.writeLock();
+        try {
+            checkOpen();
+            return action.get();
+        } finally {
+            lock.unlockWrite(stamp);
+        }
+    }
+
+    /**
+     * Checks that the repository is not closed, as the closed files must not change.
+     */
+    private void checkOpen() {
+
+        if (closed) {
+            throw new IllegalStateException("The off-heap dataset repository is closed");
+        }
+    }
+
+    /**
+     * Encodes the name to the UTF-8 bytes.
+     *
+     * @param name the name
+     * @return the bytes, null when the name is null
+     */
+    private static byte[] encode(String name) {
+
+        if (Objects.isNull(name)) {
+            return null;
+        }
+        final byte[] bytes = name.getBytes(StandardCharsets.UTF_8);
+        if (bytes.length > NAME_BYTES) {
+            throw new IllegalArgumentException("The name is longer than %d bytes: %s".formatted(NAME_BYTES, name));
+        }
+        return bytes;
+    }
+
+    /**
+     * Gets the file of the slab.
+     *
+     * @param mappedDirectory the directory
+     * @param generation      the generation
+     * @param slab            the name of the slab
+     * @return the file
+     */
+    private static Path fileOf(Path mappedDirectory, String generation, String slab) {
+        return mappedDirectory.resolve(FILE_FORMAT.formatted(generation, slab));
+    }
+
+    /**
+     * Deletes the files of the other generations. The file that cannot be deleted is left for the next time.
+     *
+     * @param mappedDirectory the directory
+     * @param generation      the generation to keep
+     */
+    private static void deleteOtherGenerations(Path mappedDirectory, String generation) {
+
+        try (Stream<Path> files = Files.list(mappedDirectory)) {
+            files.filter(file -> {
+                final Matcher matcher = FILE_PATTERN.matcher(file.getFileName().toString());
+                return matcher.matches()
+                       && !generation.equals("%s-%s".formatted(matcher.group(1), matcher.group(2)));
+            }).forEach(file -> {
+                try {
+                    Files.deleteIfExists(file);
+                } catch (IOException e) {
+                    logger.warn("deleteOtherGenerations(): file[%s], exception[%s]".formatted(file, e.getMessage()));
+                }
+            });
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    /**
+     * The {@link Employee} with the encoded fields, ready to be written to the record.
+     *
+     * @param id        the {@link Employee}'s id, null when missing
+     * @param title     the ordinal of the {@link Title}, or {@link #NO_TITLE}
+     * @param firstName the UTF-8 bytes of the first name, null when missing
+     * @param lastName  the UTF-8 bytes of the last name, null when missing
+     */
+    private record EncodedEmployee(Long id, byte title, byte[] firstName, byte[] lastName) {
+
+        /**
+         * Encodes the {@link Employee}.
+         *
+         * @param employee the {@link Employee}
+         * @return the {@link EncodedEmployee}
+         */
+        static EncodedEmployee of(Employee employee) {
+
+            return new EncodedEmployee(employee.getId(),
+                    Objects.isNull(employee.getTitle()) ? NO_TITLE : (byte) employee.getTitle().ordinal(),
+                    encode(employee.getFirstName()), encode(employee.getLastName()));
+        }
+    }
+}
@@ -0,0 +1,473 @@
+package kp.dataset;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.lang.foreign.Arena;
+import java.lang.foreign.MemoryLayout;
+import java.lang.foreign.MemorySegment;
+import java.lang.foreign.StructLayout;
+import java.lang.foreign.ValueLayout;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.concurrent.locks.Lock;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.IntConsumer;
+import java.util.stream.Stream;
+
+import static java.lang.foreign.MemoryLayout.PathElement.groupElement;
+
+/**
+ * The slab of the fixed-size records kept off the heap.
+ * <p>
+ * The records are addressed by the int slot. They are kept in the chunks of the {@link MemorySegment}s,
+ * so the slab grows without copying. Every record starts with the state and the free list link:
+ * the freed record is put on the free list and reused by the next allocation.
+ * </p>
+ * <p>
+ * The slab is either allocated in the native memory or mapped to the file. The file starts with the header
+ * holding the allocation state, the version of the dataset and the clean flag. The flag is cleared
+ * when the file is opened for writing and set again when the slab is closed, so only the file
+ * of the cleanly closed slab is opened again.
+ * </p>
+ * <p>
+ * The memory is owned by the automatic {@link Arena}: it is released when the slab becomes unreachable,
+ * the same way as the heap of the previous dataset.
+ * </p>
+ */
+final class OffHeapRecords {
+
+    private static final int NONE = -1;
+    private static final int FREE = 0;
+    private static final int USED = 1;
+    private static final int CHUNK_BITS = 16;
+    private static final int CHUNK_RECORDS = 1 << CHUNK_BITS;
+    private static final long FILE_MAGIC = 0x4B50_4F46_4648_5031L;
+    private static final StructLayout FILE_HEADER = MemoryLayout.structLayout(
+            ValueLayout.JAVA_LONG.withName("magic"),
+            ValueLayout.JAVA_LONG.withName("version"),
+            ValueLayout.JAVA_INT.withName("recordSize"),
+            ValueLayout.JAVA_INT.withName("highWater"),
+            ValueLayout.JAVA_INT.withName("freeHead"),
+            ValueLayout.JAVA_INT.withName("liveCount"),
+            ValueLayout.JAVA_INT.withName("clean"),
+            MemoryLayout.paddingLayout(28));
+    private static final long MAGIC_OFFSET = FILE_HEADER.byteOffset(groupElement("magic"));
+    private static final long VERSION_OFFSET = FILE_HEADER.byteOffset(groupElement("version"));
+    private static final long RECORD_SIZE_OFFSET = FILE_HEADER.byteOffset(groupElement("recordSize"));
+    private static final long HIGH_WATER_OFFSET = FILE_HEADER.byteOffset(groupElement("highWater"));
+    private static final long FREE_HEAD_OFFSET = FILE_HEADER.byteOffset(groupElement("freeHead"));
+    private static final long LIVE_COUNT_OFFSET = FILE_HEADER.byteOffset(groupElement("liveCount"));
+    private static final long CLEAN_OFFSET = FILE_HEADER.byteOffset(groupElement("clean"));
+    private static final long STATE_OFFSET = 0;
+    private static final long NEXT_FREE_OFFSET = 4;
+    private final int recordSize;
+    private final Optional<Path> file;
+    private final Arena arena = Arena.ofAuto();
+    private final Lock allocationLock = new ReentrantLock();
+    private final MemorySegment header;
+    private volatile MemorySegment[] chunks = new MemorySegment[0];
+    private int highWater;
+    private int freeHead = NONE;
+    private int liveCount;
+
+    /**
+     * The constructor of the slab in the native memory.
+     *
+     * @param layout the {@link StructLayout} of the record created by the {@link #recordLayout}
+     */
+    OffHeapRecords(StructLayout layout) {
+
+        this.recordSize = Math.toIntExact(layout.byteSize());
+        this.file = Optional.empty();
+        this.header = arena.allocate(FILE_HEADER);
+    }
+
+    /**
+     * The constructor of the slab mapped to the file.
+     * <p>
+     * The existing file is truncated.
+     * </p>
+     *
+     * @param layout  the {@link StructLayout} of the record created by the {@link #recordLayout}
+     * @param file    the file
+     * @param version the version of the dataset
+     */
+    OffHeapRecords(StructLayout layout, Path file, long version) {
+
+        this.recordSize = Math.toIntExact(layout.byteSize());
+        this.file = Optional.of(file);
+        try {
+            Files.deleteIfExists(file);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        this.header = map(0, FILE_HEADER.byteSize());
+        header.set(ValueLayout.JAVA_LONG, MAGIC_OFFSET, FILE_MAGIC);
+        header.set(ValueLayout.JAVA_LONG, VERSION_OFFSET, version);
+        header.set(ValueLayout.JAVA_INT, RECORD_SIZE_OFFSET, recordSize);
+        writeHeader();
+    }
+
+    /**
+     * The constructor of the slab reopened from the cleanly closed file.
+     *
+     * @param layout the {@link StructLayout} of the record
+     * @param file   the file
+     * @param header the mapped header of the file
+     */
+    private OffHeapRecords(StructLayout layout, Path file, MemorySegment header) {
+
+        this.recordSize = Math.toIntExact(layout.byteSize());
+        this.file = Optional.of(file);
+        this.header = header;
+        this.highWater = header.get(ValueLayout.JAVA_INT, HIGH_WATER_OFFSET);
+        this.freeHead = header.get(ValueLayout.JAVA_INT, FREE_HEAD_OFFSET);
+        this.liveCount = header.get(ValueLayout.JAVA_INT, LIVE_COUNT_OFFSET);
+        while ((long) chunks.length * CHUNK_RECORDS < highWater) {
+            addChunk();
+        }
+        header.set(ValueLayout.JAVA_INT, CLEAN_OFFSET, 0);
+        header.force();
+    }
+
+    /**
+     * Creates the layout of the record: the state and the free list link followed by the fields.
+     *
+     * @param fields the layouts of the fields
+     * @return the {@link StructLayout}
+     */
+    static StructLayout recordLayout(MemoryLayout... fields) {
+
+        return MemoryLayout.structLayout(Stream.concat(Stream.of(
+                        ValueLayout.JAVA_INT.withName("state"), ValueLayout.JAVA_INT.withName("nextFree")),
+                Arrays.stream(fields)).toArray(MemoryLayout[]::new));
+    }
+
+    /**
+     * Reopens the slab from the file written by the cleanly closed slab.
+     *
+     * @param layout the {@link StructLayout} of the record
+     * @param file   the file
+     * @return the {@link Optional} with the slab, empty if the file is missing, damaged or not cleanly closed
+     */
+    static Optional<OffHeapRecords> reopen(StructLayout layout, Path file) {
+
+        if (!Files.isRegularFile(file)) {
+            return Optional.empty();
+        }
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ, StandardOpenOption.WRITE)) {
+            if (channel.size() < FILE_HEADER.byteSize()) {
+                return Optional.empty();
+            }
+            final MemorySegment header = channel.map(FileChannel.MapMode.READ_WRITE, 0, FILE_HEADER.byteSize(),
+                    Arena.ofAuto());
+            if (header.get(ValueLayout.JAVA_LONG, MAGIC_OFFSET) != FILE_MAGIC
+                || header.get(ValueLayout.JAVA_INT, RECORD_SIZE_OFFSET) != layout.byteSize()
+                || header.get(ValueLayout.JAVA_INT, CLEAN_OFFSET) != 1) {
+                return Optional.empty();
+            }
+            return Optional.of(new OffHeapRecords(layout, file, header));
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    /**
+     * Reads the version of the dataset from the file header without opening the slab.
+     *
+     * @param file the file
+     * @return the version, or -1 if the file is not the cleanly closed slab
+     */
+    static long readCleanVersion(Path file) {
+
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ);
+             Arena readArena = Arena.ofConfined()) {
+            if (channel.size() < FILE_HEADER.byteSize()) {
+                return -1;
+            }
+            final MemorySegment header = channel.map(FileChannel.MapMode.READ_ONLY, 0, FILE_HEADER.byteSize(),
+                    readArena);
+            return header.get(ValueLayout.JAVA_LONG, MAGIC_OFFSET) == FILE_MAGIC
+                   && header.get(ValueLayout.JAVA_INT, CLEAN_OFFSET) == 1
+                    ? header.get(ValueLayout.JAVA_LONG, VERSION_OFFSET) : -1;
+        } catch (IOException e) {
+            return -1;
+        }
+    }
+
+    /**
+     * Allocates the record. The record is zeroed except for its header.
+     *
+     * @return the slot
+     */
+    int allocate() {
+
+        allocationLock.lock();
+        try {
+            final int slot;
+            if (freeHead != NONE) {
+                slot = freeHead;
+                freeHead = segmentOf(slot).get(ValueLayout.JAVA_INT, offsetOf(slot) + NEXT_FREE_OFFSET);
+            } else {
+                if (highWater == Integer.MAX_VALUE) {
+                    throw new IllegalStateException("The off-heap slab is full");
+                }
+                slot = highWater++;
+                if ((long) chunks.length * CHUNK_RECORDS < highWater) {
+                    addChunk();
+                }
+            }
+            final MemorySegment record = segmentOf(slot).asSlice(offsetOf(slot), recordSize);
+            record.fill((byte) 0);
+            record.set(ValueLayout.JAVA_INT, STATE_OFFSET, USED);
+            record.set(ValueLayout.JAVA_INT, NEXT_FREE_OFFSET, NONE);
+            liveCount++;
+            writeHeader();
+            return slot;
+        } finally {
+            allocationLock.unlock();
+        }
+    }
+
+    /**
+     * Frees the record.
+     *
+     * @param slot the slot
+     */
+    void free(int slot) {
+
+        allocationLock.lock();
+        try {
+            segmentOf(slot).set(ValueLayout.JAVA_INT, offsetOf(slot) + STATE_OFFSET, FREE);
+            segmentOf(slot).set(ValueLayout.JAVA_INT, offsetOf(slot) + NEXT_FREE_OFFSET, freeHead);
+            freeHead = slot;
+            liveCount--;
+            writeHeader();
+        } finally {
+            allocationLock.unlock();
+        }
+    }
+
+    /**
+     * Passes the slots of the used records to the consumer.
+     *
+     * @param consumer the consumer of the slots
+     */
+    void forEachUsed(IntConsumer consumer) {
+
+        for (int slot = 0; slot < highWater; slot++) {
+            if (segmentOf(slot).get(ValueLayout.JAVA_INT, offsetOf(slot) + STATE_OFFSET) == USED) {
+                consumer.accept(slot);
+            }
+        }
+    }
+
+    /**
+     * Gets the long field.
+     *
+     * @param slot        the slot
+     * @param fieldOffset the offset of the field in the record
+     * @return the value
+     */
+    long getLong(int slot, long fieldOffset) {
+        return segmentOf(slot).get(ValueLayout.JAVA_LONG, offsetOf(slot) + fieldOffset);
+    }
+
+    /**
+     * Sets the long field.
+     *
+     * @param slot        the slot
+     * @param fieldOffset the offset of the field in the record
+     * @param value       the value
+     */
+    void setLong(int slot, long fieldOffset, long value) {
+        segmentOf(slot).set(ValueLayout.JAVA_LONG, offsetOf(slot) + fieldOffset, value);
+    }
+
+    /**
+     * Gets the int field.
+     *
+     * @param slot        the slot
+     * @param fieldOffset the offset of the field in the record
+     * @return the value
+     */
+    int getInt(int slot, long fieldOffset) {
+        return segmentOf(slot).get(ValueLayout.JAVA_INT, offsetOf(slot) + fieldOffset);
+    }
+
+    /**
+     * Sets the int field.
+     *
+     * @param slot        the slot
+     * @param fieldOffset the offset of the field in the record
+     * @param value       the value
+     */
+    void setInt(int slot, long fieldOffset, int value) {
+        segmentOf(slot).set(ValueLayout.JAVA_INT, offsetOf(slot) + fieldOffset, value);
+    }
+
+    /**
+     * Gets the byte field.
+     *
+     * @param slot        the slot
+     * @param fieldOffset the offset of the field in the record
+     * @return the value
+     */
+    byte getByte(int slot, long fieldOffset) {
+        return segmentOf(slot).get(ValueLayout.JAVA_BYTE, offsetOf(slot) + fieldOffset);
+    }
+
+    /**
+     * Sets the byte field.
+     *
+     * @param slot        the slot
+     * @param fieldOffset the offset of the field in the record
+     * @param value       the value
+     */
+    void setByte(int slot, long fieldOffset, byte value) {
+        segmentOf(slot).set(ValueLayout.JAVA_BYTE, offsetOf(slot) + fieldOffset, value);
+    }
+
+    /**
+     * Gets the string field: the length byte followed by the UTF-8 bytes.
+     *
+     * @param slot        the slot
+     * @param fieldOffset the offset of the field in the record
+     * @return the string, null when the length byte is negative
+     */
+    String getString(int slot, long fieldOffset) {
+
+        final MemorySegment segment = segmentOf(slot);
+        final long offset = offsetOf(slot) + fieldOffset;
+        final int length = segment.get(ValueLayout.JAVA_BYTE, offset);
+        if (length < 0) {
+            return null;
+        }
+        final byte[] bytes = new byte[length];
+        MemorySegment.copy(segment, ValueLayout.JAVA_BYTE, offset + 1, bytes, 0, length);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    /**
+     * Sets the string field: the length byte followed by the UTF-8 bytes.
+     *
+     * @param slot        the slot
+     * @param fieldOffset the offset of the field in the record
+     * @param bytes       the UTF-8 bytes, null for the null string
+     */
+    void setString(int slot, long fieldOffset, byte[] bytes) {
+
+        final MemorySegment segment = segmentOf(slot);
+        final long offset = offsetOf(slot) + fieldOffset;
+        if (Objects.isNull(bytes)) {
+            segment.set(ValueLayout.JAVA_BYTE, offset, (byte) -1);
+            return;
+        }
+        segment.set(ValueLayout.JAVA_BYTE, offset, (byte) bytes.length);
+        MemorySegment.copy(bytes, 0, segment, ValueLayout.JAVA_BYTE, offset + 1, bytes.length);
+    }
+
+    /**
+     * Gets the version of the dataset from the header.
+     *
+     * @return the version
+     */
+    long version() {
+        return header.get(ValueLayout.JAVA_LONG, VERSION_OFFSET);
+    }
+
+    /**
+     * Gets the number of the bytes taken by the chunks.
+     *
+     * @return the number of the bytes
+     */
+    long byteSize() {
+        return Arrays.stream(chunks).mapToLong(MemorySegment::byteSize).sum();
+    }
+
+    /**
+     * Writes the mapped records to the storage device and marks the file as cleanly closed.
+     * The native slab has nothing to write.
+     */
+    void close() {
+
+        if (file.isEmpty()) {
+            return;
+        }
+        allocationLock.lock();
+        try {
+            Arrays.stream(chunks).forEach(MemorySegment::force);
+            header.set(ValueLayout.JAVA_INT, CLEAN_OFFSET, 1);
+            header.force();
+        } finally {
+            allocationLock.unlock();
+        }
+    }
+
+    /**
+     * Writes the allocation state to the header.
+     */
+    private void writeHeader() {
+
+        header.set(ValueLayout.JAVA_INT, HIGH_WATER_OFFSET, highWater);
+        header.set(ValueLayout.JAVA_INT, FREE_HEAD_OFFSET, freeHead);
+        header.set(ValueLayout.JAVA_INT, LIVE_COUNT_OFFSET, liveCount);
+    }
+
+    /**
+     * Adds the chunk.
+     */
+    private void addChunk() {
+
+        final long chunkBytes = (long) CHUNK_RECORDS * recordSize;
+        final MemorySegment chunk = file.isPresent()
+                ? map(FILE_HEADER.byteSize() + chunks.length * chunkBytes, chunkBytes)
+                : arena.allocate(chunkBytes, Long.BYTES);
+        final MemorySegment[] grown = Arrays.copyOf(chunks, chunks.length + 1);
+        grown[chunks.length] = chunk;
+        chunks = grown;
+    }
+
+    /**
+     * Maps the region of the file. The file is extended when needed.
+     *
+     * @param offset the offset of the region
+     * @param size   the size of the region
+     * @return the mapped {@link MemorySegment}
+     */
+    private MemorySegment map(long offset, long size) {
+
+        try (FileChannel channel = FileChannel.open(file.orElseThrow(), StandardOpenOption.CREATE,
+                StandardOpenOption.READ, StandardOpenOption.WRITE)) {
+            return channel.map(FileChannel.MapMode.READ_WRITE, offset, size, arena);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    /**
+     * Gets the chunk of the slot.
+     *
+     * @param slot the slot
+     * @return the chunk
+     */
+    private MemorySegment segmentOf(int slot) {
+        return chunks[slot >>> CHUNK_BITS];
+    }
+
+    /**
+     * Gets the offset of the record in its chunk.
+     *
+     * @param slot the slot
+     * @return the offset
+     */
+    private long offsetOf(int slot) {
+        return (long) (slot & (CHUNK_RECORDS - 1)) * recordSize;
+    }
+}
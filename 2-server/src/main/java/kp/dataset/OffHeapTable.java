@@ -0,0 +1,351 @@
+package kp.dataset;
+
+import java.lang.foreign.Arena;
+import java.lang.foreign.MemoryLayout;
+import java.lang.foreign.MemorySegment;
+import java.lang.foreign.StructLayout;
+import java.lang.foreign.ValueLayout;
+import java.util.Arrays;
+import java.util.concurrent.locks.StampedLock;
+import java.util.function.IntPredicate;
+import java.util.function.IntToLongFunction;
+
+import static java.lang.foreign.MemoryLayout.PathElement.groupElement;
+
+/**
+ * The open-addressing hash table from the long key to the int slots, kept off the heap.
+ * <p>
+ * The table is the multimap: the key may have many entries, told apart by the caller's matcher.
+ * The entries are probed linearly and the deleted entry shifts back the following entries
+ * of the probe sequence, so the table has no tombstones. The table grows by rehashing
+ * into the table twice as big.
+ * </p>
+ * <p>
+ * The writers take the write lock of the {@link StampedLock}. The readers use the optimistic read
+ * and fall back to the read lock when the table was changed meanwhile.
+ * </p>
+ */
+final class OffHeapTable {
+
+    /**
+     * The result of the failed lookup.
+     */
+    static final int NONE = -1;
+    private static final int INITIAL_CAPACITY = 1 << 10;
+    private static final StructLayout ENTRY = MemoryLayout.structLayout(
+            ValueLayout.JAVA_LONG.withName("key"),
+            ValueLayout.JAVA_INT.withName("value"),
+            ValueLayout.JAVA_INT.withName("used"));
+    private static final long KEY_OFFSET = ENTRY.byteOffset(groupElement("key"));
+    private static final long VALUE_OFFSET = ENTRY.byteOffset(groupElement("value"));
+    private static final long USED_OFFSET = ENTRY.byteOffset(groupElement("used"));
+    private static final long ENTRY_BYTES = ENTRY.byteSize();
+    private final StampedLock lock = new StampedLock();
+    private volatile MemorySegment table = newTable(INITIAL_CAPACITY);
+    private int size;
+
+    /**
+     * Finds the first entry of the key accepted by the matcher.
+     *
+     * @param key     the key
+     * @param matcher the matcher of the values
+     * @return the value, or {@link #NONE} if no entry matches
+     */
+    int find(long key, IntPredicate matcher) {
+
+        final long optimisticStamp = lock.tryOptimisticRead();
+        if (optimisticStamp != 0) {
+            try {
+                final int value = find(table, key, matcher);
+                if (lock.validate(optimisticStamp)) {
+                    return value;
+                }
+            } catch (RuntimeException e) {
+                if (lock.validate(optimisticStamp)) {
+                    throw e;
+                }
+            }
+        }
+        final long stamp = lock.readLock();
+        try {
+            return find(table, key, matcher);
+        } finally {
+            lock.unlockRead(stamp);
+        }
+    }
+
+    /**
+     * Maps all values of the key.
+     *
+     * @param key    the key
+     * @param mapper the mapper of the values, run while the table is unchanged
+     * @return the mapped values
+     */
+    long[] mapValues(long key, IntToLongFunction mapper) {
+
+        final long optimisticStamp = lock.tryOptimisticRead();
+        if (optimisticStamp != 0) {
+            try {
+                final long[] values = mapValues(table, key, mapper);
+                if (lock.validate(optimisticStamp)) {
+                    return values;
+                }
+            } catch (RuntimeException e) {
+                if (lock.validate(optimisticStamp)) {
+                    throw e;
+                }
+            }
+        }
+        final long stamp = lock.readLock();
+        try {
+            return mapValues(table, key, mapper);
+        } finally {
+            lock.unlockRead(stamp);
+        }
+    }
+
+    /**
+     * Adds the entry.
+     *
+     * @param key   the key
+     * @param value the value
+     */
+    void add(long key, int value) {
+
+        final long stamp = lock.writeLock();
+        try {
+            final long capacity = table.byteSize() / ENTRY_BYTES;
+            if (4 * (size + 1L) > 3 * capacity) {
+                final MemorySegment oldTable = table;
+                final MemorySegment grownTable = newTable(2 * capacity);
+                for (long offset = 0; offset < oldTable.byteSize(); offset += ENTRY_BYTES) {
+                    if (oldTable.get(ValueLayout.JAVA_INT, offset + USED_OFFSET) != 0) {
+                        put(grownTable, oldTable.get(ValueLayout.JAVA_LONG, offset + KEY_OFFSET),
+                                oldTable.get(ValueLayout.JAVA_INT, offset + VALUE_OFFSET));
+                    }
+                }
+                table = grownTable;
+            }
+            put(table, key, value);
+            size++;
+        } finally {
+            lock.unlockWrite(stamp);
+        }
+    }
+
+    /**
+     * Replaces the value of the entry.
+     *
+     * @param key      the key
+     * @param oldValue the value of the replaced entry
+     * @param newValue the new value
+     * @return true if the entry was found
+     */
+    boolean replace(long key, int oldValue, int newValue) {
+
+        final long stamp = lock.writeLock();
+        try {
+            final long offset = offsetOf(key, oldValue);
+            if (offset < 0) {
+                return false;
+            }
+            table.set(ValueLayout.JAVA_INT, offset + VALUE_OFFSET, newValue);
+            return true;
+        } finally {
+            lock.unlockWrite(stamp);
+        }
+    }
+
+    /**
+     * Removes the entry.
+     *
+     * @param key   the key
+     * @param value the value of the entry
+     * @return true if the entry was found
+     */
+    boolean remove(long key, int value) {
+
+        final long stamp = lock.writeLock();
+        try {
+            final long offset = offsetOf(key, value);
+            if (offset < 0) {
+                return false;
+            }
+            delete(offset / ENTRY_BYTES);
+            size--;
+            return true;
+        } finally {
+            lock.unlockWrite(stamp);
+        }
+    }
+
+    /**
+     * Removes all entries.
+     */
+    void clear() {
+
+        final long stamp = lock.writeLock();
+        try {
+            table = newTable(INITIAL_CAPACITY);
+            size = 0;
+        } finally {
+            lock.unlockWrite(stamp);
+        }
+    }
+
+    /**
+     * Gets the number of the bytes taken by the table.
+     *
+     * @return the number of the bytes
+     */
+    long byteSize() {
+        return table.byteSize();
+    }
+
+    /**
+     * Finds the offset of the entry. It must be called while holding the write lock.
+     *
+     * @param key   the key
+     * @param value the value
+     * @return the offset, or -1 if the entry is missing
+     */
+    private long offsetOf(long key, int value) {
+
+        final long mask = table.byteSize() / ENTRY_BYTES - 1;
+        for (long index = hashOf(key) & mask; table.get(ValueLayout.JAVA_INT, index * ENTRY_BYTES + USED_OFFSET) != 0;
+             index = (index + 1) & mask) {
+            final long offset = index * ENTRY_BYTES;
+            if (table.get(ValueLayout.JAVA_LONG, offset + KEY_OFFSET) == key
+                && table.get(ValueLayout.JAVA_INT, offset + VALUE_OFFSET) == value) {
+                return offset;
+            }
+        }
+        return -1;
+    }
+
+    /**
+     * Deletes the entry and shifts back the following entries of the probe sequence.
+     * It must be called while holding the write lock.
+     *
+     * @param index the index of the deleted entry
+     */
+    private void delete(long index) {
+
+        final long mask = table.byteSize() / ENTRY_BYTES - 1;
+        long hole = index;
+        for (long next = (hole + 1) & mask; table.get(ValueLayout.JAVA_INT, next * ENTRY_BYTES + USED_OFFSET) != 0;
+             next = (next + 1) & mask) {
+            final long home = hashOf(table.get(ValueLayout.JAVA_LONG, next * ENTRY_BYTES + KEY_OFFSET)) & mask;
+            if (((next - home) & mask) >= ((next - hole) & mask)) {
+                MemorySegment.copy(table, next * ENTRY_BYTES, table, hole * ENTRY_BYTES, ENTRY_BYTES);
+                hole = next;
+            }
+        }
+        table.set(ValueLayout.JAVA_INT, hole * ENTRY_BYTES + USED_OFFSET, 0);
+    }
+
+    /**
+     * Finds the first entry of the key accepted by the matcher.
+     * <p>
+     * It may run concurrently with the writer, so the probing is bounded.
+     * The result is valid only if the stamp of the optimistic read is still valid.
+     * </p>
+     *
+     * @param table   the table
+     * @param key     the key
+     * @param matcher the matcher of the values
+     * @return the value, or {@link #NONE} if no entry matches
+     */
+    private static int find(MemorySegment table, long key, IntPredicate matcher) {
+
+        final long mask = table.byteSize() / ENTRY_BYTES - 1;
+        long index = hashOf(key) & mask;
+        for (long probe = 0; probe <= mask && table.get(ValueLayout.JAVA_INT, index * ENTRY_BYTES + USED_OFFSET) != 0;
+             probe++) {
+            final long offset = index * ENTRY_BYTES;
+            if (table.get(ValueLayout.JAVA_LONG, offset + KEY_OFFSET) == key) {
+                final int value = table.get(ValueLayout.JAVA_INT, offset + VALUE_OFFSET);
+                if (matcher.test(value)) {
+                    return value;
+                }
+            }
+            index = (index + 1) & mask;
+        }
+        return NONE;
+    }
+
+    /**
+     * Maps all values of the key.
+     * <p>
+     * It may run concurrently with the writer, so the probing is bounded.
+     * The result is valid only if the stamp of the optimistic read is still valid.
+     * </p>
+     *
+     * @param table  the table
+     * @param key    the key
+     * @param mapper the mapper of the values
+     * @return the mapped values
+     */
+    private static long[] mapValues(MemorySegment table, long key, IntToLongFunction mapper) {
+
+        final long mask = table.byteSize() / ENTRY_BYTES - 1;
+        long[] values = new long[1];
+        int count = 0;
+        long index = hashOf(key) & mask;
+        for (long probe = 0; probe <= mask && table.get(ValueLayout.JAVA_INT, index * ENTRY_BYTES + USED_OFFSET) != 0;
+             probe++) {
+            final long offset = index * ENTRY_BYTES;
+            if (table.get(ValueLayout.JAVA_LONG, offset + KEY_OFFSET) == key) {
+                if (count == values.length) {
+                    values = Arrays.copyOf(values, 2 * count);
+                }
+                values[count++] = mapper.applyAsLong(table.get(ValueLayout.JAVA_INT, offset + VALUE_OFFSET));
+            }
+            index = (index + 1) & mask;
+        }
+        return Arrays.copyOf(values, count);
+    }
+
+    /**
+     * Puts the entry into the free slot of the table.
+     *
+     * @param table the table
+     * @param key   the key
+     * @param value the value
+     */
+    private static void put(MemorySegment table, long key, int value) {
+
+        final long mask = table.byteSize() / ENTRY_BYTES - 1;
+        long index = hashOf(key) & mask;
+        while (table.get(ValueLayout.JAVA_INT, index * ENTRY_BYTES + USED_OFFSET) != 0) {
+            index = (index + 1) & mask;
+        }
+        final long offset = index * ENTRY_BYTES;
+        table.set(ValueLayout.JAVA_LONG, offset + KEY_OFFSET, key);
+        table.set(ValueLayout.JAVA_INT, offset + VALUE_OFFSET, value);
+        table.set(ValueLayout.JAVA_INT, offset + USED_OFFSET, 1);
+    }
+
+    /**
+     * Mixes the bits of the key.
+     *
+     * @param key the key
+     * @return the hash
+     */
+    private static long hashOf(long key) {
+
+        final long product = key * 0x9E3779B97F4A7C15L;
+        return product ^ (product >>> 32);
+    }
+
+    /**
+     * Allocates the zeroed table in the automatic {@link Arena}.
+     * The replaced table is released when the last optimistic reader drops it.
+     *
+     * @param capacity the number of the entries, the power of two
+     * @return the table
+     */
+    private static MemorySegment newTable(long capacity) {
+        return Arena.ofAuto().allocate(ENTRY.byteSize() * capacity, ENTRY.byteAlignment());
+    }
+}
@@ -0,0 +1,14 @@
+package kp.dataset;
+
+import java.util.List;
+
+/**
+ * The page of items.
+ *
+ * @param items      the items
+ * @param nextCursor the cursor of the next page, {@code null} on the last page
+ * @param version    the version of the {@link DatasetSnapshot} the page was read from
+ * @param <T>        the type of the items
+ */
+public record Page<T>(List<T> items, String nextCursor, long version) {
+}
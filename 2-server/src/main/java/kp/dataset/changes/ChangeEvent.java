@@ -0,0 +1,23 @@
+package kp.dataset.changes;
+
+import kp.dataset.DatasetMutation;
+import kp.dataset.DatasetSnapshot;
+
+/**
+ * The {@link DatasetMutation} numbered in the order of the {@link ChangeLog}.
+ *
+ * @param sequence the sequence number, increased by one for every event
+ * @param version  the version of the {@link DatasetSnapshot} which was changed
+ * @param mutation the {@link DatasetMutation}
+ */
+public record ChangeEvent(long sequence, long version, DatasetMutation mutation) {
+
+    /**
+     * Gets the type of the event, the simple name of the {@link DatasetMutation}, e.g. 'EmployeeSaved'.
+     *
+     * @return the type
+     */
+    public String type() {
+        return mutation.getClass().getSimpleName();
+    }
+}
@@ -0,0 +1,181 @@
+package kp.dataset.changes;
+
+import kp.SampleDataset;
+import kp.dataset.DatasetMutation;
+import kp.dataset.DatasetMutation.DatasetLoaded;
+import kp.dataset.MutationListener;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.Lock;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * The change-data-capture log of the {@link SampleDataset}.
+ * <p>
+ * Every {@link DatasetMutation} is numbered with the next sequence number and kept
+ * in the bounded ring of the last {@link ChangeEvent}s.
+ * The loading of the dataset is the {@link DatasetLoaded} event: the consumer reloads the collections
+ * and ignores the later events of the older versions.
+ * </p>
+ * <p>
+ * The writer never waits for the consumers. It overwrites the oldest event in the ring,
+ * so the consumer falling behind by more than the capacity finds its events gone and is dropped.
+ * The sequence numbers start from one with every start of the server, so the sequence number
+ * is valid only with the epoch of the log, the time of its creation.
+ * </p>
+ */
+public class ChangeLog implements MutationListener, AutoCloseable {
+
+    private static final int MIN_CAPACITY = 16;
+    private final ChangeEvent[] events;
+    private final int mask;
+    private final Lock lock = new ReentrantLock();
+    private final Condition appended = lock.newCondition();
+    private final AtomicLong droppedCount = new AtomicLong();
+    private final long epoch = System.currentTimeMillis();
+    private volatile long lastSequence;
+    private volatile boolean closed;
+
+    /**
+     * The constructor.
+     *
+     * @param capacity the number of the kept {@link ChangeEvent}s, rounded up to the power of two
+     */
+    public ChangeLog(int capacity) {
+
+        final int roundedCapacity = Integer.highestOneBit(Math.max(MIN_CAPACITY, capacity) - 1) << 1;
+        this.events = new ChangeEvent[roundedCapacity];
+        this.mask = roundedCapacity - 1;
+    }
+
+    /**
+     * Starts capturing the mutations of the {@link SampleDataset}.
+     */
+    public void start() {
+        SampleDataset.addMutationListener(this);
+    }
+
+    /**
+     * Appends the {@link DatasetMutation} as the next {@link ChangeEvent} and wakes up the waiting consumers.
+     *
+     * @param version  the version of the dataset
+     * @param mutation the {@link DatasetMutation}
+     */
+    @Override
+    public void onMutation(long version, DatasetMutation mutation) {
+
+        lock.lock();
+        try {
+            final long sequence = lastSequence + 1;
+            events[(int) sequence & mask] = new ChangeEvent(sequence, version, mutation);
+            lastSequence = sequence;
+            appended.signalAll();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Reads the {@link ChangeEvent}s following the sequence number, waiting for the first one up to the timeout.
+     *
+     * @param afterSequence the sequence number of the last consumed {@link ChangeEvent}, zero for the beginning
+     * @param maxEvents     the maximum number of the read {@link ChangeEvent}s
+     * @param timeout       the maximum time of waiting
+     * @return the {@link Optional} with the {@link ChangeEvent}s in the sequence order, the empty list
+     * on the timeout, or the empty {@link Optional} when the {@link ChangeEvent}s following the sequence number
+     * are already overwritten or the log is closed
+     * @throws InterruptedException if interrupted while waiting
+     */
+    public Optional<List<ChangeEvent>> read(long afterSequence, int maxEvents, Duration timeout)
+            throws InterruptedException {
+
+        long remainingNanos = timeout.toNanos();
+        lock.lock();
+        try {
+            while (!closed && lastSequence <= afterSequence) {
+                if (remainingNanos <= 0) {
+                    return Optional.of(List.of());
+                }
+                remainingNanos = appended.awaitNanos(remainingNanos);
+            }
+            if (closed || !isAvailable(afterSequence)) {
+                return Optional.empty();
+            }
+            final long toSequence = Math.min(lastSequence, afterSequence + maxEvents);
+            final List<ChangeEvent> read = new ArrayList<>((int) (toSequence - afterSequence));
+            for (long sequence = afterSequence + 1; sequence <= toSequence; sequence++) {
+                read.add(events[(int) sequence & mask]);
+            }
+            return Optional.of(read);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Checks if all {@link ChangeEvent}s following the sequence number are still kept.
+     *
+     * @param afterSequence the sequence number of the last consumed {@link ChangeEvent}
+     * @return true if the consumer may resume after this sequence number
+     */
+    public boolean isAvailable(long afterSequence) {
+
+        final long last = lastSequence;
+        return afterSequence >= 0 && afterSequence <= last && last - afterSequence <= events.length;
+    }
+
+    /**
+     * Gets the epoch of the log, the time of its creation in milliseconds since the epoch.
+     *
+     * @return the epoch
+     */
+    public long getEpoch() {
+        return epoch;
+    }
+
+    /**
+     * Gets the sequence number of the last {@link ChangeEvent}.
+     *
+     * @return the sequence number, zero when there are no events
+     */
+    public long getLastSequence() {
+        return lastSequence;
+    }
+
+    /**
+     * Counts the consumer dropped for falling behind.
+     */
+    public void recordDropped() {
+        droppedCount.incrementAndGet();
+    }
+
+    /**
+     * Gets the number of the consumers dropped for falling behind.
+     *
+     * @return the number of the dropped consumers
+     */
+    public long getDroppedCount() {
+        return droppedCount.get();
+    }
+
+    /**
+     * Stops capturing the mutations, closes the log and wakes up the waiting consumers.
+     */
+    @Override
+    public void close() {
+
+        SampleDataset.removeMutationListener(this);
+        lock.lock();
+        try {
+            closed = true;
+            appended.signalAll();
+        } finally {
+            lock.unlock();
+        }
+    }
+}
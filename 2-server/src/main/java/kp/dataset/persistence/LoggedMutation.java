@@ -0,0 +1,12 @@
+package kp.dataset.persistence;
+
+import kp.dataset.DatasetMutation;
+
+/**
+ * The {@link DatasetMutation} read from the write-ahead log.
+ *
+ * @param version  the version of the dataset which was changed
+ * @param mutation the {@link DatasetMutation}
+ */
+record LoggedMutation(long version, DatasetMutation mutation) {
+}
@@ -0,0 +1,291 @@
+package kp.dataset.persistence;
+
+import kp.company.model.Department;
+import kp.company.model.Employee;
+import kp.company.model.Title;
+import kp.dataset.DatasetMutation;
+import kp.dataset.DatasetMutation.DatasetLoaded;
+import kp.dataset.DatasetMutation.DepartmentRemoved;
+import kp.dataset.DatasetMutation.DepartmentRenamed;
+import kp.dataset.DatasetMutation.DepartmentSaved;
+import kp.dataset.DatasetMutation.EmployeeRemoved;
+import kp.dataset.DatasetMutation.EmployeeSaved;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInput;
+import java.io.DataInputStream;
+import java.io.DataOutput;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.zip.CRC32C;
+
+/**
+ * The binary codec for the {@link DatasetMutation}s and the {@link Department}s.
+ * <p>
+ * The frame is the payload's length, the payload's CRC-32C checksum and the payload.
+ * The strings are written in the modified UTF-8, so a single string is limited to 65535 bytes.
+ * </p>
+ */
+final class MutationCodec {
+
+    /**
+     * The length of the frame's header: the payload's length and its checksum.
+     */
+    static final int FRAME_HEADER_LENGTH = Integer.BYTES + Integer.BYTES;
+
+    private static final byte DEPARTMENT_SAVED = 1;
+    private static final byte DEPARTMENT_RENAMED = 2;
+    private static final byte DEPARTMENT_REMOVED = 3;
+    private static final byte EMPLOYEE_SAVED = 4;
+    private static final byte EMPLOYEE_REMOVED = 5;
+    private static final byte DATASET_LOADED = 6;
+
+    /**
+     * Private constructor to prevent instantiation.
+     */
+    private MutationCodec() {
+    }
+
+    /**
+     * Encodes the {@link DatasetMutation} into the frame.
+     *
+     * @param version  the version of the dataset
+     * @param mutation the {@link DatasetMutation}
+     * @return the frame
+     */
+    static byte[] encodeFrame(long version, DatasetMutation mutation) {
+
+        return frame(output -> {
+            output.writeLong(version);
+            switch (mutation) {
+                case DepartmentSaved(Department department) -> {
+                    output.writeByte(DEPARTMENT_SAVED);
+                    writeDepartment(output, department);
+                }
+                case DepartmentRenamed(long departmentId, String name) -> {
+                    output.writeByte(DEPARTMENT_RENAMED);
+                    output.writeLong(departmentId);
+                    writeString(output, name);
+                }
+                case DepartmentRemoved(long departmentId) -> {
+                    output.writeByte(DEPARTMENT_REMOVED);
+                    output.writeLong(departmentId);
+                }
+                case EmployeeSaved(long departmentId, Employee employee) -> {
+                    output.writeByte(EMPLOYEE_SAVED);
+                    output.writeLong(departmentId);
+                    writeEmployee(output, employee);
+                }
+                case EmployeeRemoved(long departmentId, long employeeId) -> {
+                    output.writeByte(EMPLOYEE_REMOVED);
+                    output.writeLong(departmentId);
+                    output.writeLong(employeeId);
+                }
+                case DatasetLoaded(long depIndex, long empIndex) -> {
+                    output.writeByte(DATASET_LOADED);
+                    output.writeLong(depIndex);
+                    output.writeLong(empIndex);
+                }
+            }
+        });
+    }
+
+    /**
+     * Decodes the {@link LoggedMutation} from the frame's payload.
+     *
+     * @param payload the payload
+     * @return the {@link LoggedMutation}
+     * @throws IOException if the payload is malformed
+     */
+    static LoggedMutation decodeMutation(byte[] payload) throws IOException {
+
+        final DataInput input = new DataInputStream(new ByteArrayInputStream(payload));
+        final long version = input.readLong();
+        final byte type = input.readByte();
+        final DatasetMutation mutation = switch (type) {
+            case DEPARTMENT_SAVED -> new DepartmentSaved(readDepartment(input));
+            case DEPARTMENT_RENAMED -> new DepartmentRenamed(input.readLong(), readString(input));
+            case DEPARTMENT_REMOVED -> new DepartmentRemoved(input.readLong());
+            case EMPLOYEE_SAVED -> new EmployeeSaved(input.readLong(), readEmployee(input));
+            case EMPLOYEE_REMOVED -> new EmployeeRemoved(input.readLong(), input.readLong());
+            case DATASET_LOADED -> new DatasetLoaded(input.readLong(), input.readLong());
+            default -> throw new IOException("Unknown mutation type[%d]".formatted(type));
+        };
+        return new LoggedMutation(version, mutation);
+    }
+
+    /**
+     * Encodes the {@link Department} with its {@link Employee}s into the frame.
+     *
+     * @param department the {@link Department}
+     * @return the frame
+     */
+    static byte[] encodeDepartmentFrame(Department department) {
+        return frame(output -> writeDepartment(output, department));
+    }
+
+    /**
+     * Decodes the {@link Department} from the frame's payload.
+     *
+     * @param payload the payload
+     * @return the {@link Department}
+     * @throws IOException if the payload is malformed
+     */
+    static Department decodeDepartment(byte[] payload) throws IOException {
+        return readDepartment(new DataInputStream(new ByteArrayInputStream(payload)));
+    }
+
+    /**
+     * Computes the checksum of the payload.
+     *
+     * @param payload the payload
+     * @param offset  the payload's offset
+     * @param length  the payload's length
+     * @return the checksum
+     */
+    static int checksum(byte[] payload, int offset, int length) {
+
+        final CRC32C crc = new CRC32C();
+        crc.update(payload, offset, length);
+        return (int) crc.getValue();
+    }
+
+    /**
+     * Builds the frame from the payload written by the writer.
+     *
+     * @param payloadWriter the payload writer
+     * @return the frame
+     */
+    private static byte[] frame(PayloadWriter payloadWriter) {
+
+        final ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        try (DataOutputStream output = new DataOutputStream(bytes)) {
+            output.writeLong(0);
+            payloadWriter.write(output);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        final byte[] frame = bytes.toByteArray();
+        final int length = frame.length - FRAME_HEADER_LENGTH;
+        final int crc = checksum(frame, FRAME_HEADER_LENGTH, length);
+        for (int i = 0; i < Integer.BYTES; i++) {
+            frame[i] = (byte) (length >>> (Integer.SIZE - Byte.SIZE * (i + 1)));
+            frame[Integer.BYTES + i] = (byte) (crc >>> (Integer.SIZE - Byte.SIZE * (i + 1)));
+        }
+        return frame;
+    }
+
+    /**
+     * Writes the {@link Department}.
+     *
+     * @param output     the output
+     * @param department the {@link Department}
+     * @throws IOException if an I/O error occurs
+     */
+    private static void writeDepartment(DataOutput output, Department department) throws IOException {
+
+        output.writeLong(department.getId());
+        writeString(output, department.getName());
+        final List<Employee> employees = Optional.ofNullable(department.getEmployees()).orElse(List.of());
+        output.writeInt(employees.size());
+        for (Employee employee : employees) {
+            writeEmployee(output, employee);
+        }
+    }
+
+    /**
+     * Reads the {@link Department}.
+     *
+     * @param input the input
+     * @return the {@link Department}
+     * @throws IOException if an I/O error occurs
+     */
+    private static Department readDepartment(DataInput input) throws IOException {
+
+        final long id = input.readLong();
+        final String name = readString(input);
+        final int size = input.readInt();
+        final List<Employee> employees = new ArrayList<>(size);
+        for (int i = 0; i < size; i++) {
+            employees.add(readEmployee(input));
+        }
+        return new Department().id(id).name(name).employees(List.copyOf(employees));
+    }
+
+    /**
+     * Writes the {@link Employee}.
+     *
+     * @param output   the output
+     * @param employee the {@link Employee}
+     * @throws IOException if an I/O error occurs
+     */
+    private static void writeEmployee(DataOutput output, Employee employee) throws IOException {
+
+        output.writeLong(employee.getId());
+        writeString(output, employee.getFirstName());
+        writeString(output, employee.getLastName());
+        writeString(output, Optional.ofNullable(employee.getTitle()).map(Title::getValue).orElse(null));
+    }
+
+    /**
+     * Reads the {@link Employee}.
+     *
+     * @param input the input
+     * @return the {@link Employee}
+     * @throws IOException if an I/O error occurs
+     */
+    private static Employee readEmployee(DataInput input) throws IOException {
+
+        final long id = input.readLong();
+        final String firstName = readString(input);
+        final String lastName = readString(input);
+        final Title title = Optional.ofNullable(readString(input)).map(Title::fromValue).orElse(null);
+        return new Employee().id(id).firstName(firstName).lastName(lastName).title(title);
+    }
+
+    /**
+     * Writes the nullable string.
+     *
+     * @param output the output
+     * @param value  the string
+     * @throws IOException if an I/O error occurs
+     */
+    private static void writeString(DataOutput output, String value) throws IOException {
+
+        output.writeBoolean(Objects.nonNull(value));
+        if (Objects.nonNull(value)) {
+            output.writeUTF(value);
+        }
+    }
+
+    /**
+     * Reads the nullable string.
+     *
+     * @param input the input
+     * @return the string
+     * @throws IOException if an I/O error occurs
+     */
+    private static String readString(DataInput input) throws IOException {
+        return input.readBoolean() ? input.readUTF() : null;
+    }
+
+    /**
+     * The writer of the frame's payload.
+     */
+    @FunctionalInterface
+    private interface PayloadWriter {
+        /**
+         * Writes the payload.
+         *
+         * @param output the output
+         * @throws IOException if an I/O error occurs
+         */
+        void write(DataOutput output) throws IOException;
+    }
+}
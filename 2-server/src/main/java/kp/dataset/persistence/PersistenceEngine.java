@@ -0,0 +1,256 @@
+package kp.dataset.persistence;
+
+import kp.SampleDataset;
+import kp.dataset.DatasetMutation;
+import kp.dataset.DatasetSnapshot;
+import kp.dataset.MutationListener;
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.lang.invoke.MethodHandles;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * The persistence engine under the {@link SampleDataset}.
+ * <p>
+ * Every {@link DatasetMutation} is appended to the {@link WriteAheadLog}.
+ * The checkpoint writes the {@link SnapshotFile} and deletes the log segments it covers.
+ * The recovery reads the latest {@link SnapshotFile} and replays the log segments written after it.
+ * </p>
+ * <p>
+ * The checkpoint is fuzzy: the dataset is not frozen while the snapshot is written.
+ * The log is rolled before the snapshot is taken, so every mutation missing from the snapshot
+ * is in the replayed segments, and replaying the mutation already in the snapshot is harmless.
+ * </p>
+ * <p>
+ * The mutation is logged by the {@link MutationListener} after the {@link SampleDataset} has published it,
+ * so the concurrent readers may see the mutation before it is durable. The listener only queues the mutation,
+ * it neither blocks nor throws while the writer holds the lock of the repository.
+ * With the synchronous commit the listener defers the wait with the {@link SampleDataset#deferCommit},
+ * so the writer is acknowledged only when its mutation is durable, and the failed write fails
+ * the writer's request after the lock is released. Without it the writer is acknowledged at once,
+ * and the mutations of the unfinished group commit are lost in the crash.
+ * </p>
+ * <p>
+ * The failed {@link WriteAheadLog} triggers the checkpoint at once. The checkpoint replaces the failed log
+ * with the new one and writes the snapshot of the dataset, which holds every mutation the failed log
+ * has rejected.
+ * </p>
+ */
+public class PersistenceEngine implements AutoCloseable {
+    private static final Log logger = LogFactory.getLog(MethodHandles.lookup().lookupClass().getName());
+
+    private final Path directory;
+    private final boolean fsync;
+    private final boolean syncCommit;
+    private final AtomicBoolean checkpointRequested = new AtomicBoolean();
+    private MutationListener listener;
+    private volatile ScheduledExecutorService checkpointExecutor;
+    private WriteAheadLog writeAheadLog;
+    private long nextSequence = 1;
+    private long checkpointAppendedCount;
+
+    /**
+     * The constructor.
+     *
+     * @param directory  the directory of the log segments and the snapshot files
+     * @param fsync      the flag whether the log batches are forced to the storage device
+     * @param syncCommit the flag whether the writer waits until its mutation is durable
+     */
+    public PersistenceEngine(Path directory, boolean fsync, boolean syncCommit) {
+
+        this.directory = directory;
+        this.fsync = fsync;
+        this.syncCommit = syncCommit;
+    }
+
+    /**
+     * Recovers the {@link SampleDataset} from the latest snapshot file and the log.
+     * <p>
+     * It must be called before the {@link #start(Duration)}.
+     * </p>
+     *
+     * @return the {@link RecoveryReport}
+     * @throws IOException if an I/O error occurs
+     */
+    public synchronized RecoveryReport recover() throws IOException {
+
+        final long start = System.nanoTime();
+        Files.createDirectories(directory);
+        final Optional<Path> snapshotFileOpt = SnapshotFile.latest(directory);
+        long departments = 0;
+        long fromSequence = 0;
+        if (snapshotFileOpt.isPresent()) {
+            departments = SnapshotFile.read(snapshotFileOpt.get(), SampleDataset::restoreDataset);
+            fromSequence = SnapshotFile.sequenceOf(snapshotFileOpt.get());
+        }
+        final long mutations = WriteAheadLog.replay(directory, fromSequence,
+                logged -> SampleDataset.replayMutation(logged.version(), logged.mutation()));
+        nextSequence = Math.max(fromSequence, WriteAheadLog.lastSequence(directory).orElse(0L) + 1);
+        return new RecoveryReport(SampleDataset.snapshot().version(), departments, mutations,
+                System.nanoTime() - start);
+    }
+
+    /**
+     * Starts logging the mutations of the {@link SampleDataset} and the periodic checkpoints.
+     *
+     * @param checkpointInterval the interval between the checkpoints
+     * @throws IOException if the log segment cannot be created
+     */
+    public synchronized void start(Duration checkpointInterval) throws IOException {
+
+        final WriteAheadLog startedLog = new WriteAheadLog(directory, nextSequence, fsync);
+        writeAheadLog = startedLog;
+        checkpointAppendedCount = 0;
+        listener = (version, mutation) -> append(startedLog, version, mutation);
+        SampleDataset.addMutationListener(listener);
+        checkpointExecutor = Executors.newSingleThreadScheduledExecutor(
+                Thread.ofPlatform().name("checkpoint").daemon().factory());
+        checkpointExecutor.scheduleWithFixedDelay(this::scheduledCheckpoint, checkpointInterval.toMillis(),
+                checkpointInterval.toMillis(), TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * Writes the snapshot file and deletes the log segments and the snapshot files it covers.
+     * <p>
+     * Nothing is written when no mutation was logged since the previous checkpoint.
+     * </p>
+     *
+     * @return the {@link Optional} with the written snapshot file
+     * @throws IOException if an I/O error occurs
+     */
+    public synchronized Optional<Path> checkpoint() throws IOException {
+
+        if (Objects.isNull(writeAheadLog)) {
+            return Optional.empty();
+        }
+        if (writeAheadLog.isFailed()) {
+            restartLog();
+        } else if (writeAheadLog.appendedCount() == checkpointAppendedCount) {
+            return Optional.empty();
+        }
+        final long appendedCount = writeAheadLog.appendedCount();
+        final long sequence = writeAheadLog.roll().join();
+        final DatasetSnapshot datasetSnapshot = SampleDataset.snapshot();
+        final Path snapshotFile = SnapshotFile.write(directory, sequence, datasetSnapshot.version(),
+                datasetSnapshot.repository().streamDepartments(Long.MIN_VALUE));
+        checkpointAppendedCount = appendedCount;
+        WriteAheadLog.deleteSegmentsBefore(directory, sequence);
+        SnapshotFile.deleteOlderThan(directory, sequence);
+        return Optional.of(snapshotFile);
+    }
+
+    /**
+     * Stops logging, writes the queued mutations and closes the log.
+     */
+    @Override
+    public synchronized void close() {
+
+        if (Objects.isNull(writeAheadLog)) {
+            return;
+        }
+        SampleDataset.removeMutationListener(listener);
+        checkpointExecutor.shutdownNow();
+        writeAheadLog.close();
+        writeAheadLog = null;
+    }
+
+    /**
+     * Replaces the failed {@link WriteAheadLog} with the new one started in the next segment.
+     * <p>
+     * The new log listens before the failed one stops listening, so no mutation misses both.
+     * The mutations missing from the failed log are written by the snapshot of the checkpoint which follows.
+     * </p>
+     *
+     * @throws IOException if the log segment cannot be created
+     */
+    private void restartLog() throws IOException {
+
+        final WriteAheadLog failedLog = writeAheadLog;
+        final MutationListener failedListener = listener;
+        final WriteAheadLog startedLog = new WriteAheadLog(directory, failedLog.sequence() + 1, fsync);
+        writeAheadLog = startedLog;
+        checkpointAppendedCount = 0;
+        listener = (version, mutation) -> append(startedLog, version, mutation);
+        SampleDataset.addMutationListener(listener);
+        SampleDataset.removeMutationListener(failedListener);
+        try {
+            failedLog.close();
+        } catch (CompletionException e) {
+            logger.warn("restartLog(): closing the failed log, exception[%s]".formatted(e.getMessage()));
+        }
+        logger.info("restartLog(): sequence[%d]".formatted(startedLog.sequence()));
+    }
+
+    /**
+     * Appends the {@link DatasetMutation} to the log.
+     * <p>
+     * With the synchronous commit the writer waits for the group commit of its batch
+     * after it has released the lock of the repository. The failed append requests the checkpoint.
+     * </p>
+     *
+     * @param log      the {@link WriteAheadLog}
+     * @param version  the version of the dataset
+     * @param mutation the {@link DatasetMutation}
+     */
+    private void append(WriteAheadLog log, long version, DatasetMutation mutation) {
+
+        CompletableFuture<Void> durable;
+        try {
+            durable = log.append(version, mutation);
+        } catch (RuntimeException e) {
+            durable = CompletableFuture.failedFuture(e);
+        }
+        durable.whenComplete((_, throwable) -> {
+            if (Objects.nonNull(throwable) && log.isFailed()) {
+                requestCheckpoint();
+            }
+        });
+        if (syncCommit) {
+            SampleDataset.deferCommit(durable);
+        }
+    }
+
+    /**
+     * Requests the checkpoint replacing the failed log, unless it is already requested.
+     */
+    private void requestCheckpoint() {
+
+        final ScheduledExecutorService executor = checkpointExecutor;
+        if (Objects.isNull(executor) || !checkpointRequested.compareAndSet(false, true)) {
+            return;
+        }
+        try {
+            executor.execute(this::scheduledCheckpoint);
+        } catch (RejectedExecutionException e) {
+            checkpointRequested.set(false);
+        }
+    }
+
+    /**
+     * Runs the checkpoint from the scheduler.
+     */
+    private void scheduledCheckpoint() {
+
+        checkpointRequested.set(false);
+        try {
+            checkpoint().ifPresent(file -> logger.info("scheduledCheckpoint(): file[%s]".formatted(
+                    file.getFileName())));
+        } catch (IOException | UncheckedIOException e) {
+            logger.error("scheduledCheckpoint(): exception[%s]".formatted(e.getMessage()));
+        }
+    }
+}
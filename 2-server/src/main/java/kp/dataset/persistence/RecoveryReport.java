@@ -0,0 +1,23 @@
+package kp.dataset.persistence;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * The report of the dataset recovery.
+ *
+ * @param version      the version of the recovered dataset
+ * @param departments  the number of the departments read from the snapshot file
+ * @param mutations    the number of the mutations replayed from the write-ahead log
+ * @param elapsedNanos the elapsed time in nanoseconds
+ */
+public record RecoveryReport(long version, long departments, long mutations, long elapsedNanos) {
+
+    /**
+     * Gets the elapsed time in milliseconds.
+     *
+     * @return the elapsed time in milliseconds
+     */
+    public long elapsedMillis() {
+        return TimeUnit.NANOSECONDS.toMillis(elapsedNanos);
+    }
+}
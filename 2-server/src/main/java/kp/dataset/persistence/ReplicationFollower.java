@@ -0,0 +1,314 @@
+package kp.dataset.persistence;
+
+import kp.SampleDataset;
+import kp.company.model.Department;
+import kp.dataset.DatasetMutation;
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.lang.invoke.MethodHandles;
+import java.net.InetSocketAddress;
+import java.net.Socket;
+import java.time.Duration;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+import java.util.Objects;
+import java.util.Spliterator;
+import java.util.Spliterators;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.stream.StreamSupport;
+
+/**
+ * The follower applying the log of the {@link DatasetMutation}s shipped by the {@link ReplicationLeader}
+ * to its {@link SampleDataset}.
+ * <p>
+ * The follower connects to the leader, catches up from the snapshot when needed and then applies
+ * the mutations in the leader's order. After the lost connection it reconnects and resumes
+ * after the last applied mutation.
+ * </p>
+ * <p>
+ * The staleness is the time since the follower last knew it had applied every mutation of the leader,
+ * i.e. since the last heartbeat received with no mutation missing. It grows while the follower falls behind
+ * or the leader is unreachable, so the reads are served with the bounded staleness.
+ * </p>
+ * <p>
+ * The applied mutations are written through the repository, so they are reported to the
+ * {@link kp.dataset.MutationListener}s, e.g. the search index, the metrics and the eviction of the cached responses.
+ * The follower neither persists them nor publishes them as the change events, because the read replica
+ * is configured without the persistence and without the change log.
+ * </p>
+ */
+public class ReplicationFollower implements AutoCloseable {
+    private static final Log logger = LogFactory.getLog(MethodHandles.lookup().lookupClass().getName());
+
+    private static final int BUFFER_SIZE = 64 * 1024;
+    private final InetSocketAddress leaderAddress;
+    private final Duration connectTimeout;
+    private final Duration readTimeout;
+    private final Duration retryInterval;
+    private final LongAdder appliedCount = new LongAdder();
+    private final LongAdder snapshotCount = new LongAdder();
+    private volatile long epoch;
+    private volatile long appliedSequence;
+    private volatile long leaderSequence;
+    private volatile long caughtUpNanos;
+    private volatile boolean caughtUp;
+    private volatile boolean closed;
+    private volatile Socket socket;
+    private Thread thread;
+
+    /**
+     * The constructor.
+     *
+     * @param leaderAddress  the address of the leader's replication socket
+     * @param connectTimeout the timeout of the connecting to the leader
+     * @param readTimeout    the longest silence of the leader before the connection is dropped,
+     *                       longer than the leader's heartbeat interval
+     * @param retryInterval  the interval between the attempts to reconnect
+     */
+    public ReplicationFollower(InetSocketAddress leaderAddress, Duration connectTimeout, Duration readTimeout,
+                               Duration retryInterval) {
+
+        this.leaderAddress = leaderAddress;
+        this.connectTimeout = connectTimeout;
+        this.readTimeout = readTimeout;
+        this.retryInterval = retryInterval;
+    }
+
+    /**
+     * Starts following the leader.
+     */
+    public synchronized void start() {
+
+        caughtUpNanos = System.nanoTime();
+        thread = Thread.ofPlatform().name("replication-follower").daemon().start(this::run);
+    }
+
+    /**
+     * Checks if the follower has caught up with the leader at least once.
+     *
+     * @return true after the first catch-up
+     */
+    public boolean isCaughtUp() {
+        return caughtUp;
+    }
+
+    /**
+     * Gets the staleness of the dataset.
+     * <p>
+     * Before the first catch-up it is the time since the start.
+     * </p>
+     *
+     * @return the staleness
+     */
+    public Duration getStaleness() {
+        return Duration.ofNanos(System.nanoTime() - caughtUpNanos);
+    }
+
+    /**
+     * Gets the number of the leader's mutations not applied yet, as known from the last heartbeat.
+     *
+     * @return the lag in the mutations
+     */
+    public long getLag() {
+        return Math.max(0, leaderSequence - appliedSequence);
+    }
+
+    /**
+     * Gets the number of the applied mutations.
+     *
+     * @return the number of the applied mutations
+     */
+    public long getAppliedCount() {
+        return appliedCount.sum();
+    }
+
+    /**
+     * Gets the number of the snapshots the follower caught up from.
+     *
+     * @return the number of the snapshots
+     */
+    public long getSnapshotCount() {
+        return snapshotCount.sum();
+    }
+
+    /**
+     * Stops following the leader.
+     */
+    @Override
+    public synchronized void close() {
+
+        closed = true;
+        if (Objects.nonNull(thread)) {
+            thread.interrupt();
+        }
+        try {
+            if (Objects.nonNull(socket)) {
+                socket.close();
+            }
+        } catch (IOException e) {
+            logger.debug("close(): exception[%s]".formatted(e.getMessage()));
+        }
+    }
+
+    /**
+     * Follows the leader, reconnecting after the failures, until the follower is closed.
+     */
+    private void run() {
+
+        while (!closed) {
+            try {
+                follow();
+            } catch (IOException | UncheckedIOException e) {
+                if (!closed) {
+                    logger.warn("run(): leader[%s], exception[%s]".formatted(leaderAddress, e.getMessage()));
+                }
+            }
+            try {
+                Thread.sleep(retryInterval);
+            } catch (InterruptedException _) {
+                return;
+            }
+        }
+    }
+
+    /**
+     * Connects to the leader and applies its messages until the connection fails.
+     *
+     * @throws IOException if an I/O error occurs
+     */
+    private void follow() throws IOException {
+
+        try (Socket connected = new Socket()) {
+            socket = connected;
+            connected.connect(leaderAddress, Math.toIntExact(connectTimeout.toMillis()));
+            connected.setTcpNoDelay(true);
+            connected.setSoTimeout(Math.toIntExact(readTimeout.toMillis()));
+            final DataOutputStream output = new DataOutputStream(
+                    new BufferedOutputStream(connected.getOutputStream()));
+            output.writeInt(ReplicationProtocol.MAGIC);
+            output.writeLong(epoch);
+            output.writeLong(appliedSequence);
+            output.flush();
+            logger.info("follow(): leader[%s], epoch[%d], sequence[%d]".formatted(leaderAddress, epoch,
+                    appliedSequence));
+            final DataInputStream input = new DataInputStream(
+                    new BufferedInputStream(connected.getInputStream(), BUFFER_SIZE));
+            while (!closed) {
+                final byte type = input.readByte();
+                switch (type) {
+                    case ReplicationProtocol.SNAPSHOT -> receiveSnapshot(input);
+                    case ReplicationProtocol.MUTATION -> {
+                        final long sequence = input.readLong();
+                        final LoggedMutation logged = MutationCodec.decodeMutation(
+                                ReplicationProtocol.readFrame(input));
+                        SampleDataset.applyMutation(logged.version(), logged.mutation());
+                        appliedSequence = sequence;
+                        appliedCount.increment();
+                    }
+                    case ReplicationProtocol.HEARTBEAT -> {
+                        leaderSequence = input.readLong();
+                        if (appliedSequence >= leaderSequence) {
+                            caughtUpNanos = System.nanoTime();
+                            caughtUp = true;
+                        }
+                    }
+                    default -> throw new IOException("Unknown message type[%d]".formatted(type));
+                }
+            }
+        } finally {
+            socket = null;
+        }
+    }
+
+    /**
+     * Restores the dataset from the snapshot streamed by the leader.
+     *
+     * @param input the input from the leader
+     * @throws IOException if an I/O error occurs or the snapshot is malformed
+     */
+    private void receiveSnapshot(DataInputStream input) throws IOException {
+
+        final long snapshotEpoch = input.readLong();
+        final long sequence = input.readLong();
+        final long version = input.readLong();
+        final SnapshotDepartments departments = new SnapshotDepartments(input);
+        SampleDataset.restoreDataset(version, StreamSupport.stream(Spliterators.spliteratorUnknownSize(
+                departments, Spliterator.ORDERED | Spliterator.NONNULL), false));
+        final long count = input.readLong();
+        if (count != departments.received) {
+            throw new IOException("Invalid snapshot, expected[%d], received[%d]".formatted(count,
+                    departments.received));
+        }
+        epoch = snapshotEpoch;
+        appliedSequence = sequence;
+        leaderSequence = sequence;
+        snapshotCount.increment();
+        logger.info("receiveSnapshot(): epoch[%d], sequence[%d], version[%d], departments[%d]".formatted(
+                snapshotEpoch, sequence, version, count));
+    }
+
+    /**
+     * The {@link Department}s of the snapshot read from the leader up to the end of the snapshot.
+     */
+    private static class SnapshotDepartments implements Iterator<Department> {
+
+        private final DataInputStream input;
+        private long received;
+        private Boolean hasNext;
+
+        /**
+         * The constructor.
+         *
+         * @param input the input from the leader
+         */
+        SnapshotDepartments(DataInputStream input) {
+            this.input = input;
+        }
+
+        /**
+         * {@inheritDoc}
+         */
+        @Override
+        public boolean hasNext() {
+
+            if (Objects.isNull(hasNext)) {
+                try {
+                    final byte type = input.readByte();
+                    if (type != ReplicationProtocol.DEPARTMENT && type != ReplicationProtocol.SNAPSHOT_END) {
+                        throw new IOException("Unexpected message type[%d] in the snapshot".formatted(type));
+                    }
+                    hasNext = type == ReplicationProtocol.DEPARTMENT;
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+            }
+            return hasNext;
+        }
+
+        /**
+         * {@inheritDoc}
+         */
+        @Override
+        public Department next() {
+
+            if (!hasNext()) {
+                throw new NoSuchElementException();
+            }
+            hasNext = null;
+            try {
+                final Department department = MutationCodec.decodeDepartment(ReplicationProtocol.readFrame(input));
+                received++;
+                return department;
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        }
+    }
+}
@@ -0,0 +1,257 @@
+package kp.dataset.persistence;
+
+import kp.SampleDataset;
+import kp.company.model.Department;
+import kp.dataset.DatasetMutation;
+import kp.dataset.DatasetSnapshot;
+import kp.dataset.changes.ChangeEvent;
+import kp.dataset.changes.ChangeLog;
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.lang.invoke.MethodHandles;
+import java.net.InetSocketAddress;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.time.Duration;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * The leader shipping the ordered log of the {@link DatasetMutation}s of the {@link SampleDataset}
+ * to the {@link ReplicationFollower}s.
+ * <p>
+ * The mutations are numbered and kept in the bounded {@link ChangeLog}. Every follower is served
+ * by its own virtual thread, which sends the mutations in batches and the heartbeat after every batch
+ * or after the heartbeat interval without mutations.
+ * </p>
+ * <p>
+ * The new follower, the follower of the previous leader epoch and the follower fallen behind the kept mutations
+ * catch up from the snapshot. The snapshot is fuzzy like the checkpoint of the {@link PersistenceEngine}:
+ * the sequence number is taken before the dataset is read, so the following mutations bring the follower
+ * to the current state, and applying the mutation already in the snapshot is harmless.
+ * The writers never wait for the followers.
+ * </p>
+ */
+public class ReplicationLeader implements AutoCloseable {
+    private static final Log logger = LogFactory.getLog(MethodHandles.lookup().lookupClass().getName());
+
+    private static final int MAX_BATCH_SIZE = 1024;
+    private static final int BUFFER_SIZE = 64 * 1024;
+    private final long epoch = System.currentTimeMillis();
+    private final ChangeLog changeLog;
+    private final Duration heartbeatInterval;
+    private final Set<Socket> followers = ConcurrentHashMap.newKeySet();
+    private final LongAdder shippedCount = new LongAdder();
+    private final LongAdder snapshotCount = new LongAdder();
+    private ServerSocket serverSocket;
+    private volatile boolean closed;
+
+    /**
+     * The constructor.
+     *
+     * @param capacity          the number of the kept mutations for the resuming followers
+     * @param heartbeatInterval the longest interval between the messages to the follower
+     */
+    public ReplicationLeader(int capacity, Duration heartbeatInterval) {
+
+        this.changeLog = new ChangeLog(capacity);
+        this.heartbeatInterval = heartbeatInterval;
+    }
+
+    /**
+     * Starts capturing the mutations and accepting the followers.
+     *
+     * @param address the address of the replication socket
+     * @throws IOException if the socket cannot be bound
+     */
+    public synchronized void start(InetSocketAddress address) throws IOException {
+
+        changeLog.start();
+        serverSocket = new ServerSocket();
+        serverSocket.bind(address);
+        Thread.ofPlatform().name("replication-leader").daemon().start(this::accept);
+        logger.info("start(): address[%s], epoch[%d]".formatted(address, epoch));
+    }
+
+    /**
+     * Gets the number of the connected followers.
+     *
+     * @return the number of the followers
+     */
+    public int getFollowerCount() {
+        return followers.size();
+    }
+
+    /**
+     * Gets the number of the mutations shipped to all followers.
+     *
+     * @return the number of the shipped mutations
+     */
+    public long getShippedCount() {
+        return shippedCount.sum();
+    }
+
+    /**
+     * Gets the number of the snapshots sent to the followers catching up.
+     *
+     * @return the number of the snapshots
+     */
+    public long getSnapshotCount() {
+        return snapshotCount.sum();
+    }
+
+    /**
+     * Gets the sequence number of the last mutation.
+     *
+     * @return the sequence number
+     */
+    public long getLastSequence() {
+        return changeLog.getLastSequence();
+    }
+
+    /**
+     * Stops accepting the followers, disconnects them and stops capturing the mutations.
+     */
+    @Override
+    public synchronized void close() {
+
+        if (closed) {
+            return;
+        }
+        closed = true;
+        changeLog.close();
+        closeQuietly(serverSocket);
+        followers.forEach(ReplicationLeader::closeQuietly);
+    }
+
+    /**
+     * Accepts the followers until the leader is closed.
+     */
+    private void accept() {
+
+        while (!closed) {
+            try {
+                final Socket socket = serverSocket.accept();
+                socket.setTcpNoDelay(true);
+                followers.add(socket);
+                Thread.ofVirtual().name("replication-" + socket.getRemoteSocketAddress()).start(() -> serve(socket));
+            } catch (IOException e) {
+                if (!closed) {
+                    logger.error("accept(): exception[%s]".formatted(e.getMessage()));
+                }
+            }
+        }
+    }
+
+    /**
+     * Serves the follower until it disconnects or the leader is closed.
+     *
+     * @param socket the follower's socket
+     */
+    private void serve(Socket socket) {
+
+        try (socket) {
+            final DataInputStream input = new DataInputStream(new BufferedInputStream(socket.getInputStream()));
+            final DataOutputStream output = new DataOutputStream(
+                    new BufferedOutputStream(socket.getOutputStream(), BUFFER_SIZE));
+            if (input.readInt() != ReplicationProtocol.MAGIC) {
+                throw new IOException("Invalid handshake");
+            }
+            final long followerEpoch = input.readLong();
+            final long followerSequence = input.readLong();
+            long sequence = followerEpoch == epoch && changeLog.isAvailable(followerSequence)
+                    ? followerSequence : sendSnapshot(output);
+            logger.info("serve(): follower[%s], sequence[%d]".formatted(socket.getRemoteSocketAddress(), sequence));
+            while (!closed) {
+                final Optional<List<ChangeEvent>> eventsOpt = changeLog.read(sequence, MAX_BATCH_SIZE,
+                        heartbeatInterval);
+                if (eventsOpt.isEmpty()) {
+                    sequence = closed ? sequence : sendSnapshot(output);
+                    continue;
+                }
+                for (ChangeEvent event : eventsOpt.get()) {
+                    output.writeByte(ReplicationProtocol.MUTATION);
+                    output.writeLong(event.sequence());
+                    output.write(MutationCodec.encodeFrame(event.version(), event.mutation()));
+                    sequence = event.sequence();
+                }
+                output.writeByte(ReplicationProtocol.HEARTBEAT);
+                output.writeLong(changeLog.getLastSequence());
+                output.flush();
+                shippedCount.add(eventsOpt.get().size());
+            }
+        } catch (IOException e) {
+            if (!closed) {
+                logger.warn("serve(): follower[%s] disconnected, exception[%s]".formatted(
+                        socket.getRemoteSocketAddress(), e.getMessage()));
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } finally {
+            followers.remove(socket);
+        }
+    }
+
+    /**
+     * Sends the snapshot of the current dataset.
+     * <p>
+     * The dataset loaded while the snapshot was sent has its mutation already counted in the sequence number,
+     * so the snapshot is sent again.
+     * </p>
+     *
+     * @param output the output to the follower
+     * @return the sequence number covered by the snapshot
+     * @throws IOException if an I/O error occurs
+     */
+    private long sendSnapshot(DataOutputStream output) throws IOException {
+
+        long sequence;
+        DatasetSnapshot datasetSnapshot;
+        do {
+            sequence = changeLog.getLastSequence();
+            datasetSnapshot = SampleDataset.snapshot();
+            output.writeByte(ReplicationProtocol.SNAPSHOT);
+            output.writeLong(epoch);
+            output.writeLong(sequence);
+            output.writeLong(datasetSnapshot.version());
+            long count = 0;
+            for (Iterator<Department> iterator = datasetSnapshot.repository().streamDepartments(Long.MIN_VALUE)
+                    .iterator(); iterator.hasNext(); count++) {
+                output.writeByte(ReplicationProtocol.DEPARTMENT);
+                output.write(MutationCodec.encodeDepartmentFrame(iterator.next()));
+            }
+            output.writeByte(ReplicationProtocol.SNAPSHOT_END);
+            output.writeLong(count);
+            snapshotCount.increment();
+        } while (SampleDataset.snapshot().version() != datasetSnapshot.version());
+        output.flush();
+        return sequence;
+    }
+
+    /**
+     * Closes the socket ignoring the failure.
+     *
+     * @param closeable the socket
+     */
+    private static void closeQuietly(AutoCloseable closeable) {
+
+        try {
+            if (Objects.nonNull(closeable)) {
+                closeable.close();
+            }
+        } catch (Exception e) {
+            logger.debug("closeQuietly(): exception[%s]".formatted(e.getMessage()));
+        }
+    }
+}
@@ -0,0 +1,83 @@
+package kp.dataset.persistence;
+
+import kp.company.model.Department;
+import kp.dataset.DatasetMutation;
+
+import java.io.DataInput;
+import java.io.IOException;
+
+/**
+ * The protocol of the log shipping from the {@link ReplicationLeader} to the {@link ReplicationFollower}.
+ * <p>
+ * The follower opens the connection with the handshake: the magic number, the epoch of the leader
+ * and the sequence number of the last applied mutation, zeros for the new follower.
+ * The leader answers with the stream of the messages, every one starting with its type:
+ * </p>
+ * <ul>
+ * <li>the snapshot: the epoch, the sequence number covered by the snapshot and the dataset version,
+ * then the {@link Department} frames and the end with their number
+ * <li>the mutation: the sequence number and the {@link DatasetMutation} frame, the same as in the write-ahead log
+ * <li>the heartbeat: the sequence number of the last mutation of the leader
+ * </ul>
+ * <p>
+ * The follower resuming in the same epoch within the kept mutations continues after its sequence number,
+ * otherwise it catches up from the snapshot.
+ * </p>
+ */
+final class ReplicationProtocol {
+
+    /**
+     * The magic number of the handshake.
+     */
+    static final int MAGIC = 0x4B505231;
+    /**
+     * The start of the snapshot.
+     */
+    static final byte SNAPSHOT = 1;
+    /**
+     * The {@link Department} of the snapshot.
+     */
+    static final byte DEPARTMENT = 2;
+    /**
+     * The end of the snapshot.
+     */
+    static final byte SNAPSHOT_END = 3;
+    /**
+     * The {@link DatasetMutation}.
+     */
+    static final byte MUTATION = 4;
+    /**
+     * The heartbeat.
+     */
+    static final byte HEARTBEAT = 5;
+
+    private static final int MAX_FRAME_LENGTH = 64 * 1024 * 1024;
+
+    /**
+     * Private constructor to prevent instantiation.
+     */
+    private ReplicationProtocol() {
+    }
+
+    /**
+     * Reads the frame and verifies its checksum.
+     *
+     * @param input the input
+     * @return the frame's payload
+     * @throws IOException if an I/O error occurs or the frame is malformed
+     */
+    static byte[] readFrame(DataInput input) throws IOException {
+
+        final int length = input.readInt();
+        final int crc = input.readInt();
+        if (length <= 0 || length > MAX_FRAME_LENGTH) {
+            throw new IOException("Invalid frame length[%d]".formatted(length));
+        }
+        final byte[] payload = new byte[length];
+        input.readFully(payload);
+        if (crc != MutationCodec.checksum(payload, 0, length)) {
+            throw new IOException("Invalid frame checksum");
+        }
+        return payload;
+    }
+}
@@ -0,0 +1,324 @@
+package kp.dataset.persistence;
+
+import kp.company.model.Department;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.lang.foreign.Arena;
+import java.lang.foreign.MemorySegment;
+import java.lang.foreign.ValueLayout;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Optional;
+import java.util.function.BiConsumer;
+import java.util.stream.LongStream;
+import java.util.stream.Stream;
+
+/**
+ * The compact snapshot of the dataset in the memory-mapped file.
+ * <p>
+ * The file holds the header (the magic number and the dataset version), one frame per {@link Department}
+ * and the trailer (the end marker and the number of the {@link Department}s).
+ * The number in the file name is the sequence of the first write-ahead log segment to replay after it.
+ * </p>
+ * <p>
+ * The file is written to the temporary file, forced and atomically renamed, so the snapshot file
+ * is either complete or missing. It is read through one mapping and the frames are decoded in parallel.
+ * </p>
+ */
+final class SnapshotFile {
+
+    private static final String FILE_PREFIX = "snapshot-";
+    private static final String FILE_SUFFIX = ".bin";
+    private static final String FILE_NAME_FORMAT = FILE_PREFIX + "%020d" + FILE_SUFFIX;
+    private static final String TEMPORARY_SUFFIX = ".tmp";
+    private static final int MAGIC = 0x4B505331;
+    private static final int END_MARKER = -1;
+    private static final long HEADER_LENGTH = Integer.BYTES + Long.BYTES;
+    private static final long TRAILER_LENGTH = Integer.BYTES + Long.BYTES;
+    private static final long MAPPING_WINDOW = 64L * 1024 * 1024;
+    private static final ValueLayout.OfInt INT_LAYOUT = ValueLayout.JAVA_INT_UNALIGNED.withOrder(ByteOrder.BIG_ENDIAN);
+    private static final ValueLayout.OfLong LONG_LAYOUT =
+            ValueLayout.JAVA_LONG_UNALIGNED.withOrder(ByteOrder.BIG_ENDIAN);
+
+    /**
+     * Private constructor to prevent instantiation.
+     */
+    private SnapshotFile() {
+    }
+
+    /**
+     * Writes the snapshot file.
+     *
+     * @param directory   the directory
+     * @param sequence    the sequence of the first segment to replay after the snapshot
+     * @param version     the version of the dataset
+     * @param departments the stream of {@link Department}s
+     * @return the snapshot file
+     * @throws IOException if an I/O error occurs
+     */
+    static Path write(Path directory, long sequence, long version, Stream<Department> departments)
+            throws IOException {
+
+        final Path file = directory.resolve(FILE_NAME_FORMAT.formatted(sequence));
+        final Path temporary = directory.resolve(file.getFileName() + TEMPORARY_SUFFIX);
+        try (FileChannel channel = FileChannel.open(temporary, StandardOpenOption.CREATE,
+                StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.READ, StandardOpenOption.WRITE);
+             MappedWriter writer = new MappedWriter(channel)) {
+            writer.ensure(HEADER_LENGTH);
+            writer.putInt(MAGIC);
+            writer.putLong(version);
+            long count = 0;
+            for (Iterator<Department> iterator = departments.iterator(); iterator.hasNext(); count++) {
+                writer.put(MutationCodec.encodeDepartmentFrame(iterator.next()));
+            }
+            writer.ensure(TRAILER_LENGTH);
+            writer.putInt(END_MARKER);
+            writer.putLong(count);
+            writer.finish();
+        }
+        return Files.move(temporary, file, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+    }
+
+    /**
+     * Reads the snapshot file.
+     * <p>
+     * The stream of {@link Department}s is parallel, and it is valid only inside the consumer.
+     * </p>
+     *
+     * @param file     the snapshot file
+     * @param consumer the consumer of the dataset version and the stream of {@link Department}s
+     * @return the number of the {@link Department}s
+     * @throws IOException if an I/O error occurs or the file is malformed
+     */
+    static long read(Path file, BiConsumer<Long, Stream<Department>> consumer) throws IOException {
+
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ);
+             Arena arena = Arena.ofShared()) {
+            final MemorySegment segment = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size(), arena);
+            if (segment.byteSize() < HEADER_LENGTH + TRAILER_LENGTH || segment.get(INT_LAYOUT, 0) != MAGIC) {
+                throw new IOException("Invalid snapshot header[%s]".formatted(file.getFileName()));
+            }
+            final long version = segment.get(LONG_LAYOUT, Integer.BYTES);
+            final LongStream.Builder offsets = LongStream.builder();
+            long offset = HEADER_LENGTH;
+            long count = 0;
+            while (offset + TRAILER_LENGTH <= segment.byteSize()) {
+                final int length = segment.get(INT_LAYOUT, offset);
+                if (length <= 0) {
+                    break;
+                }
+                offsets.add(offset);
+                offset += MutationCodec.FRAME_HEADER_LENGTH + length;
+                count++;
+            }
+            if (offset + TRAILER_LENGTH != segment.byteSize() || segment.get(INT_LAYOUT, offset) != END_MARKER
+                || segment.get(LONG_LAYOUT, offset + Integer.BYTES) != count) {
+                throw new IOException("Invalid snapshot trailer[%s]".formatted(file.getFileName()));
+            }
+            consumer.accept(version, offsets.build().parallel().mapToObj(frameOffset -> decode(segment, frameOffset)));
+            return count;
+        }
+    }
+
+    /**
+     * Finds the latest snapshot file.
+     *
+     * @param directory the directory
+     * @return the {@link Optional} with the latest snapshot file
+     * @throws IOException if an I/O error occurs
+     */
+    static Optional<Path> latest(Path directory) throws IOException {
+        return list(directory).stream().reduce((_, second) -> second);
+    }
+
+    /**
+     * Gets the sequence of the first segment to replay after the snapshot.
+     *
+     * @param file the snapshot file
+     * @return the sequence
+     */
+    static long sequenceOf(Path file) {
+
+        final String name = file.getFileName().toString();
+        return Long.parseLong(name.substring(FILE_PREFIX.length(), name.length() - FILE_SUFFIX.length()));
+    }
+
+    /**
+     * Deletes the snapshot files older than the given one and the leftover temporary files.
+     *
+     * @param directory the directory
+     * @param sequence  the sequence of the kept snapshot file
+     * @throws IOException if an I/O error occurs
+     */
+    static void deleteOlderThan(Path directory, long sequence) throws IOException {
+
+        for (Path file : list(directory)) {
+            if (sequenceOf(file) < sequence) {
+                Files.deleteIfExists(file);
+            }
+        }
+        try (Stream<Path> paths = Files.list(directory)) {
+            for (Path path : paths.filter(path -> path.getFileName().toString().endsWith(TEMPORARY_SUFFIX))
+                    .toList()) {
+                Files.deleteIfExists(path);
+            }
+        }
+    }
+
+    /**
+     * Lists the snapshot files ordered by the sequence.
+     *
+     * @param directory the directory
+     * @return the list of the snapshot files
+     * @throws IOException if an I/O error occurs
+     */
+    private static List<Path> list(Path directory) throws IOException {
+
+        try (Stream<Path> paths = Files.list(directory)) {
+            return paths.filter(path -> {
+                final String name = path.getFileName().toString();
+                return name.startsWith(FILE_PREFIX) && name.endsWith(FILE_SUFFIX);
+            }).sorted().toList();
+        }
+    }
+
+    /**
+     * Decodes the {@link Department} from the frame in the mapped file.
+     *
+     * @param segment the {@link MemorySegment} of the mapped file
+     * @param offset  the frame's offset
+     * @return the {@link Department}
+     */
+    private static Department decode(MemorySegment segment, long offset) {
+
+        final int length = segment.get(INT_LAYOUT, offset);
+        final int crc = segment.get(INT_LAYOUT, offset + Integer.BYTES);
+        final byte[] payload = segment.asSlice(offset + MutationCodec.FRAME_HEADER_LENGTH, length)
+                .toArray(ValueLayout.JAVA_BYTE);
+        try {
+            if (crc != MutationCodec.checksum(payload, 0, length)) {
+                throw new IOException("Invalid snapshot frame checksum at offset[%d]".formatted(offset));
+            }
+            return MutationCodec.decodeDepartment(payload);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    /**
+     * The writer to the file mapped window by window.
+     * <p>
+     * The file grows by the mapped windows and it is truncated to the written length at the end.
+     * </p>
+     */
+    private static final class MappedWriter implements AutoCloseable {
+
+        private final FileChannel channel;
+        private Arena arena;
+        private MemorySegment window;
+        private long windowStart;
+        private long position;
+
+        /**
+         * The constructor.
+         *
+         * @param channel the {@link FileChannel}
+         */
+        MappedWriter(FileChannel channel) {
+            this.channel = channel;
+        }
+
+        /**
+         * Ensures the mapped window has room for the given number of bytes.
+         *
+         * @param length the number of bytes
+         * @throws IOException if an I/O error occurs
+         */
+        void ensure(long length) throws IOException {
+
+            if (window != null && position + length <= windowStart + window.byteSize()) {
+                return;
+            }
+            unmap();
+            arena = Arena.ofConfined();
+            windowStart = position;
+            window = channel.map(FileChannel.MapMode.READ_WRITE, windowStart, Math.max(MAPPING_WINDOW, length),
+                    arena);
+        }
+
+        /**
+         * Puts the bytes.
+         *
+         * @param bytes the bytes
+         * @throws IOException if an I/O error occurs
+         */
+        void put(byte[] bytes) throws IOException {
+
+            ensure(bytes.length);
+            MemorySegment.copy(bytes, 0, window, ValueLayout.JAVA_BYTE, position - windowStart, bytes.length);
+            position += bytes.length;
+        }
+
+        /**
+         * Puts the int.
+         *
+         * @param value the int
+         */
+        void putInt(int value) {
+
+            window.set(INT_LAYOUT, position - windowStart, value);
+            position += Integer.BYTES;
+        }
+
+        /**
+         * Puts the long.
+         *
+         * @param value the long
+         */
+        void putLong(long value) {
+
+            window.set(LONG_LAYOUT, position - windowStart, value);
+            position += Long.BYTES;
+        }
+
+        /**
+         * Forces the written bytes and cuts the file to the written length.
+         *
+         * @throws IOException if an I/O error occurs
+         */
+        void finish() throws IOException {
+
+            unmap();
+            channel.truncate(position);
+            channel.force(true);
+        }
+
+        /**
+         * Forces and unmaps the current window.
+         */
+        @Override
+        public void close() {
+            unmap();
+        }
+
+        /**
+         * Forces and unmaps the current window.
+         */
+        private void unmap() {
+
+            if (window != null) {
+                window.force();
+                arena.close();
+                window = null;
+                arena = null;
+            }
+        }
+    }
+}
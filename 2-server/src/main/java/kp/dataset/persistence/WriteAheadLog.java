@@ -0,0 +1,518 @@
+package kp.dataset.persistence;
+
+import kp.dataset.DatasetMutation;
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+
+import java.io.BufferedInputStream;
+import java.io.DataInputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.lang.invoke.MethodHandles;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Consumer;
+import java.util.stream.Stream;
+
+/**
+ * The write-ahead log of the {@link DatasetMutation}s.
+ * <p>
+ * The request threads only encode the frames and put them on the queue.
+ * The single writer thread drains the queue and writes the whole batch with one write and one fsync
+ * (the group commit), so the cost of the fsync is shared by all mutations waiting in the batch.
+ * </p>
+ * <p>
+ * The log is split into the segment files numbered by the sequence. The new segment is started on the roll,
+ * so the segments before the checkpoint can be deleted. A segment is never appended to after the restart.
+ * </p>
+ * <p>
+ * The failed write leaves the log failed: the frame may be torn, and the replay stops the segment there,
+ * so no frame is written after it. Every later append and roll fails at once,
+ * and the log must be replaced by the new one started after the checkpoint.
+ * </p>
+ * <p>
+ * The commands queued after the writer thread has stopped are rejected at once, so no caller waits forever
+ * for the closed log.
+ * </p>
+ */
+final class WriteAheadLog implements AutoCloseable {
+    private static final Log logger = LogFactory.getLog(MethodHandles.lookup().lookupClass().getName());
+
+    private static final String SEGMENT_PREFIX = "wal-";
+    private static final String SEGMENT_SUFFIX = ".log";
+    private static final String SEGMENT_NAME_FORMAT = SEGMENT_PREFIX + "%020d" + SEGMENT_SUFFIX;
+    private static final int MAX_BATCH_SIZE = 4096;
+    private static final int MAX_FRAME_LENGTH = 64 * 1024 * 1024;
+
+    private final Path directory;
+    private final boolean fsync;
+    private final BlockingQueue<Command> queue = new LinkedBlockingQueue<>();
+    private final AtomicLong appendedCount = new AtomicLong();
+    private volatile boolean closed;
+    private volatile boolean writerStopped;
+    private volatile IOException failure;
+    private volatile long sequence;
+    private FileChannel channel;
+
+    /**
+     * The constructor. It starts the new segment and the writer thread.
+     *
+     * @param directory the directory
+     * @param sequence  the sequence of the first segment
+     * @param fsync     the flag whether the batch is forced to the storage device
+     * @throws IOException if the segment cannot be created
+     */
+    WriteAheadLog(Path directory, long sequence, boolean fsync) throws IOException {
+
+        this.directory = directory;
+        this.fsync = fsync;
+        this.sequence = sequence;
+        this.channel = openSegment(sequence);
+        Thread.ofPlatform().name("wal-writer").daemon().start(this::writeLoop);
+    }
+
+    /**
+     * Appends the {@link DatasetMutation}.
+     *
+     * @param version  the version of the dataset
+     * @param mutation the {@link DatasetMutation}
+     * @return the {@link CompletableFuture} completed when the mutation is durable
+     */
+    CompletableFuture<Void> append(long version, DatasetMutation mutation) {
+
+        if (closed) {
+            return CompletableFuture.failedFuture(new IllegalStateException("The write-ahead log is closed"));
+        }
+        if (isFailed()) {
+            return CompletableFuture.failedFuture(failedException());
+        }
+        final Append append = new Append(MutationCodec.encodeFrame(version, mutation), new CompletableFuture<>());
+        appendedCount.incrementAndGet();
+        enqueue(append);
+        return append.durable();
+    }
+
+    /**
+     * Starts the next segment after all mutations appended so far.
+     *
+     * @return the {@link CompletableFuture} with the sequence of the started segment
+     */
+    CompletableFuture<Long> roll() {
+
+        final Roll roll = new Roll(new CompletableFuture<>());
+        enqueue(roll);
+        return roll.started();
+    }
+
+    /**
+     * Checks if the write of the log has failed.
+     *
+     * @return true if the log is failed
+     */
+    boolean isFailed() {
+        return Objects.nonNull(failure);
+    }
+
+    /**
+     * Gets the sequence of the current segment.
+     *
+     * @return the sequence
+     */
+    long sequence() {
+        return sequence;
+    }
+
+    /**
+     * Gets the number of the appended mutations.
+     *
+     * @return the number of the appended mutations
+     */
+    long appendedCount() {
+        return appendedCount.get();
+    }
+
+    /**
+     * Writes all queued mutations, closes the segment and stops the writer thread.
+     */
+    @Override
+    public void close() {
+
+        closed = true;
+        final Stop stop = new Stop(new CompletableFuture<>());
+        enqueue(stop);
+        stop.stopped().join();
+    }
+
+    /**
+     * Replays the segments starting with the given sequence.
+     * <p>
+     * The torn or corrupted frame ends the segment: the segment is truncated to the last valid frame.
+     * </p>
+     *
+     * @param directory     the directory
+     * @param fromSequence  the sequence of the first segment to replay
+     * @param mutationSink  the consumer of the {@link LoggedMutation}s
+     * @return the number of the replayed mutations
+     * @throws IOException if an I/O error occurs
+     */
+    static long replay(Path directory, long fromSequence, Consumer<LoggedMutation> mutationSink)
+            throws IOException {
+
+        long count = 0;
+        for (Path segment : segments(directory)) {
+            if (sequenceOf(segment) >= fromSequence) {
+                count += replaySegment(segment, mutationSink);
+            }
+        }
+        return count;
+    }
+
+    /**
+     * Gets the sequence of the last segment.
+     *
+     * @param directory the directory
+     * @return the {@link Optional} with the sequence of the last segment
+     * @throws IOException if an I/O error occurs
+     */
+    static Optional<Long> lastSequence(Path directory) throws IOException {
+        return segments(directory).stream().map(WriteAheadLog::sequenceOf).reduce(Math::max);
+    }
+
+    /**
+     * Deletes the segments older than the given sequence.
+     *
+     * @param directory the directory
+     * @param sequence  the sequence of the oldest kept segment
+     * @throws IOException if an I/O error occurs
+     */
+    static void deleteSegmentsBefore(Path directory, long sequence) throws IOException {
+
+        for (Path segment : segments(directory)) {
+            if (sequenceOf(segment) < sequence) {
+                Files.deleteIfExists(segment);
+            }
+        }
+    }
+
+    /**
+     * Replays the segment.
+     *
+     * @param segment      the segment
+     * @param mutationSink the consumer of the {@link LoggedMutation}s
+     * @return the number of the replayed mutations
+     * @throws IOException if an I/O error occurs
+     */
+    private static long replaySegment(Path segment, Consumer<LoggedMutation> mutationSink) throws IOException {
+
+        long count = 0;
+        long validPosition = 0;
+        try (DataInputStream input = new DataInputStream(new BufferedInputStream(Files.newInputStream(segment)))) {
+            while (true) {
+                final int length = input.readInt();
+                final int crc = input.readInt();
+                if (length <= 0 || length > MAX_FRAME_LENGTH) {
+                    throw new IOException("Invalid frame length[%d]".formatted(length));
+                }
+                final byte[] payload = new byte[length];
+                input.readFully(payload);
+                if (crc != MutationCodec.checksum(payload, 0, length)) {
+                    throw new IOException("Invalid frame checksum");
+                }
+                mutationSink.accept(MutationCodec.decodeMutation(payload));
+                validPosition += MutationCodec.FRAME_HEADER_LENGTH + length;
+                count++;
+            }
+        } catch (EOFException e) {
+            if (validPosition < Files.size(segment)) {
+                truncate(segment, validPosition, "torn frame");
+            }
+        } catch (IOException e) {
+            truncate(segment, validPosition, e.getMessage());
+        }
+        return count;
+    }
+
+    /**
+     * Truncates the segment after the last valid frame.
+     *
+     * @param segment  the segment
+     * @param position the end of the last valid frame
+     * @param reason   the reason
+     * @throws IOException if an I/O error occurs
+     */
+    private static void truncate(Path segment, long position, String reason) throws IOException {
+
+        logger.warn("truncate(): segment[%s], position[%d], reason[%s]".formatted(segment.getFileName(),
+                position, reason));
+        try (FileChannel fileChannel = FileChannel.open(segment, StandardOpenOption.WRITE)) {
+            fileChannel.truncate(position);
+            fileChannel.force(true);
+        }
+    }
+
+    /**
+     * Lists the segments ordered by the sequence.
+     *
+     * @param directory the directory
+     * @return the list of the segments
+     * @throws IOException if an I/O error occurs
+     */
+    private static List<Path> segments(Path directory) throws IOException {
+
+        try (Stream<Path> paths = Files.list(directory)) {
+            return paths.filter(path -> {
+                final String name = path.getFileName().toString();
+                return name.startsWith(SEGMENT_PREFIX) && name.endsWith(SEGMENT_SUFFIX);
+            }).sorted().toList();
+        }
+    }
+
+    /**
+     * Gets the sequence of the segment from its name.
+     *
+     * @param segment the segment
+     * @return the sequence
+     */
+    private static long sequenceOf(Path segment) {
+
+        final String name = segment.getFileName().toString();
+        return Long.parseLong(name.substring(SEGMENT_PREFIX.length(), name.length() - SEGMENT_SUFFIX.length()));
+    }
+
+    /**
+     * Creates the segment.
+     *
+     * @param segmentSequence the sequence of the segment
+     * @return the {@link FileChannel}
+     * @throws IOException if an I/O error occurs
+     */
+    private FileChannel openSegment(long segmentSequence) throws IOException {
+
+        return FileChannel.open(directory.resolve(SEGMENT_NAME_FORMAT.formatted(segmentSequence)),
+                StandardOpenOption.CREATE_NEW, StandardOpenOption.WRITE);
+    }
+
+    /**
+     * Puts the command on the queue, or rejects it when the writer thread has stopped.
+     * <p>
+     * The stopped flag is checked after the command is queued, so either the writer thread takes the command
+     * or the command is rejected here.
+     * </p>
+     *
+     * @param command the {@link Command}
+     */
+    private void enqueue(Command command) {
+
+        queue.add(command);
+        if (writerStopped) {
+            rejectQueued();
+        }
+    }
+
+    /**
+     * Rejects the commands left on the queue after the writer thread has stopped.
+     */
+    private void rejectQueued() {
+
+        Command command;
+        while (Objects.nonNull(command = queue.poll())) {
+            reject(command);
+        }
+    }
+
+    /**
+     * Rejects the command taken after the stop command. The stop command completes, the log is already closed.
+     *
+     * @param command the {@link Command}
+     */
+    private static void reject(Command command) {
+
+        final IllegalStateException exception = new IllegalStateException("The write-ahead log is closed");
+        switch (command) {
+            case Append append -> append.durable().completeExceptionally(exception);
+            case Roll(CompletableFuture<Long> started) -> started.completeExceptionally(exception);
+            case Stop(CompletableFuture<Void> stopped) -> stopped.complete(null);
+        }
+    }
+
+    /**
+     * The loop of the writer thread.
+     * <p>
+     * After the loop the commands still queued are rejected.
+     * </p>
+     */
+    private void writeLoop() {
+
+        try {
+            writeCommands();
+        } finally {
+            writerStopped = true;
+            rejectQueued();
+        }
+    }
+
+    /**
+     * Writes the queued commands until the stop command.
+     */
+    private void writeCommands() {
+
+        final List<Command> batch = new ArrayList<>(MAX_BATCH_SIZE);
+        final List<Append> appends = new ArrayList<>(MAX_BATCH_SIZE);
+        boolean running = true;
+        while (running) {
+            try {
+                batch.add(queue.take());
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            }
+            queue.drainTo(batch, MAX_BATCH_SIZE - 1);
+            for (Command command : batch) {
+                if (!running) {
+                    reject(command);
+                    continue;
+                }
+                switch (command) {
+                    case Append append -> appends.add(append);
+                    case Roll(CompletableFuture<Long> started) -> {
+                        writeBatch(appends);
+                        switchSegment(started);
+                    }
+                    case Stop(CompletableFuture<Void> stopped) -> {
+                        writeBatch(appends);
+                        try {
+                            closeSegment();
+                            stopped.complete(null);
+                        } catch (UncheckedIOException e) {
+                            stopped.completeExceptionally(e);
+                        }
+                        running = false;
+                    }
+                }
+            }
+            writeBatch(appends);
+            batch.clear();
+        }
+    }
+
+    /**
+     * Writes the batch of frames with one gathering write and one fsync.
+     *
+     * @param appends the list of {@link Append}s, cleared afterward
+     */
+    private void writeBatch(List<Append> appends) {
+
+        if (appends.isEmpty()) {
+            return;
+        }
+        if (isFailed()) {
+            final IOException exception = failedException();
+            appends.forEach(append -> append.durable().completeExceptionally(exception));
+            appends.clear();
+            return;
+        }
+        try {
+            final ByteBuffer[] buffers = appends.stream().map(Append::frame).map(ByteBuffer::wrap)
+                    .toArray(ByteBuffer[]::new);
+            long remaining = appends.stream().mapToLong(append -> append.frame().length).sum();
+            while (remaining > 0) {
+                remaining -= channel.write(buffers);
+            }
+            if (fsync) {
+                channel.force(false);
+            }
+            appends.forEach(append -> append.durable().complete(null));
+        } catch (IOException e) {
+            logger.error("writeBatch(): log failed, segment sequence[%d], exception[%s]".formatted(sequence,
+                    e.getMessage()));
+            failure = e;
+            appends.forEach(append -> append.durable().completeExceptionally(e));
+        }
+        appends.clear();
+    }
+
+    /**
+     * Closes the current segment and starts the next one.
+     *
+     * @param started the {@link CompletableFuture} completed with the sequence of the started segment
+     */
+    private void switchSegment(CompletableFuture<Long> started) {
+
+        if (isFailed()) {
+            started.completeExceptionally(failedException());
+            return;
+        }
+        try {
+            closeSegment();
+            channel = openSegment(sequence + 1);
+            sequence++;
+            started.complete(sequence);
+        } catch (IOException | UncheckedIOException e) {
+            started.completeExceptionally(e);
+        }
+    }
+
+    /**
+     * Creates the exception of the operation rejected by the failed log.
+     *
+     * @return the {@link IOException}
+     */
+    private IOException failedException() {
+        return new IOException("The write-ahead log failed", failure);
+    }
+
+    /**
+     * Forces and closes the current segment.
+     */
+    private void closeSegment() {
+
+        try (FileChannel closed = channel) {
+            closed.force(true);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    /**
+     * The command for the writer thread.
+     */
+    private sealed interface Command {
+    }
+
+    /**
+     * The command appending the frame.
+     *
+     * @param frame   the frame
+     * @param durable the {@link CompletableFuture} completed when the frame is durable
+     */
+    private record Append(byte[] frame, CompletableFuture<Void> durable) implements Command {
+    }
+
+    /**
+     * The command starting the next segment.
+     *
+     * @param started the {@link CompletableFuture} completed with the sequence of the started segment
+     */
+    private record Roll(CompletableFuture<Long> started) implements Command {
+    }
+
+    /**
+     * The command stopping the writer thread.
+     *
+     * @param stopped the {@link CompletableFuture} completed when the writer thread is stopped
+     */
+    private record Stop(CompletableFuture<Void> stopped) implements Command {
+    }
+}
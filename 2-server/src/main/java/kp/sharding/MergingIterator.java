@@ -0,0 +1,83 @@
+package kp.sharding;
+
+import java.util.Comparator;
+import java.util.Iterator;
+import java.util.List;
+import java.util.NoSuchElementException;
+import java.util.Objects;
+import java.util.PriorityQueue;
+
+/**
+ * The iterator merging the sorted iterators into one sorted iterator.
+ * <p>
+ * Only the head of every source is held in the heap, so the sources are read one item ahead of the consumer.
+ * The equal items are taken in the order of the sources.
+ * </p>
+ *
+ * @param <T> the type of the items
+ */
+final class MergingIterator<T> implements Iterator<T> {
+
+    private final PriorityQueue<Head<T>> heads;
+
+    /**
+     * The current item of the source.
+     *
+     * @param item   the item
+     * @param source the index of the source
+     * @param rest   the rest of the source
+     * @param <T>    the type of the items
+     */
+    private record Head<T>(T item, int source, Iterator<? extends T> rest) {
+    }
+
+    /**
+     * The constructor.
+     *
+     * @param sources    the iterators sorted by the comparator
+     * @param comparator the {@link Comparator} of the items
+     */
+    MergingIterator(List<? extends Iterator<? extends T>> sources, Comparator<? super T> comparator) {
+
+        this.heads = new PriorityQueue<>(Math.max(1, sources.size()), Comparator
+                .<Head<T>, T>comparing(Head::item, comparator).thenComparingInt(Head::source));
+        for (int index = 0; index < sources.size(); index++) {
+            advance(index, sources.get(index));
+        }
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public boolean hasNext() {
+        return !heads.isEmpty();
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public T next() {
+
+        final Head<T> head = heads.poll();
+        if (Objects.isNull(head)) {
+            throw new NoSuchElementException();
+        }
+        advance(head.source(), head.rest());
+        return head.item();
+    }
+
+    /**
+     * Takes the next item of the source into the heap.
+     *
+     * @param source the index of the source
+     * @param rest   the rest of the source
+     */
+    private void advance(int source, Iterator<? extends T> rest) {
+
+        if (rest.hasNext()) {
+            heads.add(new Head<>(rest.next(), source, rest));
+        }
+    }
+}
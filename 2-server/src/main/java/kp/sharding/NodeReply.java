@@ -0,0 +1,10 @@
+package kp.sharding;
+
+/**
+ * The reply of one shard to the broadcast call.
+ *
+ * @param text   the text of the response, or the message of the failure
+ * @param failed true if the call of the shard failed
+ */
+public record NodeReply(String text, boolean failed) {
+}
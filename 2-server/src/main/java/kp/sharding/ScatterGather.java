@@ -0,0 +1,460 @@
+package kp.sharding;
+
+import kp.SampleDataset;
+import kp.company.model.BatchItemResult;
+import kp.company.model.BatchResult;
+import kp.company.model.Department;
+import kp.company.model.DepartmentBatchOperation;
+import kp.company.model.DepartmentBatchRequest;
+import kp.company.model.Employee;
+import kp.dataset.DatasetSnapshot;
+import kp.dataset.Page;
+
+import java.io.InterruptedIOException;
+import java.io.UncheckedIOException;
+import java.net.URI;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.Spliterator;
+import java.util.Spliterators;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.function.Function;
+import java.util.function.LongFunction;
+import java.util.function.LongSupplier;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
+
+import static kp.Constants.CURSOR_SEPARATOR;
+import static kp.Constants.DEPARTMENTS_PATH;
+import static kp.Constants.EMPLOYEES_PATH;
+
+/**
+ * The coordinator of the requests spanning all shards.
+ * <p>
+ * The shards are called in parallel, every one on its own virtual thread. The {@link Department}s of this node
+ * are read from the {@link SampleDataset}, the other shards are read with the {@link ShardClient}.
+ * Every shard returns its items in the order of the ids, so the results are merged by the {@link MergingIterator}
+ * as they arrive, and the remote pages are fetched only when the merge reaches their end.
+ * The pages use the same cursors as the single server.
+ * </p>
+ * <p>
+ * The version of the merged page is the sum of the dataset versions of all shards.
+ * The versions only grow, so the sum changes whenever any shard loads its dataset.
+ * </p>
+ */
+public class ScatterGather {
+
+    private static final String SEARCH_PATH = EMPLOYEES_PATH + "/search";
+    private static final String BATCH_PATH = DEPARTMENTS_PATH + "/batch";
+    private static final int MAX_DEPARTMENTS_PER_PAGE = 10_000;
+    private static final int MAX_DEPARTMENTS_PER_EMPLOYEE_PAGE = 100;
+    private static final String LAST_DEPARTMENT_ID = String.valueOf(Long.MAX_VALUE);
+    private static final Comparator<Department> DEPARTMENT_ORDER = Comparator.comparing(Department::getId);
+    private static final Comparator<Employee> EMPLOYEE_ORDER = Comparator.comparing(Employee::getId);
+    private final ShardRing shardRing;
+    private final ShardClient shardClient;
+
+    /**
+     * The constructor.
+     *
+     * @param shardRing   the {@link ShardRing}
+     * @param shardClient the {@link ShardClient}
+     */
+    public ScatterGather(ShardRing shardRing, ShardClient shardClient) {
+
+        this.shardRing = shardRing;
+        this.shardClient = shardClient;
+    }
+
+    /**
+     * Gets the page of {@link Department}s from all shards.
+     *
+     * @param cursor the cursor, {@code null} for the first page
+     * @param limit  the maximum number of {@link Department}s, {@code null} for all
+     * @return the {@link Optional} with the {@link Page} of {@link Department}s, empty for the invalid cursor
+     */
+    public Optional<Page<Department>> getDepartments(String cursor, Integer limit) {
+
+        final MergedDepartments source = new MergedDepartments(pageSize(limit, MAX_DEPARTMENTS_PER_PAGE));
+        return SampleDataset.pageDepartments(source, source, cursor, limit);
+    }
+
+    /**
+     * Gets the page of {@link Employee}s from all shards.
+     *
+     * @param cursor the cursor, {@code null} for the first page
+     * @param limit  the maximum number of {@link Employee}s, {@code null} for all
+     * @return the {@link Optional} with the {@link Page} of {@link Employee}s, empty for the invalid cursor
+     */
+    public Optional<Page<Employee>> getEmployees(String cursor, Integer limit) {
+
+        final MergedDepartments source = new MergedDepartments(pageSize(limit, MAX_DEPARTMENTS_PER_EMPLOYEE_PAGE));
+        return SampleDataset.pageEmployees(source, source, cursor, limit);
+    }
+
+    /**
+     * Streams all {@link Department}s from all shards in the order of their ids.
+     * <p>
+     * The remote {@link Department}s are read from the shards' streams as the merged stream is consumed.
+     * Closing the merged stream closes the shards' streams.
+     * </p>
+     *
+     * @return the stream of {@link Department}s
+     */
+    public Stream<Department> streamDepartments() {
+
+        final List<Stream<Department>> remoteStreams = fanOut(shardRing.getRemoteNodes(),
+                node -> shardClient.streamItems(node, DEPARTMENTS_PATH, Department.class));
+        final List<Iterator<Department>> sources = new ArrayList<>();
+        sources.add(SampleDataset.streamDepartments().iterator());
+        remoteStreams.forEach(stream -> sources.add(stream.iterator()));
+        return toStream(new MergingIterator<>(sources, DEPARTMENT_ORDER))
+                .onClose(() -> remoteStreams.forEach(Stream::close));
+    }
+
+    /**
+     * Streams all {@link Employee}s from all shards in the order of their {@link Department}s.
+     *
+     * @return the stream of {@link Employee}s
+     */
+    public Stream<Employee> streamEmployees() {
+
+        return streamDepartments()
+                .flatMap(dep -> Optional.ofNullable(dep.getEmployees()).stream().flatMap(List::stream));
+    }
+
+    /**
+     * Gets the {@link Employee} by id from any {@link Department} on any shard.
+     * <p>
+     * This node is asked first; the other shards are asked in parallel only when it misses.
+     * </p>
+     *
+     * @param employeeId the id of the {@link Employee}
+     * @return the {@link Optional} with the {@link Employee}
+     */
+    public Optional<Employee> getEmployee(long employeeId) {
+
+        final Optional<Employee> localOpt = SampleDataset.getEmployee(employeeId);
+        if (localOpt.isPresent()) {
+            return localOpt;
+        }
+        return fanOut(shardRing.getRemoteNodes(), node -> shardClient.getItem(node,
+                EMPLOYEES_PATH + "/" + employeeId, Employee.class)).stream().flatMap(Optional::stream).findFirst();
+    }
+
+    /**
+     * Searches the page of {@link Employee}s on all shards.
+     * <p>
+     * Every shard, this node too, gets the same query and cursor, so every shard validates the query.
+     * The shards' pages are merged by the {@link Employee}'s id. The next cursor holds the greatest
+     * {@link Department}'s id, so the next page starts after all {@link Employee}s with the last id.
+     * Therefore, the page does not end inside the group of the {@link Employee}s with the same id
+     * in many {@link Department}s, unless the group fills the whole page.
+     * </p>
+     *
+     * @param query the query string of the search, with the cursor and the limit
+     * @param limit the maximum number of {@link Employee}s, {@code null} for all
+     * @return the {@link Optional} with the {@link Page} of {@link Employee}s, empty for the invalid query
+     */
+    public Optional<Page<Employee>> searchEmployees(String query, Integer limit) {
+
+        final String pathAndQuery = Objects.isNull(query) ? SEARCH_PATH : SEARCH_PATH + "?" + query;
+        final List<Optional<Page<Employee>>> pageOpts = fanOut(shardRing.getNodes(),
+                node -> shardClient.getPage(node, pathAndQuery, Employee.class));
+        if (pageOpts.stream().anyMatch(Optional::isEmpty)) {
+            return Optional.empty();
+        }
+        final List<Page<Employee>> pages = pageOpts.stream().map(Optional::get).toList();
+        final long version = pages.stream().mapToLong(Page::version).sum();
+        final int pageSize = Optional.ofNullable(limit).orElse(Integer.MAX_VALUE);
+        final Iterator<Employee> merged = new MergingIterator<>(
+                pages.stream().map(page -> page.items().iterator()).toList(), EMPLOYEE_ORDER);
+        final List<Employee> items = new ArrayList<>();
+        while (merged.hasNext() && items.size() < pageSize) {
+            items.add(merged.next());
+        }
+        final Optional<Long> followingIdOpt = merged.hasNext() ? Optional.of(merged.next().getId()) : Optional.empty();
+        final List<Page<Employee>> truncatedPages = pages.stream()
+                .filter(page -> Objects.nonNull(page.nextCursor()) && !page.items().isEmpty()).toList();
+        if (items.isEmpty() || followingIdOpt.isEmpty() && truncatedPages.isEmpty()) {
+            return Optional.of(new Page<>(items, null, version));
+        }
+        final Long lastId = items.getLast().getId();
+        final boolean groupContinues = followingIdOpt.filter(lastId::equals).isPresent()
+                                       || truncatedPages.stream().map(page -> page.items().getLast().getId())
+                                               .anyMatch(lastId::equals);
+        if (groupContinues) {
+            final List<Employee> trimmed = items.stream().filter(emp -> !lastId.equals(emp.getId())).toList();
+            if (!trimmed.isEmpty()) {
+                final String cursor = trimmed.getLast().getId() + CURSOR_SEPARATOR + LAST_DEPARTMENT_ID;
+                return Optional.of(new Page<>(trimmed, cursor, version));
+            }
+        }
+        return Optional.of(new Page<>(items, lastId + CURSOR_SEPARATOR + LAST_DEPARTMENT_ID, version));
+    }
+
+    /**
+     * Applies the batch of operations on the {@link Department}s on their shards.
+     * <p>
+     * The operations are split by the owner of the {@link Department} and every part is sent to its shard,
+     * this node too. The operation without the id is sent to this node, which reports it as invalid.
+     * The results keep the indexes of the operations in the whole batch.
+     * </p>
+     *
+     * @param request the {@link DepartmentBatchRequest}
+     * @return the {@link BatchResult}
+     */
+    public BatchResult applyDepartmentBatch(DepartmentBatchRequest request) {
+
+        final List<DepartmentBatchOperation> operations = request.getOperations();
+        final Map<URI, List<Integer>> indexesByNode = new LinkedHashMap<>();
+        for (int index = 0; index < operations.size(); index++) {
+            final URI node = idOf(operations.get(index)).map(shardRing::ownerOf).orElse(shardRing.getLocalNode());
+            indexesByNode.computeIfAbsent(node, _ -> new ArrayList<>()).add(index);
+        }
+        final List<URI> nodes = List.copyOf(indexesByNode.keySet());
+        final List<BatchResult> partResults = fanOut(nodes, node -> shardClient.postJson(node, BATCH_PATH,
+                new DepartmentBatchRequest().operations(indexesByNode.get(node).stream().map(operations::get)
+                        .toList()), BatchResult.class));
+        final BatchItemResult[] results = new BatchItemResult[operations.size()];
+        int succeeded = 0;
+        int failed = 0;
+        for (int part = 0; part < nodes.size(); part++) {
+            final List<Integer> indexes = indexesByNode.get(nodes.get(part));
+            final BatchResult partResult = partResults.get(part);
+            succeeded += Optional.ofNullable(partResult.getSucceeded()).orElse(0);
+            failed += Optional.ofNullable(partResult.getFailed()).orElse(0);
+            for (BatchItemResult result : Optional.ofNullable(partResult.getResults()).orElse(List.of())) {
+                final int index = indexes.get(result.getIndex());
+                results[index] = result.index(index);
+            }
+        }
+        return new BatchResult().succeeded(succeeded).failed(failed)
+                .results(Stream.of(results).filter(Objects::nonNull).toList());
+    }
+
+    /**
+     * Calls the path on every shard other than this node.
+     * <p>
+     * The failure of one shard does not stop the calls of the other shards, it is returned as its reply.
+     * </p>
+     *
+     * @param pathAndQuery the path with the query
+     * @return the {@link NodeReply}s by the base URI of the shard
+     */
+    public Map<URI, NodeReply> broadcast(String pathAndQuery) {
+
+        final List<URI> nodes = shardRing.getRemoteNodes();
+        final List<NodeReply> replies = fanOut(nodes, node -> {
+            try {
+                return new NodeReply(shardClient.getText(node, pathAndQuery), false);
+            } catch (UncheckedIOException e) {
+                return new NodeReply(e.getCause().getMessage(), true);
+            }
+        });
+        final Map<URI, NodeReply> replyMap = new LinkedHashMap<>();
+        for (int index = 0; index < nodes.size(); index++) {
+            replyMap.put(nodes.get(index), replies.get(index));
+        }
+        return replyMap;
+    }
+
+    /**
+     * Gets the id of the {@link Department} of the operation.
+     *
+     * @param operation the {@link DepartmentBatchOperation}
+     * @return the {@link Optional} with the id
+     */
+    private static Optional<Long> idOf(DepartmentBatchOperation operation) {
+
+        return Optional.ofNullable(operation).flatMap(op -> Optional.ofNullable(op.getId())
+                .or(() -> Optional.ofNullable(op.getDepartment()).map(Department::getId)));
+    }
+
+    /**
+     * Calls every node in parallel on the virtual threads.
+     *
+     * @param nodes the base URIs of the shards
+     * @param call  the call of one shard
+     * @param <T>   the type of the result
+     * @return the results in the order of the nodes
+     */
+    private static <T> List<T> fanOut(List<URI> nodes, Function<URI, T> call) {
+
+        try (ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor()) {
+            final List<Future<T>> futures = nodes.stream()
+                    .map(node -> executor.submit(() -> call.apply(node))).toList();
+            final List<T> results = new ArrayList<>(futures.size());
+            for (Future<T> future : futures) {
+                results.add(future.get());
+            }
+            return results;
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof RuntimeException runtimeException) {
+                throw runtimeException;
+            }
+            throw new IllegalStateException(e.getCause());
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new UncheckedIOException(new InterruptedIOException("Interrupted calling the shards"));
+        }
+    }
+
+    /**
+     * Computes the number of the {@link Department}s fetched from the shard at once.
+     *
+     * @param limit   the maximum number of the items, {@code null} for all
+     * @param maximum the maximum number of the {@link Department}s
+     * @return the number of the {@link Department}s
+     */
+    private static int pageSize(Integer limit, int maximum) {
+        return Objects.isNull(limit) ? maximum : (int) Math.min(maximum, limit + 1L);
+    }
+
+    /**
+     * Wraps the iterator in the sequential stream.
+     *
+     * @param iterator the iterator
+     * @param <T>      the type of the items
+     * @return the stream
+     */
+    private static <T> Stream<T> toStream(Iterator<T> iterator) {
+        return StreamSupport.stream(Spliterators.spliteratorUnknownSize(iterator, Spliterator.ORDERED), false);
+    }
+
+    /**
+     * The {@link Department}s of all shards merged in the order of their ids.
+     * <p>
+     * The first pages of the remote shards are fetched in parallel when the source is opened.
+     * The version is known after the opening.
+     * </p>
+     */
+    private class MergedDepartments implements LongFunction<Stream<Department>>, LongSupplier {
+
+        private final int pageSize;
+        private long version;
+
+        /**
+         * The constructor.
+         *
+         * @param pageSize the number of the {@link Department}s fetched from the shard at once
+         */
+        MergedDepartments(int pageSize) {
+            this.pageSize = pageSize;
+        }
+
+        /**
+         * Opens the merged {@link Department}s following the {@link Department}'s id.
+         *
+         * @param afterDepartmentId the {@link Department}'s id
+         * @return the stream of {@link Department}s
+         */
+        @Override
+        public Stream<Department> apply(long afterDepartmentId) {
+
+            final DatasetSnapshot datasetSnapshot = SampleDataset.snapshot();
+            final List<RemoteDepartments> remotes = fanOut(shardRing.getRemoteNodes(),
+                    node -> new RemoteDepartments(node, afterDepartmentId, pageSize));
+            version = datasetSnapshot.version() + remotes.stream().mapToLong(RemoteDepartments::version).sum();
+            final List<Iterator<Department>> sources = new ArrayList<>();
+            sources.add(datasetSnapshot.repository().streamDepartments(afterDepartmentId).iterator());
+            sources.addAll(remotes);
+            return toStream(new MergingIterator<>(sources, DEPARTMENT_ORDER));
+        }
+
+        /**
+         * Gets the version of the merged {@link Department}s.
+         *
+         * @return the sum of the versions of all shards
+         */
+        @Override
+        public long getAsLong() {
+            return version;
+        }
+    }
+
+    /**
+     * The {@link Department}s of the remote shard, fetched page by page as they are consumed.
+     */
+    private class RemoteDepartments implements Iterator<Department> {
+
+        private final URI node;
+        private final int pageSize;
+        private final long version;
+        private Iterator<Department> items;
+        private String nextCursor;
+
+        /**
+         * The constructor fetching the first page.
+         *
+         * @param node              the base URI of the shard
+         * @param afterDepartmentId the {@link Department}'s id after which the {@link Department}s start
+         * @param pageSize          the number of the {@link Department}s fetched at once
+         */
+        RemoteDepartments(URI node, long afterDepartmentId, int pageSize) {
+
+            this.node = node;
+            this.pageSize = pageSize;
+            final Page<Department> page = fetch(afterDepartmentId >= 0 ? String.valueOf(afterDepartmentId) : null);
+            this.version = page.version();
+        }
+
+        /**
+         * {@inheritDoc}
+         */
+        @Override
+        public boolean hasNext() {
+
+            while (!items.hasNext() && Objects.nonNull(nextCursor)) {
+                fetch(nextCursor);
+            }
+            return items.hasNext();
+        }
+
+        /**
+         * {@inheritDoc}
+         */
+        @Override
+        public Department next() {
+
+            hasNext();
+            return items.next();
+        }
+
+        /**
+         * Gets the dataset version of the shard.
+         *
+         * @return the version from the first page
+         */
+        long version() {
+            return version;
+        }
+
+        /**
+         * Fetches the page following the cursor.
+         *
+         * @param cursor the cursor, {@code null} for the first page
+         * @return the {@link Page}
+         */
+        private Page<Department> fetch(String cursor) {
+
+            final String pathAndQuery = DEPARTMENTS_PATH + "?limit=" + pageSize
+                                        + (Objects.isNull(cursor) ? "" : "&cursor=" + cursor);
+            final Page<Department> page = shardClient.getPage(node, pathAndQuery, Department.class)
+                    .orElseThrow(() -> new IllegalStateException("The shard [%s] rejected the cursor [%s]"
+                            .formatted(node, cursor)));
+            items = page.items().iterator();
+            nextCursor = page.nextCursor();
+            return page;
+        }
+    }
+}
@@ -0,0 +1,351 @@
+package kp.sharding;
+
+import com.fasterxml.jackson.databind.JavaType;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import kp.dataset.Page;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InterruptedIOException;
+import java.io.UncheckedIOException;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.time.Duration;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.Set;
+import java.util.stream.Stream;
+
+import static kp.Constants.DATASET_VERSION_HEADER;
+import static kp.Constants.NEXT_CURSOR_HEADER;
+import static kp.Constants.SHARD_FORWARDED_HEADER;
+
+/**
+ * The HTTP client calling the other shards.
+ * <p>
+ * Every request carries the forwarded header with the secret shared by the shards, so the shard answers it
+ * from its own dataset and never routes it further. The forwarded header of the client, without the secret,
+ * is not trusted. The shards talk the HTTP/1.1 over the pooled connections.
+ * </p>
+ * <p>
+ * The failed call and the unexpected status throw the {@link UncheckedIOException}.
+ * </p>
+ */
+public class ShardClient implements AutoCloseable {
+
+    /**
+     * The headers which are not copied between the client and the shard.
+     * They describe the connection, not the message, or are set by the {@link HttpClient} itself.
+     */
+    public static final Set<String> HOP_BY_HOP_HEADERS = Set.of("connection", "content-length", "expect", "host",
+            "keep-alive", "proxy-authenticate", "proxy-authorization", "te", "trailer", "transfer-encoding",
+            "upgrade", "http2-settings");
+    private static final String ACCEPT_HEADER = "Accept";
+    private static final String CONTENT_TYPE_HEADER = "Content-Type";
+    private static final String JSON = "application/json";
+    private static final String NDJSON = "application/x-ndjson";
+    private static final int BAD_REQUEST = 400;
+    private static final int NOT_FOUND = 404;
+    private final HttpClient httpClient;
+    private final ObjectMapper objectMapper;
+    private final Duration requestTimeout;
+    private final String secret;
+
+    /**
+     * The constructor.
+     *
+     * @param objectMapper   the {@link ObjectMapper}
+     * @param connectTimeout the timeout of the connecting to the shard
+     * @param requestTimeout the timeout of the response headers from the shard
+     * @param secret         the secret shared by the shards
+     */
+    public ShardClient(ObjectMapper objectMapper, Duration connectTimeout, Duration requestTimeout, String secret) {
+
+        if (Objects.isNull(secret) || secret.isBlank()) {
+            throw new IllegalArgumentException("The secret shared by the shards must not be blank");
+        }
+        this.secret = secret;
+        this.httpClient = HttpClient.newBuilder().version(HttpClient.Version.HTTP_1_1)
+                .connectTimeout(connectTimeout).build();
+        this.objectMapper = objectMapper;
+        this.requestTimeout = requestTimeout;
+    }
+
+    /**
+     * Gets the page of items from the shard.
+     * <p>
+     * The 'Not Found' status is the empty page.
+     * </p>
+     *
+     * @param node         the base URI of the shard
+     * @param pathAndQuery the path with the query
+     * @param type         the type of the items
+     * @param <T>          the type of the items
+     * @return the {@link Optional} with the {@link Page} with the cursor of the next page and the dataset version
+     * of the shard, empty for the 'Bad Request' status
+     */
+    public <T> Optional<Page<T>> getPage(URI node, String pathAndQuery, Class<T> type) {
+
+        final HttpResponse<InputStream> response = send(node, request(node, pathAndQuery).header(ACCEPT_HEADER, JSON)
+                .GET().build());
+        final long version = response.headers().firstValueAsLong(DATASET_VERSION_HEADER).orElse(0L);
+        try (InputStream body = response.body()) {
+            if (response.statusCode() == BAD_REQUEST) {
+                return Optional.empty();
+            }
+            if (response.statusCode() == NOT_FOUND) {
+                return Optional.of(new Page<>(List.of(), null, version));
+            }
+            checkSuccess(node, response);
+            final JavaType listType = objectMapper.getTypeFactory().constructCollectionType(List.class, type);
+            final List<T> items = objectMapper.readValue(body, listType);
+            return Optional.of(new Page<>(items, response.headers().firstValue(NEXT_CURSOR_HEADER).orElse(null),
+                    version));
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    /**
+     * Gets the item from the shard.
+     * <p>
+     * The 'Not Found' status is the missing item.
+     * </p>
+     *
+     * @param node         the base URI of the shard
+     * @param pathAndQuery the path with the query
+     * @param type         the type of the item
+     * @param <T>          the type of the item
+     * @return the {@link Optional} with the item
+     */
+    public <T> Optional<T> getItem(URI node, String pathAndQuery, Class<T> type) {
+
+        final HttpResponse<InputStream> response = send(node, request(node, pathAndQuery).header(ACCEPT_HEADER, JSON)
+                .GET().build());
+        try (InputStream body = response.body()) {
+            if (response.statusCode() == NOT_FOUND) {
+                return Optional.empty();
+            }
+            checkSuccess(node, response);
+            return Optional.of(objectMapper.readValue(body, type));
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    /**
+     * Streams the newline-delimited JSON items from the shard.
+     * <p>
+     * The items are read from the connection as the stream is consumed.
+     * Closing the stream closes the connection.
+     * </p>
+     *
+     * @param node the base URI of the shard
+     * @param path the path
+     * @param type the type of the items
+     * @param <T>  the type of the items
+     * @return the stream of items
+     */
+    public <T> Stream<T> streamItems(URI node, String path, Class<T> type) {
+
+        final HttpRequest request = request(node, path).header(ACCEPT_HEADER, NDJSON).GET().build();
+        final HttpResponse<Stream<String>> response = call(node,
+                () -> httpClient.send(request, HttpResponse.BodyHandlers.ofLines()));
+        if (response.statusCode() / 100 != 2) {
+            response.body().close();
+            throw new UncheckedIOException(new IOException(statusMessage(node, response.statusCode())));
+        }
+        return response.body().filter(line -> !line.isBlank()).map(line -> {
+            try {
+                return objectMapper.readValue(line, type);
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        });
+    }
+
+    /**
+     * Sends the request of the client to the shard as it is.
+     *
+     * @param node         the base URI of the shard
+     * @param method       the HTTP method
+     * @param pathAndQuery the path with the query
+     * @param headers      the headers of the client, the hop-by-hop headers are skipped
+     * @param body         the body, empty for none
+     * @return the {@link HttpResponse} with the body to be copied and closed by the caller
+     */
+    public HttpResponse<InputStream> exchange(URI node, String method, String pathAndQuery,
+                                              Map<String, List<String>> headers, byte[] body) {
+
+        final HttpRequest.Builder builder = request(node, pathAndQuery).method(method, body.length == 0
+                ? HttpRequest.BodyPublishers.noBody() : HttpRequest.BodyPublishers.ofByteArray(body));
+        headers.forEach((name, values) -> {
+            if (!HOP_BY_HOP_HEADERS.contains(name.toLowerCase(Locale.ROOT))
+                && !SHARD_FORWARDED_HEADER.equalsIgnoreCase(name)) {
+                values.forEach(value -> builder.header(name, value));
+            }
+        });
+        return send(node, builder.build());
+    }
+
+    /**
+     * Posts the JSON body to the shard and reads the JSON response.
+     *
+     * @param node         the base URI of the shard
+     * @param pathAndQuery the path with the query
+     * @param body         the object written as the JSON body
+     * @param type         the type of the response
+     * @param <T>          the type of the response
+     * @return the response
+     */
+    public <T> T postJson(URI node, String pathAndQuery, Object body, Class<T> type) {
+
+        try {
+            final HttpRequest request = request(node, pathAndQuery).header(ACCEPT_HEADER, JSON)
+                    .header(CONTENT_TYPE_HEADER, JSON)
+                    .POST(HttpRequest.BodyPublishers.ofByteArray(objectMapper.writeValueAsBytes(body))).build();
+            final HttpResponse<InputStream> response = send(node, request);
+            try (InputStream responseBody = response.body()) {
+                checkSuccess(node, response);
+                return objectMapper.readValue(responseBody, type);
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    /**
+     * Gets the text from the shard.
+     *
+     * @param node         the base URI of the shard
+     * @param pathAndQuery the path with the query
+     * @return the text
+     */
+    public String getText(URI node, String pathAndQuery) {
+
+        final HttpRequest request = request(node, pathAndQuery).GET().build();
+        final HttpResponse<String> response = call(node,
+                () -> httpClient.send(request, HttpResponse.BodyHandlers.ofString()));
+        if (response.statusCode() / 100 != 2) {
+            throw new UncheckedIOException(new IOException(statusMessage(node, response.statusCode())));
+        }
+        return response.body();
+    }
+
+    /**
+     * Checks if the request was forwarded by the shard, i.e. its forwarded header carries the shared secret.
+     * <p>
+     * The secret is compared in the constant time.
+     * </p>
+     *
+     * @param forwardedHeader the value of the forwarded header, {@code null} for none
+     * @return true for the request forwarded by the shard
+     */
+    public boolean isForwardedByShard(String forwardedHeader) {
+
+        return Objects.nonNull(forwardedHeader) && MessageDigest.isEqual(
+                secret.getBytes(StandardCharsets.UTF_8), forwardedHeader.getBytes(StandardCharsets.UTF_8));
+    }
+
+    /**
+     * Closes the {@link HttpClient}.
+     */
+    @Override
+    public void close() {
+        httpClient.close();
+    }
+
+    /**
+     * Creates the request builder with the forwarded header carrying the shared secret.
+     *
+     * @param node         the base URI of the shard
+     * @param pathAndQuery the path with the query
+     * @return the {@link HttpRequest.Builder}
+     */
+    private HttpRequest.Builder request(URI node, String pathAndQuery) {
+
+        return HttpRequest.newBuilder(URI.create(node + pathAndQuery)).timeout(requestTimeout)
+                .header(SHARD_FORWARDED_HEADER, secret);
+    }
+
+    /**
+     * Sends the request with the streamed response body.
+     *
+     * @param node    the base URI of the shard
+     * @param request the {@link HttpRequest}
+     * @return the {@link HttpResponse}
+     */
+    private HttpResponse<InputStream> send(URI node, HttpRequest request) {
+        return call(node, () -> httpClient.send(request, HttpResponse.BodyHandlers.ofInputStream()));
+    }
+
+    /**
+     * Makes the call, translating the failures to the {@link UncheckedIOException}.
+     *
+     * @param node the base URI of the shard
+     * @param call the call
+     * @param <T>  the type of the body
+     * @return the {@link HttpResponse}
+     */
+    private static <T> HttpResponse<T> call(URI node, HttpCall<T> call) {
+
+        try {
+            return call.send();
+        } catch (IOException e) {
+            throw new UncheckedIOException("The shard [%s] is unavailable".formatted(node), e);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new UncheckedIOException(new InterruptedIOException("Interrupted calling the shard [%s]"
+                    .formatted(node)));
+        }
+    }
+
+    /**
+     * Checks the successful status of the response.
+     *
+     * @param node     the base URI of the shard
+     * @param response the {@link HttpResponse}
+     * @throws IOException if the status is not successful
+     */
+    private static void checkSuccess(URI node, HttpResponse<?> response) throws IOException {
+
+        if (response.statusCode() / 100 != 2) {
+            throw new IOException(statusMessage(node, response.statusCode()));
+        }
+    }
+
+    /**
+     * Creates the message of the unexpected status.
+     *
+     * @param node       the base URI of the shard
+     * @param statusCode the status code
+     * @return the message
+     */
+    private static String statusMessage(URI node, int statusCode) {
+        return "The shard [%s] responded with the status [%d]".formatted(node, statusCode);
+    }
+
+    /**
+     * The call of the {@link HttpClient}.
+     *
+     * @param <T> the type of the body
+     */
+    @FunctionalInterface
+    private interface HttpCall<T> {
+        /**
+         * Sends the request.
+         *
+         * @return the {@link HttpResponse}
+         * @throws IOException          if the call fails
+         * @throws InterruptedException if interrupted
+         */
+        HttpResponse<T> send() throws IOException, InterruptedException;
+    }
+}
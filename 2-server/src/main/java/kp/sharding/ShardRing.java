@@ -0,0 +1,159 @@
+package kp.sharding;
+
+import kp.company.model.Department;
+
+import java.net.URI;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Objects;
+import java.util.stream.IntStream;
+
+/**
+ * The consistent hashing ring assigning the {@link Department}s to the shards by the {@link Department}'s id.
+ * <p>
+ * Every node is placed on the ring at many points, the virtual nodes, hashed from its base URI.
+ * The {@link Department} belongs to the node of the first point following the hash of its id.
+ * Adding or removing the node moves only the {@link Department}s between this node and its neighbours.
+ * </p>
+ * <p>
+ * The assignment depends only on the set of the base URIs, so all nodes configured with the same list,
+ * in any order, agree on the owner of every {@link Department}.
+ * </p>
+ */
+public final class ShardRing {
+
+    private static final long FNV_OFFSET_BASIS = 0xcbf29ce484222325L;
+    private static final long FNV_PRIME = 0x100000001b3L;
+    private final List<URI> nodes;
+    private final URI localNode;
+    private final long[] points;
+    private final URI[] owners;
+
+    /**
+     * The point of the node on the ring.
+     *
+     * @param hash the position on the ring
+     * @param node the base URI of the node
+     */
+    private record Point(long hash, URI node) {
+    }
+
+    /**
+     * The constructor.
+     *
+     * @param nodes        the base URIs of all nodes
+     * @param localNode    the base URI of this node, one of all nodes
+     * @param virtualNodes the number of the points of every node on the ring
+     */
+    public ShardRing(List<URI> nodes, URI localNode, int virtualNodes) {
+
+        this.nodes = nodes.stream().map(ShardRing::normalize).distinct().sorted().toList();
+        this.localNode = normalize(localNode);
+        if (!this.nodes.contains(this.localNode)) {
+            throw new IllegalArgumentException("The local node [%s] is not one of the nodes %s"
+                    .formatted(this.localNode, this.nodes));
+        }
+        if (virtualNodes < 1) {
+            throw new IllegalArgumentException("The number of the virtual nodes must be positive");
+        }
+        final Point[] sortedPoints = this.nodes.stream()
+                .flatMap(node -> IntStream.range(0, virtualNodes)
+                        .mapToObj(replica -> new Point(mix(hashNode(node) + replica), node)))
+                .sorted(Comparator.comparingLong(Point::hash).thenComparing(Point::node))
+                .toArray(Point[]::new);
+        this.points = Arrays.stream(sortedPoints).mapToLong(Point::hash).toArray();
+        this.owners = Arrays.stream(sortedPoints).map(Point::node).toArray(URI[]::new);
+    }
+
+    /**
+     * Gets the base URI of the node owning the {@link Department}.
+     *
+     * @param departmentId the {@link Department}'s id
+     * @return the base URI of the owner
+     */
+    public URI ownerOf(long departmentId) {
+
+        final int index = Arrays.binarySearch(points, mix(departmentId));
+        final int ownerIndex = index >= 0 ? index : -index - 1;
+        return owners[ownerIndex == points.length ? 0 : ownerIndex];
+    }
+
+    /**
+     * Checks if the {@link Department} is owned by this node.
+     *
+     * @param departmentId the {@link Department}'s id
+     * @return true if this node owns the {@link Department}
+     */
+    public boolean isLocal(long departmentId) {
+        return localNode.equals(ownerOf(departmentId));
+    }
+
+    /**
+     * Gets the base URIs of all nodes.
+     *
+     * @return the base URIs in the natural order
+     */
+    public List<URI> getNodes() {
+        return nodes;
+    }
+
+    /**
+     * Gets the base URIs of the nodes other than this node.
+     *
+     * @return the base URIs in the natural order
+     */
+    public List<URI> getRemoteNodes() {
+        return nodes.stream().filter(node -> !localNode.equals(node)).toList();
+    }
+
+    /**
+     * Gets the base URI of this node.
+     *
+     * @return the base URI
+     */
+    public URI getLocalNode() {
+        return localNode;
+    }
+
+    /**
+     * Normalizes the base URI, so the URIs differing only by the trailing slash are equal.
+     *
+     * @param node the base URI
+     * @return the normalized base URI
+     */
+    private static URI normalize(URI node) {
+
+        final String text = Objects.requireNonNull(node).normalize().toString();
+        return text.endsWith("/") ? URI.create(text.substring(0, text.length() - 1)) : URI.create(text);
+    }
+
+    /**
+     * Hashes the base URI with the 64-bit FNV-1a, which is the same in every JVM.
+     *
+     * @param node the base URI
+     * @return the hash
+     */
+    private static long hashNode(URI node) {
+
+        long hash = FNV_OFFSET_BASIS;
+        for (byte octet : node.toString().getBytes(StandardCharsets.UTF_8)) {
+            hash = (hash ^ (octet & 0xff)) * FNV_PRIME;
+        }
+        return hash;
+    }
+
+    /**
+     * Mixes the bits with the SplitMix64 finalizer, so the consecutive ids are spread over the ring.
+     *
+     * @param value the value
+     * @return the mixed value
+     */
+    private static long mix(long value) {
+
+        long mixed = (value ^ (value >>> 30)) * 0xbf58476d1ce4e5b9L;
+        mixed = (mixed ^ (mixed >>> 27)) * 0x94d049bb133111ebL;
+        return mixed ^ (mixed >>> 31);
+    }
+}
@@ -0,0 +1,162 @@
+package kp.dataset.persistence;
+
+import kp.SampleDataset;
+import kp.company.model.Employee;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.lang.reflect.Field;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.Optional;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * The tests of the {@link PersistenceEngine} recovering the {@link SampleDataset}.
+ * <p>
+ * The dataset is emptied before the recovery, so the recovered state comes only from the directory.
+ * </p>
+ */
+class PersistenceEngineTest {
+
+    private static final Duration CHECKPOINT_INTERVAL = Duration.ofDays(1);
+
+    @TempDir
+    Path directory;
+
+    /**
+     * Empties the {@link SampleDataset}.
+     */
+    @BeforeEach
+    @AfterEach
+    void emptyDataset() {
+        SampleDataset.restoreDataset(1, Stream.empty());
+    }
+
+    /**
+     * The dataset is recovered from the log alone, without any checkpoint.
+     *
+     * @throws IOException if an I/O error occurs
+     */
+    @Test
+    void recoversFromLog() throws IOException {
+
+        try (PersistenceEngine engine = startedEngine()) {
+            SampleDataset.loadDataset(3, 5);
+            SampleDataset.mergeEmployee(1L, 101L, new Employee().firstName("Logged"));
+            SampleDataset.removeEmployee(2L, 202L);
+        }
+        emptyDataset();
+
+        final RecoveryReport report = new PersistenceEngine(directory, false, true).recover();
+        assertEquals(0, report.departments());
+        assertEquals(3, report.mutations());
+        assertEquals(3, SampleDataset.getDepartments().size());
+        assertEquals(Optional.of("Logged"), firstNameOf(1L, 101L));
+        assertTrue(SampleDataset.getEmployee(2L, 202L).isEmpty());
+    }
+
+    /**
+     * The dataset is recovered from the checkpoint and the log written after it.
+     *
+     * @throws IOException if an I/O error occurs
+     */
+    @Test
+    void recoversFromCheckpointAndLogTail() throws IOException {
+
+        try (PersistenceEngine engine = startedEngine()) {
+            SampleDataset.loadDataset(3, 5);
+            SampleDataset.mergeEmployee(1L, 101L, new Employee().firstName("BeforeCheckpoint"));
+            assertTrue(engine.checkpoint().isPresent());
+            assertTrue(engine.checkpoint().isEmpty());
+            SampleDataset.mergeEmployee(2L, 201L, new Employee().firstName("AfterCheckpoint"));
+            SampleDataset.removeEmployee(3L, 301L);
+        }
+        emptyDataset();
+
+        final RecoveryReport report = new PersistenceEngine(directory, false, true).recover();
+        assertEquals(3, report.departments());
+        assertEquals(2, report.mutations());
+        assertEquals(Optional.of("BeforeCheckpoint"), firstNameOf(1L, 101L));
+        assertEquals(Optional.of("AfterCheckpoint"), firstNameOf(2L, 201L));
+        assertTrue(SampleDataset.getEmployee(3L, 301L).isEmpty());
+        assertEquals(5, SampleDataset.getEmployees(2L).orElseThrow().size());
+    }
+
+    /**
+     * The write rejected by the failed log fails, and the checkpoint replaces the log and saves the write.
+     *
+     * @throws IOException                  if an I/O error occurs
+     * @throws ReflectiveOperationException if the log cannot be broken
+     */
+    @Test
+    void restartsFailedLog() throws IOException, ReflectiveOperationException {
+
+        try (PersistenceEngine engine = startedEngine()) {
+            SampleDataset.loadDataset(2, 3);
+            closeLogChannel(engine);
+            assertThrows(IllegalStateException.class,
+                    () -> SampleDataset.mergeEmployee(1L, 101L, new Employee().firstName("Rejected")));
+            engine.checkpoint();
+            try (Stream<Path> paths = Files.list(directory)) {
+                assertTrue(paths.anyMatch(path -> path.getFileName().toString().startsWith("snapshot-")));
+            }
+            SampleDataset.mergeEmployee(1L, 102L, new Employee().firstName("Restarted"));
+        }
+        emptyDataset();
+
+        new PersistenceEngine(directory, false, true).recover();
+        assertEquals(Optional.of("Rejected"), firstNameOf(1L, 101L));
+        assertEquals(Optional.of("Restarted"), firstNameOf(1L, 102L));
+    }
+
+    /**
+     * Creates the recovered and started {@link PersistenceEngine} with the synchronous commit.
+     *
+     * @return the {@link PersistenceEngine}
+     * @throws IOException if an I/O error occurs
+     */
+    private PersistenceEngine startedEngine() throws IOException {
+
+        final PersistenceEngine engine = new PersistenceEngine(directory, false, true);
+        engine.recover();
+        engine.start(CHECKPOINT_INTERVAL);
+        return engine;
+    }
+
+    /**
+     * Gets the first name of the {@link Employee}.
+     *
+     * @param departmentId the department's id
+     * @param employeeId   the {@link Employee}'s id
+     * @return the {@link Optional} with the first name
+     */
+    private static Optional<String> firstNameOf(Long departmentId, Long employeeId) {
+        return SampleDataset.getEmployee(departmentId, employeeId).map(Employee::getFirstName);
+    }
+
+    /**
+     * Closes the segment channel of the current log, so its next write fails.
+     *
+     * @param engine the {@link PersistenceEngine}
+     * @throws IOException                  if an I/O error occurs
+     * @throws ReflectiveOperationException if the fields are not found
+     */
+    private static void closeLogChannel(PersistenceEngine engine) throws IOException, ReflectiveOperationException {
+
+        final Field logField = PersistenceEngine.class.getDeclaredField("writeAheadLog");
+        logField.setAccessible(true);
+        final Field channelField = WriteAheadLog.class.getDeclaredField("channel");
+        channelField.setAccessible(true);
+        ((FileChannel) channelField.get(logField.get(engine))).close();
+    }
+}
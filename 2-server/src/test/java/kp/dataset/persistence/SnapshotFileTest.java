@@ -0,0 +1,105 @@
+package kp.dataset.persistence;
+
+import kp.company.model.Department;
+import kp.company.model.Employee;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+/**
+ * The tests of the {@link SnapshotFile}.
+ */
+class SnapshotFileTest {
+
+    @TempDir
+    Path directory;
+
+    /**
+     * The written {@link Department}s and the dataset version are read back.
+     *
+     * @throws IOException if an I/O error occurs
+     */
+    @Test
+    void readsWrittenSnapshot() throws IOException {
+
+        final List<Department> departments = List.of(department(1, 3), department(2, 0), department(3, 2));
+        final Path file = SnapshotFile.write(directory, 5, 7, departments.stream());
+        assertEquals(5, SnapshotFile.sequenceOf(file));
+        assertEquals(Optional.of(file), SnapshotFile.latest(directory));
+
+        final AtomicLong version = new AtomicLong();
+        final List<Department> read = new ArrayList<>();
+        assertEquals(departments.size(), SnapshotFile.read(file, (readVersion, stream) -> {
+            version.set(readVersion);
+            read.addAll(stream.sorted(Comparator.comparing(Department::getId)).toList());
+        }));
+        assertEquals(7, version.get());
+        assertEquals(departments, read);
+    }
+
+    /**
+     * The snapshot file without its trailer is rejected.
+     *
+     * @throws IOException if an I/O error occurs
+     */
+    @Test
+    void rejectsTruncatedSnapshot() throws IOException {
+
+        final Path file = SnapshotFile.write(directory, 1, 1, Stream.of(department(1, 3)));
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.WRITE)) {
+            channel.truncate(channel.size() - 1);
+        }
+        assertThrows(IOException.class, () -> SnapshotFile.read(file, (_, _) -> {
+        }));
+    }
+
+    /**
+     * Only the latest snapshot file is kept, and the leftover temporary files are deleted.
+     *
+     * @throws IOException if an I/O error occurs
+     */
+    @Test
+    void deletesOlderSnapshots() throws IOException {
+
+        SnapshotFile.write(directory, 1, 1, Stream.of(department(1, 1)));
+        SnapshotFile.write(directory, 2, 2, Stream.of(department(1, 2)));
+        final Path latest = SnapshotFile.write(directory, 3, 3, Stream.of(department(1, 3)));
+        Files.createFile(directory.resolve(latest.getFileName() + ".tmp"));
+
+        SnapshotFile.deleteOlderThan(directory, 3);
+        try (Stream<Path> paths = Files.list(directory)) {
+            assertEquals(List.of(latest), paths.toList());
+        }
+    }
+
+    /**
+     * Creates the {@link Department} with its {@link Employee}s.
+     *
+     * @param departmentId the {@link Department}'s id
+     * @param employees    the number of the {@link Employee}s
+     * @return the {@link Department}
+     */
+    private static Department department(long departmentId, int employees) {
+
+        final List<Employee> employeeList = new ArrayList<>();
+        for (int i = 1; i <= employees; i++) {
+            employeeList.add(new Employee().id(100 * departmentId + i).firstName("First-" + i)
+                    .lastName("Last-" + i));
+        }
+        return new Department().id(departmentId).name("Department-" + departmentId).employees(employeeList);
+    }
+}
@@ -0,0 +1,169 @@
+package kp.dataset.persistence;
+
+import kp.company.model.Employee;
+import kp.dataset.DatasetMutation;
+import kp.dataset.DatasetMutation.EmployeeRemoved;
+import kp.dataset.DatasetMutation.EmployeeSaved;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.CompletionException;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+/**
+ * The tests of the {@link WriteAheadLog}.
+ */
+class WriteAheadLogTest {
+
+    @TempDir
+    Path directory;
+
+    /**
+     * The appended mutations are replayed in order from all segments, or from the segments after the roll.
+     *
+     * @throws IOException if an I/O error occurs
+     */
+    @Test
+    void replaysAppendedMutationsAcrossRolledSegments() throws IOException {
+
+        final List<DatasetMutation> mutations = List.of(saved(101, "First"), saved(102, "Second"),
+                new EmployeeRemoved(1, 101), saved(103, "Third"), saved(102, "Fourth"));
+        try (WriteAheadLog log = new WriteAheadLog(directory, 1, true)) {
+            for (int i = 0; i < 3; i++) {
+                log.append(i + 1, mutations.get(i)).join();
+            }
+            assertEquals(2L, log.roll().join());
+            for (int i = 3; i < mutations.size(); i++) {
+                log.append(i + 1, mutations.get(i)).join();
+            }
+            assertEquals(mutations.size(), log.appendedCount());
+        }
+        final List<LoggedMutation> replayed = new ArrayList<>();
+        assertEquals(mutations.size(), WriteAheadLog.replay(directory, 0, replayed::add));
+        assertEquals(mutations, replayed.stream().map(LoggedMutation::mutation).toList());
+        assertEquals(List.of(1L, 2L, 3L, 4L, 5L), replayed.stream().map(LoggedMutation::version).toList());
+
+        final List<LoggedMutation> replayedAfterRoll = new ArrayList<>();
+        assertEquals(2, WriteAheadLog.replay(directory, 2, replayedAfterRoll::add));
+        assertEquals(mutations.subList(3, 5), replayedAfterRoll.stream().map(LoggedMutation::mutation).toList());
+        assertEquals(Optional.of(2L), WriteAheadLog.lastSequence(directory));
+
+        WriteAheadLog.deleteSegmentsBefore(directory, 2);
+        assertEquals(2, WriteAheadLog.replay(directory, 0, _ -> {
+        }));
+    }
+
+    /**
+     * The torn frame at the tail of the segment is dropped and the segment is truncated to the last valid frame.
+     *
+     * @throws IOException if an I/O error occurs
+     */
+    @Test
+    void truncatesTornTailSegmentOnReplay() throws IOException {
+
+        try (WriteAheadLog log = new WriteAheadLog(directory, 1, false)) {
+            log.append(1, saved(101, "First")).join();
+            log.append(1, saved(102, "Second")).join();
+            log.append(1, saved(103, "Third")).join();
+        }
+        final Path segment = onlySegment();
+        final long tornSize = Files.size(segment) - 3;
+        try (FileChannel channel = FileChannel.open(segment, StandardOpenOption.WRITE)) {
+            channel.truncate(tornSize);
+        }
+
+        final List<LoggedMutation> replayed = new ArrayList<>();
+        assertEquals(2, WriteAheadLog.replay(directory, 0, replayed::add));
+        assertEquals(List.of(saved(101, "First"), saved(102, "Second")),
+                replayed.stream().map(LoggedMutation::mutation).toList());
+        final long validSize = frameLength(saved(101, "First")) + frameLength(saved(102, "Second"));
+        assertEquals(validSize, Files.size(segment));
+        assertEquals(2, WriteAheadLog.replay(directory, 0, _ -> {
+        }));
+        assertEquals(validSize, Files.size(segment));
+    }
+
+    /**
+     * The frame with the corrupted payload ends the segment like the torn frame.
+     *
+     * @throws IOException if an I/O error occurs
+     */
+    @Test
+    void truncatesCorruptedFrameOnReplay() throws IOException {
+
+        try (WriteAheadLog log = new WriteAheadLog(directory, 1, false)) {
+            log.append(1, saved(101, "First")).join();
+            log.append(1, saved(102, "Second")).join();
+        }
+        final Path segment = onlySegment();
+        final byte[] bytes = Files.readAllBytes(segment);
+        bytes[bytes.length - 1] ^= 0x7F;
+        Files.write(segment, bytes);
+
+        assertEquals(1, WriteAheadLog.replay(directory, 0, _ -> {
+        }));
+        assertEquals(frameLength(saved(101, "First")), Files.size(segment));
+    }
+
+    /**
+     * The append to the closed log fails at once.
+     *
+     * @throws IOException if an I/O error occurs
+     */
+    @Test
+    void rejectsAppendAfterClose() throws IOException {
+
+        final WriteAheadLog log = new WriteAheadLog(directory, 1, false);
+        log.close();
+        assertThrows(CompletionException.class, () -> log.append(1, saved(101, "Late")).join());
+        assertEquals(0, WriteAheadLog.replay(directory, 0, _ -> {
+        }));
+    }
+
+    /**
+     * Creates the saved {@link Employee} mutation.
+     *
+     * @param employeeId the {@link Employee}'s id
+     * @param firstName  the first name
+     * @return the {@link DatasetMutation}
+     */
+    private static DatasetMutation saved(long employeeId, String firstName) {
+        return new EmployeeSaved(1, new Employee().id(employeeId).firstName(firstName).lastName("Test"));
+    }
+
+    /**
+     * Gets the length of the mutation's frame.
+     *
+     * @param mutation the {@link DatasetMutation}
+     * @return the length of the frame
+     */
+    private static long frameLength(DatasetMutation mutation) {
+        return MutationCodec.encodeFrame(1, mutation).length;
+    }
+
+    /**
+     * Gets the only segment in the directory.
+     *
+     * @return the segment
+     * @throws IOException if an I/O error occurs
+     */
+    private Path onlySegment() throws IOException {
+
+        try (Stream<Path> paths = Files.list(directory)) {
+            final List<Path> segments = paths.toList();
+            assertEquals(1, segments.size());
+            return segments.getFirst();
+        }
+    }
+}
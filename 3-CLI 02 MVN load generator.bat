@@ -0,0 +1,5 @@
+@echo off
+set JAVA_HOME=C:\PROGRA~1\JAVA\JDK-24
+cd c:\Temp\Study01\3-client
+call c:\Temp\apache-maven-3.9.9\bin\mvn clean install exec:java -Dexec.args="load rate=1000 duration=30 concurrency=64"
+pause
\ No newline at end of file
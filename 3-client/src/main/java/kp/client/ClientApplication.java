@@ -1,20 +1,45 @@
 package kp.client;
 
+import kp.client.async.AsyncDepartmentsApi;
+import kp.client.async.HttpClients;
+import kp.client.encoding.EncodedDepartmentsApi;
+import kp.client.encoding.EncodedDepartmentsApi.Encoded;
+import kp.client.encoding.Encoding;
+import kp.client.load.LoadGenerator;
+import kp.client.load.LoadSettings;
 import kp.company.api.DepartmentsApi;
 import kp.company.model.Department;
 import kp.company.model.Employee;
 
+import java.util.Arrays;
 import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletionException;
 import java.util.Optional;
 
 /**
  * The client application.
+ * <p>
+ * With the first argument 'load' it runs the {@link LoadGenerator} configured by the remaining arguments,
+ * e.g. 'load rate=500 duration=60 concurrency=32'. See the {@link LoadSettings} for all settings.
+ * </p>
+ * <p>
+ * With the first argument 'async' it calls the endpoints with the {@link AsyncDepartmentsApi}.
+ * </p>
+ * <p>
+ * With the first argument 'encodings' it gets the departments in every {@link Encoding},
+ * with and without the compression, and shows the sizes of the response bodies.
+ * </p>
  */
 public class ClientApplication {
 
     private static final String BASE_PATH = "http://localhost:8080";
     private static final long DEPARTMENT_ID = 1L;
     private static final long EMPLOYEE_ID = 101L;
+    private static final String LOAD_MODE = "load";
+    private static final String ASYNC_MODE = "async";
+    private static final String ENCODINGS_MODE = "encodings";
+    private static final int MAX_IN_FLIGHT = 16;
 
     /**
      * The primary entry point for launching the application.
@@ -23,6 +48,18 @@ public class ClientApplication {
      */
     public static void main(String[] args) {
 
+        if (args.length > 0 && LOAD_MODE.equals(args[0])) {
+            runLoad(Arrays.copyOfRange(args, 1, args.length));
+            return;
+        }
+        if (args.length > 0 && ASYNC_MODE.equals(args[0])) {
+            callEndpointsAsync();
+            return;
+        }
+        if (args.length > 0 && ENCODINGS_MODE.equals(args[0])) {
+            compareEncodings();
+            return;
+        }
         final ApiClient defaultClient = Configuration.getDefaultApiClient();
         defaultClient.setBasePath(BASE_PATH);
         final DepartmentsApi departmentsApi = new DepartmentsApi(defaultClient);
@@ -35,6 +72,25 @@ public class ClientApplication {
         }
     }
 
+    /**
+     * Runs the load test.
+     *
+     * @param args the settings arguments
+     */
+    private static void runLoad(String[] args) {
+
+        try {
+            final LoadSettings settings = LoadSettings.parse(args);
+            final ApiClient apiClient = Configuration.getDefaultApiClient();
+            apiClient.setBasePath(settings.basePath());
+            new LoadGenerator(settings, apiClient).run();
+        } catch (IllegalArgumentException e) {
+            System.out.printf("IllegalArgumentException[%s]%n", e.getMessage());
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
     /**
      * Calls some endpoints on departments API.
      *
@@ -44,7 +100,7 @@ public class ClientApplication {
     private static void callEndpoints(DepartmentsApi departmentsApi) throws ApiException {
 
         System.out.println("*** The result from 'getDepartments()' ***");
-        final List<Department> departmentList = departmentsApi.getDepartments();
+        final List<Department> departmentList = departmentsApi.getDepartments(null, null);
         departmentList.forEach(ClientApplication::showDepartment);
         System.out.println("*** The result from 'getDepartmentById()' ***");
         final Department department = departmentsApi.getDepartmentById(DEPARTMENT_ID);
@@ -57,6 +113,54 @@ public class ClientApplication {
         showEmployee(employee);
     }
 
+    /**
+     * Calls the endpoints asynchronously over the shared HTTP/2 connection.
+     * <p>
+     * The employees of all departments are fetched concurrently with the bounded number of the requests in flight.
+     * </p>
+     */
+    private static void callEndpointsAsync() {
+
+        final ApiClient apiClient = HttpClients.createApiClient(BASE_PATH, true, MAX_IN_FLIGHT);
+        final AsyncDepartmentsApi asyncDepartmentsApi = new AsyncDepartmentsApi(apiClient);
+        try {
+            System.out.println("*** The result from 'getEmployeesInDepartments()' ***");
+            final Map<Long, List<Employee>> employeesMap = asyncDepartmentsApi.getDepartments(null, null)
+                    .thenApply(departmentList -> departmentList.stream().map(Department::getId).toList())
+                    .thenCompose(depIds -> asyncDepartmentsApi.getEmployeesInDepartments(depIds, MAX_IN_FLIGHT))
+                    .join();
+            employeesMap.forEach((depId, employeeList) -> System.out.printf(
+                    "\t department: id[%d], number of employees[%d]%n", depId, employeeList.size()));
+        } catch (CompletionException e) {
+            System.out.printf("Exception[%s]%n", e.getCause().getMessage());
+        } finally {
+            apiClient.getHttpClient().dispatcher().executorService().shutdown();
+            apiClient.getHttpClient().connectionPool().evictAll();
+        }
+    }
+
+    /**
+     * Gets the departments in every {@link Encoding}, with and without the compression.
+     */
+    private static void compareEncodings() {
+
+        final ApiClient apiClient = Configuration.getDefaultApiClient();
+        apiClient.setBasePath(BASE_PATH);
+        try {
+            System.out.println("*** The result from 'getDepartments()' in every encoding ***");
+            for (Encoding encoding : Encoding.values()) {
+                for (boolean compressed : new boolean[]{false, true}) {
+                    final Encoded<List<Department>> encoded =
+                            new EncodedDepartmentsApi(apiClient, encoding, compressed).getDepartments();
+                    System.out.printf("\t encoding[%s], gzipped[%b], number of departments[%d], bytes[%d]%n",
+                            encoding, encoded.gzipped(), encoded.value().size(), encoded.wireBytes());
+                }
+            }
+        } catch (ApiException e) {
+            System.out.printf("ApiException[%s]%n", e.getMessage());
+        }
+    }
+
     /**
      * Shows the {@link Department}
      *
@@ -0,0 +1,267 @@
+package kp.client.async;
+
+import kp.client.ApiCallback;
+import kp.client.ApiClient;
+import kp.client.ApiException;
+import kp.company.api.DepartmentsApi;
+import kp.company.model.BatchResult;
+import kp.company.model.Department;
+import kp.company.model.DepartmentBatchRequest;
+import kp.company.model.DepartmentMergeResult;
+import kp.company.model.Employee;
+import kp.company.model.EmployeeBatchRequest;
+
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * The asynchronous variant of the {@link DepartmentsApi}.
+ * <p>
+ * Every operation sends the request through the generated asynchronous call and returns at once.
+ * The {@link CompletableFuture} is completed on the thread of the {@link okhttp3.Dispatcher}, so the dependent
+ * stages must not block. Cancelling the {@link CompletableFuture} cancels the HTTP call.
+ * </p>
+ * <p>
+ * The {@link ApiClient} from the {@link HttpClients} lets many requests share the connection.
+ * </p>
+ */
+public class AsyncDepartmentsApi {
+
+    private final DepartmentsApi departmentsApi;
+
+    /**
+     * The constructor.
+     *
+     * @param apiClient the {@link ApiClient}
+     */
+    public AsyncDepartmentsApi(ApiClient apiClient) {
+        this.departmentsApi = new DepartmentsApi(apiClient);
+    }
+
+    /**
+     * Gets the departments.
+     *
+     * @param limit  the page size, null for all departments
+     * @param cursor the cursor of the page, null for the first page
+     * @return the {@link CompletableFuture} with the list of {@link Department}s
+     */
+    public CompletableFuture<List<Department>> getDepartments(Integer limit, String cursor) {
+        return call(callback -> departmentsApi.getDepartmentsAsync(limit, cursor, callback));
+    }
+
+    /**
+     * Gets the department by id.
+     *
+     * @param depId the department id
+     * @return the {@link CompletableFuture} with the {@link Department}
+     */
+    public CompletableFuture<Department> getDepartmentById(Long depId) {
+        return call(callback -> departmentsApi.getDepartmentByIdAsync(depId, callback));
+    }
+
+    /**
+     * Creates the department.
+     *
+     * @param department the {@link Department}
+     * @return the {@link CompletableFuture} with the created {@link Department}
+     */
+    public CompletableFuture<Department> createDepartment(Department department) {
+        return call(callback -> departmentsApi.createDepartmentAsync(department, callback));
+    }
+
+    /**
+     * Updates the department.
+     *
+     * @param depId      the department id
+     * @param department the {@link Department}
+     * @return the {@link CompletableFuture} with the {@link DepartmentMergeResult}
+     */
+    public CompletableFuture<DepartmentMergeResult> updateDepartment(Long depId, Department department) {
+        return call(callback -> departmentsApi.updateDepartmentAsync(depId, department, callback));
+    }
+
+    /**
+     * Deletes the department.
+     *
+     * @param depId the department id
+     * @return the {@link CompletableFuture} completed after the deletion
+     */
+    public CompletableFuture<Void> deleteDepartment(Long depId) {
+        return call(callback -> departmentsApi.deleteDepartmentAsync(depId, callback));
+    }
+
+    /**
+     * Applies the batch of department operations.
+     *
+     * @param request the {@link DepartmentBatchRequest}
+     * @return the {@link CompletableFuture} with the {@link BatchResult}
+     */
+    public CompletableFuture<BatchResult> batchDepartments(DepartmentBatchRequest request) {
+        return call(callback -> departmentsApi.batchDepartmentsAsync(request, callback));
+    }
+
+    /**
+     * Gets the employees in the department.
+     *
+     * @param depId the department id
+     * @return the {@link CompletableFuture} with the list of {@link Employee}s
+     */
+    public CompletableFuture<List<Employee>> getEmployeesInDepartment(Long depId) {
+        return call(callback -> departmentsApi.getEmployeesInDepartmentAsync(depId, callback));
+    }
+
+    /**
+     * Gets the employee in the department by ids.
+     *
+     * @param depId the department id
+     * @param empId the employee id
+     * @return the {@link CompletableFuture} with the {@link Employee}
+     */
+    public CompletableFuture<Employee> getEmployeeInDepartmentByIds(Long depId, Long empId) {
+        return call(callback -> departmentsApi.getEmployeeInDepartmentByIdsAsync(depId, empId, callback));
+    }
+
+    /**
+     * Creates the employee in the department.
+     *
+     * @param depId    the department id
+     * @param employee the {@link Employee}
+     * @return the {@link CompletableFuture} with the created {@link Employee}
+     */
+    public CompletableFuture<Employee> createEmployeeInDepartment(Long depId, Employee employee) {
+        return call(callback -> departmentsApi.createEmployeeInDepartmentAsync(depId, employee, callback));
+    }
+
+    /**
+     * Updates the employee in the department.
+     *
+     * @param depId    the department id
+     * @param empId    the employee id
+     * @param employee the {@link Employee}
+     * @return the {@link CompletableFuture} completed after the update
+     */
+    public CompletableFuture<Void> updateEmployeeInDepartment(Long depId, Long empId, Employee employee) {
+        return call(callback -> departmentsApi.updateEmployeeInDepartmentAsync(depId, empId, employee, callback));
+    }
+
+    /**
+     * Deletes the employee in the department.
+     *
+     * @param depId the department id
+     * @param empId the employee id
+     * @return the {@link CompletableFuture} completed after the deletion
+     */
+    public CompletableFuture<Void> deleteEmployeeInDepartment(Long depId, Long empId) {
+        return call(callback -> departmentsApi.deleteEmployeeInDepartmentAsync(depId, empId, callback));
+    }
+
+    /**
+     * Applies the batch of employee operations in the department.
+     *
+     * @param depId   the department id
+     * @param request the {@link EmployeeBatchRequest}
+     * @return the {@link CompletableFuture} with the {@link BatchResult}
+     */
+    public CompletableFuture<BatchResult> batchEmployeesInDepartment(Long depId, EmployeeBatchRequest request) {
+        return call(callback -> departmentsApi.batchEmployeesInDepartmentAsync(depId, request, callback));
+    }
+
+    /**
+     * Gets the employees of many departments concurrently.
+     * <p>
+     * At most the given number of the requests is in flight, see the {@link FanOut}.
+     * </p>
+     *
+     * @param depIds      the department ids
+     * @param maxInFlight the maximum number of the requests in flight
+     * @return the {@link CompletableFuture} with the map of the lists of {@link Employee}s
+     * in the order of the department ids
+     */
+    public CompletableFuture<Map<Long, List<Employee>>> getEmployeesInDepartments(Collection<Long> depIds,
+                                                                                  int maxInFlight) {
+        return FanOut.map(depIds, maxInFlight, this::getEmployeesInDepartment);
+    }
+
+    /**
+     * Starts the asynchronous call completing the {@link CompletableFuture}.
+     *
+     * @param asyncCall the {@link AsyncCall}
+     * @param <T>       the type of the result
+     * @return the {@link CompletableFuture}
+     */
+    private static <T> CompletableFuture<T> call(AsyncCall<T> asyncCall) {
+
+        final CompletableFuture<T> future = new CompletableFuture<>();
+        try {
+            final okhttp3.Call httpCall = asyncCall.start(new FutureCallback<>(future));
+            future.whenComplete((_, _) -> {
+                if (future.isCancelled()) {
+                    httpCall.cancel();
+                }
+            });
+        } catch (ApiException e) {
+            future.completeExceptionally(e);
+        }
+        return future;
+    }
+
+    /**
+     * The generated asynchronous call.
+     *
+     * @param <T> the type of the result
+     */
+    @FunctionalInterface
+    private interface AsyncCall<T> {
+        /**
+         * Starts the call.
+         *
+         * @param callback the {@link ApiCallback}
+         * @return the {@link okhttp3.Call}
+         * @throws ApiException if the request cannot be built
+         */
+        okhttp3.Call start(ApiCallback<T> callback) throws ApiException;
+    }
+
+    /**
+     * The {@link ApiCallback} completing the {@link CompletableFuture}.
+     *
+     * @param future the {@link CompletableFuture}
+     * @param <T>    the type of the result
+     */
+    private record FutureCallback<T>(CompletableFuture<T> future) implements ApiCallback<T> {
+
+        /**
+         * {@inheritDoc}
+         */
+        @Override
+        public void onFailure(ApiException e, int statusCode, Map<String, List<String>> responseHeaders) {
+            future.completeExceptionally(e);
+        }
+
+        /**
+         * {@inheritDoc}
+         */
+        @Override
+        public void onSuccess(T result, int statusCode, Map<String, List<String>> responseHeaders) {
+            future.complete(result);
+        }
+
+        /**
+         * {@inheritDoc}
+         */
+        @Override
+        public void onUploadProgress(long bytesWritten, long contentLength, boolean done) {
+            // the progress is not reported
+        }
+
+        /**
+         * {@inheritDoc}
+         */
+        @Override
+        public void onDownloadProgress(long bytesRead, long contentLength, boolean done) {
+            // the progress is not reported
+        }
+    }
+}
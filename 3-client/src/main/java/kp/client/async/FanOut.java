@@ -0,0 +1,166 @@
+package kp.client.async;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.function.Function;
+
+/**
+ * The fan-out of the asynchronous calls with the bounded number of the calls in flight.
+ * <p>
+ * It starts as many calls as allowed, and every completed call starts the next one.
+ * The caller is never blocked, and the server never sees more calls than the bound,
+ * however long the list of the keys is. It is the backpressure: the slow server slows down the fan-out.
+ * </p>
+ * <p>
+ * The first failed call fails the result and no further calls are started.
+ * The calls still in flight are cancelled when the result fails or when the caller cancels it.
+ * </p>
+ * <p>
+ * The call completed at once, e.g. by the cached response, starts the next one without the recursion:
+ * the start requests are counted and run in the loop of the thread which came first.
+ * </p>
+ */
+public final class FanOut {
+
+    /**
+     * Private constructor to prevent instantiation.
+     */
+    private FanOut() {
+    }
+
+    /**
+     * Calls the function for every key with at most the given number of the calls in flight.
+     *
+     * @param keys        the keys
+     * @param maxInFlight the maximum number of the calls in flight
+     * @param call        the asynchronous call
+     * @param <K>         the type of the keys
+     * @param <V>         the type of the values
+     * @return the {@link CompletableFuture} with the map of the values in the order of the keys
+     * @throws IllegalArgumentException if the maximum number of the calls in flight is not positive
+     */
+    public static <K, V> CompletableFuture<Map<K, V>> map(Collection<K> keys, int maxInFlight,
+                                                          Function<K, CompletableFuture<V>> call) {
+
+        if (maxInFlight < 1) {
+            throw new IllegalArgumentException("Invalid maximum number of calls in flight[%d]".formatted(maxInFlight));
+        }
+        final Window<K, V> window = new Window<>(List.copyOf(keys), call);
+        if (window.keyList.isEmpty()) {
+            window.result.complete(Map.of());
+        }
+        for (int i = 0; i < Math.min(maxInFlight, window.keyList.size()); i++) {
+            window.requestStart();
+        }
+        return window.result;
+    }
+
+    /**
+     * The sliding window over the keys.
+     *
+     * @param <K> the type of the keys
+     * @param <V> the type of the values
+     */
+    private static final class Window<K, V> {
+
+        private final List<K> keyList;
+        private final Function<K, CompletableFuture<V>> call;
+        private final AtomicReferenceArray<V> values;
+        private final AtomicInteger nextIndex = new AtomicInteger();
+        private final AtomicInteger pending;
+        private final AtomicInteger startRequests = new AtomicInteger();
+        private final Set<CompletableFuture<V>> inFlight = ConcurrentHashMap.newKeySet();
+        private final CompletableFuture<Map<K, V>> result = new CompletableFuture<>();
+
+        /**
+         * The constructor.
+         *
+         * @param keyList the list of the keys
+         * @param call    the asynchronous call
+         */
+        Window(List<K> keyList, Function<K, CompletableFuture<V>> call) {
+
+            this.keyList = keyList;
+            this.call = call;
+            this.values = new AtomicReferenceArray<>(keyList.size());
+            this.pending = new AtomicInteger(keyList.size());
+            result.whenComplete((_, throwable) -> {
+                if (Objects.nonNull(throwable)) {
+                    inFlight.forEach(future -> future.cancel(true));
+                }
+            });
+        }
+
+        /**
+         * Requests the start of the call for the next key.
+         * <p>
+         * The thread finding no other request running starts the calls until no request is left.
+         * The request made meanwhile, also by the call completed inside the loop, is taken by the loop.
+         * </p>
+         */
+        void requestStart() {
+
+            if (startRequests.getAndIncrement() == 0) {
+                do {
+                    startNext();
+                } while (startRequests.decrementAndGet() != 0);
+            }
+        }
+
+        /**
+         * Starts the call for the next key.
+         */
+        private void startNext() {
+
+            final int index = nextIndex.getAndIncrement();
+            if (index >= keyList.size() || result.isDone()) {
+                return;
+            }
+            final CompletableFuture<V> future;
+            try {
+                future = call.apply(keyList.get(index));
+            } catch (RuntimeException e) {
+                result.completeExceptionally(e);
+                return;
+            }
+            inFlight.add(future);
+            if (result.isDone()) {
+                future.cancel(true);
+            }
+            future.whenComplete((value, throwable) -> {
+                inFlight.remove(future);
+                if (Objects.nonNull(throwable)) {
+                    result.completeExceptionally(throwable);
+                } else {
+                    values.set(index, value);
+                    if (pending.decrementAndGet() == 0) {
+                        complete();
+                    } else {
+                        requestStart();
+                    }
+                }
+            });
+        }
+
+        /**
+         * Completes the result with the values in the order of the keys.
+         */
+        private void complete() {
+
+            final Map<K, V> valueMap = new LinkedHashMap<>();
+            for (int i = 0; i < keyList.size(); i++) {
+                valueMap.put(keyList.get(i), values.get(i));
+            }
+            result.complete(valueMap);
+        }
+    }
+}
@@ -0,0 +1,63 @@
+package kp.client.async;
+
+import kp.client.ApiClient;
+import okhttp3.ConnectionPool;
+import okhttp3.Dispatcher;
+import okhttp3.OkHttpClient;
+import okhttp3.Protocol;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * The factory of the {@link ApiClient}s sharing one tuned {@link OkHttpClient}.
+ * <p>
+ * The default {@link OkHttpClient} runs at most five asynchronous requests per host and keeps five idle
+ * connections, so the concurrent calls queue in the client, not in the server. The shared client:
+ * </p>
+ * <ul>
+ * <li>runs up to the given number of the asynchronous requests per host
+ * <li>keeps as many idle connections for the reuse
+ * <li>with the HTTP/2 prior knowledge (h2c) multiplexes all requests over one connection
+ * </ul>
+ * <p>
+ * The HTTP/2 prior knowledge needs the server with the cleartext HTTP/2 enabled.
+ * </p>
+ */
+public final class HttpClients {
+
+    private static final Duration KEEP_ALIVE = Duration.ofMinutes(5);
+    private static final Duration CALL_TIMEOUT = Duration.ofSeconds(30);
+
+    /**
+     * Private constructor to prevent instantiation.
+     */
+    private HttpClients() {
+    }
+
+    /**
+     * Creates the {@link ApiClient} with the tuned {@link OkHttpClient}.
+     *
+     * @param basePath    the base path of the server
+     * @param http2       the flag whether the HTTP/2 prior knowledge is used instead of the HTTP/1.1
+     * @param maxRequests the maximum number of the concurrent asynchronous requests
+     * @return the {@link ApiClient}
+     */
+    public static ApiClient createApiClient(String basePath, boolean http2, int maxRequests) {
+
+        final ApiClient apiClient = new ApiClient();
+        final Dispatcher dispatcher = new Dispatcher();
+        dispatcher.setMaxRequests(maxRequests);
+        dispatcher.setMaxRequestsPerHost(maxRequests);
+        apiClient.setHttpClient(apiClient.getHttpClient().newBuilder()
+                .dispatcher(dispatcher)
+                .connectionPool(new ConnectionPool(http2 ? 1 : maxRequests, KEEP_ALIVE.toMillis(),
+                        TimeUnit.MILLISECONDS))
+                .protocols(List.of(http2 ? Protocol.H2_PRIOR_KNOWLEDGE : Protocol.HTTP_1_1))
+                .callTimeout(CALL_TIMEOUT)
+                .build());
+        apiClient.setBasePath(basePath);
+        return apiClient;
+    }
+}
@@ -0,0 +1,145 @@
+package kp.client.encoding;
+
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.JavaType;
+import kp.client.ApiClient;
+import kp.client.ApiException;
+import kp.company.api.DepartmentsApi;
+import kp.company.model.Department;
+import kp.company.model.Employee;
+import okhttp3.HttpUrl;
+import okhttp3.Request;
+import okhttp3.Response;
+import okhttp3.ResponseBody;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.List;
+import java.util.Objects;
+import java.util.zip.GZIPInputStream;
+
+/**
+ * The variant of the read operations of the {@link DepartmentsApi} with the negotiated {@link Encoding}.
+ * <p>
+ * The generated client reads only the JSON, so these operations send the request
+ * with the {@link ApiClient}'s {@link okhttp3.OkHttpClient} and decode the body with the {@link Encoding}.
+ * </p>
+ * <p>
+ * With the compression the 'Accept-Encoding' header is sent explicitly, so the compressed body is not
+ * unpacked transparently and its size on the wire is known. The server compresses only the responses
+ * above its minimum size.
+ * </p>
+ */
+public class EncodedDepartmentsApi {
+
+    private static final String DEPARTMENTS_PATH = "departments";
+    private static final String EMPLOYEES_PATH = "employees";
+    private static final String ACCEPT_HEADER = "Accept";
+    private static final String ACCEPT_ENCODING_HEADER = "Accept-Encoding";
+    private static final String CONTENT_ENCODING_HEADER = "Content-Encoding";
+    private static final String GZIP = "gzip";
+    private static final String IDENTITY = "identity";
+    private final ApiClient apiClient;
+    private final Encoding encoding;
+    private final boolean compressed;
+
+    /**
+     * The decoded response body with its size on the wire.
+     *
+     * @param value     the decoded value
+     * @param wireBytes the number of the bytes of the body as sent by the server
+     * @param gzipped   the flag whether the body was compressed
+     * @param <T>       the type of the value
+     */
+    public record Encoded<T>(T value, long wireBytes, boolean gzipped) {
+    }
+
+    /**
+     * The constructor.
+     *
+     * @param apiClient  the {@link ApiClient}
+     * @param encoding   the {@link Encoding}
+     * @param compressed the flag whether the compressed response is accepted
+     */
+    public EncodedDepartmentsApi(ApiClient apiClient, Encoding encoding, boolean compressed) {
+
+        this.apiClient = apiClient;
+        this.encoding = encoding;
+        this.compressed = compressed;
+    }
+
+    /**
+     * Gets the departments.
+     *
+     * @return the {@link Encoded} list of {@link Department}s
+     * @throws ApiException if the call fails or the server responds with the error status
+     */
+    public Encoded<List<Department>> getDepartments() throws ApiException {
+        return get(new TypeReference<>() {
+        }, DEPARTMENTS_PATH);
+    }
+
+    /**
+     * Gets the department by id.
+     *
+     * @param depId the department id
+     * @return the {@link Encoded} {@link Department}
+     * @throws ApiException if the call fails or the server responds with the error status
+     */
+    public Encoded<Department> getDepartmentById(Long depId) throws ApiException {
+        return get(new TypeReference<>() {
+        }, DEPARTMENTS_PATH, String.valueOf(depId));
+    }
+
+    /**
+     * Gets the employees in the department.
+     *
+     * @param depId the department id
+     * @return the {@link Encoded} list of {@link Employee}s
+     * @throws ApiException if the call fails or the server responds with the error status
+     */
+    public Encoded<List<Employee>> getEmployeesInDepartment(Long depId) throws ApiException {
+        return get(new TypeReference<>() {
+        }, DEPARTMENTS_PATH, String.valueOf(depId), EMPLOYEES_PATH);
+    }
+
+    /**
+     * Sends the GET request and decodes the response body.
+     *
+     * @param typeReference the {@link TypeReference} of the decoded value
+     * @param pathSegments  the path segments following the base path
+     * @param <T>           the type of the decoded value
+     * @return the {@link Encoded} value
+     * @throws ApiException if the call fails or the server responds with the error status
+     */
+    private <T> Encoded<T> get(TypeReference<T> typeReference, String... pathSegments) throws ApiException {
+
+        final HttpUrl.Builder urlBuilder = Objects.requireNonNull(HttpUrl.parse(apiClient.getBasePath()))
+                .newBuilder();
+        for (String pathSegment : pathSegments) {
+            urlBuilder.addPathSegment(pathSegment);
+        }
+        final Request request = new Request.Builder().url(urlBuilder.build())
+                .header(ACCEPT_HEADER, encoding.getMediaType())
+                .header(ACCEPT_ENCODING_HEADER, compressed ? GZIP : IDENTITY)
+                .get().build();
+        try (Response response = apiClient.getHttpClient().newCall(request).execute()) {
+            final ResponseBody body = Objects.requireNonNull(response.body());
+            final byte[] bytes = body.bytes();
+            if (!response.isSuccessful()) {
+                throw new ApiException(response.message(), response.code(), response.headers().toMultimap(),
+                        new String(bytes));
+            }
+            final boolean gzipped = GZIP.equalsIgnoreCase(response.header(CONTENT_ENCODING_HEADER));
+            final JavaType javaType = encoding.getObjectMapper().getTypeFactory().constructType(typeReference);
+            try (InputStream inputStream = gzipped ? new GZIPInputStream(new ByteArrayInputStream(bytes))
+                    : new ByteArrayInputStream(bytes)) {
+                final T value = encoding.getObjectMapper().readValue(inputStream, javaType);
+                return new Encoded<>(value, bytes.length, gzipped);
+            }
+        } catch (IOException e) {
+            throw new ApiException(e);
+        }
+    }
+}
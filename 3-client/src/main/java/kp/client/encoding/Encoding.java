@@ -0,0 +1,62 @@
+package kp.client.encoding;
+
+import com.fasterxml.jackson.databind.DeserializationFeature;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.dataformat.cbor.CBORFactory;
+import com.fasterxml.jackson.dataformat.smile.SmileFactory;
+
+/**
+ * The encodings of the response bodies negotiated with the 'Accept' header.
+ */
+public enum Encoding {
+    /**
+     * The JSON.
+     */
+    JSON("application/json", new ObjectMapper()),
+    /**
+     * The binary CBOR (RFC 8949).
+     */
+    CBOR("application/cbor", new ObjectMapper(new CBORFactory())),
+    /**
+     * The binary Smile, the Jackson binary JSON.
+     */
+    SMILE("application/x-jackson-smile", new ObjectMapper(new SmileFactory()));
+
+    private final String mediaType;
+    private final ObjectMapper objectMapper;
+
+    /**
+     * The constructor.
+     *
+     * @param mediaType    the media type
+     * @param objectMapper the {@link ObjectMapper} of the format
+     */
+    Encoding(String mediaType, ObjectMapper objectMapper) {
+
+        this.mediaType = mediaType;
+        this.objectMapper = objectMapper
+                .configure(DeserializationFeature.FAIL_ON_UNKNOWN_PROPERTIES, false)
+                .configure(DeserializationFeature.READ_ENUMS_USING_TO_STRING, true);
+    }
+
+    /**
+     * Gets the media type.
+     *
+     * @return the media type
+     */
+    public String getMediaType() {
+        return mediaType;
+    }
+
+    /**
+     * Gets the {@link ObjectMapper} decoding this encoding.
+     * <p>
+     * The generated models are read with their setters; the enums are read with their values.
+     * </p>
+     *
+     * @return the {@link ObjectMapper}
+     */
+    public ObjectMapper getObjectMapper() {
+        return objectMapper;
+    }
+}
@@ -0,0 +1,173 @@
+package kp.client.load;
+
+import kp.client.ApiException;
+import kp.company.api.DepartmentsApi;
+import kp.company.model.Employee;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.random.RandomGenerator;
+
+/**
+ * The endpoint called by the load generator.
+ * <p>
+ * The ids of the reads and the updates are drawn uniformly from the ranges of the sample dataset.
+ * </p>
+ * <p>
+ * The created employees get the sequential ids above the ids of the sample dataset and the departments
+ * taken round-robin, so the reads keep finding the sample dataset. The deletes remove the created employees
+ * in the order of their creation, so the dataset does not grow when the delete weight equals the create weight.
+ * The delete overtaking its create gets the '404 Not Found' and counts as the error,
+ * so the delete weight should not exceed the create weight.
+ * </p>
+ */
+public enum LoadEndpoint {
+    /**
+     * The first page of the departments.
+     */
+    GET_DEPARTMENTS("getDepartments") {
+        @Override
+        void call(DepartmentsApi departmentsApi, RandomGenerator random, LoadSettings settings) throws ApiException {
+            departmentsApi.getDepartments(PAGE_LIMIT, null);
+        }
+    },
+    /**
+     * The department by id.
+     */
+    GET_DEPARTMENT_BY_ID("getDepartmentById") {
+        @Override
+        void call(DepartmentsApi departmentsApi, RandomGenerator random, LoadSettings settings) throws ApiException {
+            departmentsApi.getDepartmentById(departmentId(random, settings));
+        }
+    },
+    /**
+     * The employees in the department.
+     */
+    GET_EMPLOYEES_IN_DEPARTMENT("getEmployeesInDepartment") {
+        @Override
+        void call(DepartmentsApi departmentsApi, RandomGenerator random, LoadSettings settings) throws ApiException {
+            departmentsApi.getEmployeesInDepartment(departmentId(random, settings));
+        }
+    },
+    /**
+     * The employee in the department by ids.
+     */
+    GET_EMPLOYEE_IN_DEPARTMENT_BY_IDS("getEmployeeInDepartmentByIds") {
+        @Override
+        void call(DepartmentsApi departmentsApi, RandomGenerator random, LoadSettings settings) throws ApiException {
+
+            final long departmentId = departmentId(random, settings);
+            departmentsApi.getEmployeeInDepartmentByIds(departmentId, employeeId(random, settings, departmentId));
+        }
+    },
+    /**
+     * The creation of the employee in the department.
+     */
+    CREATE_EMPLOYEE_IN_DEPARTMENT("createEmployeeInDepartment") {
+        @Override
+        void call(DepartmentsApi departmentsApi, RandomGenerator random, LoadSettings settings) throws ApiException {
+
+            final long created = CREATED_COUNT.getAndIncrement();
+            final long employeeId = CREATED_EMPLOYEE_ID_BASE + created;
+            departmentsApi.createEmployeeInDepartment(createdDepartmentId(created, settings),
+                    new Employee().id(employeeId).firstName(FIRST_NAME_PREFIX + employeeId)
+                            .lastName(LAST_NAME_PREFIX + employeeId));
+        }
+    },
+    /**
+     * The update of the employee in the department.
+     */
+    UPDATE_EMPLOYEE_IN_DEPARTMENT("updateEmployeeInDepartment") {
+        @Override
+        void call(DepartmentsApi departmentsApi, RandomGenerator random, LoadSettings settings) throws ApiException {
+
+            final long departmentId = departmentId(random, settings);
+            final long employeeId = employeeId(random, settings, departmentId);
+            departmentsApi.updateEmployeeInDepartment(departmentId, employeeId,
+                    new Employee().lastName(LAST_NAME_PREFIX + employeeId));
+        }
+    },
+    /**
+     * The deletion of the created employee in the department.
+     */
+    DELETE_EMPLOYEE_IN_DEPARTMENT("deleteEmployeeInDepartment") {
+        @Override
+        void call(DepartmentsApi departmentsApi, RandomGenerator random, LoadSettings settings) throws ApiException {
+
+            final long deleted = DELETED_COUNT.getAndIncrement();
+            departmentsApi.deleteEmployeeInDepartment(createdDepartmentId(deleted, settings),
+                    CREATED_EMPLOYEE_ID_BASE + deleted);
+        }
+    };
+
+    private static final int PAGE_LIMIT = 100;
+    private static final long EMPLOYEE_ID_FACTOR = 100;
+    private static final long CREATED_EMPLOYEE_ID_BASE = 1_000_000_000L;
+    private static final String FIRST_NAME_PREFIX = "EF-Load-";
+    private static final String LAST_NAME_PREFIX = "EL-Load-";
+    private static final AtomicLong CREATED_COUNT = new AtomicLong();
+    private static final AtomicLong DELETED_COUNT = new AtomicLong();
+    private final String operationId;
+
+    /**
+     * The constructor.
+     *
+     * @param operationId the operation id from the OpenAPI specification
+     */
+    LoadEndpoint(String operationId) {
+        this.operationId = operationId;
+    }
+
+    /**
+     * Gets the operation id.
+     *
+     * @return the operation id
+     */
+    public String getOperationId() {
+        return operationId;
+    }
+
+    /**
+     * Calls the endpoint.
+     *
+     * @param departmentsApi the {@link DepartmentsApi}
+     * @param random         the {@link RandomGenerator}
+     * @param settings       the {@link LoadSettings}
+     * @throws ApiException the {@link ApiException}
+     */
+    abstract void call(DepartmentsApi departmentsApi, RandomGenerator random, LoadSettings settings)
+            throws ApiException;
+
+    /**
+     * Draws the department id.
+     *
+     * @param random   the {@link RandomGenerator}
+     * @param settings the {@link LoadSettings}
+     * @return the department id
+     */
+    private static long departmentId(RandomGenerator random, LoadSettings settings) {
+        return random.nextLong(1, settings.departmentCount() + 1);
+    }
+
+    /**
+     * Draws the employee id in the department.
+     *
+     * @param random       the {@link RandomGenerator}
+     * @param settings     the {@link LoadSettings}
+     * @param departmentId the department id
+     * @return the employee id
+     */
+    private static long employeeId(RandomGenerator random, LoadSettings settings, long departmentId) {
+        return EMPLOYEE_ID_FACTOR * departmentId + random.nextLong(1, settings.employeeCount() + 1);
+    }
+
+    /**
+     * Gets the department id of the created employee.
+     *
+     * @param created  the sequence number of the created employee
+     * @param settings the {@link LoadSettings}
+     * @return the department id
+     */
+    private static long createdDepartmentId(long created, LoadSettings settings) {
+        return 1 + created % settings.departmentCount();
+    }
+}
@@ -0,0 +1,267 @@
+package kp.client.load;
+
+import kp.client.ApiClient;
+import kp.client.ApiException;
+import kp.company.api.DepartmentsApi;
+import okhttp3.ConnectionPool;
+import org.HdrHistogram.ConcurrentHistogram;
+import org.HdrHistogram.Histogram;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.LockSupport;
+import java.util.random.RandomGenerator;
+
+/**
+ * The load generator calling the {@link DepartmentsApi} at the target rate.
+ * <p>
+ * The schedule is open-loop: the request number <i>n</i> is due at <i>start + n / rate</i>
+ * no matter how long the previous requests took. The latency is measured from the due time, not from
+ * the send time, so the time the request waited for the free worker is counted as well.
+ * It avoids the coordinated omission: the slow server cannot slow down the generator and hide its own stalls.
+ * The service time measured from the send time is reported next to it.
+ * </p>
+ * <p>
+ * The workers are platform threads, because the generated client blocks on the socket.
+ * Their number bounds the requests in flight. The requests still waiting when the drain timeout
+ * after the end of the test expires are reported as not sent.
+ * </p>
+ * <p>
+ * The results are printed as CSV, one row per endpoint and the total row.
+ * The requests rejected by the admission control with the '429 Too Many Requests' are counted apart
+ * from the errors, so the shed load is not mistaken for the failing server.
+ * </p>
+ */
+public final class LoadGenerator {
+
+    private static final Duration KEEP_ALIVE = Duration.ofMinutes(1);
+    private static final Duration DRAIN_TIMEOUT = Duration.ofSeconds(10);
+    private static final long HIGHEST_TRACKABLE_MICROS = TimeUnit.MINUTES.toMicros(10);
+    private static final int SIGNIFICANT_DIGITS = 3;
+    private static final int TOO_MANY_REQUESTS = 429;
+    private static final String TOTAL_ROW_NAME = "total";
+    private static final String CSV_HEADER = "endpoint,requests,errors,rejected,throughputPerSecond,"
+                                             + "latencyP50Millis,latencyP90Millis,latencyP99Millis,"
+                                             + "latencyP999Millis,latencyMaxMillis,serviceP50Millis,serviceP99Millis";
+    private static final String CSV_ROW = "%s,%d,%d,%d,%.1f,%.2f,%.2f,%.2f,%.2f,%.2f,%.2f,%.2f";
+    private static final String SUMMARY = "# targetRate[%.1f], achievedRate[%.1f], notSent[%d], concurrency[%d]";
+
+    private final LoadSettings settings;
+    private final DepartmentsApi departmentsApi;
+    private final LoadEndpoint[] schedule;
+    private final Map<LoadEndpoint, Statistics> statisticsMap = new EnumMap<>(LoadEndpoint.class);
+    private final AtomicLong nextRequest = new AtomicLong();
+    private final LongAdder notSent = new LongAdder();
+
+    /**
+     * The constructor.
+     * <p>
+     * The connection pool of the {@link ApiClient} is enlarged to keep one idle connection per worker.
+     * </p>
+     *
+     * @param settings  the {@link LoadSettings}
+     * @param apiClient the {@link ApiClient}
+     */
+    public LoadGenerator(LoadSettings settings, ApiClient apiClient) {
+
+        this.settings = settings;
+        apiClient.setHttpClient(apiClient.getHttpClient().newBuilder()
+                .connectionPool(new ConnectionPool(settings.concurrency(), KEEP_ALIVE.toMillis(),
+                        TimeUnit.MILLISECONDS))
+                .build());
+        this.departmentsApi = new DepartmentsApi(apiClient);
+        this.schedule = scheduleOf(settings.mix());
+        settings.mix().keySet().forEach(endpoint -> statisticsMap.put(endpoint, new Statistics()));
+    }
+
+    /**
+     * Runs the test and prints the report.
+     *
+     * @throws InterruptedException if interrupted
+     */
+    public void run() throws InterruptedException {
+
+        final double intervalNanos = TimeUnit.SECONDS.toNanos(1) / settings.rate();
+        final long start = System.nanoTime();
+        final long end = start + settings.duration().toNanos();
+        final long drainDeadline = end + DRAIN_TIMEOUT.toNanos();
+        try (ExecutorService executor = Executors.newFixedThreadPool(settings.concurrency(),
+                Thread.ofPlatform().name("load-", 0).daemon().factory())) {
+            for (int i = 0; i < settings.concurrency(); i++) {
+                executor.execute(() -> work(start, end, drainDeadline, intervalNanos));
+            }
+            executor.shutdown();
+            if (!executor.awaitTermination(settings.duration().plus(DRAIN_TIMEOUT).toSeconds() * 2,
+                    TimeUnit.SECONDS)) {
+                executor.shutdownNow();
+            }
+        }
+        report(System.nanoTime() - start);
+    }
+
+    /**
+     * Takes the due requests and calls the endpoints until the end of the schedule.
+     *
+     * @param start         the start time in nanoseconds
+     * @param end           the end time in nanoseconds
+     * @param drainDeadline the time in nanoseconds after which the late requests are not sent
+     * @param intervalNanos the interval between the requests in nanoseconds
+     */
+    private void work(long start, long end, long drainDeadline, double intervalNanos) {
+
+        final RandomGenerator random = ThreadLocalRandom.current();
+        while (true) {
+            final long request = nextRequest.getAndIncrement();
+            final long dueTime = start + (long) (request * intervalNanos);
+            if (dueTime - end >= 0) {
+                return;
+            }
+            final long waitNanos = dueTime - System.nanoTime();
+            if (waitNanos > 0) {
+                LockSupport.parkNanos(waitNanos);
+            } else if (System.nanoTime() - drainDeadline >= 0) {
+                notSent.increment();
+                continue;
+            }
+            final LoadEndpoint endpoint = schedule[random.nextInt(schedule.length)];
+            final long sendTime = Math.max(System.nanoTime(), dueTime);
+            Outcome outcome = Outcome.SUCCEEDED;
+            try {
+                endpoint.call(departmentsApi, random, settings);
+            } catch (ApiException e) {
+                outcome = e.getCode() == TOO_MANY_REQUESTS ? Outcome.REJECTED : Outcome.FAILED;
+            } catch (RuntimeException e) {
+                outcome = Outcome.FAILED;
+            }
+            statisticsMap.get(endpoint).record(dueTime, sendTime, System.nanoTime(), outcome);
+        }
+    }
+
+    /**
+     * Prints the report.
+     *
+     * @param elapsedNanos the elapsed time in nanoseconds
+     */
+    private void report(long elapsedNanos) {
+
+        final double elapsedSeconds = elapsedNanos / 1e9;
+        final Statistics total = new Statistics();
+        final List<String> rows = new ArrayList<>();
+        statisticsMap.forEach((endpoint, statistics) -> {
+            total.add(statistics);
+            rows.add(statistics.toRow(endpoint.getOperationId(), elapsedSeconds));
+        });
+        rows.add(total.toRow(TOTAL_ROW_NAME, elapsedSeconds));
+        System.out.println(CSV_HEADER);
+        rows.forEach(System.out::println);
+        System.out.println(String.format(Locale.ENGLISH, SUMMARY, settings.rate(),
+                total.latency.getTotalCount() / elapsedSeconds, notSent.sum(), settings.concurrency()));
+    }
+
+    /**
+     * Builds the table of the endpoints, each one repeated by its weight.
+     *
+     * @param mix the weights of the {@link LoadEndpoint}s
+     * @return the table of the {@link LoadEndpoint}s
+     */
+    private static LoadEndpoint[] scheduleOf(Map<LoadEndpoint, Integer> mix) {
+
+        final List<LoadEndpoint> endpoints = new ArrayList<>();
+        mix.forEach((endpoint, weight) -> {
+            for (int i = 0; i < weight; i++) {
+                endpoints.add(endpoint);
+            }
+        });
+        return endpoints.toArray(LoadEndpoint[]::new);
+    }
+
+    /**
+     * The outcome of the request.
+     */
+    private enum Outcome {
+        SUCCEEDED, REJECTED, FAILED
+    }
+
+    /**
+     * The statistics of the endpoint.
+     */
+    private static final class Statistics {
+
+        private final Histogram latency = new ConcurrentHistogram(HIGHEST_TRACKABLE_MICROS, SIGNIFICANT_DIGITS);
+        private final Histogram service = new ConcurrentHistogram(HIGHEST_TRACKABLE_MICROS, SIGNIFICANT_DIGITS);
+        private final LongAdder errors = new LongAdder();
+        private final LongAdder rejected = new LongAdder();
+
+        /**
+         * Records the request.
+         *
+         * @param dueTime  the due time in nanoseconds
+         * @param sendTime the send time in nanoseconds
+         * @param doneTime the time of the response in nanoseconds
+         * @param outcome  the {@link Outcome} of the request
+         */
+        void record(long dueTime, long sendTime, long doneTime, Outcome outcome) {
+
+            latency.recordValue(Math.min(HIGHEST_TRACKABLE_MICROS,
+                    TimeUnit.NANOSECONDS.toMicros(doneTime - dueTime)));
+            service.recordValue(Math.min(HIGHEST_TRACKABLE_MICROS,
+                    TimeUnit.NANOSECONDS.toMicros(doneTime - sendTime)));
+            switch (outcome) {
+                case REJECTED -> rejected.increment();
+                case FAILED -> errors.increment();
+                case SUCCEEDED -> {
+                    // nothing to count
+                }
+            }
+        }
+
+        /**
+         * Adds the other statistics.
+         *
+         * @param other the other {@link Statistics}
+         */
+        void add(Statistics other) {
+
+            latency.add(other.latency);
+            service.add(other.service);
+            errors.add(other.errors.sum());
+            rejected.add(other.rejected.sum());
+        }
+
+        /**
+         * Formats the CSV row.
+         *
+         * @param name           the row name
+         * @param elapsedSeconds the elapsed time in seconds
+         * @return the CSV row
+         */
+        String toRow(String name, double elapsedSeconds) {
+
+            return String.format(Locale.ENGLISH, CSV_ROW, name, latency.getTotalCount(), errors.sum(), rejected.sum(),
+                    latency.getTotalCount() / elapsedSeconds, millis(latency, 50), millis(latency, 90),
+                    millis(latency, 99), millis(latency, 99.9), latency.getMaxValue() / 1e3,
+                    millis(service, 50), millis(service, 99));
+        }
+
+        /**
+         * Gets the percentile in milliseconds.
+         *
+         * @param histogram  the {@link Histogram} in microseconds
+         * @param percentile the percentile
+         * @return the percentile in milliseconds
+         */
+        private static double millis(Histogram histogram, double percentile) {
+            return histogram.getValueAtPercentile(percentile) / 1e3;
+        }
+    }
+}
@@ -0,0 +1,105 @@
+package kp.client.load;
+
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.Optional;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+/**
+ * The settings of the load generator.
+ * <p>
+ * The settings are parsed from the command-line arguments given as 'name=value', e.g.
+ * 'rate=500 duration=60 concurrency=32 mix=getDepartmentById:50,getEmployeesInDepartment:50'.
+ * The missing settings take the default values.
+ * </p>
+ * <p>
+ * The default mix is mostly reads with a few writes: the creates, the updates and the deletes of the employees.
+ * The writes pass the admission control of the server, when it is enabled, so its '429 Too Many Requests'
+ * is counted as the rejection, not as the error.
+ * The read-only test takes the mix without the write operations.
+ * </p>
+ *
+ * @param basePath        the base path of the server
+ * @param concurrency     the number of the worker threads, the upper bound of the requests in flight
+ * @param rate            the target rate in requests per second
+ * @param duration        the duration of the test
+ * @param mix             the weights of the {@link LoadEndpoint}s
+ * @param departmentCount the number of the departments the ids are drawn from
+ * @param employeeCount   the number of the employees per department the ids are drawn from
+ */
+public record LoadSettings(String basePath, int concurrency, double rate, Duration duration,
+                           Map<LoadEndpoint, Integer> mix, long departmentCount, long employeeCount) {
+
+    private static final String NAME_SEPARATOR = "=";
+    private static final String MIX_SEPARATOR = ",";
+    private static final String WEIGHT_SEPARATOR = ":";
+    private static final String DEFAULT_BASE_PATH = "http://localhost:8080";
+    private static final String DEFAULT_CONCURRENCY = "64";
+    private static final String DEFAULT_RATE = "1000";
+    private static final String DEFAULT_DURATION_SECONDS = "30";
+    private static final String DEFAULT_MIX =
+            "getDepartmentById:40,getEmployeesInDepartment:30,getEmployeeInDepartmentByIds:25,getDepartments:1,"
+            + "createEmployeeInDepartment:2,updateEmployeeInDepartment:1,deleteEmployeeInDepartment:1";
+    private static final String DEFAULT_DEPARTMENT_COUNT = "100";
+    private static final String DEFAULT_EMPLOYEE_COUNT = "100";
+
+    /**
+     * Parses the settings from the command-line arguments.
+     *
+     * @param args the command-line arguments
+     * @return the {@link LoadSettings}
+     * @throws IllegalArgumentException if the argument is malformed or the value is out of range
+     */
+    public static LoadSettings parse(String... args) {
+
+        final Map<String, String> argMap = Arrays.stream(args).map(arg -> {
+            final String[] nameAndValue = arg.split(NAME_SEPARATOR, 2);
+            if (nameAndValue.length != 2) {
+                throw new IllegalArgumentException("Malformed argument[%s]".formatted(arg));
+            }
+            return nameAndValue;
+        }).collect(Collectors.toMap(nameAndValue -> nameAndValue[0], nameAndValue -> nameAndValue[1]));
+        final LoadSettings settings = new LoadSettings(
+                argMap.getOrDefault("basePath", DEFAULT_BASE_PATH),
+                Integer.parseInt(argMap.getOrDefault("concurrency", DEFAULT_CONCURRENCY)),
+                Double.parseDouble(argMap.getOrDefault("rate", DEFAULT_RATE)),
+                Duration.ofSeconds(Long.parseLong(argMap.getOrDefault("duration", DEFAULT_DURATION_SECONDS))),
+                parseMix(argMap.getOrDefault("mix", DEFAULT_MIX)),
+                Long.parseLong(argMap.getOrDefault("departments", DEFAULT_DEPARTMENT_COUNT)),
+                Long.parseLong(argMap.getOrDefault("employees", DEFAULT_EMPLOYEE_COUNT)));
+        if (settings.concurrency() < 1 || settings.rate() <= 0 || settings.duration().isNegative()
+            || settings.duration().isZero() || settings.departmentCount() < 1 || settings.employeeCount() < 1) {
+            throw new IllegalArgumentException("Settings out of range[%s]".formatted(settings));
+        }
+        return settings;
+    }
+
+    /**
+     * Parses the request mix given as the comma-separated 'operationId:weight' pairs.
+     *
+     * @param mix the request mix
+     * @return the map of the weights
+     */
+    private static Map<LoadEndpoint, Integer> parseMix(String mix) {
+
+        final Map<String, LoadEndpoint> endpointMap = Arrays.stream(LoadEndpoint.values())
+                .collect(Collectors.toMap(LoadEndpoint::getOperationId, Function.identity()));
+        final Map<LoadEndpoint, Integer> weightMap = new EnumMap<>(LoadEndpoint.class);
+        for (String pair : mix.split(MIX_SEPARATOR)) {
+            final String[] operationAndWeight = pair.split(WEIGHT_SEPARATOR, 2);
+            final LoadEndpoint endpoint = Optional.ofNullable(endpointMap.get(operationAndWeight[0].strip()))
+                    .orElseThrow(() -> new IllegalArgumentException("Unknown operation[%s]".formatted(pair)));
+            final int weight = operationAndWeight.length == 2 ? Integer.parseInt(operationAndWeight[1].strip()) : 1;
+            if (weight > 0) {
+                weightMap.put(endpoint, weight);
+            }
+        }
+        if (weightMap.isEmpty()) {
+            throw new IllegalArgumentException("Empty request mix[%s]".formatted(mix));
+        }
+        return weightMap;
+    }
+}
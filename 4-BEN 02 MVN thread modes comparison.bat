@@ -0,0 +1,5 @@
+@echo off
+set JAVA_HOME=C:\PROGRA~1\JAVA\JDK-24
+cd c:\Temp\Study01\4-benchmark
+call c:\Temp\apache-maven-3.9.9\bin\mvn clean install exec:java@thread-modes
+pause
\ No newline at end of file
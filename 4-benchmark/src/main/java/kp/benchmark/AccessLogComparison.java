@@ -0,0 +1,195 @@
+package kp.benchmark;
+
+import kp.company.Application;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import java.io.IOException;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * The load-test comparison of the request logging modes.
+ * <p>
+ * For every mode the server is started in-process and the closed-loop clients read the departments
+ * and the employees for the fixed time:
+ * </p>
+ * <ul>
+ * <li>'off' - no request logging
+ * <li>'controllerLogging' - the synchronous console logging of every controller call
+ * <li>'accessLog' - the asynchronous access log of every request
+ * <li>'sampledAccessLog' - the asynchronous access log of every tenth request
+ * </ul>
+ * <p>
+ * All modes run in one JVM, so they are measured in the second round, after the first round has compiled
+ * the code of every mode. The results are printed as CSV.
+ * </p>
+ */
+public class AccessLogComparison {
+
+    private static final String[][] MODES = {
+            {"off", "access-log.enabled=false"},
+            {"controllerLogging", "access-log.enabled=false", "logging.level.kp.company.controller=debug"},
+            {"accessLog", "access-log.enabled=true", "access-log.sample-rate=1.0",
+                    "access-log.endpoint-rate-limit=1000000"},
+            {"sampledAccessLog", "access-log.enabled=true", "access-log.sample-rate=0.1",
+                    "access-log.endpoint-rate-limit=1000000"}};
+    private static final int ROUNDS = 2;
+    private static final int CLIENTS = 32;
+    private static final Duration WARMUP = Duration.ofSeconds(5);
+    private static final Duration DURATION = Duration.ofSeconds(15);
+    private static final int DEPARTMENTS = 100;
+    private static final String LOAD_PATH = "/loadSampleDataset?depIndex=%d&empIndex=10".formatted(DEPARTMENTS);
+    private static final String[] PATHS = {"/departments/%d", "/departments/%d/employees/%d01"};
+    private static final String CSV_HEADER = "mode,requests,requestsPerSecond,p50Millis,p99Millis,maxMillis";
+    private static final String CSV_ROW = "%s,%d,%d,%.2f,%.2f,%.2f";
+
+    /**
+     * Private constructor to prevent instantiation.
+     */
+    private AccessLogComparison() {
+    }
+
+    /**
+     * The entry point of the comparison.
+     *
+     * @param args the command-line arguments
+     * @throws IOException          if an I/O error occurs
+     * @throws InterruptedException if interrupted
+     */
+    public static void main(String[] args) throws IOException, InterruptedException {
+
+        Locale.setDefault(Locale.ENGLISH);
+        final Path directory = Files.createTempDirectory("access-log");
+        final List<String> rows = new ArrayList<>();
+        for (int round = 1; round <= ROUNDS; round++) {
+            rows.clear();
+            for (String[] mode : MODES) {
+                rows.add(measureMode(mode, directory, args));
+            }
+        }
+        System.out.println(CSV_HEADER);
+        rows.forEach(System.out::println);
+    }
+
+    /**
+     * Starts the server in one mode and measures it.
+     *
+     * @param mode      the mode name followed by the mode properties
+     * @param directory the directory of the access log files
+     * @param args      the command-line arguments
+     * @return the CSV row
+     * @throws IOException          if an I/O error occurs
+     * @throws InterruptedException if interrupted
+     */
+    private static String measureMode(String[] mode, Path directory, String[] args)
+            throws IOException, InterruptedException {
+
+        final List<String> properties = new ArrayList<>(List.of("server.port=0", "persistence.enabled=false",
+                "logging.level.root=warn", "access-log.file=" + directory.resolve(mode[0] + ".log")));
+        properties.addAll(List.of(mode).subList(1, mode.length));
+        try (ConfigurableApplicationContext context = new SpringApplicationBuilder(Application.class)
+                .properties(properties.toArray(String[]::new)).run(args)) {
+            final int port = Integer.parseInt(context.getEnvironment().getProperty("local.server.port", "0"));
+            return measure(mode[0], port);
+        }
+    }
+
+    /**
+     * Measures the server in one mode.
+     *
+     * @param mode the logging mode
+     * @param port the server port
+     * @return the CSV row
+     * @throws IOException          if an I/O error occurs
+     * @throws InterruptedException if interrupted
+     */
+    private static String measure(String mode, int port) throws IOException, InterruptedException {
+
+        final HttpClient httpClient = HttpClient.newBuilder().version(HttpClient.Version.HTTP_1_1).build();
+        send(httpClient, port, LOAD_PATH);
+        run(httpClient, port, WARMUP, new ConcurrentLinkedQueue<>());
+        final ConcurrentLinkedQueue<Long> latencyQueue = new ConcurrentLinkedQueue<>();
+        run(httpClient, port, DURATION, latencyQueue);
+        final long[] latencies = latencyQueue.stream().mapToLong(Long::longValue).sorted().toArray();
+        return CSV_ROW.formatted(mode, latencies.length, latencies.length / DURATION.toSeconds(),
+                percentileMillis(latencies, 0.5), percentileMillis(latencies, 0.99),
+                percentileMillis(latencies, 1.0));
+    }
+
+    /**
+     * Runs the clients for the duration.
+     *
+     * @param httpClient   the {@link HttpClient}
+     * @param port         the server port
+     * @param duration     the duration
+     * @param latencyQueue the queue of the latencies in nanoseconds
+     * @throws InterruptedException if interrupted
+     */
+    private static void run(HttpClient httpClient, int port, Duration duration,
+                            ConcurrentLinkedQueue<Long> latencyQueue) throws InterruptedException {
+
+        final long deadline = System.nanoTime() + duration.toNanos();
+        try (ExecutorService executor = Executors.newFixedThreadPool(CLIENTS)) {
+            for (int i = 0; i < CLIENTS; i++) {
+                executor.submit(() -> {
+                    while (System.nanoTime() < deadline) {
+                        final ThreadLocalRandom random = ThreadLocalRandom.current();
+                        final int depId = 1 + random.nextInt(DEPARTMENTS);
+                        final String path = PATHS[random.nextInt(PATHS.length)].formatted(depId, depId);
+                        final long start = System.nanoTime();
+                        send(httpClient, port, path);
+                        latencyQueue.add(System.nanoTime() - start);
+                    }
+                    return null;
+                });
+            }
+            executor.shutdown();
+            executor.awaitTermination(duration.toSeconds() * 10, TimeUnit.SECONDS);
+        }
+    }
+
+    /**
+     * Sends the request and discards the response.
+     *
+     * @param httpClient the {@link HttpClient}
+     * @param port       the server port
+     * @param path       the path
+     * @throws IOException          if an I/O error occurs
+     * @throws InterruptedException if interrupted
+     */
+    private static void send(HttpClient httpClient, int port, String path) throws IOException, InterruptedException {
+
+        final HttpRequest request = HttpRequest.newBuilder(URI.create("http://localhost:" + port + path)).build();
+        httpClient.send(request, HttpResponse.BodyHandlers.discarding());
+    }
+
+    /**
+     * Gets the percentile of the sorted latencies.
+     *
+     * @param sortedLatencies the sorted latencies in nanoseconds
+     * @param percentile      the percentile in the range from 0 to 1
+     * @return the percentile in milliseconds
+     */
+    private static double percentileMillis(long[] sortedLatencies, double percentile) {
+
+        if (sortedLatencies.length == 0) {
+            return Double.NaN;
+        }
+        final int index = (int) Math.ceil(percentile * sortedLatencies.length) - 1;
+        return sortedLatencies[Math.clamp(index, 0, sortedLatencies.length - 1)] / 1e6;
+    }
+}
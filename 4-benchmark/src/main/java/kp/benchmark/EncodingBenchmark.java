@@ -0,0 +1,140 @@
+package kp.benchmark;
+
+import com.fasterxml.jackson.databind.JavaType;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.dataformat.cbor.CBORFactory;
+import com.fasterxml.jackson.dataformat.smile.SmileFactory;
+import kp.SampleDataset;
+import kp.company.model.Department;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * The benchmarks of the encodings of the response body with the list of {@link Department}s.
+ * <p>
+ * Every encoding is benchmarked as sent by the server: the JSON without the indentation, the CBOR and the Smile,
+ * each of them uncompressed and compressed with the gzip.
+ * The sizes of the encoded bodies are printed by the {@link EncodingComparison}.
+ * </p>
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class EncodingBenchmark {
+
+    private static final long DEPARTMENTS = 10;
+
+    /**
+     * The encodings of the benchmarked body.
+     */
+    public enum Encoding {
+        /**
+         * The JSON.
+         */
+        JSON,
+        /**
+         * The CBOR.
+         */
+        CBOR,
+        /**
+         * The Smile.
+         */
+        SMILE;
+
+        /**
+         * Creates the {@link ObjectMapper} of the encoding, built like in the server.
+         *
+         * @return the {@link ObjectMapper}
+         */
+        ObjectMapper createObjectMapper() {
+
+            final Jackson2ObjectMapperBuilder builder = Jackson2ObjectMapperBuilder.json();
+            return switch (this) {
+                case JSON -> builder.build();
+                case CBOR -> builder.factory(new CBORFactory()).build();
+                case SMILE -> builder.factory(new SmileFactory()).build();
+            };
+        }
+    }
+
+    @Param({"10", "100", "1000"})
+    private long employeesPerDepartment;
+    @Param({"JSON", "CBOR", "SMILE"})
+    private Encoding encoding;
+    @Param({"false", "true"})
+    private boolean gzip;
+    private ObjectMapper objectMapper;
+    private JavaType departmentsType;
+    private List<Department> departments;
+    private byte[] encodedDepartments;
+
+    /**
+     * Generates the encoded body.
+     *
+     * @throws IOException if the encoding fails
+     */
+    @Setup(Level.Trial)
+    public void setup() throws IOException {
+
+        objectMapper = encoding.createObjectMapper();
+        departmentsType = objectMapper.getTypeFactory().constructCollectionType(List.class, Department.class);
+        SampleDataset.loadDataset(DEPARTMENTS, employeesPerDepartment);
+        departments = SampleDataset.getDepartments();
+        encodedDepartments = encode();
+    }
+
+    /**
+     * Benchmarks encoding the list of {@link Department}s.
+     *
+     * @return the encoded bytes
+     * @throws IOException if the encoding fails
+     */
+    @Benchmark
+    public byte[] encode() throws IOException {
+
+        final ByteArrayOutputStream byteArrayOutputStream = new ByteArrayOutputStream();
+        try (OutputStream outputStream = gzip ? new GZIPOutputStream(byteArrayOutputStream) : byteArrayOutputStream) {
+            objectMapper.writeValue(outputStream, departments);
+        }
+        return byteArrayOutputStream.toByteArray();
+    }
+
+    /**
+     * Benchmarks decoding the list of {@link Department}s.
+     *
+     * @return the list of {@link Department}s
+     * @throws IOException if the decoding fails
+     */
+    @Benchmark
+    public List<Department> decode() throws IOException {
+
+        final InputStream byteArrayInputStream = new ByteArrayInputStream(encodedDepartments);
+        try (InputStream inputStream = gzip ? new GZIPInputStream(byteArrayInputStream) : byteArrayInputStream) {
+            return objectMapper.readValue(inputStream, departmentsType);
+        }
+    }
+}
@@ -0,0 +1,123 @@
+package kp.benchmark;
+
+import kp.benchmark.EncodingBenchmark.Encoding;
+import kp.company.Application;
+import kp.company.model.Department;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import java.io.IOException;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.util.Locale;
+
+/**
+ * The comparison of the sizes of the response body with the list of {@link Department}s in every {@link Encoding}.
+ * <p>
+ * The server is started in-process with its configured compression. For every number of employees
+ * in the department the sample dataset is loaded and the list of {@link Department}s is fetched
+ * without and with the 'Accept-Encoding: gzip'. The sizes are the bytes of the response bodies on the wire,
+ * the {@link HttpClient} does not decompress them, and the 'Content-Encoding' of the response is reported
+ * with them, so the response sent uncompressed is seen. The results are printed as CSV.
+ * The times of the encoding and decoding are measured by the {@link EncodingBenchmark}.
+ * </p>
+ * <p>
+ * The argument is the number of departments.
+ * </p>
+ */
+public class EncodingComparison {
+
+    private static final long DEFAULT_DEPARTMENTS = 10;
+    private static final long[] EMPLOYEES = {1, 10, 99};
+    private static final String LOAD_PATH = "/loadSampleDataset?depIndex=%d&empIndex=%d";
+    private static final String DEPARTMENTS_PATH = "/departments";
+    private static final String IDENTITY = "identity";
+    private static final String GZIP = "gzip";
+    private static final String CSV_HEADER = "encoding,departments,employees,bytes,gzipBytes,contentEncoding,"
+                                             + "bytesPercentOfJson,gzipBytesPercentOfJson";
+    private static final String CSV_ROW = "%s,%d,%d,%d,%d,%s,%.1f,%.1f";
+
+    /**
+     * Private constructor to prevent instantiation.
+     */
+    private EncodingComparison() {
+    }
+
+    /**
+     * The entry point of the comparison.
+     *
+     * @param args the number of departments
+     * @throws IOException          if an I/O error occurs
+     * @throws InterruptedException if interrupted
+     */
+    public static void main(String[] args) throws IOException, InterruptedException {
+
+        Locale.setDefault(Locale.ENGLISH);
+        final long departments = args.length > 0 ? Long.parseLong(args[0]) : DEFAULT_DEPARTMENTS;
+        try (ConfigurableApplicationContext context = new SpringApplicationBuilder(Application.class)
+                .properties("server.port=0", "persistence.enabled=false", "access-log.enabled=false",
+                        "admission.enabled=false", "logging.level.root=warn").run()) {
+            final int port = Integer.parseInt(context.getEnvironment().getProperty("local.server.port", "0"));
+            final HttpClient httpClient = HttpClient.newBuilder().version(HttpClient.Version.HTTP_1_1).build();
+            System.out.println(CSV_HEADER);
+            for (long employees : EMPLOYEES) {
+                fetch(httpClient, port, LOAD_PATH.formatted(departments, employees), "*/*", IDENTITY);
+                final long jsonBytes = fetch(httpClient, port, DEPARTMENTS_PATH, mediaTypeOf(Encoding.JSON),
+                        IDENTITY).body().length;
+                for (Encoding encoding : Encoding.values()) {
+                    final String mediaType = mediaTypeOf(encoding);
+                    final long bytes = fetch(httpClient, port, DEPARTMENTS_PATH, mediaType, IDENTITY).body().length;
+                    final HttpResponse<byte[]> gzipResponse = fetch(httpClient, port, DEPARTMENTS_PATH, mediaType,
+                            GZIP);
+                    final long gzipBytes = gzipResponse.body().length;
+                    final String contentEncoding = gzipResponse.headers().firstValue("Content-Encoding")
+                            .orElse(IDENTITY);
+                    System.out.println(CSV_ROW.formatted(encoding.name().toLowerCase(), departments, employees,
+                            bytes, gzipBytes, contentEncoding, 100.0 * bytes / jsonBytes,
+                            100.0 * gzipBytes / jsonBytes));
+                }
+            }
+        }
+    }
+
+    /**
+     * Gets the media type of the {@link Encoding} negotiated with the server.
+     *
+     * @param encoding the {@link Encoding}
+     * @return the media type
+     */
+    private static String mediaTypeOf(Encoding encoding) {
+
+        return switch (encoding) {
+            case JSON -> "application/json";
+            case CBOR -> "application/cbor";
+            case SMILE -> "application/x-jackson-smile";
+        };
+    }
+
+    /**
+     * Fetches the path with the body as it was sent on the wire.
+     *
+     * @param httpClient     the {@link HttpClient}
+     * @param port           the server port
+     * @param path           the path
+     * @param accept         the 'Accept' header
+     * @param acceptEncoding the 'Accept-Encoding' header
+     * @return the {@link HttpResponse} with the body bytes
+     * @throws IOException          if an I/O error occurs or the status is not '200 OK'
+     * @throws InterruptedException if interrupted
+     */
+    private static HttpResponse<byte[]> fetch(HttpClient httpClient, int port, String path, String accept,
+                                              String acceptEncoding) throws IOException, InterruptedException {
+
+        final HttpRequest request = HttpRequest.newBuilder(URI.create("http://localhost:" + port + path))
+                .header("Accept", accept).header("Accept-Encoding", acceptEncoding).build();
+        final HttpResponse<byte[]> response = httpClient.send(request, HttpResponse.BodyHandlers.ofByteArray());
+        if (response.statusCode() != 200) {
+            throw new IOException("Unexpected status[%d] of the path[%s]".formatted(response.statusCode(), path));
+        }
+        return response;
+    }
+}
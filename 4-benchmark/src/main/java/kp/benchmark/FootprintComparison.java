@@ -0,0 +1,224 @@
+package kp.benchmark;
+
+import com.sun.management.GarbageCollectionNotificationInfo;
+import kp.SampleDataset;
+import kp.company.model.Employee;
+import kp.dataset.DatasetRepository;
+import kp.dataset.DatasetStorage;
+
+import javax.management.Notification;
+import javax.management.NotificationEmitter;
+import javax.management.NotificationListener;
+import javax.management.openmbean.CompositeData;
+import java.lang.management.ManagementFactory;
+import java.lang.management.MemoryMXBean;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static kp.Constants.EMP_INDEX_FUN;
+
+/**
+ * The comparison of the heap footprint and the garbage collection pauses of the dataset storage engines.
+ * <p>
+ * For every {@link DatasetStorage} the sample dataset is loaded and the heap used after the full garbage
+ * collection is compared with the heap used by the empty dataset. The number of employees fitting
+ * into one GiB of the heap follows from it: it is the bound of the dataset size for the given maximum heap.
+ * The lookup time of the random {@link Employee}, measured after the warm-up round, shows the cost
+ * of the materialization on the read.
+ * </p>
+ * <p>
+ * The pauses are taken from the garbage collection notifications, without the concurrent cycles:
+ * the pause of one full collection with the loaded dataset, and the pauses during the churn
+ * of the random reads and updates of the {@link Employee}s.
+ * The results are printed as CSV.
+ * </p>
+ * <p>
+ * The arguments are the number of departments and the number of employees in every department.
+ * The employee's index is below 100, as required by the sample dataset id scheme.
+ * </p>
+ */
+public class FootprintComparison {
+
+    private static final long DEFAULT_DEPARTMENTS = 20_000;
+    private static final long DEFAULT_EMPLOYEES = 99;
+    private static final int GC_ROUNDS = 5;
+    private static final int LOOKUPS = 2_000_000;
+    private static final int CHURN_OPERATIONS = 10_000_000;
+    private static final int UPDATE_PERCENT = 20;
+    private static final long NOTIFICATION_DELAY_MILLIS = 500;
+    private static final double GIB = 1 << 30;
+    private static final String CSV_HEADER = "storage,employees,heapBytes,heapBytesPerEmployee,"
+                                             + "estimatedBytesPerEmployee,employeesPerHeapGiB,lookupNanos,"
+                                             + "fullGcPauseMillis,churnPauses,churnPauseMillis,churnMaxPauseMillis";
+    private static final String CSV_ROW = "%s,%d,%d,%.1f,%.1f,%.0f,%.1f,%d,%d,%d,%d";
+    private static final AtomicLong pauseCount = new AtomicLong();
+    private static final AtomicLong pauseMillis = new AtomicLong();
+    private static final AtomicLong maxPauseMillis = new AtomicLong();
+
+    /**
+     * Private constructor to prevent instantiation.
+     */
+    private FootprintComparison() {
+    }
+
+    /**
+     * The entry point of the comparison.
+     *
+     * @param args the number of departments and the number of employees in every department
+     * @throws InterruptedException if interrupted
+     */
+    public static void main(String[] args) throws InterruptedException {
+
+        Locale.setDefault(Locale.ENGLISH);
+        final long departments = args.length > 0 ? Long.parseLong(args[0]) : DEFAULT_DEPARTMENTS;
+        final long employees = args.length > 1 ? Long.parseLong(args[1]) : DEFAULT_EMPLOYEES;
+        ManagementFactory.getGarbageCollectorMXBeans().stream()
+                .filter(NotificationEmitter.class::isInstance).map(NotificationEmitter.class::cast)
+                .forEach(emitter -> emitter.addNotificationListener(new PauseListener(), null, null));
+        final List<String> rows = new ArrayList<>();
+        for (DatasetStorage storage : DatasetStorage.values()) {
+            rows.add(measure(storage, departments, employees));
+        }
+        System.out.println(CSV_HEADER);
+        rows.forEach(System.out::println);
+    }
+
+    /**
+     * Measures one storage.
+     *
+     * @param storage     the {@link DatasetStorage}
+     * @param departments the number of departments
+     * @param employees   the number of employees in every department
+     * @return the CSV row
+     * @throws InterruptedException if interrupted
+     */
+    private static String measure(DatasetStorage storage, long departments, long employees)
+            throws InterruptedException {
+
+        SampleDataset.setDatasetStorage(storage);
+        SampleDataset.loadDataset(0, 0);
+        final long emptyHeap = usedHeapAfterGc();
+        SampleDataset.loadDataset(departments, employees);
+        final long loadedHeap = usedHeapAfterGc();
+        final DatasetRepository repository = SampleDataset.snapshot().repository();
+        final long count = repository.countEmployees();
+        final long heapBytes = loadedHeap - emptyHeap;
+        lookupNanos(repository, departments, employees);
+        final double lookupNanos = lookupNanos(repository, departments, employees);
+        resetPauses();
+        System.gc();
+        Thread.sleep(NOTIFICATION_DELAY_MILLIS);
+        final long fullGcPauseMillis = maxPauseMillis.get();
+        resetPauses();
+        churn(repository, departments, employees);
+        Thread.sleep(NOTIFICATION_DELAY_MILLIS);
+        final double heapBytesPerEmployee = (double) heapBytes / count;
+        return CSV_ROW.formatted(storage.name().toLowerCase(), count, heapBytes, heapBytesPerEmployee,
+                (double) repository.estimateFootprint() / count, GIB / heapBytesPerEmployee, lookupNanos,
+                fullGcPauseMillis, pauseCount.get(), pauseMillis.get(), maxPauseMillis.get());
+    }
+
+    /**
+     * Runs the random reads and updates of the {@link Employee}s.
+     * The updated names are new strings, so the churn allocates like the requests do.
+     *
+     * @param repository  the {@link DatasetRepository}
+     * @param departments the number of departments
+     * @param employees   the number of employees in every department
+     */
+    private static void churn(DatasetRepository repository, long departments, long employees) {
+
+        final ThreadLocalRandom random = ThreadLocalRandom.current();
+        for (int i = 0; i < CHURN_OPERATIONS; i++) {
+            final long departmentId = 1 + random.nextLong(departments);
+            final long employeeId = EMP_INDEX_FUN.applyAsLong(departmentId, 1 + random.nextLong(employees));
+            if (random.nextInt(100) < UPDATE_PERCENT) {
+                repository.mergeEmployee(departmentId, employeeId,
+                        new Employee().firstName("Churn-" + random.nextInt(1_000_000)));
+            } else {
+                repository.getEmployee(departmentId, employeeId);
+            }
+        }
+    }
+
+    /**
+     * Resets the recorded pauses.
+     */
+    private static void resetPauses() {
+
+        pauseCount.set(0);
+        pauseMillis.set(0);
+        maxPauseMillis.set(0);
+    }
+
+    /**
+     * Measures the mean time of the random {@link kp.company.model.Employee} lookup.
+     *
+     * @param repository  the {@link DatasetRepository}
+     * @param departments the number of departments
+     * @param employees   the number of employees in every department
+     * @return the mean time in nanoseconds
+     */
+    private static double lookupNanos(DatasetRepository repository, long departments, long employees) {
+
+        final ThreadLocalRandom random = ThreadLocalRandom.current();
+        long found = 0;
+        final long start = System.nanoTime();
+        for (int i = 0; i < LOOKUPS; i++) {
+            final long departmentId = 1 + random.nextLong(departments);
+            final long employeeId = EMP_INDEX_FUN.applyAsLong(departmentId, 1 + random.nextLong(employees));
+            found += repository.getEmployee(departmentId, employeeId).isPresent() ? 1 : 0;
+        }
+        final long elapsed = System.nanoTime() - start;
+        if (found != LOOKUPS) {
+            throw new IllegalStateException("Missing employees[%d]".formatted(LOOKUPS - found));
+        }
+        return (double) elapsed / LOOKUPS;
+    }
+
+    /**
+     * Gets the used heap after the full garbage collection.
+     *
+     * @return the used heap in bytes
+     * @throws InterruptedException if interrupted
+     */
+    private static long usedHeapAfterGc() throws InterruptedException {
+
+        final MemoryMXBean memoryBean = ManagementFactory.getMemoryMXBean();
+        for (int i = 0; i < GC_ROUNDS; i++) {
+            System.gc();
+            Thread.sleep(100);
+        }
+        return memoryBean.getHeapMemoryUsage().getUsed();
+    }
+
+    /**
+     * The listener recording the pauses of the garbage collections.
+     * The concurrent cycles are skipped, as the application threads run during them.
+     */
+    private static final class PauseListener implements NotificationListener {
+
+        /**
+         * {@inheritDoc}
+         */
+        @Override
+        public void handleNotification(Notification notification, Object handback) {
+
+            if (!GarbageCollectionNotificationInfo.GARBAGE_COLLECTION_NOTIFICATION.equals(notification.getType())) {
+                return;
+            }
+            final GarbageCollectionNotificationInfo info =
+                    GarbageCollectionNotificationInfo.from((CompositeData) notification.getUserData());
+            if (info.getGcName().contains("Concurrent")) {
+                return;
+            }
+            final long duration = info.getGcInfo().getDuration();
+            pauseCount.incrementAndGet();
+            pauseMillis.addAndGet(duration);
+            maxPauseMillis.accumulateAndGet(duration, Math::max);
+        }
+    }
+}
@@ -0,0 +1,215 @@
+package kp.benchmark;
+
+import kp.company.Application;
+import kp.reactive.ReactiveApplication;
+import org.springframework.boot.WebApplicationType;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import java.io.IOException;
+import java.lang.management.ManagementFactory;
+import java.lang.management.MemoryMXBean;
+import java.lang.management.ThreadMXBean;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * The load-test comparison of the servlet server and its reactive variant at the high connection counts.
+ * <p>
+ * For every server the application is started in-process:
+ * </p>
+ * <ul>
+ * <li>'mvcPlatform' - the Spring MVC server on the Tomcat platform threads
+ * <li>'mvcVirtual' - the Spring MVC server on the virtual threads
+ * <li>'webflux' - the Spring WebFlux server on the Netty event loops
+ * </ul>
+ * <p>
+ * Every client holds its own connection and reads the departments and the pages of the employees in the closed
+ * loop. Besides the throughput and the latency, the peak number of the live threads and the peak used heap
+ * are sampled during the measurement. The clients run in the same JVM, so both peaks include them
+ * and only their differences between the servers are meaningful.
+ * </p>
+ * <p>
+ * The access log and the response compression of the servlet server are switched off, because the reactive
+ * variant has neither. The results are printed as CSV.
+ * </p>
+ */
+public class ReactiveComparison {
+
+    private static final String[] SERVERS = {"mvcPlatform", "mvcVirtual", "webflux"};
+    private static final int[] CONNECTIONS = {256, 2048};
+    private static final Duration WARMUP = Duration.ofSeconds(5);
+    private static final Duration DURATION = Duration.ofSeconds(15);
+    private static final Duration SAMPLING_INTERVAL = Duration.ofMillis(50);
+    private static final String LOAD_PATH = "/loadSampleDataset?depIndex=100&empIndex=100";
+    private static final String[] PATHS = {"/departments/1", "/employees?limit=100"};
+    private static final String CSV_HEADER =
+            "server,connections,requests,requestsPerSecond,p50Millis,p99Millis,peakThreads,peakHeapMegabytes";
+    private static final String CSV_ROW = "%s,%d,%d,%d,%.1f,%.1f,%d,%d";
+
+    /**
+     * Private constructor to prevent instantiation.
+     */
+    private ReactiveComparison() {
+    }
+
+    /**
+     * The entry point of the comparison.
+     *
+     * @param args the command-line arguments
+     * @throws IOException          if an I/O error occurs
+     * @throws InterruptedException if interrupted
+     */
+    public static void main(String[] args) throws IOException, InterruptedException {
+
+        Locale.setDefault(Locale.ENGLISH);
+        final List<String> rows = new ArrayList<>();
+        for (String server : SERVERS) {
+            try (ConfigurableApplicationContext context = createBuilder(server).properties(
+                    "server.port=0", "persistence.enabled=false", "access-log.enabled=false",
+                    "compression.enabled=false", "logging.level.root=warn").run(args)) {
+                final int port = Integer.parseInt(context.getEnvironment().getProperty("local.server.port", "0"));
+                for (int connections : CONNECTIONS) {
+                    rows.add(measure(server, connections, port));
+                }
+            }
+        }
+        System.out.println(CSV_HEADER);
+        rows.forEach(System.out::println);
+    }
+
+    /**
+     * Creates the {@link SpringApplicationBuilder} of the server.
+     *
+     * @param server the server name
+     * @return the {@link SpringApplicationBuilder}
+     */
+    private static SpringApplicationBuilder createBuilder(String server) {
+
+        return switch (server) {
+            case "mvcPlatform" -> new SpringApplicationBuilder(Application.class).web(WebApplicationType.SERVLET)
+                    .properties("spring.threads.virtual.enabled=false");
+            case "mvcVirtual" -> new SpringApplicationBuilder(Application.class).web(WebApplicationType.SERVLET)
+                    .properties("spring.threads.virtual.enabled=true");
+            default -> new SpringApplicationBuilder(ReactiveApplication.class).web(WebApplicationType.REACTIVE);
+        };
+    }
+
+    /**
+     * Measures the server with the number of the connections.
+     *
+     * @param server      the server name
+     * @param connections the number of the connections
+     * @param port        the server port
+     * @return the CSV row
+     * @throws IOException          if an I/O error occurs
+     * @throws InterruptedException if interrupted
+     */
+    private static String measure(String server, int connections, int port)
+            throws IOException, InterruptedException {
+
+        final HttpClient httpClient = HttpClient.newBuilder().version(HttpClient.Version.HTTP_1_1).build();
+        send(httpClient, port, LOAD_PATH);
+        run(httpClient, connections, port, WARMUP, new ConcurrentLinkedQueue<>());
+        System.gc();
+        final ThreadMXBean threadMXBean = ManagementFactory.getThreadMXBean();
+        final MemoryMXBean memoryMXBean = ManagementFactory.getMemoryMXBean();
+        threadMXBean.resetPeakThreadCount();
+        final AtomicLong peakHeap = new AtomicLong();
+        final Thread sampler = Thread.ofPlatform().daemon().start(() -> {
+            while (!Thread.currentThread().isInterrupted()) {
+                peakHeap.accumulateAndGet(memoryMXBean.getHeapMemoryUsage().getUsed(), Math::max);
+                try {
+                    Thread.sleep(SAMPLING_INTERVAL);
+                } catch (InterruptedException _) {
+                    return;
+                }
+            }
+        });
+        final ConcurrentLinkedQueue<Long> latencyQueue = new ConcurrentLinkedQueue<>();
+        run(httpClient, connections, port, DURATION, latencyQueue);
+        sampler.interrupt();
+        sampler.join();
+        final long[] latencies = latencyQueue.stream().mapToLong(Long::longValue).sorted().toArray();
+        return CSV_ROW.formatted(server, connections, latencies.length, latencies.length / DURATION.toSeconds(),
+                percentileMillis(latencies, 0.5), percentileMillis(latencies, 0.99),
+                threadMXBean.getPeakThreadCount(), peakHeap.get() / (1024 * 1024));
+    }
+
+    /**
+     * Runs the closed-loop clients for the fixed time.
+     * <p>
+     * The {@link HttpClient} opens the separate HTTP/1.1 connection for every concurrent request,
+     * so every client holds its own connection.
+     * </p>
+     *
+     * @param httpClient   the {@link HttpClient}
+     * @param connections  the number of the clients
+     * @param port         the server port
+     * @param duration     the duration
+     * @param latencyQueue the queue collecting the latencies in nanoseconds
+     * @throws InterruptedException if interrupted
+     */
+    private static void run(HttpClient httpClient, int connections, int port, Duration duration,
+                            ConcurrentLinkedQueue<Long> latencyQueue) throws InterruptedException {
+
+        final long deadline = System.nanoTime() + duration.toNanos();
+        try (ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor()) {
+            for (int i = 0; i < connections; i++) {
+                final String path = PATHS[i % PATHS.length];
+                executor.submit(() -> {
+                    while (System.nanoTime() < deadline) {
+                        final long start = System.nanoTime();
+                        send(httpClient, port, path);
+                        latencyQueue.add(System.nanoTime() - start);
+                    }
+                    return null;
+                });
+            }
+            executor.shutdown();
+            executor.awaitTermination(duration.toSeconds() * 10, TimeUnit.SECONDS);
+        }
+    }
+
+    /**
+     * Sends the request and discards the response.
+     *
+     * @param httpClient the {@link HttpClient}
+     * @param port       the server port
+     * @param path       the path
+     * @throws IOException          if an I/O error occurs
+     * @throws InterruptedException if interrupted
+     */
+    private static void send(HttpClient httpClient, int port, String path) throws IOException, InterruptedException {
+
+        final HttpRequest request = HttpRequest.newBuilder(URI.create("http://localhost:" + port + path)).build();
+        httpClient.send(request, HttpResponse.BodyHandlers.discarding());
+    }
+
+    /**
+     * Gets the percentile of the sorted latencies.
+     *
+     * @param sortedLatencies the sorted latencies in nanoseconds
+     * @param percentile      the percentile in the range from 0 to 1
+     * @return the percentile in milliseconds
+     */
+    private static double percentileMillis(long[] sortedLatencies, double percentile) {
+
+        if (sortedLatencies.length == 0) {
+            return Double.NaN;
+        }
+        final int index = (int) Math.ceil(percentile * sortedLatencies.length) - 1;
+        return sortedLatencies[Math.clamp(index, 0, sortedLatencies.length - 1)] / 1e6;
+    }
+}
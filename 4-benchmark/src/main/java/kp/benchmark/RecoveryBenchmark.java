@@ -0,0 +1,109 @@
+package kp.benchmark;
+
+import kp.SampleDataset;
+import kp.company.model.Department;
+import kp.company.model.Employee;
+import kp.dataset.persistence.PersistenceEngine;
+import kp.dataset.persistence.RecoveryReport;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.Comparator;
+import java.util.Locale;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.stream.Stream;
+
+import static kp.Constants.DEP_INDEX_LOWER_BOUND;
+import static kp.Constants.EMP_INDEX_FUN;
+import static kp.Constants.EMP_INDEX_LOWER_BOUND;
+
+/**
+ * The benchmark of the recovery time versus the dataset size.
+ * <p>
+ * For every size the dataset is loaded, checkpointed and changed by the log tail mutations.
+ * Then it is recovered by the new {@link PersistenceEngine} from the snapshot file and the log.
+ * The results are printed as CSV.
+ * </p>
+ * <p>
+ * The arguments are the sizes given as the {@link Department}'s index upper bound and
+ * the {@link Employee}'s index upper bound joined with the 'x', e.g. '1000x100'.
+ * </p>
+ */
+public class RecoveryBenchmark {
+
+    private static final String[] DEFAULT_SIZES = {"10x100", "100x100", "1000x100", "1000x1000", "2000x1000"};
+    private static final String SIZE_SEPARATOR = "x";
+    private static final int TAIL_MUTATIONS = 10_000;
+    private static final int RUNS = 3;
+    private static final String CSV_HEADER =
+            "departments,employees,snapshotBytes,logMutations,recoveryMillis,recordsPerSecond";
+    private static final String CSV_ROW = "%d,%d,%d,%d,%d,%d";
+
+    /**
+     * Private constructor to prevent instantiation.
+     */
+    private RecoveryBenchmark() {
+    }
+
+    /**
+     * The entry point of the benchmark.
+     *
+     * @param args the sizes
+     * @throws IOException if an I/O error occurs
+     */
+    public static void main(String[] args) throws IOException {
+
+        Locale.setDefault(Locale.ENGLISH);
+        System.out.println(CSV_HEADER);
+        for (String size : args.length > 0 ? args : DEFAULT_SIZES) {
+            final String[] bounds = size.split(SIZE_SEPARATOR);
+            System.out.println(measure(Long.parseLong(bounds[0]), Long.parseLong(bounds[1])));
+        }
+    }
+
+    /**
+     * Measures the recovery of the dataset of the given size.
+     *
+     * @param depIndex the {@link Department}'s index upper bound
+     * @param empIndex the {@link Employee}'s index upper bound
+     * @return the CSV row
+     * @throws IOException if an I/O error occurs
+     */
+    private static String measure(long depIndex, long empIndex) throws IOException {
+
+        final Path directory = Files.createTempDirectory("recovery-benchmark");
+        try {
+            final PersistenceEngine writingEngine = new PersistenceEngine(directory, true, false);
+            writingEngine.recover();
+            writingEngine.start(Duration.ofDays(1));
+            SampleDataset.loadDataset(depIndex, empIndex);
+            final long snapshotBytes = Files.size(writingEngine.checkpoint().orElseThrow());
+            final ThreadLocalRandom random = ThreadLocalRandom.current();
+            for (int i = 0; i < TAIL_MUTATIONS; i++) {
+                final long departmentId = random.nextLong(DEP_INDEX_LOWER_BOUND, depIndex + 1);
+                final long employeeId = EMP_INDEX_FUN.applyAsLong(departmentId,
+                        random.nextLong(EMP_INDEX_LOWER_BOUND, empIndex + 1));
+                SampleDataset.mergeEmployee(departmentId, employeeId, new Employee().firstName("Tail-" + i));
+            }
+            writingEngine.close();
+
+            RecoveryReport best = null;
+            for (int run = 0; run < RUNS; run++) {
+                final RecoveryReport report = new PersistenceEngine(directory, true, false).recover();
+                best = best == null || report.elapsedNanos() < best.elapsedNanos() ? report : best;
+            }
+            final long employees = Math.max(0, empIndex - EMP_INDEX_LOWER_BOUND + 1) * best.departments();
+            final long records = best.departments() + employees + best.mutations();
+            return CSV_ROW.formatted(best.departments(), employees, snapshotBytes, best.mutations(),
+                    best.elapsedMillis(), records * 1_000_000_000L / Math.max(1, best.elapsedNanos()));
+        } finally {
+            try (Stream<Path> paths = Files.walk(directory)) {
+                for (Path path : paths.sorted(Comparator.reverseOrder()).toList()) {
+                    Files.deleteIfExists(path);
+                }
+            }
+        }
+    }
+}
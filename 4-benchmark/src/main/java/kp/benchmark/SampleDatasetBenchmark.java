@@ -0,0 +1,182 @@
+package kp.benchmark;
+
+import kp.SampleDataset;
+import kp.company.model.Department;
+import kp.company.model.DepartmentMergeResult;
+import kp.company.model.Employee;
+import kp.company.model.Title;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+import static kp.Constants.DEP_INDEX_LOWER_BOUND;
+import static kp.Constants.EMP_INDEX_FUN;
+import static kp.Constants.EMP_INDEX_LOWER_BOUND;
+
+/**
+ * The benchmarks of the {@link SampleDataset} operations at several dataset sizes.
+ * <p>
+ * The size is the {@link Department}'s index upper bound and the {@link Employee}'s index upper bound
+ * joined with the 'x'. The ids are drawn at random from the loaded dataset.
+ * </p>
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class SampleDatasetBenchmark {
+
+    private static final String SIZE_SEPARATOR = "x";
+
+    @Param({"10x10", "100x100", "1000x100"})
+    private String size;
+    private long depIndex;
+    private long empIndex;
+
+    /**
+     * Loads the sample dataset of the benchmarked size.
+     */
+    @Setup(Level.Trial)
+    public void setup() {
+
+        final String[] bounds = size.split(SIZE_SEPARATOR);
+        depIndex = Long.parseLong(bounds[0]);
+        empIndex = Long.parseLong(bounds[1]);
+        SampleDataset.loadDataset(depIndex, empIndex);
+    }
+
+    /**
+     * Benchmarks getting the {@link Department}.
+     *
+     * @return the {@link Optional} with the {@link Department}
+     */
+    @Benchmark
+    public Optional<Department> getDepartment() {
+        return SampleDataset.getDepartment(randomDepartmentId());
+    }
+
+    /**
+     * Benchmarks getting the {@link Employee} by the {@link Department}'s id and the {@link Employee}'s id.
+     *
+     * @return the {@link Optional} with the {@link Employee}
+     */
+    @Benchmark
+    public Optional<Employee> getEmployee() {
+
+        final long departmentId = randomDepartmentId();
+        return SampleDataset.getEmployee(departmentId, randomEmployeeId(departmentId));
+    }
+
+    /**
+     * Benchmarks getting the {@link Employee} by the {@link Employee}'s id only.
+     *
+     * @return the {@link Optional} with the {@link Employee}
+     */
+    @Benchmark
+    public Optional<Employee> getEmployeeById() {
+        return SampleDataset.getEmployee(randomEmployeeId(randomDepartmentId()));
+    }
+
+    /**
+     * Benchmarks getting the list of all {@link Employee}s flat-mapped from the {@link Department}s.
+     *
+     * @return the list of {@link Employee}s
+     */
+    @Benchmark
+    public List<Employee> getEmployees() {
+        return SampleDataset.getEmployees();
+    }
+
+    /**
+     * Benchmarks creating and removing the {@link Department} with one {@link Employee}.
+     *
+     * @return the {@link Optional} with the removed {@link Department}
+     */
+    @Benchmark
+    public Optional<Department> putRemoveDepartment() {
+
+        final long departmentId = depIndex + 1;
+        final Employee employee = new Employee().id(EMP_INDEX_FUN.applyAsLong(departmentId, EMP_INDEX_LOWER_BOUND))
+                .firstName("F").lastName("L").title(Title.ANALYST);
+        SampleDataset.putDepartment(new Department().id(departmentId).name("D").employees(List.of(employee)));
+        return SampleDataset.removeDepartment(departmentId);
+    }
+
+    /**
+     * Benchmarks renaming the {@link Department}.
+     *
+     * @return the {@link Optional} with the {@link DepartmentMergeResult}
+     */
+    @Benchmark
+    public Optional<DepartmentMergeResult> mergeDepartment() {
+
+        final long departmentId = randomDepartmentId();
+        return SampleDataset.mergeDepartment(departmentId, new Department().name("D-Merged-" + departmentId));
+    }
+
+    /**
+     * Benchmarks creating and removing the {@link Employee}.
+     *
+     * @return the {@link Optional} with the removed {@link Employee}
+     */
+    @Benchmark
+    public Optional<Employee> putRemoveEmployee() {
+
+        final long departmentId = randomDepartmentId();
+        final long employeeId = EMP_INDEX_FUN.applyAsLong(departmentId, empIndex + 1);
+        SampleDataset.putEmployee(departmentId,
+                new Employee().id(employeeId).firstName("F").lastName("L").title(Title.ANALYST));
+        return SampleDataset.removeEmployee(departmentId, employeeId);
+    }
+
+    /**
+     * Benchmarks updating the {@link Employee}'s first name.
+     *
+     * @return the {@link Optional} with the {@link Employee}
+     */
+    @Benchmark
+    public Optional<Employee> mergeEmployee() {
+
+        final long departmentId = randomDepartmentId();
+        final long employeeId = randomEmployeeId(departmentId);
+        return SampleDataset.mergeEmployee(departmentId, employeeId,
+                new Employee().firstName("EF-Merged-" + employeeId));
+    }
+
+    /**
+     * Draws the random {@link Department}'s id from the loaded dataset.
+     *
+     * @return the {@link Department}'s id
+     */
+    private long randomDepartmentId() {
+        return ThreadLocalRandom.current().nextLong(DEP_INDEX_LOWER_BOUND, depIndex + 1);
+    }
+
+    /**
+     * Draws the random {@link Employee}'s id of the {@link Department} from the loaded dataset.
+     *
+     * @param departmentId the {@link Department}'s id
+     * @return the {@link Employee}'s id
+     */
+    private long randomEmployeeId(long departmentId) {
+
+        return EMP_INDEX_FUN.applyAsLong(departmentId,
+                ThreadLocalRandom.current().nextLong(EMP_INDEX_LOWER_BOUND, empIndex + 1));
+    }
+}
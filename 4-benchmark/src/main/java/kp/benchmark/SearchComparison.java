@@ -0,0 +1,173 @@
+package kp.benchmark;
+
+import kp.SampleDataset;
+import kp.company.model.Employee;
+import kp.company.model.Title;
+import kp.dataset.DatasetStorage;
+import kp.dataset.EmployeeQuery;
+import kp.dataset.EmployeeSearchIndex;
+import kp.dataset.Page;
+
+import java.lang.management.ManagementFactory;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.function.Supplier;
+
+import static kp.Constants.EMP_INDEX_FUN;
+
+/**
+ * The comparison of the {@link Employee}s search with and without the {@link EmployeeSearchIndex}.
+ * <p>
+ * For every {@link DatasetStorage} the sample dataset is loaded without the index, then the index is built.
+ * The build time and the heap taken by the index are measured. Then the mean time of the first page
+ * of the search is measured for every kind of the {@link EmployeeQuery} with the random filters,
+ * first with the index, after the warm-up round, and then with the scan of all {@link Employee}s.
+ * The results are printed as CSV.
+ * </p>
+ * <p>
+ * The arguments are the number of departments and the number of employees in every department.
+ * The employee's index is below 100, as required by the sample dataset id scheme.
+ * </p>
+ */
+public class SearchComparison {
+
+    private static final long DEFAULT_DEPARTMENTS = 20_000;
+    private static final long DEFAULT_EMPLOYEES = 99;
+    private static final int GC_ROUNDS = 5;
+    private static final int PAGE_SIZE = 100;
+    private static final int INDEXED_SEARCHES = 20_000;
+    private static final int SCANNED_SEARCHES = 3;
+    private static final String CSV_HEADER = "storage,employees,indexBuildMillis,indexHeapBytesPerEmployee,"
+                                             + "query,indexedMicros,scannedMicros";
+    private static final String CSV_ROW = "%s,%d,%d,%.1f,%s,%.1f,%.1f";
+    private static final Title[] TITLES = Title.values();
+
+    /**
+     * Private constructor to prevent instantiation.
+     */
+    private SearchComparison() {
+    }
+
+    /**
+     * The entry point of the comparison.
+     *
+     * @param args the number of departments and the number of employees in every department
+     * @throws InterruptedException if interrupted
+     */
+    public static void main(String[] args) throws InterruptedException {
+
+        Locale.setDefault(Locale.ENGLISH);
+        final long departments = args.length > 0 ? Long.parseLong(args[0]) : DEFAULT_DEPARTMENTS;
+        final long employees = args.length > 1 ? Long.parseLong(args[1]) : DEFAULT_EMPLOYEES;
+        final List<String> rows = new ArrayList<>();
+        for (DatasetStorage storage : DatasetStorage.values()) {
+            rows.addAll(measure(storage, departments, employees));
+        }
+        System.out.println(CSV_HEADER);
+        rows.forEach(System.out::println);
+    }
+
+    /**
+     * Measures one storage.
+     *
+     * @param storage     the {@link DatasetStorage}
+     * @param departments the number of departments
+     * @param employees   the number of employees in every department
+     * @return the CSV rows, one for every kind of the {@link EmployeeQuery}
+     * @throws InterruptedException if interrupted
+     */
+    private static List<String> measure(DatasetStorage storage, long departments, long employees)
+            throws InterruptedException {
+
+        SampleDataset.setSearchIndexEnabled(false);
+        SampleDataset.setDatasetStorage(storage);
+        SampleDataset.loadDataset(0, 0);
+        SampleDataset.loadDataset(departments, employees);
+        final long count = SampleDataset.snapshot().repository().countEmployees();
+        final long heapWithoutIndex = usedHeapAfterGc();
+        final long start = System.nanoTime();
+        SampleDataset.setSearchIndexEnabled(true);
+        final long buildMillis = (System.nanoTime() - start) / 1_000_000;
+        final double indexBytesPerEmployee = (double) (usedHeapAfterGc() - heapWithoutIndex) / count;
+        final Map<String, Supplier<EmployeeQuery>> queries = queries(departments, employees);
+        queries.values().forEach(query -> searchMicros(query, INDEXED_SEARCHES));
+        final Map<String, Double> indexedMicros = new LinkedHashMap<>();
+        queries.forEach((name, query) -> indexedMicros.put(name, searchMicros(query, INDEXED_SEARCHES)));
+        SampleDataset.setSearchIndexEnabled(false);
+        final List<String> rows = new ArrayList<>();
+        queries.forEach((name, query) -> rows.add(CSV_ROW.formatted(storage.name().toLowerCase(), count,
+                buildMillis, indexBytesPerEmployee, name, indexedMicros.get(name),
+                searchMicros(query, SCANNED_SEARCHES))));
+        return rows;
+    }
+
+    /**
+     * Creates the suppliers of the random {@link EmployeeQuery}s by their kind.
+     *
+     * @param departments the number of departments
+     * @param employees   the number of employees in every department
+     * @return the suppliers of the {@link EmployeeQuery}s
+     */
+    private static Map<String, Supplier<EmployeeQuery>> queries(long departments, long employees) {
+
+        final ThreadLocalRandom random = ThreadLocalRandom.current();
+        final Supplier<Long> randomId = () -> EMP_INDEX_FUN.applyAsLong(
+                1 + random.nextLong(departments), 1 + random.nextLong(employees));
+        final Supplier<Title> randomTitle = () -> TITLES[random.nextInt(TITLES.length)];
+        final Map<String, Supplier<EmployeeQuery>> queries = new LinkedHashMap<>();
+        queries.put("title", () -> new EmployeeQuery(randomTitle.get(), null, null, null,
+                randomId.get(), null));
+        queries.put("department", () -> new EmployeeQuery(null, 1 + random.nextLong(departments), null, null,
+                null, null));
+        queries.put("firstNamePrefix", () -> new EmployeeQuery(null, null,
+                "EF-Name-" + randomId.get() / 100, null, null, null));
+        queries.put("lastNamePrefixAndTitle", () -> new EmployeeQuery(randomTitle.get(), null, null,
+                "EL-Name-" + (1 + random.nextInt(9)), null, null));
+        queries.put("idRange", () -> {
+            final long minId = randomId.get();
+            return new EmployeeQuery(null, null, null, null, minId, minId + 1_000);
+        });
+        return queries;
+    }
+
+    /**
+     * Measures the mean time of the first page of the search.
+     *
+     * @param query    the supplier of the {@link EmployeeQuery}
+     * @param searches the number of the searches
+     * @return the mean time in microseconds
+     */
+    private static double searchMicros(Supplier<EmployeeQuery> query, int searches) {
+
+        long found = 0;
+        final long start = System.nanoTime();
+        for (int i = 0; i < searches; i++) {
+            found += SampleDataset.searchEmployees(query.get(), null, PAGE_SIZE)
+                    .map(Page::items).map(List::size).orElse(0);
+        }
+        final long elapsed = System.nanoTime() - start;
+        if (found == 0) {
+            throw new IllegalStateException("No employees found");
+        }
+        return elapsed / 1_000.0 / searches;
+    }
+
+    /**
+     * Gets the used heap after the full garbage collection.
+     *
+     * @return the used heap in bytes
+     * @throws InterruptedException if interrupted
+     */
+    private static long usedHeapAfterGc() throws InterruptedException {
+
+        for (int i = 0; i < GC_ROUNDS; i++) {
+            System.gc();
+            Thread.sleep(100);
+        }
+        return ManagementFactory.getMemoryMXBean().getHeapMemoryUsage().getUsed();
+    }
+}
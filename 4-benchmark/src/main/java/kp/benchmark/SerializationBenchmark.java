@@ -0,0 +1,112 @@
+package kp.benchmark;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import kp.SampleDataset;
+import kp.company.model.Department;
+import kp.company.model.Employee;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+
+import java.io.IOException;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * The benchmarks of the Jackson serialization of the generated {@link Department}s and {@link Employee}s.
+ * <p>
+ * The {@link ObjectMapper} is built like in the server. The indented output is benchmarked as well,
+ * because the server enables it in its configuration.
+ * </p>
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class SerializationBenchmark {
+
+    private static final long DEPARTMENTS = 10;
+
+    @Param({"10", "100", "1000"})
+    private long employeesPerDepartment;
+    @Param({"false", "true"})
+    private boolean indentOutput;
+    private ObjectMapper objectMapper;
+    private Employee employee;
+    private Department department;
+    private List<Department> departments;
+    private byte[] departmentJson;
+
+    /**
+     * Generates the serialized models.
+     *
+     * @throws JsonProcessingException if the serialization fails
+     */
+    @Setup(Level.Trial)
+    public void setup() throws JsonProcessingException {
+
+        objectMapper = Jackson2ObjectMapperBuilder.json().indentOutput(indentOutput).build();
+        SampleDataset.loadDataset(DEPARTMENTS, employeesPerDepartment);
+        departments = SampleDataset.getDepartments();
+        department = departments.getFirst();
+        employee = department.getEmployees().getFirst();
+        departmentJson = objectMapper.writeValueAsBytes(department);
+    }
+
+    /**
+     * Benchmarks serializing the {@link Employee}.
+     *
+     * @return the JSON bytes
+     * @throws JsonProcessingException if the serialization fails
+     */
+    @Benchmark
+    public byte[] serializeEmployee() throws JsonProcessingException {
+        return objectMapper.writeValueAsBytes(employee);
+    }
+
+    /**
+     * Benchmarks serializing the {@link Department} with its {@link Employee}s.
+     *
+     * @return the JSON bytes
+     * @throws JsonProcessingException if the serialization fails
+     */
+    @Benchmark
+    public byte[] serializeDepartment() throws JsonProcessingException {
+        return objectMapper.writeValueAsBytes(department);
+    }
+
+    /**
+     * Benchmarks serializing the list of {@link Department}s.
+     *
+     * @return the JSON bytes
+     * @throws JsonProcessingException if the serialization fails
+     */
+    @Benchmark
+    public byte[] serializeDepartments() throws JsonProcessingException {
+        return objectMapper.writeValueAsBytes(departments);
+    }
+
+    /**
+     * Benchmarks deserializing the {@link Department} with its {@link Employee}s.
+     *
+     * @return the {@link Department}
+     * @throws IOException if the deserialization fails
+     */
+    @Benchmark
+    public Department deserializeDepartment() throws IOException {
+        return objectMapper.readValue(departmentJson, Department.class);
+    }
+}
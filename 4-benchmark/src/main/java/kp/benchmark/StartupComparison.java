@@ -0,0 +1,237 @@
+package kp.benchmark;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.net.ServerSocket;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Locale;
+import java.util.Optional;
+import java.util.stream.Stream;
+
+/**
+ * The comparison of the server startup modes.
+ * <p>
+ * The server is extracted by the 'startup' profile of the server build to the directory
+ * with the Spring AOT processed 'application.jar' and the JDK AOT cache 'application.aot'.
+ * For every mode the server is started in the separate process:
+ * </p>
+ * <ul>
+ * <li>'jit' - the plain start with the reflective configuration of the context
+ * <li>'springAot' - the start with the Spring AOT generated configuration of the context
+ * <li>'springAotAotCache' - the Spring AOT start with the classes loaded and linked from the JDK AOT cache
+ * </ul>
+ * <p>
+ * The time to the first request is measured from the launch of the process to the first answered request,
+ * the resident set size is read right after it. The time of the first request of the OpenAPI document
+ * shows the cost deferred by the lazy springdoc. Every process runs in its own temporary working directory,
+ * so it starts with no persisted data. The medians of the runs are printed as CSV.
+ * </p>
+ * <p>
+ * The argument is the directory of the extracted server.
+ * </p>
+ */
+public class StartupComparison {
+
+    private static final String DEFAULT_DIRECTORY = "../2-server/target/application";
+    private static final String[][] MODES = {
+            {"jit"},
+            {"springAot", "-Dspring.aot.enabled=true"},
+            {"springAotAotCache", "-Dspring.aot.enabled=true", "-XX:AOTCache=%s"}};
+    private static final int RUNS = 5;
+    private static final Duration TIMEOUT = Duration.ofSeconds(60);
+    private static final Duration POLL_INTERVAL = Duration.ofMillis(5);
+    private static final String FIRST_PATH = "/departments";
+    private static final String API_DOCS_PATH = "/v3/api-docs";
+    private static final String CSV_HEADER = "mode,runs,firstRequestMillis,rssMegabytes,apiDocsMillis";
+    private static final String CSV_ROW = "%s,%d,%d,%d,%d";
+
+    /**
+     * Private constructor to prevent instantiation.
+     */
+    private StartupComparison() {
+    }
+
+    /**
+     * The entry point of the comparison.
+     *
+     * @param args the command-line arguments
+     * @throws IOException          if an I/O error occurs
+     * @throws InterruptedException if interrupted
+     */
+    public static void main(String[] args) throws IOException, InterruptedException {
+
+        Locale.setDefault(Locale.ENGLISH);
+        final Path directory = Path.of(args.length > 0 ? args[0] : DEFAULT_DIRECTORY).toAbsolutePath().normalize();
+        final Path jar = directory.resolve("application.jar");
+        final Path aotCache = directory.resolve("application.aot");
+        if (!Files.exists(jar) || !Files.exists(aotCache)) {
+            System.err.printf("The server is not extracted to the directory[%s]%n", directory);
+            return;
+        }
+        final String java = ProcessHandle.current().info().command().orElse("java");
+        final HttpClient httpClient = HttpClient.newBuilder().version(HttpClient.Version.HTTP_1_1)
+                .connectTimeout(Duration.ofSeconds(1)).build();
+        final List<String> rows = new ArrayList<>();
+        for (String[] mode : MODES) {
+            final List<String> jvmOptions = Arrays.stream(mode).skip(1).map(option -> option.formatted(aotCache))
+                    .toList();
+            final long[][] results = new long[RUNS][];
+            for (int run = 0; run < RUNS; run++) {
+                results[run] = measure(httpClient, java, jvmOptions, jar);
+            }
+            rows.add(CSV_ROW.formatted(mode[0], RUNS, median(results, 0), median(results, 1) / (1024 * 1024),
+                    median(results, 2)));
+        }
+        System.out.println(CSV_HEADER);
+        rows.forEach(System.out::println);
+    }
+
+    /**
+     * Starts the server, measures it and stops it.
+     *
+     * @param httpClient the {@link HttpClient}
+     * @param java       the Java launcher
+     * @param jvmOptions the JVM options of the mode
+     * @param jar        the server's jar
+     * @return the time to the first request in milliseconds, the resident set size in bytes
+     * and the time of the first OpenAPI document request in milliseconds
+     * @throws IOException          if an I/O error occurs
+     * @throws InterruptedException if interrupted
+     */
+    private static long[] measure(HttpClient httpClient, String java, List<String> jvmOptions, Path jar)
+            throws IOException, InterruptedException {
+
+        final int port = findFreePort();
+        final Path workingDirectory = Files.createTempDirectory("startup");
+        final List<String> command = new ArrayList<>();
+        command.add(java);
+        command.addAll(jvmOptions);
+        command.addAll(List.of("-jar", jar.toString(), "--server.port=" + port, "--logging.level.root=warn"));
+        final long start = System.nanoTime();
+        final Process process = new ProcessBuilder(command).directory(workingDirectory.toFile())
+                .redirectErrorStream(true).redirectOutput(workingDirectory.resolve("console.log").toFile()).start();
+        try {
+            final long deadline = start + TIMEOUT.toNanos();
+            while (!answers(httpClient, port, FIRST_PATH)) {
+                if (!process.isAlive() || System.nanoTime() > deadline) {
+                    throw new IOException("The server has not started, see[%s]".formatted(workingDirectory));
+                }
+                Thread.sleep(POLL_INTERVAL);
+            }
+            final long firstRequestMillis = Duration.ofNanos(System.nanoTime() - start).toMillis();
+            final long rss = readResidentSetSize(process.pid());
+            final long apiDocsStart = System.nanoTime();
+            answers(httpClient, port, API_DOCS_PATH);
+            final long apiDocsMillis = Duration.ofNanos(System.nanoTime() - apiDocsStart).toMillis();
+            return new long[]{firstRequestMillis, rss, apiDocsMillis};
+        } finally {
+            process.destroy();
+            process.waitFor();
+            deleteDirectory(workingDirectory);
+        }
+    }
+
+    /**
+     * Sends the request and checks if the server answered it.
+     *
+     * @param httpClient the {@link HttpClient}
+     * @param port       the server port
+     * @param path       the path
+     * @return true if the server answered with any status
+     * @throws InterruptedException if interrupted
+     */
+    private static boolean answers(HttpClient httpClient, int port, String path) throws InterruptedException {
+
+        final HttpRequest request = HttpRequest.newBuilder(URI.create("http://localhost:" + port + path))
+                .timeout(TIMEOUT).build();
+        try {
+            httpClient.send(request, HttpResponse.BodyHandlers.discarding());
+            return true;
+        } catch (IOException _) {
+            return false;
+        }
+    }
+
+    /**
+     * Reads the resident set size of the process.
+     * <p>
+     * On Linux it is the 'VmRSS' of the process status, on Windows the working set reported by the 'tasklist'.
+     * </p>
+     *
+     * @param pid the process id
+     * @return the resident set size in bytes, or zero if unknown
+     * @throws IOException          if an I/O error occurs
+     * @throws InterruptedException if interrupted
+     */
+    private static long readResidentSetSize(long pid) throws IOException, InterruptedException {
+
+        final Path status = Path.of("/proc/%d/status".formatted(pid));
+        if (Files.exists(status)) {
+            final Optional<String> lineOpt = Files.readAllLines(status).stream()
+                    .filter(line -> line.startsWith("VmRSS:")).findFirst();
+            return lineOpt.map(line -> Long.parseLong(line.replaceAll("\\D", "")) * 1024).orElse(0L);
+        }
+        final Process tasklist = new ProcessBuilder("tasklist", "/FI", "PID eq %d".formatted(pid), "/FO", "CSV",
+                "/NH").redirectErrorStream(true).start();
+        final String output = new String(tasklist.getInputStream().readAllBytes(), StandardCharsets.UTF_8);
+        tasklist.waitFor();
+        final String[] fields = output.strip().split("\",\"");
+        return fields.length < 5 ? 0 : Long.parseLong(fields[4].replaceAll("\\D", "")) * 1024;
+    }
+
+    /**
+     * Finds the free local port.
+     *
+     * @return the port
+     * @throws IOException if an I/O error occurs
+     */
+    private static int findFreePort() throws IOException {
+
+        try (ServerSocket serverSocket = new ServerSocket(0)) {
+            return serverSocket.getLocalPort();
+        }
+    }
+
+    /**
+     * Deletes the directory with its content.
+     *
+     * @param directory the directory
+     * @throws IOException if an I/O error occurs
+     */
+    private static void deleteDirectory(Path directory) throws IOException {
+
+        try (Stream<Path> paths = Files.walk(directory)) {
+            paths.sorted(Comparator.reverseOrder()).forEach(path -> {
+                try {
+                    Files.delete(path);
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+            });
+        }
+    }
+
+    /**
+     * Gets the median of the result column.
+     *
+     * @param results the results of the runs
+     * @param column  the column index
+     * @return the median
+     */
+    private static long median(long[][] results, int column) {
+
+        final long[] values = Arrays.stream(results).mapToLong(result -> result[column]).sorted().toArray();
+        return values[values.length / 2];
+    }
+}
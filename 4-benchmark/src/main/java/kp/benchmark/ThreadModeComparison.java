@@ -0,0 +1,181 @@
+package kp.benchmark;
+
+import kp.company.Application;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.net.Socket;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * The load-test comparison of the platform-thread and the virtual-thread request execution modes.
+ * <p>
+ * For every mode the server is started in-process. The slow clients read the list of all employees
+ * in small chunks with pauses, so they hold the request threads. Meanwhile, the fast clients measure
+ * the latency of the department and employee endpoints. With the platform threads the slow clients
+ * exhaust the Tomcat pool and the fast requests queue behind them.
+ * The results are printed as CSV.
+ * </p>
+ */
+public class ThreadModeComparison {
+
+    private static final String[] VIRTUAL_MODES = {"false", "true"};
+    private static final int SLOW_CLIENTS = 400;
+    private static final int FAST_CLIENTS = 8;
+    private static final Duration DURATION = Duration.ofSeconds(20);
+    private static final int SLOW_READ_CHUNK = 8 * 1024;
+    private static final Duration SLOW_READ_PAUSE = Duration.ofMillis(10);
+    private static final String LOAD_PATH = "/loadSampleDataset?depIndex=100&empIndex=100";
+    private static final String SLOW_PATH = "/employees";
+    private static final String[] FAST_PATHS = {"/departments/1", "/departments/50/employees/5001"};
+    private static final String SLOW_REQUEST = "GET %s HTTP/1.1\r\nHost: localhost\r\nConnection: close\r\n\r\n";
+    private static final String CSV_HEADER =
+            "virtualThreads,slowCompleted,fastRequests,fastPerSecond,fastP50Millis,fastP99Millis,fastMaxMillis";
+    private static final String CSV_ROW = "%s,%d,%d,%d,%.1f,%.1f,%.1f";
+
+    /**
+     * Private constructor to prevent instantiation.
+     */
+    private ThreadModeComparison() {
+    }
+
+    /**
+     * The entry point of the comparison.
+     *
+     * @param args the command-line arguments
+     * @throws IOException          if an I/O error occurs
+     * @throws InterruptedException if interrupted
+     */
+    public static void main(String[] args) throws IOException, InterruptedException {
+
+        Locale.setDefault(Locale.ENGLISH);
+        final List<String> rows = new ArrayList<>();
+        for (String virtual : VIRTUAL_MODES) {
+            try (ConfigurableApplicationContext context = new SpringApplicationBuilder(Application.class).properties(
+                    "server.port=0", "spring.threads.virtual.enabled=" + virtual, "persistence.enabled=false",
+                    "logging.level.root=warn").run(args)) {
+                final int port = Integer.parseInt(context.getEnvironment().getProperty("local.server.port", "0"));
+                rows.add(measure(virtual, port));
+            }
+        }
+        System.out.println(CSV_HEADER);
+        rows.forEach(System.out::println);
+    }
+
+    /**
+     * Measures the server in one mode.
+     *
+     * @param virtual the virtual-thread mode flag
+     * @param port    the server port
+     * @return the CSV row
+     * @throws IOException          if an I/O error occurs
+     * @throws InterruptedException if interrupted
+     */
+    private static String measure(String virtual, int port) throws IOException, InterruptedException {
+
+        final HttpClient httpClient = HttpClient.newBuilder().version(HttpClient.Version.HTTP_1_1).build();
+        send(httpClient, port, LOAD_PATH);
+        final long deadline = System.nanoTime() + DURATION.toNanos();
+        final AtomicLong slowCompleted = new AtomicLong();
+        final ConcurrentLinkedQueue<Long> fastLatencies = new ConcurrentLinkedQueue<>();
+        try (ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor()) {
+            for (int i = 0; i < SLOW_CLIENTS; i++) {
+                executor.submit(() -> {
+                    while (System.nanoTime() < deadline) {
+                        readSlowly(port);
+                        slowCompleted.incrementAndGet();
+                    }
+                    return null;
+                });
+            }
+            for (int i = 0; i < FAST_CLIENTS; i++) {
+                final String path = FAST_PATHS[i % FAST_PATHS.length];
+                executor.submit(() -> {
+                    while (System.nanoTime() < deadline) {
+                        final long start = System.nanoTime();
+                        send(httpClient, port, path);
+                        fastLatencies.add(System.nanoTime() - start);
+                    }
+                    return null;
+                });
+            }
+            executor.shutdown();
+            executor.awaitTermination(DURATION.toSeconds() * 10, TimeUnit.SECONDS);
+        }
+        final long[] latencies = fastLatencies.stream().mapToLong(Long::longValue).sorted().toArray();
+        return CSV_ROW.formatted(virtual, slowCompleted.get(), latencies.length,
+                latencies.length / DURATION.toSeconds(), percentileMillis(latencies, 0.5),
+                percentileMillis(latencies, 0.99), percentileMillis(latencies, 1.0));
+    }
+
+    /**
+     * Sends the request and discards the response.
+     *
+     * @param httpClient the {@link HttpClient}
+     * @param port       the server port
+     * @param path       the path
+     * @throws IOException          if an I/O error occurs
+     * @throws InterruptedException if interrupted
+     */
+    private static void send(HttpClient httpClient, int port, String path) throws IOException, InterruptedException {
+
+        final HttpRequest request = HttpRequest.newBuilder(URI.create("http://localhost:" + port + path)).build();
+        httpClient.send(request, HttpResponse.BodyHandlers.discarding());
+    }
+
+    /**
+     * Requests the list of all employees and reads the response slowly.
+     *
+     * @param port the server port
+     * @throws IOException          if an I/O error occurs
+     * @throws InterruptedException if interrupted
+     */
+    private static void readSlowly(int port) throws IOException, InterruptedException {
+
+        try (Socket socket = new Socket()) {
+            socket.setReceiveBufferSize(SLOW_READ_CHUNK);
+            socket.connect(new InetSocketAddress("localhost", port));
+            final OutputStream output = socket.getOutputStream();
+            output.write(SLOW_REQUEST.formatted(SLOW_PATH).getBytes(StandardCharsets.US_ASCII));
+            output.flush();
+            final InputStream input = socket.getInputStream();
+            final byte[] buffer = new byte[SLOW_READ_CHUNK];
+            while (input.read(buffer) >= 0) {
+                Thread.sleep(SLOW_READ_PAUSE);
+            }
+        }
+    }
+
+    /**
+     * Gets the percentile of the sorted latencies.
+     *
+     * @param sortedLatencies the sorted latencies in nanoseconds
+     * @param percentile      the percentile in the range from 0 to 1
+     * @return the percentile in milliseconds
+     */
+    private static double percentileMillis(long[] sortedLatencies, double percentile) {
+
+        if (sortedLatencies.length == 0) {
+            return Double.NaN;
+        }
+        final int index = (int) Math.ceil(percentile * sortedLatencies.length) - 1;
+        return sortedLatencies[Math.clamp(index, 0, sortedLatencies.length - 1)] / 1e6;
+    }
+}
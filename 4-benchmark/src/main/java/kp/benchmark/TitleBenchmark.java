@@ -0,0 +1,54 @@
+package kp.benchmark;
+
+import kp.SampleDataset;
+import kp.company.model.Title;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * The benchmarks of the {@link Title} generation.
+ * <p>
+ * The baseline copies the array of the {@link Title}s on every call, as {@link Title#values()} does.
+ * </p>
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class TitleBenchmark {
+
+    private long employeeId;
+
+    /**
+     * Benchmarks the {@link SampleDataset#generateTitle(long)}.
+     *
+     * @return the {@link Title}
+     */
+    @Benchmark
+    public Title generateTitle() {
+        return SampleDataset.generateTitle(++employeeId);
+    }
+
+    /**
+     * Benchmarks the {@link Title} generation copying the array of the {@link Title}s.
+     *
+     * @return the {@link Title}
+     */
+    @Benchmark
+    public Title generateTitleWithValuesCopy() {
+
+        final Title[] titles = Title.values();
+        return titles[(int) (++employeeId % titles.length)];
+    }
+}